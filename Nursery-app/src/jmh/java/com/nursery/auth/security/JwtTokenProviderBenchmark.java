@@ -0,0 +1,71 @@
+package com.nursery.auth.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating a request's bearer token. A repeat token is answered from the
+ * verified-token cache; the uncached case derives the key, builds a parser and verifies
+ * the signature, as every token accessor did before the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        provider = new JwtTokenProvider();
+        set("jwtSecret", SECRET);
+        set("jwtExpiration", 86_400_000L);
+        set("cacheMaxSize", 10_000L);
+        provider.validateSecret();
+        token = provider.generateToken("user-1", "9999999999");
+        provider.authenticate(token);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> cached() {
+        return provider.authenticate(token);
+    }
+
+    @Benchmark
+    public Claims uncached() {
+        return Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
+    }
+
+    private void set(String field, Object value) throws ReflectiveOperationException {
+        // Injected by Spring from jwt.* properties in the application
+        Field declared = JwtTokenProvider.class.getDeclaredField(field);
+        declared.setAccessible(true);
+        declared.set(provider, value);
+    }
+}
@@ -0,0 +1,102 @@
+package com.nursery.common.firestore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-amount cost of {@link MoneyCodec} on a page of stored payment amounts: encoding
+ * amounts entered at one, two or three decimal places (10.5, 10.50, 10.500), which all
+ * normalize to two, decoding exact and legacy double amounts, and totalling a page in
+ * minor units as a primitive long against adding decoded BigDecimals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyCodecBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private BigDecimal[] amounts;
+    private List<Map<String, Object>> encoded;
+    private Double[] legacy;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[AMOUNTS];
+        encoded = new ArrayList<>(AMOUNTS);
+        legacy = new Double[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            // Whole tens of cents, so every amount can also be written at one decimal place
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(1_000_000), 1);
+            amounts[i] = amount.setScale(1 + i % 3);
+            encoded.add(MoneyCodec.encode(amounts[i]));
+            legacy[i] = amounts[i].doubleValue();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public void encode(Blackhole blackhole) {
+        for (BigDecimal amount : amounts) {
+            blackhole.consume(MoneyCodec.encode(amount));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public void decode(Blackhole blackhole) {
+        for (Map<String, Object> amount : encoded) {
+            blackhole.consume(MoneyCodec.decode(amount));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public void decodeLegacyDouble(Blackhole blackhole) {
+        for (Double amount : legacy) {
+            blackhole.consume(MoneyCodec.decode(amount));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public long sumMinorUnits() {
+        long total = 0;
+        for (Map<String, Object> amount : encoded) {
+            total += MoneyCodec.minorUnits(amount, MoneyCodec.DEFAULT_SCALE);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public BigDecimal sumDecoded() {
+        BigDecimal total = BigDecimal.ZERO.setScale(MoneyCodec.DEFAULT_SCALE);
+        for (Map<String, Object> amount : encoded) {
+            total = total.add(MoneyCodec.decode(amount).setScale(MoneyCodec.DEFAULT_SCALE, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+package com.nursery.common.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GcraRateLimiter} under many threads. With one key every request races for the same
+ * CAS, the worst case for the retry loop; with many keys threads mostly hit separate cells
+ * and the cost is the cache lookup. The open policy never rejects, so every call writes;
+ * the saturated one rejects after its first request, so calls only read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class GcraRateLimiterBenchmark {
+
+    private static final RateLimitPolicy OPEN = new RateLimitPolicy("open", 1_000_000_000, Duration.ofSeconds(1), 1_000_000_000);
+    private static final RateLimitPolicy SATURATED = RateLimitPolicy.perMinute("saturated", 1, 1);
+
+    @Param({"1", "1024"})
+    public int keyCount;
+
+    private GcraRateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new GcraRateLimiter(100_000, Duration.ofMinutes(10));
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "user-" + i;
+        }
+    }
+
+    /**
+     * Each thread walks the keys from its own random start, so threads do not move in lockstep.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next = ThreadLocalRandom.current().nextInt(1 << 16);
+
+        String key(String[] keys) {
+            return keys[Math.floorMod(next++, keys.length)];
+        }
+    }
+
+    @Benchmark
+    public RateLimitDecision allowed(Cursor cursor) {
+        return limiter.tryAcquire(OPEN, cursor.key(keys));
+    }
+
+    @Benchmark
+    public RateLimitDecision rejected(Cursor cursor) {
+        return limiter.tryAcquire(SATURATED, cursor.key(keys));
+    }
+}
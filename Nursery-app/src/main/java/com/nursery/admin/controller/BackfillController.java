@@ -0,0 +1,71 @@
+package com.nursery.admin.controller;
+
+import com.nursery.common.dto.ApiResponse;
+import com.nursery.common.firestore.migration.Backfill;
+import com.nursery.common.firestore.migration.BackfillDocument;
+import com.nursery.common.firestore.migration.BackfillExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator endpoints for collection backfills; restricted to admin.user-ids.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/backfills")
+@RequiredArgsConstructor
+public class BackfillController {
+    
+    private final BackfillExecutor backfillExecutor;
+    
+    /**
+     * Registered backfills and the collection each one scans.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, String>>> findAll() {
+        Map<String, String> backfills = new LinkedHashMap<>();
+        for (Backfill backfill : backfillExecutor.getBackfills()) {
+            backfills.put(backfill.getId(), backfill.getCollection());
+        }
+        return ResponseEntity.ok(ApiResponse.success(backfills));
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<BackfillDocument>> getProgress(
+            @PathVariable("id") String id,
+            @RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(ApiResponse.success(backfillExecutor.getProgress(id, dryRun)));
+    }
+    
+    /**
+     * Start a backfill, or resume it from its last checkpoint unless restart is set.
+     * A dry run only counts the documents that would change.
+     */
+    @PostMapping("/{id}")
+    public ResponseEntity<ApiResponse<BackfillDocument>> start(
+            @PathVariable("id") String id,
+            @RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun,
+            @RequestParam(name = "docsPerSecond", required = false) Double docsPerSecond,
+            @RequestParam(name = "restart", defaultValue = "false") boolean restart) {
+        log.info("REST request to start backfill {} (dryRun={}, docsPerSecond={}, restart={})",
+            id, dryRun, docsPerSecond, restart);
+        BackfillDocument progress = backfillExecutor.start(id, dryRun, docsPerSecond, restart);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success("Backfill started", progress));
+    }
+    
+    @PostMapping("/{id}/stop")
+    public ResponseEntity<ApiResponse<Void>> stop(
+            @PathVariable("id") String id,
+            @RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) {
+        log.info("REST request to stop backfill {} (dryRun={})", id, dryRun);
+        backfillExecutor.stop(id, dryRun);
+        return ResponseEntity.ok(ApiResponse.success("Backfill stopping after its current page", null));
+    }
+}
@@ -0,0 +1,42 @@
+package com.nursery.admin.controller;
+
+import com.nursery.common.dto.ApiResponse;
+import com.nursery.inventory.dto.response.InventoryReconciliationReportDTO;
+import com.nursery.inventory.service.InventoryCheckpointService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Operator endpoints for inventory checkpoints and drift checks; restricted to admin.user-ids.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/inventory")
+@RequiredArgsConstructor
+public class InventoryReconciliationController {
+    
+    private final InventoryCheckpointService checkpointService;
+    
+    /**
+     * Verify every breed of a nursery against its ledger, from the latest checkpoint or,
+     * when full, from the first transaction. Drift is reported, not corrected.
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<ApiResponse<InventoryReconciliationReportDTO>> reconcile(
+            @RequestParam(name = "nurseryId") String nurseryId,
+            @RequestParam(name = "full", defaultValue = "false") boolean full) {
+        log.info("REST request to reconcile inventory of nurseryId={} (full={})", nurseryId, full);
+        return ResponseEntity.ok(ApiResponse.success(checkpointService.reconcile(nurseryId, full)));
+    }
+    
+    /**
+     * Write any checkpoints due for a nursery now rather than on the next scheduled run.
+     */
+    @PostMapping("/checkpoints")
+    public ResponseEntity<ApiResponse<Integer>> checkpoint(@RequestParam(name = "nurseryId") String nurseryId) {
+        log.info("REST request to checkpoint inventory of nurseryId={}", nurseryId);
+        return ResponseEntity.ok(ApiResponse.success(checkpointService.checkpointNursery(nurseryId)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.nursery.admin.controller;
+
+import com.nursery.common.dto.ApiResponse;
+import com.nursery.payment.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Operator endpoints for payment totals; restricted to admin.user-ids.
+ * Per-transaction totals are backfilled by the transaction-payment-totals backfill.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/payments")
+@RequiredArgsConstructor
+public class PaymentTotalsController {
+    
+    private final PaymentService paymentService;
+    
+    /**
+     * Recompute a nursery's daily totals for [from, to] from its payments.
+     */
+    @PostMapping("/daily-totals/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildDailyTotals(
+            @RequestParam(name = "nurseryId") String nurseryId,
+            @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("REST request to rebuild payment daily totals of nurseryId={} from {} to {}", nurseryId, from, to);
+        return ResponseEntity.ok(ApiResponse.success(paymentService.rebuildDailyTotals(nurseryId, from, to)));
+    }
+}
@@ -5,10 +5,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -25,6 +28,12 @@ public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    /**
+     * User IDs allowed on /admin endpoints; empty disables them.
+     */
+    @Value("${admin.user-ids:}")
+    private String adminUserIds;
+    
     @Value("${spring.web.cors.allowed-origins}")
     private String allowedOrigins;
     
@@ -57,6 +66,8 @@ public class SecurityConfig {
                     "/actuator/health"
                 ).permitAll()
                 .requestMatchers("/auth/signup").authenticated()
+                .requestMatchers("/admin/**").access((authentication, context) ->
+                    new AuthorizationDecision(isAdmin(authentication.get())))
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -64,6 +75,16 @@ public class SecurityConfig {
         return http.build();
     }
     
+    private boolean isAdmin(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return false;
+        }
+        return Arrays.stream(adminUserIds.split(","))
+            .map(String::trim)
+            .anyMatch(id -> !id.isEmpty() && id.equals(authentication.getName()));
+    }
+    
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -97,7 +118,7 @@ public class SecurityConfig {
         configuration.setMaxAge(maxAge);
         
         // Exposed headers
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Correlation-ID"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Correlation-ID", "ETag"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
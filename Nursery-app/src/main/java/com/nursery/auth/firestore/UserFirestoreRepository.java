@@ -1,11 +1,11 @@
 package com.nursery.auth.firestore;
 
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.nursery.common.firestore.BaseFirestoreRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -29,8 +29,7 @@ public class UserFirestoreRepository extends BaseFirestoreRepository<UserDocumen
         Query query = buildQuery()
             .whereEqualTo("phone", phone)
             .whereEqualTo("isDeleted", false);
-        List<UserDocument> results = executeQuery(query);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        return findFirst(query);
     }
     
     public Optional<UserDocument> findByPhoneAndNotDeleted(String phone) {
@@ -41,8 +40,26 @@ public class UserFirestoreRepository extends BaseFirestoreRepository<UserDocumen
         Query query = buildQuery()
             .whereEqualTo("phone", phone)
             .whereEqualTo("isDeleted", false);
-        List<UserDocument> results = executeQuery(query);
-        return !results.isEmpty();
+        return exists(query);
+    }
+    
+    /**
+     * Replace a user's password hash unless it changed since expectedHash was read, so a
+     * password set meanwhile is never overwritten by a hash of the old one.
+     * 
+     * @return false when the stored hash no longer matches
+     */
+    public boolean replacePasswordHash(String userId, String expectedHash, String newHash) {
+        return runInTransaction(transaction -> {
+            Optional<UserDocument> user = findById(userId, transaction);
+            if (user.isEmpty() || !expectedHash.equals(user.get().getPasswordHash())) {
+                return false;
+            }
+            transaction.update(firestore.collection(getCollectionName()).document(userId),
+                "passwordHash", newHash,
+                "updatedAt", Timestamp.now());
+            return true;
+        });
     }
 }
 
@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -29,9 +30,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         String token = getTokenFromRequest(request);
         
-        if (token != null && jwtTokenProvider.validateToken(token)) {
-            String userId = jwtTokenProvider.getUserIdFromToken(token);
-            String phone = jwtTokenProvider.getPhoneFromToken(token);
+        Optional<JwtPrincipal> principal = jwtTokenProvider.authenticate(token);
+        if (principal.isPresent()) {
+            String userId = principal.get().getUserId();
+            String phone = principal.get().getPhone();
             
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 userId,
@@ -0,0 +1,25 @@
+package com.nursery.auth.security;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified JWT.
+ */
+@Value
+public class JwtPrincipal {
+
+    String userId;
+
+    String phone;
+
+    /**
+     * Token expiry, or null when the token has no exp claim.
+     */
+    Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -1,6 +1,10 @@
 package com.nursery.auth.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -10,7 +14,13 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -22,8 +32,21 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
     
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+    
     private static final int MIN_SECRET_LENGTH = 32; // Minimum 256 bits
     
+    // Derived once from the secret; both are immutable and thread-safe
+    private SecretKey key;
+    private JwtParser parser;
+    
+    /**
+     * Verified tokens keyed by SHA-256 of the token, each entry expiring at the token's exp.
+     * Invalid tokens are never cached.
+     */
+    private Cache<String, JwtPrincipal> verifiedTokens;
+    
     @PostConstruct
     public void validateSecret() {
         if (jwtSecret == null || jwtSecret.length() < MIN_SECRET_LENGTH) {
@@ -37,6 +60,31 @@ public class JwtTokenProvider {
             log.warn("JWT secret appears to be a default/development secret. Please change it for production!");
         }
         
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfter(new Expiry<String, JwtPrincipal>() {
+                @Override
+                public long expireAfterCreate(String digest, JwtPrincipal principal, long currentTime) {
+                    if (principal.getExpiresAt() == null) {
+                        return Duration.ofMillis(jwtExpiration).toNanos();
+                    }
+                    return Math.max(0, Duration.between(Instant.now(), principal.getExpiresAt()).toNanos());
+                }
+                
+                @Override
+                public long expireAfterUpdate(String digest, JwtPrincipal principal, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+                
+                @Override
+                public long expireAfterRead(String digest, JwtPrincipal principal, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+        
         log.info("JWT secret validated successfully");
     }
 
@@ -44,8 +92,6 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
         return Jwts.builder()
             .subject(userId)
             .claim("phone", phone)
@@ -55,49 +101,63 @@ public class JwtTokenProvider {
             .compact();
     }
 
-    public String getUserIdFromToken(String token) {
-        Claims claims = parseClaims(token);
-        return claims.getSubject();
-    }
-
-    public String getPhoneFromToken(String token) {
-        Claims claims = parseClaims(token);
-        return claims.get("phone", String.class);
-    }
-    
-    public boolean validateToken(String token) {
+    /**
+     * Verify a token and return its principal, or empty when the token is missing, malformed,
+     * wrongly signed or expired. The signature is verified once per distinct token; later
+     * calls with the same token are answered from the cache until the token expires.
+     */
+    public Optional<JwtPrincipal> authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            log.debug("Token is null or empty");
+            return Optional.empty();
+        }
+        
+        Instant now = Instant.now();
+        String digest = digest(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired(now)) {
+            return Optional.of(cached);
+        }
+        
         try {
-            if (token == null || token.isEmpty()) {
-                log.debug("Token is null or empty");
-                return false;
-            }
-            
-            Claims claims = parseClaims(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            JwtPrincipal principal = new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("phone", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
             
             // Additional validation: check expiration
-            if (claims.getExpiration() != null && claims.getExpiration().before(new Date())) {
+            if (principal.isExpired(now)) {
                 log.debug("Token has expired");
-                return false;
+                return Optional.empty();
             }
             
-            return true;
+            verifiedTokens.put(digest, principal);
+            return Optional.of(principal);
         } catch (Exception e) {
             log.debug("Token validation failed: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
-    private Claims parseClaims(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-        return Jwts.parser()
-            .verifyWith(key)
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
+    public String getUserIdFromToken(String token) {
+        return authenticate(token).map(JwtPrincipal::getUserId).orElse(null);
     }
-}
-
-
 
+    public String getPhoneFromToken(String token) {
+        return authenticate(token).map(JwtPrincipal::getPhone).orElse(null);
+    }
+    
+    public boolean validateToken(String token) {
+        return authenticate(token).isPresent();
+    }
 
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
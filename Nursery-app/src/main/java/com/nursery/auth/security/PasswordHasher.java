@@ -0,0 +1,206 @@
+package com.nursery.auth.security;
+
+import com.nursery.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * BCrypt hashing on a dedicated, bounded executor.
+ *
+ * Hashing is deliberately slow, so a burst of logins on request threads would starve
+ * every other endpoint. Work is queued here instead; when the queue is full the caller
+ * gets a {@link ServiceUnavailableException} (503 with Retry-After) rather than waiting.
+ *
+ * The BCrypt cost is calibrated at startup to the highest strength whose hash time stays
+ * within the target, and {@link #needsRehash} reports stored hashes below that strength.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final MeterRegistry meterRegistry;
+    private final int threads;
+    private final int queueCapacity;
+    private final long targetMillis;
+    private final int minStrength;
+    private final int maxStrength;
+    private final long timeoutSeconds;
+    private final long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private BCryptPasswordEncoder encoder;
+    private Timer verifyTimer;
+    private Timer encodeTimer;
+
+    @Getter
+    private int strength;
+
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${password.hashing.threads:0}") int threads,
+                          @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${password.hashing.target-millis:250}") long targetMillis,
+                          @Value("${password.hashing.min-strength:10}") int minStrength,
+                          @Value("${password.hashing.max-strength:14}") int maxStrength,
+                          @Value("${password.hashing.timeout-seconds:10}") long timeoutSeconds,
+                          @Value("${password.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = queueCapacity;
+        this.targetMillis = targetMillis;
+        this.minStrength = minStrength;
+        this.maxStrength = maxStrength;
+        this.timeoutSeconds = timeoutSeconds;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "password-hasher-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        strength = calibrate();
+        encoder = new BCryptPasswordEncoder(strength);
+
+        verifyTimer = Timer.builder("auth.password.verify")
+            .description("Time to verify a password hash, excluding queueing")
+            .register(meterRegistry);
+        encodeTimer = Timer.builder("auth.password.encode")
+            .description("Time to hash a password, excluding queueing")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+            .description("Password hashing tasks waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing tasks running")
+            .register(meterRegistry);
+
+        log.info("Password hasher ready: BCrypt strength {}, {} threads, queue capacity {}",
+            strength, threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean matches(String rawPassword, String passwordHash) {
+        return submit(() -> verifyTimer.recordCallable(() -> encoder.matches(rawPassword, passwordHash)));
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encodeTimer.recordCallable(() -> encoder.encode(rawPassword)));
+    }
+
+    /**
+     * Hash in the background and hand the hash to onHashed on the hashing thread, for work
+     * nobody waits on. Dropped when the queue is full, so it never takes a slot a sign-in
+     * is waiting for.
+     *
+     * @return false when the task was dropped
+     */
+    public boolean encodeInBackground(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(encodeTimer.record(() -> encoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("Background password hashing task failed", e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * True when the hash was made with a lower strength than the calibrated one.
+     */
+    public boolean needsRehash(String passwordHash) {
+        return encoder.upgradeEncoding(passwordHash);
+    }
+
+    private <R> R submit(Callable<R> task) {
+        Future<R> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue full ({} waiting)", executor.getQueue().size());
+            throw new ServiceUnavailableException("Too many sign-in attempts in progress. Please retry shortly.",
+                retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Sign-in is taking too long. Please retry shortly.",
+                retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    /**
+     * Pick the highest strength whose hash time fits the target. Each step of strength
+     * doubles the work, so one timed hash at the minimum strength predicts the rest.
+     */
+    private int calibrate() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD); // warm up
+
+        long start = System.nanoTime();
+        probe.encode(CALIBRATION_PASSWORD);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+        int chosen = minStrength;
+        while (chosen < maxStrength && millis * 2 <= targetMillis) {
+            chosen++;
+            millis *= 2;
+        }
+        log.info("Calibrated BCrypt strength {} (~{} ms per hash, target {} ms)",
+            chosen, Math.round(millis), targetMillis);
+        return chosen;
+    }
+}
@@ -8,12 +8,11 @@ import com.nursery.auth.firestore.UserDocument;
 import com.nursery.auth.firestore.UserFirestoreRepository;
 import com.nursery.auth.exception.AuthException;
 import com.nursery.auth.security.JwtTokenProvider;
+import com.nursery.auth.security.PasswordHasher;
 import com.nursery.auth.validation.PasswordPolicyValidator;
 import com.nursery.nursery.service.NurseryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -25,7 +24,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final PasswordPolicyValidator passwordPolicyValidator;
     private final NurseryService nurseryService;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
     
     @Override
     public AuthResponseDTO login(LoginRequestDTO request) {
@@ -40,14 +39,15 @@ public class AuthServiceImpl implements AuthService {
         if (user.getPasswordHash() == null) {
             // Validate password policy when setting password for first time
             passwordPolicyValidator.validate(rawPassword);
-            user.setPasswordHash(passwordEncoder.encode(rawPassword));
+            user.setPasswordHash(passwordHasher.encode(rawPassword));
             userRepository.save(user);
             log.info("Password set for existing user: {}", phone);
         } else {
             // Validate password
-            if (!passwordEncoder.matches(rawPassword, user.getPasswordHash())) {
+            if (!passwordHasher.matches(rawPassword, user.getPasswordHash())) {
                 throw new AuthException("Invalid phone or password");
             }
+            rehashIfNeeded(user, rawPassword);
         }
 
         // Generate JWT using userId as subject and phone as claim
@@ -89,7 +89,7 @@ public class AuthServiceImpl implements AuthService {
         // Create new user
         UserDocument newUser = new UserDocument();
         newUser.setPhone(phone);
-        newUser.setPasswordHash(passwordEncoder.encode(rawPassword));
+        newUser.setPasswordHash(passwordHasher.encode(rawPassword));
         newUser.setNurseryId(nurseryId);
         String userId = userRepository.save(newUser);
         newUser.setId(userId);
@@ -123,9 +123,10 @@ public class AuthServiceImpl implements AuthService {
             throw new AuthException("User does not have a password set");
         }
         
-        if (!passwordEncoder.matches(rawPassword, user.getPasswordHash())) {
+        if (!passwordHasher.matches(rawPassword, user.getPasswordHash())) {
             throw new AuthException("Invalid password");
         }
+        rehashIfNeeded(user, rawPassword);
         
         // Generate JWT token for authenticated user
         String token = jwtTokenProvider.generateToken(user.getId(), user.getPhone());
@@ -155,4 +156,25 @@ public class AuthServiceImpl implements AuthService {
         
         return response;
     }
+    
+    /**
+     * Upgrade a hash made at a lower BCrypt cost, now that the raw password is known to be correct.
+     * The hash and save run in the background, so the login never waits on a second BCrypt
+     * round; when the hasher is saturated the upgrade is dropped and happens on a later login.
+     */
+    private void rehashIfNeeded(UserDocument user, String rawPassword) {
+        String oldHash = user.getPasswordHash();
+        if (!passwordHasher.needsRehash(oldHash)) {
+            return;
+        }
+        String userId = user.getId();
+        boolean queued = passwordHasher.encodeInBackground(rawPassword, newHash -> {
+            if (userRepository.replacePasswordHash(userId, oldHash, newHash)) {
+                log.info("Re-hashed password for user {} at strength {}", userId, passwordHasher.getStrength());
+            }
+        });
+        if (!queued) {
+            log.debug("Skipped password re-hash for user {}: hashing queue full", userId);
+        }
+    }
 }
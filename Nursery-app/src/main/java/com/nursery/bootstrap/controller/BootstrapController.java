@@ -0,0 +1,35 @@
+package com.nursery.bootstrap.controller;
+
+import com.nursery.bootstrap.dto.response.BootstrapResponseDTO;
+import com.nursery.bootstrap.service.BootstrapService;
+import com.nursery.common.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@RestController
+@RequestMapping("/nursery")
+@RequiredArgsConstructor
+public class BootstrapController {
+    
+    private final BootstrapService bootstrapService;
+    
+    /**
+     * Nursery, theme, saplings, breeds, inventory and dashboard in one response.
+     * Pass the etags of sections from a previous bootstrap in known to skip those still unchanged.
+     */
+    @GetMapping("/{id}/bootstrap")
+    public ResponseEntity<ApiResponse<BootstrapResponseDTO>> bootstrap(
+            @PathVariable("id") String id,
+            @RequestParam(required = false, name = "known") List<String> known) {
+        log.debug("REST request to bootstrap nurseryId={} known={}", id, known);
+        Set<String> knownEtags = known != null ? new HashSet<>(known) : Set.of();
+        return ResponseEntity.ok(ApiResponse.success(bootstrapService.bootstrap(id, knownEtags)));
+    }
+}
@@ -0,0 +1,25 @@
+package com.nursery.bootstrap.dto.response;
+
+import com.nursery.breed.dto.response.BreedResponseDTO;
+import com.nursery.dashboard.dto.response.DashboardSummaryDTO;
+import com.nursery.inventory.dto.response.InventoryResponseDTO;
+import com.nursery.nursery.dto.response.NurseryResponseDTO;
+import com.nursery.sapling.dto.response.SaplingResponseDTO;
+import com.nursery.theme.dto.response.ThemeResponseDTO;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Initial state of the app for one nursery.
+ * The nursery and the dashboard, whose sales windows move with time, are always sent.
+ */
+@Data
+public class BootstrapResponseDTO {
+    private NurseryResponseDTO nursery;
+    private BootstrapSectionDTO<ThemeResponseDTO> theme;
+    private BootstrapSectionDTO<List<SaplingResponseDTO>> saplings;
+    private BootstrapSectionDTO<List<BreedResponseDTO>> breeds;
+    private BootstrapSectionDTO<List<InventoryResponseDTO>> inventory;
+    private DashboardSummaryDTO dashboard;
+}
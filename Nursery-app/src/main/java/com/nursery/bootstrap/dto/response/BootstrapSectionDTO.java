@@ -0,0 +1,32 @@
+package com.nursery.bootstrap.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One section of a bootstrap response. A section the client already holds at its current
+ * etag is sent as unchanged, without data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BootstrapSectionDTO<T> {
+    
+    /** Pass back in known= to skip the section while it is unchanged; absent when versions are not known. */
+    private String etag;
+    
+    private Boolean unchanged;
+    
+    private T data;
+    
+    public static <T> BootstrapSectionDTO<T> unchanged(String etag) {
+        return new BootstrapSectionDTO<>(etag, true, null);
+    }
+    
+    public static <T> BootstrapSectionDTO<T> of(String etag, T data) {
+        return new BootstrapSectionDTO<>(etag, null, data);
+    }
+}
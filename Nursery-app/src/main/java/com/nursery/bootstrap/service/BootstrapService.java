@@ -0,0 +1,9 @@
+package com.nursery.bootstrap.service;
+
+import com.nursery.bootstrap.dto.response.BootstrapResponseDTO;
+
+import java.util.Set;
+
+public interface BootstrapService {
+    BootstrapResponseDTO bootstrap(String nurseryId, Set<String> knownEtags);
+}
@@ -0,0 +1,154 @@
+package com.nursery.bootstrap.service;
+
+import com.nursery.bootstrap.dto.response.BootstrapResponseDTO;
+import com.nursery.bootstrap.dto.response.BootstrapSectionDTO;
+import com.nursery.breed.dto.response.BreedResponseDTO;
+import com.nursery.breed.service.BreedService;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
+import com.nursery.dashboard.dto.response.DashboardSummaryDTO;
+import com.nursery.dashboard.service.DashboardService;
+import com.nursery.inventory.dto.response.InventoryResponseDTO;
+import com.nursery.inventory.service.InventoryService;
+import com.nursery.nursery.dto.response.NurseryResponseDTO;
+import com.nursery.nursery.service.NurseryService;
+import com.nursery.sapling.dto.response.SaplingResponseDTO;
+import com.nursery.sapling.service.SaplingService;
+import com.nursery.theme.dto.response.ThemeResponseDTO;
+import com.nursery.theme.service.ThemeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the first screen of the app in one request, loading all sections concurrently.
+ *
+ * Catalog sections are tagged with the versions of the collections they depend on, taken
+ * from {@link CollectionVersionRegistry} before loading, so a write racing with a load can
+ * only make a tag older than its data. A section whose tag the client sent back is confirmed
+ * against the nursery's version document, read once per request since this instance's
+ * mirror can lag behind other instances' writes, and then returned as unchanged.
+ */
+@Slf4j
+@Service
+public class BootstrapServiceImpl implements BootstrapService {
+
+    private final NurseryService nurseryService;
+    private final ThemeService themeService;
+    private final SaplingService saplingService;
+    private final BreedService breedService;
+    private final InventoryService inventoryService;
+    private final DashboardService dashboardService;
+    private final CollectionVersionRegistry versionRegistry;
+    private final ExecutorService executor;
+
+    public BootstrapServiceImpl(NurseryService nurseryService,
+                                ThemeService themeService,
+                                SaplingService saplingService,
+                                BreedService breedService,
+                                InventoryService inventoryService,
+                                DashboardService dashboardService,
+                                CollectionVersionRegistry versionRegistry,
+                                @Value("${bootstrap.threads:32}") int threads) {
+        this.nurseryService = nurseryService;
+        this.themeService = themeService;
+        this.saplingService = saplingService;
+        this.breedService = breedService;
+        this.inventoryService = inventoryService;
+        this.dashboardService = dashboardService;
+        this.versionRegistry = versionRegistry;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bootstrap-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public BootstrapResponseDTO bootstrap(String nurseryId, Set<String> knownEtags) {
+        log.debug("Bootstrapping nurseryId={} with {} known sections", nurseryId, knownEtags.size());
+        Supplier<Optional<Map<VersionedCollection, Long>>> storedVersions = versionRegistry.versionsReader(nurseryId);
+
+        CompletableFuture<NurseryResponseDTO> nursery =
+            CompletableFuture.supplyAsync(() -> nurseryService.findById(nurseryId), executor);
+        CompletableFuture<BootstrapSectionDTO<ThemeResponseDTO>> theme = section("theme", nurseryId, knownEtags, storedVersions,
+            () -> themeService.getByNurseryId(nurseryId), VersionedCollection.THEME);
+        CompletableFuture<BootstrapSectionDTO<List<SaplingResponseDTO>>> saplings = section("saplings", nurseryId, knownEtags, storedVersions,
+            () -> saplingService.findAll(nurseryId, null), VersionedCollection.SAPLINGS);
+        CompletableFuture<BootstrapSectionDTO<List<BreedResponseDTO>>> breeds = section("breeds", nurseryId, knownEtags, storedVersions,
+            () -> breedService.findAll(nurseryId, null, null), VersionedCollection.BREEDS);
+        // Rows of deleted breeds are left out, so breed changes can change the list too
+        CompletableFuture<BootstrapSectionDTO<List<InventoryResponseDTO>>> inventory = section("inventory", nurseryId, knownEtags, storedVersions,
+            () -> inventoryService.findAll(nurseryId, null, null), VersionedCollection.INVENTORY, VersionedCollection.BREEDS);
+        CompletableFuture<DashboardSummaryDTO> dashboard = CompletableFuture.supplyAsync(() -> dashboardService.getSummary(nurseryId), executor);
+
+        BootstrapResponseDTO response = new BootstrapResponseDTO();
+        try {
+            // The nursery first, so an unknown nursery fails as not found
+            response.setNursery(nursery.join());
+            response.setTheme(theme.join());
+            response.setSaplings(saplings.join());
+            response.setBreeds(breeds.join());
+            response.setInventory(inventory.join());
+            response.setDashboard(dashboard.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return response;
+    }
+
+    private <T> CompletableFuture<BootstrapSectionDTO<T>> section(String name, String nurseryId, Set<String> knownEtags,
+                                                                  Supplier<Optional<Map<VersionedCollection, Long>>> storedVersions,
+                                                                  Supplier<T> loader, VersionedCollection... collections) {
+        Optional<String> etag = etag(name, nurseryId, c -> versionRegistry.version(nurseryId, c), collections);
+        if (etag.isPresent() && knownEtags.contains(etag.get())) {
+            etag = storedVersions.get().flatMap(versions ->
+                etag(name, nurseryId, c -> OptionalLong.of(versions.get(c)), collections));
+            if (etag.isPresent() && knownEtags.contains(etag.get())) {
+                return CompletableFuture.completedFuture(BootstrapSectionDTO.unchanged(etag.get()));
+            }
+        }
+        String tag = etag.orElse(null);
+        return CompletableFuture.supplyAsync(() -> BootstrapSectionDTO.of(tag, loader.get()), executor);
+    }
+
+    /**
+     * {@code <section>.<nurseryId>.<version>...}, or empty when a version is not reliably known.
+     */
+    private Optional<String> etag(String section, String nurseryId, Function<VersionedCollection, OptionalLong> versions,
+                                  VersionedCollection... collections) {
+        StringBuilder etag = new StringBuilder(section).append('.').append(nurseryId);
+        for (VersionedCollection collection : collections) {
+            OptionalLong version = versions.apply(collection);
+            if (version.isEmpty()) {
+                return Optional.empty();
+            }
+            etag.append('.').append(version.getAsLong());
+        }
+        return Optional.of(etag.toString());
+    }
+}
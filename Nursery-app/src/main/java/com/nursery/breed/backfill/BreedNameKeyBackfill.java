@@ -0,0 +1,42 @@
+package com.nursery.breed.backfill;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.nursery.breed.service.BreedServiceImpl;
+import com.nursery.common.firestore.unique.UniqueKeyBackfill;
+import org.springframework.stereotype.Component;
+
+/**
+ * Claims name keys for breeds created before breed names were reserved with key documents.
+ * Until it completes, breed writes also check names with a scan of the sapling's breeds.
+ */
+@Component
+public class BreedNameKeyBackfill extends UniqueKeyBackfill {
+    
+    public static final String ID = "breed-name-keys";
+    
+    public BreedNameKeyBackfill(Firestore firestore) {
+        super(firestore);
+    }
+    
+    @Override
+    public String getId() {
+        return ID;
+    }
+    
+    @Override
+    public String getCollection() {
+        return "breeds";
+    }
+    
+    @Override
+    protected String getValueField() {
+        return "breedName";
+    }
+    
+    @Override
+    protected String scope(DocumentSnapshot document) {
+        String saplingId = document.getString("saplingId");
+        return saplingId != null ? BreedServiceImpl.nameScope(saplingId) : null;
+    }
+}
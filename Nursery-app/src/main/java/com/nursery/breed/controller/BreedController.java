@@ -2,7 +2,10 @@ package com.nursery.breed.controller;
 
 import com.nursery.common.dto.ApiResponse;
 import com.nursery.common.dto.PaginatedResponseDTO;
+import com.nursery.common.dto.SparseFieldset;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.version.ConditionalResponses;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.breed.dto.request.BreedRequestDTO;
 import com.nursery.breed.dto.response.BreedResponseDTO;
 import com.nursery.breed.service.BreedService;
@@ -12,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,40 +26,49 @@ import java.util.List;
 public class BreedController {
     
     private final BreedService breedService;
+    private final ConditionalResponses conditionalResponses;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<?>> findAll(
+    public ResponseEntity<ApiResponse<Object>> findAll(
             @RequestParam(required = true, name = "nurseryId") String nurseryId,
             @RequestParam(required = false, name = "saplingId") String saplingId,
             @RequestParam(required = false, name = "search") String search,
             @RequestParam(required = false, name = "page") Integer page,
-            @RequestParam(required = false, name = "size") Integer size) {
+            @RequestParam(required = false, name = "size") Integer size,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(required = false, name = "fields") String fields,
+            WebRequest webRequest) {
         
-        log.debug("REST request to get breeds: nurseryId={}, saplingId={}, search='{}', page={}, size={}",
-                nurseryId, saplingId, search, page, size);
+        log.debug("REST request to get breeds: nurseryId={}, saplingId={}, search='{}', page={}, size={}, fields={}",
+                nurseryId, saplingId, search, page, size, fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, BreedResponseDTO.class);
         
-        // If pagination parameters are provided, use paginated endpoint
-        if (page != null || size != null) {
-            int pageNumber = (page != null && page >= 0) ? page : 0;
-            int pageSize = (size != null && size > 0) ? size : 20;
-            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
-            PaginatedResponseDTO<BreedResponseDTO> paginatedResult = breedService.findAllPaginated(nurseryId, saplingId, search, pageRequest);
-            log.debug("Returning paginated breeds result: totalElements={}, totalPages={}",
-                    paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
-            return ResponseEntity.ok(ApiResponse.success(paginatedResult));
-        }
-        
-        // Otherwise, return all results (backward compatibility)
-        List<BreedResponseDTO> breeds = breedService.findAll(nurseryId, saplingId, search);
-        log.debug("Returning {} breeds (non-paginated)", breeds.size());
-        return ResponseEntity.ok(ApiResponse.success(breeds));
+        // Search also matches sapling names, so the list depends on both collections
+        return conditionalResponses.forNursery(webRequest, nurseryId, () -> {
+            // If pagination parameters are provided, use paginated endpoint
+            if (page != null || size != null) {
+                int pageNumber = (page != null && page >= 0) ? page : 0;
+                int pageSize = (size != null && size > 0) ? size : 20;
+                PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, cursor);
+                pageRequest.setFields(fieldset.documentFields());
+                PaginatedResponseDTO<BreedResponseDTO> paginatedResult = breedService.findAllPaginated(nurseryId, saplingId, search, pageRequest);
+                log.debug("Returning paginated breeds result: totalElements={}, totalPages={}",
+                        paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
+                return fieldset.render(paginatedResult);
+            }
+            
+            // Otherwise, return all results (backward compatibility)
+            List<BreedResponseDTO> breeds = breedService.findAll(nurseryId, saplingId, search);
+            log.debug("Returning {} breeds (non-paginated)", breeds.size());
+            return fieldset.render(breeds);
+        }, VersionedCollection.BREEDS, VersionedCollection.SAPLINGS);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<BreedResponseDTO>> findById(@PathVariable("id") String id) {
+    public ResponseEntity<ApiResponse<BreedResponseDTO>> findById(@PathVariable("id") String id, WebRequest webRequest) {
         log.debug("REST request to get breed id={}", id);
-        BreedResponseDTO breed = breedService.findById(id);
-        return ResponseEntity.ok(ApiResponse.success(breed));
+        return conditionalResponses.forEntity(webRequest, () -> breedService.findById(id),
+            BreedResponseDTO::getNurseryId, VersionedCollection.BREEDS, VersionedCollection.SAPLINGS);
     }
     
     @PostMapping
@@ -0,0 +1,76 @@
+package com.nursery.breed.search;
+
+import com.nursery.breed.firestore.BreedDocument;
+import com.nursery.breed.firestore.BreedFirestoreRepository;
+import com.nursery.common.search.NGramIndex;
+import com.nursery.common.search.NurseryCatalogIndex;
+import com.nursery.sapling.firestore.SaplingDocument;
+import com.nursery.sapling.search.SaplingSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Search index over breed name and the name of the breed's sapling, per nursery.
+ * The sapling name is resolved through {@link SaplingSearchIndex} when a breed is indexed,
+ * so a sapling rename must be followed by {@link #reindexSapling}.
+ */
+@Component
+public class BreedSearchIndex extends NurseryCatalogIndex<BreedDocument> {
+
+    public static final int FIELD_BREED_NAME = 0;
+    public static final int FIELD_SAPLING_NAME = 1;
+
+    private final BreedFirestoreRepository repository;
+    private final SaplingSearchIndex saplingSearchIndex;
+
+    public BreedSearchIndex(BreedFirestoreRepository repository,
+                            SaplingSearchIndex saplingSearchIndex,
+                            @Value("${search.index.max-nurseries:1000}") long maxNurseries,
+                            @Value("${search.index.ttl-minutes:15}") long ttlMinutes) {
+        super(maxNurseries, Duration.ofMinutes(ttlMinutes));
+        this.repository = repository;
+        this.saplingSearchIndex = saplingSearchIndex;
+    }
+
+    /**
+     * Re-index the breeds of a sapling after its name changed.
+     */
+    public void reindexSapling(SaplingDocument sapling) {
+        update(sapling.getNurseryId(), index -> {
+            for (BreedDocument breed : index.values()) {
+                if (sapling.getId().equals(breed.getSaplingId())) {
+                    index.put(breed.getId(), breed);
+                }
+            }
+        });
+    }
+
+    @Override
+    protected List<BreedDocument> loadCatalog(String nurseryId) {
+        return repository.findByNurseryIdAndNotDeleted(nurseryId);
+    }
+
+    @Override
+    protected NGramIndex<BreedDocument> newIndex() {
+        return new NGramIndex<>(
+            List.<Function<? super BreedDocument, String>>of(BreedDocument::getBreedName, this::saplingName),
+            Comparator.comparing(BreedDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+    }
+
+    @Override
+    protected String nurseryIdOf(BreedDocument document) {
+        return document.getNurseryId();
+    }
+
+    private String saplingName(BreedDocument breed) {
+        return saplingSearchIndex.forNursery(breed.getNurseryId())
+            .get(breed.getSaplingId())
+            .map(SaplingDocument::getName)
+            .orElse(null);
+    }
+}
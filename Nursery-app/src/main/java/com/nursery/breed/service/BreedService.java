@@ -5,6 +5,8 @@ import com.nursery.breed.dto.response.BreedResponseDTO;
 import com.nursery.breed.firestore.BreedDocument;
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 
 import java.util.List;
 
@@ -12,6 +14,7 @@ public interface BreedService {
     List<BreedResponseDTO> findAll(String nurseryId, String saplingId, String search);
     PaginatedResponseDTO<BreedResponseDTO> findAllPaginated(String nurseryId, String saplingId, String search, PageRequest pageRequest);
     BreedResponseDTO findById(String id);
+    SyncPage<BreedResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit);
     BreedResponseDTO create(BreedRequestDTO request);
     BreedResponseDTO update(String id, BreedRequestDTO request);
     void softDelete(String id);
@@ -3,25 +3,33 @@ package com.nursery.breed.service;
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.exception.EntityNotFoundException;
 import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.migration.BackfillExecutor;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.common.firestore.unique.UniqueConstraintManager;
+import com.nursery.common.firestore.unique.UniqueKeyChange;
+import com.nursery.common.search.NGramIndex;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.nursery.service.NurseryService;
 import com.nursery.sapling.firestore.SaplingDocument;
-import com.nursery.sapling.firestore.SaplingFirestoreRepository;
 import com.nursery.sapling.service.SaplingService;
 import com.nursery.stock.service.StockService;
 import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import com.nursery.breed.backfill.BreedNameKeyBackfill;
 import com.nursery.breed.dto.request.BreedRequestDTO;
 import com.nursery.breed.dto.response.BreedResponseDTO;
 import com.nursery.breed.firestore.BreedDocument;
 import com.nursery.breed.firestore.BreedFirestoreRepository;
+import com.nursery.breed.search.BreedSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,13 +40,23 @@ public class BreedServiceImpl implements BreedService {
     private final BreedFirestoreRepository repository;
     private final NurseryService nurseryService;
     private final SaplingService saplingService;
-    private final SaplingFirestoreRepository saplingRepository;
     private final StockService stockService;
     private final TransactionFirestoreRepository transactionRepository;
     private final com.nursery.inventory.firestore.InventoryFirestoreRepository inventoryRepository;
+    private final BreedSearchIndex breedSearchIndex;
+    private final UniqueConstraintManager uniqueConstraints;
+    private final CollectionVersionRegistry versionRegistry;
+    private final BackfillExecutor backfills;
     
     @Override
     public List<BreedResponseDTO> findAll(String nurseryId, String saplingId, String search) {
+        // Search is answered from the in-memory index, ranked by relevance
+        if (search != null && !search.trim().isEmpty()) {
+            return searchBreeds(nurseryId, saplingId, search, Integer.MAX_VALUE).getItems().stream()
+                .map(this::toResponseDTO)
+                .collect(Collectors.toList());
+        }
+        
         List<BreedDocument> breeds;
         
         if (saplingId != null && !saplingId.isEmpty()) {
@@ -47,31 +65,6 @@ public class BreedServiceImpl implements BreedService {
             breeds = repository.findByNurseryIdAndNotDeleted(nurseryId);
         }
         
-        // Filter by search term if provided (search by breedName or sapling name)
-        if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            // Fetch all saplings for the nursery to get sapling names
-            List<SaplingDocument> saplings = saplingRepository.findByNurseryIdAndNotDeleted(nurseryId);
-            Map<String, String> saplingNameMap = saplings.stream()
-                .collect(Collectors.toMap(
-                    SaplingDocument::getId,
-                    SaplingDocument::getName,
-                    (existing, replacement) -> existing
-                ));
-            
-            breeds = breeds.stream()
-                .filter(b -> {
-                    // Search by breed name
-                    if (b.getBreedName().toLowerCase().contains(searchLower)) {
-                        return true;
-                    }
-                    // Search by sapling name
-                    String saplingName = saplingNameMap.get(b.getSaplingId());
-                    return saplingName != null && saplingName.toLowerCase().contains(searchLower);
-                })
-                .collect(Collectors.toList());
-        }
-        
         return breeds.stream()
             .sorted(Comparator.comparing(BreedDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
             .map(this::toResponseDTO)
@@ -80,70 +73,23 @@ public class BreedServiceImpl implements BreedService {
     
     @Override
     public PaginatedResponseDTO<BreedResponseDTO> findAllPaginated(String nurseryId, String saplingId, String search, PageRequest pageRequest) {
-        // Get all breeds first (for search filtering)
-        List<BreedDocument> allBreeds;
-        
-        if (saplingId != null && !saplingId.isEmpty()) {
-            allBreeds = repository.findBySaplingIdAndNotDeleted(saplingId);
-        } else {
-            allBreeds = repository.findByNurseryIdAndNotDeleted(nurseryId);
-        }
-        
-        // Filter by search term if provided (search by breedName or sapling name)
         if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            // Fetch all saplings for the nursery to get sapling names
-            List<SaplingDocument> saplings = saplingRepository.findByNurseryIdAndNotDeleted(nurseryId);
-            Map<String, String> saplingNameMap = saplings.stream()
-                .collect(Collectors.toMap(
-                    SaplingDocument::getId,
-                    SaplingDocument::getName,
-                    (existing, replacement) -> existing
-                ));
-            
-            allBreeds = allBreeds.stream()
-                .filter(b -> {
-                    // Search by breed name
-                    if (b.getBreedName().toLowerCase().contains(searchLower)) {
-                        return true;
-                    }
-                    // Search by sapling name
-                    String saplingName = saplingNameMap.get(b.getSaplingId());
-                    return saplingName != null && saplingName.toLowerCase().contains(searchLower);
-                })
-                .collect(Collectors.toList());
+            // Only the hits up to the end of the requested page are ranked and kept
+            int offset = pageRequest.getOffset();
+            NGramIndex.Hits<BreedDocument> hits = searchBreeds(nurseryId, saplingId, search,
+                offset + pageRequest.getEffectiveSize());
+            List<BreedDocument> ranked = hits.getItems();
+            List<BreedDocument> paginatedBreeds = offset < ranked.size()
+                ? ranked.subList(offset, ranked.size())
+                : new java.util.ArrayList<>();
+            return toPaginatedResponse(PageResult.of(paginatedBreeds, pageRequest, hits.getTotalMatches()));
         }
         
-        // Sort by updatedAt descending
-        allBreeds = allBreeds.stream()
-            .sorted(Comparator.comparing(BreedDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-            .collect(Collectors.toList());
-        
-        // Apply pagination
-        long totalElements = allBreeds.size();
-        int start = pageRequest.getOffset();
-        int end = Math.min(start + pageRequest.getEffectiveSize(), allBreeds.size());
-        List<BreedDocument> paginatedBreeds = start < allBreeds.size() 
-            ? allBreeds.subList(start, end)
-            : new java.util.ArrayList<>();
-        
-        List<BreedResponseDTO> content = paginatedBreeds.stream()
-            .map(this::toResponseDTO)
-            .collect(Collectors.toList());
-        
-        PageResult<BreedDocument> pageResult = PageResult.of(paginatedBreeds, pageRequest, totalElements);
-        
-        return PaginatedResponseDTO.<BreedResponseDTO>builder()
-            .content(content)
-            .totalElements(pageResult.getTotalElements())
-            .totalPages(pageResult.getTotalPages())
-            .size(pageResult.getSize())
-            .number(pageResult.getPage())
-            .hasNext(pageResult.isHasNext())
-            .hasPrevious(pageResult.hasPrevious())
-            .isFirst(pageResult.isFirst())
-            .isLast(pageResult.isLast())
-            .build();
+        // Without a search term, sorting and paging run in Firestore
+        if (saplingId != null && !saplingId.isEmpty()) {
+            return toPaginatedResponse(repository.findBySaplingIdAndNotDeletedPaginated(saplingId, pageRequest));
+        }
+        return toPaginatedResponse(repository.findByNurseryIdAndNotDeletedPaginated(nurseryId, pageRequest));
     }
     
     @Override
@@ -152,6 +98,12 @@ public class BreedServiceImpl implements BreedService {
         return toResponseDTO(breed);
     }
     
+    @Override
+    public SyncPage<BreedResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit) {
+        return SyncPage.of(repository.findByNurseryIdChangedAfter(nurseryId, after, limit), limit, after,
+            breed -> Boolean.TRUE.equals(breed.getIsDeleted()), this::toResponseDTO);
+    }
+    
     @Override
     public BreedResponseDTO create(BreedRequestDTO request) {
         // Validate nursery and sapling exist (before transaction)
@@ -164,20 +116,19 @@ public class BreedServiceImpl implements BreedService {
             throw new ValidationException("Sapling does not belong to the specified nursery");
         }
         
-        // Check duplicate breed name
-        List<BreedDocument> existing = repository.findBySaplingIdAndNotDeleted(request.getSaplingId());
-        boolean duplicateExists = existing.stream()
-            .anyMatch(b -> b.getBreedName().equals(request.getBreedName()));
-        if (duplicateExists) {
-            throw new ValidationException("Breed name already exists for this sapling");
-        }
+        boolean nameKeysBackfilled = backfills.isCompleted(BreedNameKeyBackfill.ID);
         
-        // Use transaction for atomic breed and inventory creation
+        // Use transaction for atomic breed, name key and inventory creation
         // IMPORTANT: All reads must be done before any writes
-        // Note: This method only does writes (no reads), so it's already compliant
-        return repository.runInTransaction(transaction -> {
+        BreedDocument created = repository.runInTransaction(transaction -> {
             // ========== PHASE 1: ALL READS FIRST ==========
-            // No reads needed - we already validated everything before transaction
+            // Reserving the name key in the same transaction makes the duplicate check race-free
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(request.getSaplingId()), null, request.getBreedName(), null);
+            if (nameKey.isConflict() || (!nameKeysBackfilled
+                    && legacyNameExists(transaction, request.getSaplingId(), request.getBreedName(), null))) {
+                throw new ValidationException("Breed name already exists for this sapling");
+            }
             
             // ========== PHASE 2: ALL WRITES AFTER READS ==========
             BreedDocument breed = toDocument(request);
@@ -185,6 +136,7 @@ public class BreedServiceImpl implements BreedService {
             // Save breed within transaction
             String id = repository.save(breed, transaction);
             breed.setId(id);
+            nameKey.apply(transaction, id);
             
             // Create inventory for this breed within transaction
             com.nursery.inventory.firestore.InventoryDocument inventory = new com.nursery.inventory.firestore.InventoryDocument();
@@ -192,16 +144,19 @@ public class BreedServiceImpl implements BreedService {
             inventory.setBreedId(id);
             inventory.setQuantity(0);
             inventoryRepository.save(inventory, transaction);
+            versionRegistry.bump(transaction, request.getNurseryId(),
+                VersionedCollection.BREEDS, VersionedCollection.INVENTORY);
             
             log.info("Created breed: {} with inventory (atomic)", id);
-            return toResponseDTO(breed);
+            return breed;
         });
+        
+        breedSearchIndex.put(created);
+        return toResponseDTO(created);
     }
     
     @Override
     public BreedResponseDTO update(String id, BreedRequestDTO request) {
-        BreedDocument breed = findByIdEntity(id);
-        
         // NOTE: nurseryId and saplingId from request are validated but NOT updated
         // Key ID fields (nurseryId, saplingId, breedId, inventoryId, transactionId) are immutable in update operations
         // Validate sapling exists and belongs to nursery (used for validation only, not for updating)
@@ -211,30 +166,56 @@ public class BreedServiceImpl implements BreedService {
             throw new ValidationException("Sapling does not belong to the specified nursery");
         }
         
-        // Check duplicate name (excluding current breed)
-        List<BreedDocument> existingBreeds = repository.findBySaplingIdAndNotDeleted(request.getSaplingId());
-        boolean duplicateExists = existingBreeds.stream()
-            .anyMatch(b -> b.getBreedName().equals(request.getBreedName()) && !b.getId().equals(id));
-        if (duplicateExists) {
-            throw new ValidationException("Breed name already exists for this sapling");
-        }
+        boolean nameKeysBackfilled = backfills.isCompleted(BreedNameKeyBackfill.ID);
         
-        // Explicitly DO NOT update: breed.setNurseryId() or breed.setSaplingId() - ID fields are immutable
-        breed.setBreedName(request.getBreedName());
-        breed.setMode(request.getMode());
-        breed.setItemsPerSlot(request.getItemsPerSlot());
-        breed.setImageUrl(request.getImageUrl());
+        BreedDocument updated = repository.runInTransaction(transaction -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            BreedDocument breed = findByIdEntity(id, transaction);
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(breed.getSaplingId()), breed.getBreedName(), request.getBreedName(), id);
+            boolean renamed = !sameName(breed.getBreedName(), request.getBreedName());
+            if (nameKey.isConflict() || (!nameKeysBackfilled && renamed
+                    && legacyNameExists(transaction, breed.getSaplingId(), request.getBreedName(), id))) {
+                throw new ValidationException("Breed name already exists for this sapling");
+            }
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            // Explicitly DO NOT update: breed.setNurseryId() or breed.setSaplingId() - ID fields are immutable
+            breed.setBreedName(request.getBreedName());
+            breed.setMode(request.getMode());
+            breed.setItemsPerSlot(request.getItemsPerSlot());
+            breed.setImageUrl(request.getImageUrl());
+            
+            repository.save(breed, transaction);
+            nameKey.apply(transaction, id);
+            versionRegistry.bump(transaction, breed.getNurseryId(), VersionedCollection.BREEDS);
+            return breed;
+        });
         
-        repository.save(breed);
+        breedSearchIndex.put(updated);
         log.info("Updated breed: {}", id);
-        return toResponseDTO(breed);
+        return toResponseDTO(updated);
     }
     
     @Override
     public void softDelete(String id) {
-        BreedDocument breed = findByIdEntity(id);
-        breed.softDelete();
-        repository.save(breed);
+        BreedDocument deleted = repository.runInTransaction(transaction -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            BreedDocument breed = findByIdEntity(id, transaction);
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(breed.getSaplingId()), breed.getBreedName(), null, id);
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            // Release the name so a new breed may reuse it
+            breed.softDelete();
+            repository.save(breed, transaction);
+            nameKey.apply(transaction, id);
+            versionRegistry.bump(transaction, breed.getNurseryId(),
+                VersionedCollection.BREEDS, VersionedCollection.INVENTORY);
+            return breed;
+        });
+        
+        breedSearchIndex.remove(deleted);
         log.info("Soft deleted breed: {}", id);
     }
     
@@ -260,9 +241,61 @@ public class BreedServiceImpl implements BreedService {
     
     @Override
     public boolean hasTransactions(String breedId) {
-        List<com.nursery.transaction.firestore.TransactionDocument> transactions = 
-            transactionRepository.findByBreedIdAndNotDeleted(breedId);
-        return !transactions.isEmpty();
+        return transactionRepository.existsByBreedIdAndNotDeleted(breedId);
+    }
+    
+    private BreedDocument findByIdEntity(String id, com.google.cloud.firestore.Transaction transaction) {
+        return repository.findById(id, transaction)
+            .filter(b -> !Boolean.TRUE.equals(b.getIsDeleted()))
+            .orElseThrow(() -> new EntityNotFoundException("Breed", id));
+    }
+    
+    /**
+     * Breeds created before name keys existed have no key until {@link BreedNameKeyBackfill}
+     * completes, so until then a name is also checked against the sapling's breeds.
+     */
+    private boolean legacyNameExists(com.google.cloud.firestore.Transaction transaction,
+                                     String saplingId, String breedName, String id) {
+        return repository.findBySaplingIdAndNotDeleted(saplingId, transaction).stream()
+            .anyMatch(b -> !b.getId().equals(id) && sameName(b.getBreedName(), breedName));
+    }
+    
+    private static boolean sameName(String a, String b) {
+        return a != null && b != null
+            && UniqueConstraintManager.normalize(a).equals(UniqueConstraintManager.normalize(b));
+    }
+    
+    /**
+     * Breed names are unique per sapling.
+     */
+    public static String nameScope(String saplingId) {
+        return "breeds:" + saplingId;
+    }
+    
+    private NGramIndex.Hits<BreedDocument> searchBreeds(String nurseryId, String saplingId, String search, int limit) {
+        // Matches breed name or the sapling's name; breed name matches rank first
+        boolean bySapling = saplingId != null && !saplingId.isEmpty();
+        return breedSearchIndex.forNursery(nurseryId)
+            .search(search, bySapling ? b -> saplingId.equals(b.getSaplingId()) : null, limit);
+    }
+    
+    private PaginatedResponseDTO<BreedResponseDTO> toPaginatedResponse(PageResult<BreedDocument> pageResult) {
+        List<BreedResponseDTO> content = pageResult.getContent().stream()
+            .map(this::toResponseDTO)
+            .collect(Collectors.toList());
+        
+        return PaginatedResponseDTO.<BreedResponseDTO>builder()
+            .content(content)
+            .totalElements(pageResult.getTotalElements())
+            .totalPages(pageResult.getTotalPages())
+            .size(pageResult.getSize())
+            .number(pageResult.getPage())
+            .hasNext(pageResult.isHasNext())
+            .hasPrevious(pageResult.hasPrevious())
+            .isFirst(pageResult.isFirst())
+            .isLast(pageResult.isLast())
+            .nextCursor(pageResult.getNextCursor())
+            .build();
     }
     
     private BreedDocument toDocument(BreedRequestDTO dto) {
@@ -0,0 +1,48 @@
+package com.nursery.bulkimport.controller;
+
+import com.nursery.bulkimport.dto.response.CatalogImportJobResponseDTO;
+import com.nursery.bulkimport.service.CatalogImportService;
+import com.nursery.common.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/nursery")
+@RequiredArgsConstructor
+public class CatalogImportController {
+    
+    private final CatalogImportService catalogImportService;
+    
+    /**
+     * Import saplings, breeds and opening stock from a CSV file (with a header row), a JSON
+     * array or newline-delimited JSON. Rows are validated before this returns; writing runs in
+     * the background and is followed through the returned job.
+     */
+    @PostMapping(value = "/{id}/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<CatalogImportJobResponseDTO>> startImport(
+            @PathVariable("id") String id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        log.debug("REST request to import catalog for nurseryId={} ({})", id, contentType);
+        CatalogImportJobResponseDTO job = catalogImportService.start(id, MediaType.parseMediaType(contentType), body);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success("Import started", job));
+    }
+    
+    @GetMapping("/{id}/import/{jobId}")
+    public ResponseEntity<ApiResponse<CatalogImportJobResponseDTO>> findImport(
+            @PathVariable("id") String id,
+            @PathVariable("jobId") String jobId) {
+        CatalogImportJobResponseDTO job = catalogImportService.findJob(id, jobId);
+        return ResponseEntity.ok(ApiResponse.success(job));
+    }
+}
@@ -0,0 +1,41 @@
+package com.nursery.bulkimport.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.nursery.breed.enumeration.BreedMode;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.hibernate.validator.constraints.URL;
+
+/**
+ * One row of a catalog import: a breed, the sapling it belongs to (created when missing)
+ * and its opening stock.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CatalogImportRowDTO {
+    
+    @NotBlank(message = "Sapling name is required")
+    @Size(max = 255, message = "Sapling name must not exceed 255 characters")
+    private String saplingName;
+    
+    @NotBlank(message = "Breed name is required")
+    @Size(max = 255, message = "Breed name must not exceed 255 characters")
+    private String breedName;
+    
+    @NotNull(message = "Mode is required")
+    private BreedMode mode;
+    
+    @Positive(message = "Items per slot must be positive")
+    private Integer itemsPerSlot = 1;
+    
+    @URL(message = "Image URL must be a valid URL")
+    @Size(max = 500, message = "Image URL must not exceed 500 characters")
+    private String imageUrl;
+    
+    @PositiveOrZero(message = "Opening quantity must not be negative")
+    private Integer openingQuantity = 0;
+}
@@ -0,0 +1,16 @@
+package com.nursery.bulkimport.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A rejected import row; rows are numbered from 1, not counting a CSV header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportErrorDTO {
+    private int row;
+    private String message;
+}
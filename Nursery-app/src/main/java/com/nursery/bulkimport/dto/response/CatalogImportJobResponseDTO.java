@@ -0,0 +1,24 @@
+package com.nursery.bulkimport.dto.response;
+
+import com.nursery.bulkimport.enumeration.CatalogImportStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CatalogImportJobResponseDTO {
+    private String jobId;
+    private String nurseryId;
+    private CatalogImportStatus status;
+    private int totalRows;
+    private int processedRows;
+    private int importedRows;
+    private int failedRows;
+    private int createdSaplings;
+    private List<CatalogImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
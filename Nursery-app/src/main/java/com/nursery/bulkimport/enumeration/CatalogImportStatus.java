@@ -0,0 +1,7 @@
+package com.nursery.bulkimport.enumeration;
+
+public enum CatalogImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,87 @@
+package com.nursery.bulkimport.service;
+
+import com.nursery.bulkimport.dto.response.CatalogImportErrorDTO;
+import com.nursery.bulkimport.dto.response.CatalogImportJobResponseDTO;
+import com.nursery.bulkimport.enumeration.CatalogImportStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one catalog import, updated by the commit threads and read by status requests.
+ */
+@Getter
+class CatalogImportJob {
+    
+    private final String id;
+    private final String nurseryId;
+    private final String userPhone;
+    private final int maxReportedErrors;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    
+    private final AtomicInteger processedRows = new AtomicInteger();
+    private final AtomicInteger importedRows = new AtomicInteger();
+    private final AtomicInteger failedRows = new AtomicInteger();
+    private final AtomicInteger createdSaplings = new AtomicInteger();
+    private final List<CatalogImportErrorDTO> errors = new ArrayList<>();
+    
+    private volatile int totalRows;
+    private volatile CatalogImportStatus status = CatalogImportStatus.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    
+    CatalogImportJob(String id, String nurseryId, String userPhone, int maxReportedErrors) {
+        this.id = id;
+        this.nurseryId = nurseryId;
+        this.userPhone = userPhone;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+    
+    void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+    
+    void rowsImported(int count) {
+        importedRows.addAndGet(count);
+        processedRows.addAndGet(count);
+    }
+    
+    void rowFailed(int rowNumber, String message) {
+        failedRows.incrementAndGet();
+        processedRows.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CatalogImportErrorDTO(rowNumber, message));
+            }
+        }
+    }
+    
+    void finish(CatalogImportStatus finalStatus) {
+        finishedAt = LocalDateTime.now();
+        status = finalStatus;
+    }
+    
+    CatalogImportJobResponseDTO toResponseDTO() {
+        CatalogImportJobResponseDTO dto = new CatalogImportJobResponseDTO();
+        dto.setJobId(id);
+        dto.setNurseryId(nurseryId);
+        dto.setStatus(status);
+        dto.setTotalRows(totalRows);
+        dto.setProcessedRows(processedRows.get());
+        dto.setImportedRows(importedRows.get());
+        dto.setFailedRows(failedRows.get());
+        dto.setCreatedSaplings(createdSaplings.get());
+        synchronized (errors) {
+            List<CatalogImportErrorDTO> sorted = new ArrayList<>(errors);
+            sorted.sort(Comparator.comparingInt(CatalogImportErrorDTO::getRow));
+            dto.setErrors(sorted);
+        }
+        dto.setErrorsTruncated(failedRows.get() > dto.getErrors().size());
+        dto.setStartedAt(startedAt);
+        dto.setFinishedAt(finishedAt);
+        return dto;
+    }
+}
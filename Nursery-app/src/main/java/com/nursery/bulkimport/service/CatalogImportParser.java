@@ -0,0 +1,221 @@
+package com.nursery.bulkimport.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nursery.breed.enumeration.BreedMode;
+import com.nursery.bulkimport.dto.request.CatalogImportRowDTO;
+import com.nursery.common.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming parsers for catalog import bodies. Rows are handed to a {@link RowSink} as they
+ * are read, so the body itself is never buffered.
+ *
+ * CSV needs a header row; column names are matched case-insensitively and ignoring
+ * separators ("Breed Name", "breed_name" and "breedName" are the same column).
+ * JSON may be an array of row objects or newline-delimited objects.
+ */
+final class CatalogImportParser {
+    
+    interface RowSink {
+        void row(int rowNumber, CatalogImportRowDTO row);
+        
+        void error(int rowNumber, String message);
+    }
+    
+    private static final String SAPLING_NAME = "saplingname";
+    private static final String BREED_NAME = "breedname";
+    private static final String MODE = "mode";
+    private static final String ITEMS_PER_SLOT = "itemsperslot";
+    private static final String IMAGE_URL = "imageurl";
+    private static final String OPENING_QUANTITY = "openingquantity";
+    
+    private CatalogImportParser() {
+    }
+    
+    static void parseCsv(Reader reader, int maxRows, RowSink sink) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            throw new ValidationException("Import file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i);
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns.put(name.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of(SAPLING_NAME, BREED_NAME, MODE)) {
+            if (!columns.containsKey(required)) {
+                throw new ValidationException("Import file is missing column: " + required);
+            }
+        }
+        
+        int rowNumber = 0;
+        List<String> record;
+        while ((record = records.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            checkLimit(rowNumber, maxRows);
+            try {
+                sink.row(rowNumber, toRow(record, columns));
+            } catch (IllegalArgumentException e) {
+                sink.error(rowNumber, e.getMessage());
+            }
+        }
+    }
+    
+    static void parseJson(ObjectReader reader, InputStream body, int maxRows, RowSink sink) throws IOException {
+        int rowNumber = 0;
+        try (MappingIterator<CatalogImportRowDTO> rows = reader.forType(CatalogImportRowDTO.class).readValues(body)) {
+            while (true) {
+                try {
+                    if (!rows.hasNextValue()) {
+                        return;
+                    }
+                    rowNumber++;
+                    checkLimit(rowNumber, maxRows);
+                    sink.row(rowNumber, rows.nextValue());
+                } catch (JsonParseException e) {
+                    throw new ValidationException("Malformed JSON near row " + Math.max(rowNumber, 1) + ": " + e.getOriginalMessage(), e);
+                } catch (JsonMappingException e) {
+                    // The iterator skips the rest of the bad row and continues with the next one
+                    sink.error(rowNumber, "Invalid value: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+    
+    private static void checkLimit(int rowNumber, int maxRows) {
+        if (rowNumber > maxRows) {
+            throw new ValidationException("Import exceeds the limit of " + maxRows + " rows");
+        }
+    }
+    
+    private static CatalogImportRowDTO toRow(List<String> record, Map<String, Integer> columns) {
+        CatalogImportRowDTO row = new CatalogImportRowDTO();
+        row.setSaplingName(value(record, columns, SAPLING_NAME));
+        row.setBreedName(value(record, columns, BREED_NAME));
+        
+        String mode = value(record, columns, MODE);
+        if (mode != null) {
+            try {
+                row.setMode(BreedMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid mode: " + mode);
+            }
+        }
+        
+        String itemsPerSlot = value(record, columns, ITEMS_PER_SLOT);
+        if (itemsPerSlot != null) {
+            row.setItemsPerSlot(parseInt(itemsPerSlot, "items per slot"));
+        }
+        row.setImageUrl(value(record, columns, IMAGE_URL));
+        String openingQuantity = value(record, columns, OPENING_QUANTITY);
+        if (openingQuantity != null) {
+            row.setOpeningQuantity(parseInt(openingQuantity, "opening quantity"));
+        }
+        return row;
+    }
+    
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static int parseInt(String value, String field) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+    
+    /**
+     * RFC 4180 record reader: quoted fields may hold separators, doubled quotes and line breaks.
+     */
+    private static final class CsvRecordReader {
+        
+        private final Reader reader;
+        private int peeked = -2;
+        
+        CsvRecordReader(Reader reader) {
+            this.reader = reader;
+        }
+        
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new ValidationException("Unterminated quoted field in import file");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+        
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+        
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+}
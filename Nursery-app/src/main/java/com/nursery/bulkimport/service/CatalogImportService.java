@@ -0,0 +1,12 @@
+package com.nursery.bulkimport.service;
+
+import com.nursery.bulkimport.dto.response.CatalogImportJobResponseDTO;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CatalogImportService {
+    CatalogImportJobResponseDTO start(String nurseryId, MediaType contentType, InputStream body) throws IOException;
+    CatalogImportJobResponseDTO findJob(String nurseryId, String jobId);
+}
@@ -0,0 +1,455 @@
+package com.nursery.bulkimport.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.breed.firestore.BreedDocument;
+import com.nursery.breed.firestore.BreedFirestoreRepository;
+import com.nursery.breed.search.BreedSearchIndex;
+import com.nursery.breed.service.BreedServiceImpl;
+import com.nursery.bulkimport.dto.request.CatalogImportRowDTO;
+import com.nursery.bulkimport.dto.response.CatalogImportJobResponseDTO;
+import com.nursery.bulkimport.enumeration.CatalogImportStatus;
+import com.nursery.common.exception.EntityNotFoundException;
+import com.nursery.common.exception.ServiceUnavailableException;
+import com.nursery.common.firestore.BaseFirestoreRepository;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import com.nursery.common.firestore.unique.UniqueConstraintManager;
+import com.nursery.common.util.SecurityUtil;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
+import com.nursery.inventory.firestore.InventoryDocument;
+import com.nursery.inventory.firestore.InventoryFirestoreRepository;
+import com.nursery.nursery.service.NurseryService;
+import com.nursery.sapling.firestore.SaplingDocument;
+import com.nursery.sapling.firestore.SaplingFirestoreRepository;
+import com.nursery.sapling.search.SaplingSearchIndex;
+import com.nursery.sapling.service.SaplingServiceImpl;
+import com.nursery.transaction.enumeration.TransactionType;
+import com.nursery.transaction.firestore.TransactionDocument;
+import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of saplings, breeds and opening stock for one nursery.
+ *
+ * The body is parsed as a stream and every row is validated up front against a single
+ * snapshot of the nursery's sapling and breed names, instead of per-row duplicate scans.
+ * Valid rows are then written in the background with batched writes committed in parallel:
+ * missing saplings first, then each breed with its name key, inventory and opening ADJUST
+ * transaction. Name keys are created rather than set, so a name taken since the snapshot
+ * fails its batch, whose rows are then retried one by one to report only the conflicting ones.
+ */
+@Slf4j
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+    
+    private static final String OPENING_STOCK_REASON = "Opening stock";
+    
+    /** Writes per breed row: breed, name key, inventory and opening transaction. */
+    private static final int WRITES_PER_BREED = 4;
+    
+    /** Writes per sapling: sapling and name key. */
+    private static final int WRITES_PER_SAPLING = 2;
+    
+    /** Firestore's write batch limit, less one write for the version bump. */
+    private static final int MAX_BATCH_WRITES = 499;
+    
+    private final NurseryService nurseryService;
+    private final SaplingFirestoreRepository saplingRepository;
+    private final BreedFirestoreRepository breedRepository;
+    private final InventoryFirestoreRepository inventoryRepository;
+    private final TransactionFirestoreRepository transactionRepository;
+    private final UniqueConstraintManager uniqueConstraints;
+    private final CollectionVersionRegistry versionRegistry;
+    private final SaplingSearchIndex saplingSearchIndex;
+    private final BreedSearchIndex breedSearchIndex;
+    private final Validator validator;
+    private final ObjectReader jsonReader;
+    private final int maxRows;
+    private final int maxReportedErrors;
+    
+    private final Cache<String, CatalogImportJob> jobs;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService commitExecutor;
+    
+    public CatalogImportServiceImpl(NurseryService nurseryService,
+                                    SaplingFirestoreRepository saplingRepository,
+                                    BreedFirestoreRepository breedRepository,
+                                    InventoryFirestoreRepository inventoryRepository,
+                                    TransactionFirestoreRepository transactionRepository,
+                                    UniqueConstraintManager uniqueConstraints,
+                                    CollectionVersionRegistry versionRegistry,
+                                    SaplingSearchIndex saplingSearchIndex,
+                                    BreedSearchIndex breedSearchIndex,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    @Value("${import.max-rows:10000}") int maxRows,
+                                    @Value("${import.max-reported-errors:500}") int maxReportedErrors,
+                                    @Value("${import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                    @Value("${import.commit-threads:8}") int commitThreads,
+                                    @Value("${import.job-retention-minutes:60}") long jobRetentionMinutes) {
+        this.nurseryService = nurseryService;
+        this.saplingRepository = saplingRepository;
+        this.breedRepository = breedRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionRepository = transactionRepository;
+        this.uniqueConstraints = uniqueConstraints;
+        this.versionRegistry = versionRegistry;
+        this.saplingSearchIndex = saplingSearchIndex;
+        this.breedSearchIndex = breedSearchIndex;
+        this.validator = validator;
+        this.jsonReader = objectMapper.reader();
+        this.maxRows = maxRows;
+        this.maxReportedErrors = maxReportedErrors;
+        
+        this.jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(jobRetentionMinutes))
+            .build();
+        // No queue: an import beyond the limit is rejected rather than left waiting
+        AtomicInteger jobThreads = new AtomicInteger();
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(),
+            r -> {
+                Thread t = new Thread(r, "catalog-import-" + jobThreads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        AtomicInteger commitThreadCount = new AtomicInteger();
+        this.commitExecutor = Executors.newFixedThreadPool(commitThreads, r -> {
+            Thread t = new Thread(r, "catalog-import-commit-" + commitThreadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    @Override
+    public CatalogImportJobResponseDTO start(String nurseryId, MediaType contentType, InputStream body) throws IOException {
+        nurseryService.validateExists(nurseryId);
+        if (jobExecutor.getActiveCount() >= jobExecutor.getMaximumPoolSize()) {
+            throw new ServiceUnavailableException("Too many imports in progress. Please try again shortly.", 30);
+        }
+        
+        CatalogImportJob job = new CatalogImportJob(UUID.randomUUID().toString(), nurseryId,
+            SecurityUtil.getCurrentUserPhone(), maxReportedErrors);
+        ImportPlan plan = new ImportPlan(job,
+            saplingRepository.findByNurseryIdAndNotDeleted(nurseryId),
+            breedRepository.findByNurseryIdAndNotDeleted(nurseryId));
+        
+        if (MediaType.parseMediaType("text/csv").isCompatibleWith(contentType)) {
+            Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+            CatalogImportParser.parseCsv(new BufferedReader(new InputStreamReader(body, charset)), maxRows, plan);
+        } else {
+            CatalogImportParser.parseJson(jsonReader, body, maxRows, plan);
+        }
+        job.setTotalRows(plan.rowCount);
+        log.info("Catalog import {} for nurseryId={}: {} rows, {} valid, {} new saplings",
+            job.getId(), nurseryId, plan.rowCount, plan.rows.size(), plan.newSaplings.size());
+        
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(plan));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            throw new ServiceUnavailableException("Too many imports in progress. Please try again shortly.", 30);
+        }
+        return job.toResponseDTO();
+    }
+    
+    @Override
+    public CatalogImportJobResponseDTO findJob(String nurseryId, String jobId) {
+        CatalogImportJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.getNurseryId().equals(nurseryId)) {
+            throw new EntityNotFoundException("Import job", jobId);
+        }
+        return job.toResponseDTO();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        commitExecutor.shutdownNow();
+    }
+    
+    private void run(ImportPlan plan) {
+        CatalogImportJob job = plan.job;
+        String nurseryId = job.getNurseryId();
+        try {
+            // Saplings must exist before the breeds that reference them
+            Map<PlannedSapling, String> failedSaplings = commitInParallel(new ArrayList<>(plan.newSaplings.values()),
+                saplingRepository, MAX_BATCH_WRITES / WRITES_PER_SAPLING, this::writeSapling,
+                "Sapling name already exists in this nursery", nurseryId, VersionedCollection.SAPLINGS);
+            job.getCreatedSaplings().addAndGet(plan.newSaplings.size() - failedSaplings.size());
+            
+            List<PlannedRow> rows = new ArrayList<>();
+            for (PlannedRow row : plan.rows) {
+                String saplingError = row.newSapling != null ? failedSaplings.get(row.newSapling) : null;
+                if (saplingError != null) {
+                    job.rowFailed(row.rowNumber, "Sapling '" + row.newSapling.name + "' could not be created: " + saplingError);
+                } else {
+                    rows.add(row);
+                }
+            }
+            
+            Map<PlannedRow, String> failedRows = commitInParallel(rows, breedRepository,
+                MAX_BATCH_WRITES / WRITES_PER_BREED, (batch, row) -> writeBreed(batch, row, job),
+                "Breed name already exists for this sapling", nurseryId,
+                VersionedCollection.BREEDS, VersionedCollection.INVENTORY, VersionedCollection.TRANSACTIONS);
+            failedRows.forEach((row, message) -> job.rowFailed(row.rowNumber, message));
+            job.rowsImported(rows.size() - failedRows.size());
+            
+            job.finish(CatalogImportStatus.COMPLETED);
+            log.info("Catalog import {} for nurseryId={} completed: {} imported, {} failed",
+                job.getId(), nurseryId, job.getImportedRows().get(), job.getFailedRows().get());
+        } catch (RuntimeException e) {
+            log.error("Catalog import {} for nurseryId={} failed", job.getId(), nurseryId, e);
+            job.finish(CatalogImportStatus.FAILED);
+        } finally {
+            // Cheaper to rebuild than to index thousands of documents one by one
+            saplingSearchIndex.invalidate(nurseryId);
+            breedSearchIndex.invalidate(nurseryId);
+        }
+    }
+    
+    /**
+     * Commit items in chunks of up to {@code chunkSize}, several chunks at a time.
+     *
+     * @return items that were not written, with the reason
+     */
+    private <E> Map<E, String> commitInParallel(List<E> items, BaseFirestoreRepository<?> repository, int chunkSize,
+                                               BiFunction<WriteBatch, E, String> writer, String conflictMessage,
+                                               String nurseryId, VersionedCollection... collections) {
+        List<CompletableFuture<Map<E, String>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<E> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            chunks.add(CompletableFuture.supplyAsync(
+                () -> commitChunk(chunk, repository, writer, conflictMessage, nurseryId, collections), commitExecutor));
+        }
+        Map<E, String> failed = new HashMap<>();
+        chunks.forEach(chunk -> failed.putAll(chunk.join()));
+        return failed;
+    }
+    
+    private <E> Map<E, String> commitChunk(List<E> items, BaseFirestoreRepository<?> repository,
+                                           BiFunction<WriteBatch, E, String> writer, String conflictMessage,
+                                           String nurseryId, VersionedCollection... collections) {
+        try {
+            WriteBatch batch = repository.newBatch();
+            List<String> ids = new ArrayList<>();
+            for (E item : items) {
+                ids.add(writer.apply(batch, item));
+            }
+            versionRegistry.bump(batch, nurseryId, collections);
+            commit(batch, repository, ids.get(0));
+            return Map.of();
+        } catch (FirestoreException e) {
+            if (isAlreadyExists(e) && items.size() > 1) {
+                // Isolate the rows whose names were taken since the snapshot
+                Map<E, String> failed = new HashMap<>();
+                for (E item : items) {
+                    failed.putAll(commitChunk(List.of(item), repository, writer, conflictMessage, nurseryId, collections));
+                }
+                return failed;
+            }
+            String message = isAlreadyExists(e) ? conflictMessage : "Write failed: " + e.getMessage();
+            log.warn("Catalog import batch of {} failed: {}", items.size(), e.getMessage());
+            Map<E, String> failed = new HashMap<>();
+            items.forEach(item -> failed.put(item, message));
+            return failed;
+        }
+    }
+    
+    private void commit(WriteBatch batch, BaseFirestoreRepository<?> repository, String probeId) {
+        try {
+            repository.commitBatch(batch, "importCommit");
+        } catch (FirestoreConnectionException e) {
+            // The commit may have landed before the connection failed; a batch is atomic,
+            // so one of its documents tells whether all of them were written
+            if (!repository.existsById(probeId)) {
+                throw e;
+            }
+        }
+    }
+    
+    private String writeSapling(WriteBatch batch, PlannedSapling planned) {
+        SaplingDocument sapling = new SaplingDocument();
+        sapling.setNurseryId(planned.nurseryId);
+        sapling.setName(planned.name);
+        String id = saplingRepository.save(sapling, batch);
+        uniqueConstraints.claim(batch, SaplingServiceImpl.nameScope(planned.nurseryId), planned.name, id);
+        planned.id = id;
+        return id;
+    }
+    
+    private String writeBreed(WriteBatch batch, PlannedRow row, CatalogImportJob job) {
+        CatalogImportRowDTO source = row.source;
+        String saplingId = row.newSapling != null ? row.newSapling.id : row.saplingId;
+        int openingQuantity = source.getOpeningQuantity() != null ? source.getOpeningQuantity() : 0;
+        
+        BreedDocument breed = new BreedDocument();
+        breed.setNurseryId(job.getNurseryId());
+        breed.setSaplingId(saplingId);
+        breed.setBreedName(source.getBreedName().trim());
+        breed.setMode(source.getMode());
+        breed.setItemsPerSlot(source.getItemsPerSlot() != null ? source.getItemsPerSlot() : 1);
+        breed.setImageUrl(source.getImageUrl() != null && !source.getImageUrl().isBlank() ? source.getImageUrl().trim() : null);
+        String breedId = breedRepository.save(breed, batch);
+        uniqueConstraints.claim(batch, BreedServiceImpl.nameScope(saplingId), breed.getBreedName(), breedId);
+        
+        InventoryDocument inventory = new InventoryDocument();
+        inventory.setNurseryId(job.getNurseryId());
+        inventory.setBreedId(breedId);
+        inventory.setQuantity(openingQuantity);
+        inventoryRepository.save(inventory, batch);
+        
+        // Opening stock is recorded like any adjustment, so quantity stays the sum of deltas
+        if (openingQuantity > 0) {
+            TransactionDocument opening = new TransactionDocument();
+            opening.setNurseryId(job.getNurseryId());
+            opening.setBreedId(breedId);
+            opening.setType(TransactionType.ADJUST);
+            opening.setDelta(openingQuantity);
+            opening.setReason(OPENING_STOCK_REASON);
+            opening.setUserPhone(job.getUserPhone());
+            transactionRepository.save(opening, batch);
+        }
+        return breedId;
+    }
+    
+    private static boolean isAlreadyExists(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException
+                && ((ApiException) cause).getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static class PlannedSapling {
+        private final String nurseryId;
+        private final String name;
+        private volatile String id;
+        
+        PlannedSapling(String nurseryId, String name) {
+            this.nurseryId = nurseryId;
+            this.name = name;
+        }
+    }
+    
+    private static class PlannedRow {
+        private final int rowNumber;
+        private final CatalogImportRowDTO source;
+        private final String saplingId;
+        private final PlannedSapling newSapling;
+        
+        PlannedRow(int rowNumber, CatalogImportRowDTO source, String saplingId, PlannedSapling newSapling) {
+            this.rowNumber = rowNumber;
+            this.source = source;
+            this.saplingId = saplingId;
+            this.newSapling = newSapling;
+        }
+    }
+    
+    /**
+     * Validates rows as they are parsed against the snapshot of existing names and
+     * against earlier rows of the same file.
+     */
+    private class ImportPlan implements CatalogImportParser.RowSink {
+        
+        private final CatalogImportJob job;
+        private final Map<String, String> saplingIdsByName = new HashMap<>();
+        private final Set<String> breedKeys = new HashSet<>();
+        private final Map<String, PlannedSapling> newSaplings = new LinkedHashMap<>();
+        private final List<PlannedRow> rows = new ArrayList<>();
+        private int rowCount;
+        
+        ImportPlan(CatalogImportJob job, List<SaplingDocument> saplings, List<BreedDocument> breeds) {
+            this.job = job;
+            Map<String, String> saplingNamesById = new HashMap<>();
+            for (SaplingDocument sapling : saplings) {
+                String name = UniqueConstraintManager.normalize(sapling.getName());
+                saplingIdsByName.put(name, sapling.getId());
+                saplingNamesById.put(sapling.getId(), name);
+            }
+            for (BreedDocument breed : breeds) {
+                String saplingName = saplingNamesById.get(breed.getSaplingId());
+                if (saplingName != null && breed.getBreedName() != null) {
+                    breedKeys.add(breedKey(saplingName, breed.getBreedName()));
+                }
+            }
+        }
+        
+        @Override
+        public void row(int rowNumber, CatalogImportRowDTO row) {
+            rowCount = rowNumber;
+            Set<ConstraintViolation<CatalogImportRowDTO>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                job.rowFailed(rowNumber, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+                return;
+            }
+            
+            String saplingName = UniqueConstraintManager.normalize(row.getSaplingName());
+            if (!breedKeys.add(breedKey(saplingName, row.getBreedName()))) {
+                job.rowFailed(rowNumber, "Breed name already exists for this sapling");
+                return;
+            }
+            
+            String saplingId = saplingIdsByName.get(saplingName);
+            PlannedSapling newSapling = saplingId == null
+                ? newSaplings.computeIfAbsent(saplingName, name -> new PlannedSapling(job.getNurseryId(), row.getSaplingName().trim()))
+                : null;
+            rows.add(new PlannedRow(rowNumber, row, saplingId, newSapling));
+        }
+        
+        @Override
+        public void error(int rowNumber, String message) {
+            rowCount = rowNumber;
+            job.rowFailed(rowNumber, message);
+        }
+        
+        private String breedKey(String normalizedSaplingName, String breedName) {
+            return normalizedSaplingName + "\n" + UniqueConstraintManager.normalize(breedName);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.nursery.common.concurrency;
+
+import lombok.Getter;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit in the style of a gradient limiter.
+ *
+ * Two moving averages of request latency are kept: a short one that follows current
+ * conditions and a long one that approximates the latency of an unloaded backend.
+ * Their ratio (the gradient) shrinks the limit when requests start queueing, for
+ * example while Firestore slows down, and a small headroom term lets it grow again
+ * when latency is back at the baseline. Acquiring a permit is a single CAS on the
+ * in-flight count; excess requests are rejected immediately instead of queueing.
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_WINDOW_ALPHA = 2.0 / (600 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this; only touched when a request completes
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * @param rttTolerance how much slower than the baseline requests may get before the limit shrinks
+     * @param smoothing    weight of each new estimate in the limit, between 0 and 1
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double rttTolerance, double smoothing) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Take a permit if the priority's share of the limit is not used up.
+     * The permit must be released when the request completes.
+     */
+    public Optional<Permit> tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.getLimitShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(current + 1));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += SHORT_WINDOW_ALPHA * (rttNanos - shortRttNanos);
+            longRttNanos += LONG_WINDOW_ALPHA * (rttNanos - longRttNanos);
+        }
+
+        // After a long slow period the baseline lags behind; let it recover faster
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        // Not using the limit: latency says nothing about whether more concurrency would help
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+        double headroom = Math.sqrt(limit);
+        double estimate = limit * gradient + headroom;
+        double next = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * An admitted request. Releasing it records the request's latency.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+
+        @Getter
+        private final int inFlightAtStart;
+
+        private boolean released;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inFlightAtStart);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.nursery.common.concurrency;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Priority of a request under load. Each priority may only use a share of the current
+ * concurrency limit, so lower priorities are shed first as the limit shrinks.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RequestPriority {
+    
+    /** Stock movements: recording, undoing and editing inventory transactions. */
+    CRITICAL(1.0),
+    
+    /** Other writes and authentication. */
+    NORMAL(0.9),
+    
+    /** Reads, including dashboards and lists. */
+    SHEDDABLE(0.7);
+    
+    private final double limitShare;
+    
+    public static RequestPriority of(HttpServletRequest request) {
+        String method = request.getMethod();
+        String uri = request.getRequestURI();
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+        
+        if (write && (uri.startsWith("/transactions") || uri.matches("^/inventory/[^/]+/transaction$"))) {
+            return CRITICAL;
+        }
+        if (write || uri.startsWith("/auth")) {
+            return NORMAL;
+        }
+        return SHEDDABLE;
+    }
+}
@@ -0,0 +1,98 @@
+package com.nursery.common.config;
+
+import com.nursery.common.concurrency.GradientConcurrencyLimiter;
+import com.nursery.common.concurrency.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Load shedding filter
+ * Admits requests up to an adaptive concurrency limit that shrinks when latency rises,
+ * and rejects the rest immediately with 503 instead of letting them pile up on threads.
+ * Stock-movement writes may use the whole limit; other writes and reads only a share of it,
+ * so they are shed first.
+ */
+@Slf4j
+@Component
+@Order(4)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final GradientConcurrencyLimiter limiter;
+    private final Map<RequestPriority, Counter> rejections = new EnumMap<>(RequestPriority.class);
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${concurrency-limit.initial:50}") int initialLimit,
+                                  @Value("${concurrency-limit.min:10}") int minLimit,
+                                  @Value("${concurrency-limit.max:190}") int maxLimit,
+                                  @Value("${concurrency-limit.rtt-tolerance:1.5}") double rttTolerance,
+                                  @Value("${concurrency-limit.smoothing:0.2}") double smoothing) {
+        this.enabled = enabled;
+        this.limiter = new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, rttTolerance, smoothing);
+
+        Gauge.builder("http.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("http.concurrency.inflight", limiter, GradientConcurrencyLimiter::getInFlight)
+            .description("Requests currently admitted by the concurrency limiter")
+            .register(meterRegistry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejections.put(priority, Counter.builder("http.concurrency.rejected")
+                .description("Requests shed by the concurrency limiter")
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        // Never shed health checks
+        if (!enabled || request.getRequestURI().startsWith("/actuator")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestPriority priority = RequestPriority.of(request);
+        Optional<GradientConcurrencyLimiter.Permit> permit = limiter.tryAcquire(priority);
+        if (permit.isEmpty()) {
+            // Counted by http.concurrency.rejected; a warning per request would flood the log under overload
+            rejections.get(priority).increment();
+            log.debug("Shedding {} request {} {} (limit {}, in flight {})", priority, request.getMethod(),
+                request.getRequestURI(), limiter.getLimit(), limiter.getInFlight());
+
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType("application/json");
+            response.getWriter().write(
+                "{\"success\":false,\"message\":\"Server is busy. Please try again shortly.\"}"
+            );
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.get().release();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.nursery.common.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nursery.common.ratelimit.GcraRateLimiter;
+import com.nursery.common.ratelimit.RateLimitDecision;
+import com.nursery.common.ratelimit.RateLimitPolicy;
+import com.nursery.common.ratelimit.RouteClass;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,17 +12,27 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Rate limiting filter to prevent abuse
- * Implements simple in-memory rate limiting per IP address
- * For production, consider using Redis-based rate limiting
+ * Two limits apply to every request, both using a lock-free GCRA limiter:
+ * - a per-route-class limit (login, write, read) keyed by the authenticated user,
+ *   or by client IP for anonymous requests, so users behind one NAT get their own budget
+ * - a coarser per-IP limit that caps the total from one address
+ * Runs after Spring Security's filter chain, so the authenticated user is known here.
+ * For production with several instances, consider a shared store such as Redis
  */
 @Slf4j
 @Component
@@ -32,15 +45,34 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     @Value("${rate-limit.requests-per-minute:60}")
     private int requestsPerMinute;
 
-    private final Cache<String, RateLimitInfo> rateLimitCache = Caffeine.newBuilder()
-            .expireAfterWrite(1, TimeUnit.MINUTES)
-            .maximumSize(10_000)
-            .build();
+    @Value("${rate-limit.write.requests-per-minute:30}")
+    private int writeRequestsPerMinute;
+
+    @Value("${rate-limit.login.requests-per-minute:10}")
+    private int loginRequestsPerMinute;
+
+    @Value("${rate-limit.login.burst:5}")
+    private int loginBurst;
+
+    @Value("${rate-limit.ip.requests-per-minute:600}")
+    private int ipRequestsPerMinute;
+
+    private final GcraRateLimiter limiter = new GcraRateLimiter(100_000, Duration.ofMinutes(2));
+    private final Map<RouteClass, RateLimitPolicy> routePolicies = new EnumMap<>(RouteClass.class);
+    private RateLimitPolicy ipPolicy;
+
+    @PostConstruct
+    public void initPolicies() {
+        routePolicies.put(RouteClass.READ, RateLimitPolicy.perMinute("read", requestsPerMinute, requestsPerMinute));
+        routePolicies.put(RouteClass.WRITE, RateLimitPolicy.perMinute("write", writeRequestsPerMinute, writeRequestsPerMinute));
+        routePolicies.put(RouteClass.LOGIN, RateLimitPolicy.perMinute("login", loginRequestsPerMinute, loginBurst));
+        ipPolicy = RateLimitPolicy.perMinute("ip", ipRequestsPerMinute, ipRequestsPerMinute);
+    }
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        
+
         if (!rateLimitEnabled) {
             filterChain.doFilter(request, response);
             return;
@@ -52,71 +84,65 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             return;
         }
 
-        String clientId = getClientIdentifier(request);
-        RateLimitInfo rateLimitInfo = rateLimitCache.get(clientId, key -> new RateLimitInfo());
-
-        synchronized (rateLimitInfo) {
-            long now = System.currentTimeMillis();
-            
-            // Reset counter if a minute has passed
-            if (now - rateLimitInfo.getFirstRequestTime() > 60_000) {
-                rateLimitInfo.reset();
-            }
-
-            rateLimitInfo.incrementRequestCount();
-
-            if (rateLimitInfo.getRequestCount() > requestsPerMinute) {
-                log.warn("Rate limit exceeded for client: {} - {} requests in the last minute", 
-                    clientId, rateLimitInfo.getRequestCount());
-                
-                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                response.setContentType("application/json");
-                response.getWriter().write(
-                    "{\"success\":false,\"message\":\"Rate limit exceeded. Please try again later.\"}"
-                );
-                return;
-            }
+        String clientIp = getClientIp(request);
+        RateLimitDecision ipDecision = limiter.tryAcquire(ipPolicy, clientIp);
+        if (!ipDecision.isAllowed()) {
+            log.warn("IP rate limit exceeded for client: {}", clientIp);
+            reject(response, ipDecision);
+            return;
         }
 
-        // Add rate limit headers
-        response.setHeader("X-RateLimit-Limit", String.valueOf(requestsPerMinute));
-        response.setHeader("X-RateLimit-Remaining", 
-            String.valueOf(Math.max(0, requestsPerMinute - rateLimitInfo.getRequestCount())));
+        RouteClass routeClass = RouteClass.of(request);
+        String subject = getSubject(clientIp);
+        RateLimitDecision decision = limiter.tryAcquire(routePolicies.get(routeClass), subject);
+        if (!decision.isAllowed()) {
+            log.warn("Rate limit exceeded for {} on {} routes", subject, routeClass);
+            reject(response, decision);
+            return;
+        }
+
+        // Add rate limit headers for the route-class limit, which is the one a client normally hits
+        writeHeaders(response, decision);
 
         filterChain.doFilter(request, response);
     }
 
-    private String getClientIdentifier(HttpServletRequest request) {
-        // Try to get IP from X-Forwarded-For header (for load balancers/proxies)
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        // Fallback to remote address
-        return request.getRemoteAddr();
+    private void reject(HttpServletResponse response, RateLimitDecision decision) throws IOException {
+        writeHeaders(response, decision);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.getRetryAfterSeconds()));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType("application/json");
+        response.getWriter().write(
+            "{\"success\":false,\"message\":\"Rate limit exceeded. Please try again later.\"}"
+        );
     }
 
-    private static class RateLimitInfo {
-        private int requestCount = 0;
-        private long firstRequestTime = System.currentTimeMillis();
-
-        public synchronized void incrementRequestCount() {
-            requestCount++;
-        }
+    private void writeHeaders(HttpServletResponse response, RateLimitDecision decision) {
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.getPolicy().getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(decision.getResetSeconds()));
+    }
 
-        public synchronized void reset() {
-            requestCount = 1;
-            firstRequestTime = System.currentTimeMillis();
+    /**
+     * Authenticated requests are limited per user; anonymous ones per client IP.
+     */
+    private String getSubject(String clientIp) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
         }
+        return "ip:" + clientIp;
+    }
 
-        public int getRequestCount() {
-            return requestCount;
+    private String getClientIp(HttpServletRequest request) {
+        // Try to get IP from X-Forwarded-For header (for load balancers/proxies)
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
         }
 
-        public long getFirstRequestTime() {
-            return firstRequestTime;
-        }
+        // Fallback to remote address
+        return request.getRemoteAddr();
     }
 }
-
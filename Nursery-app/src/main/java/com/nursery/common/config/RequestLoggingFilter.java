@@ -1,23 +1,39 @@
 package com.nursery.common.config;
 
+import com.nursery.common.firestore.metrics.FirestoreMetrics;
+import com.nursery.common.logging.AccessLogRecord;
+import com.nursery.common.logging.AccessLogWriter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Request/Response logging filter with correlation IDs
- * Logs all incoming requests and responses for production monitoring
+ * Access logging filter with correlation IDs
+ * Emits one structured record per request (route template, status, latency, Firestore
+ * calls made on the request thread, user, nursery) through the asynchronous {@link AccessLogWriter}.
+ * Successful reads can be sampled; errors, writes and slow requests are always logged.
+ * Bodies are only buffered for path prefixes listed in access-log.body-logging-paths.
  */
 @Slf4j
 @Component
@@ -26,41 +42,94 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
     private static final String CORRELATION_ID_MDC_KEY = "correlationId";
+    private static final int MAX_LOGGED_BODY_BYTES = 2048;
+
+    private final AccessLogWriter accessLogWriter;
+    private final double successfulReadSampleRate;
+    private final long slowRequestMillis;
+    private final List<String> bodyLoggingPaths;
+
+    public RequestLoggingFilter(AccessLogWriter accessLogWriter,
+                                @Value("${access-log.successful-read-sample-rate:1.0}") double successfulReadSampleRate,
+                                @Value("${access-log.slow-request-millis:1000}") long slowRequestMillis,
+                                @Value("${access-log.body-logging-paths:}") String bodyLoggingPaths) {
+        this.accessLogWriter = accessLogWriter;
+        this.successfulReadSampleRate = successfulReadSampleRate;
+        this.slowRequestMillis = slowRequestMillis;
+        this.bodyLoggingPaths = Arrays.stream(bodyLoggingPaths.split(","))
+            .map(String::trim)
+            .filter(path -> !path.isEmpty())
+            .toList();
+    }
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        
+
         // Generate or extract correlation ID
         String correlationId = getOrGenerateCorrelationId(request);
         MDC.put(CORRELATION_ID_MDC_KEY, correlationId);
         response.setHeader(CORRELATION_ID_HEADER, correlationId);
 
-        long startTime = System.currentTimeMillis();
-        
-        // Wrap request/response to enable reading body multiple times
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        long startNanos = System.nanoTime();
+        FirestoreMetrics.beginRequest();
+
+        // Wrap request/response only when body logging is enabled for this route
+        boolean logBodies = shouldLogBodies(request);
+        HttpServletRequest requestToUse = logBodies ? new ContentCachingRequestWrapper(request) : request;
+        HttpServletResponse responseToUse = logBodies ? new ContentCachingResponseWrapper(response) : response;
 
         try {
-            // Log incoming request
-            logRequest(wrappedRequest, correlationId);
-            
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
-            
+            filterChain.doFilter(requestToUse, responseToUse);
         } finally {
-            // Log response
-            long duration = System.currentTimeMillis() - startTime;
-            logResponse(wrappedResponse, correlationId, duration);
-            
-            // Copy response body back to original response
-            wrappedResponse.copyBodyToResponse();
-            
+            long latencyMicros = (System.nanoTime() - startNanos) / 1000;
+            int[] firestoreCalls = FirestoreMetrics.endRequest();
+            int status = responseToUse.getStatus();
+
+            if (shouldLog(request.getMethod(), status, latencyMicros)) {
+                AccessLogRecord.AccessLogRecordBuilder record = AccessLogRecord.builder()
+                    .method(request.getMethod())
+                    .route(getRoute(request))
+                    .status(status)
+                    .latencyMicros(latencyMicros)
+                    .firestoreReadCalls(firestoreCalls[0])
+                    .firestoreWriteCalls(firestoreCalls[1])
+                    .userId(getUserId())
+                    .nurseryId(getNurseryId(request))
+                    .correlationId(correlationId);
+                if (logBodies) {
+                    record.requestBody(bodyText(((ContentCachingRequestWrapper) requestToUse).getContentAsByteArray()))
+                        .responseBody(bodyText(((ContentCachingResponseWrapper) responseToUse).getContentAsByteArray()));
+                }
+                accessLogWriter.submit(record.build());
+            }
+
+            if (logBodies) {
+                // Copy response body back to original response
+                ((ContentCachingResponseWrapper) responseToUse).copyBodyToResponse();
+            }
+
             // Clear MDC
             MDC.clear();
         }
     }
 
+    private boolean shouldLog(String method, int status, long latencyMicros) {
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (!read || status >= 400 || latencyMicros >= slowRequestMillis * 1000) {
+            return true;
+        }
+        return successfulReadSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < successfulReadSampleRate;
+    }
+
+    private boolean shouldLogBodies(HttpServletRequest request) {
+        if (bodyLoggingPaths.isEmpty()) {
+            return false;
+        }
+        String uri = request.getRequestURI();
+        return bodyLoggingPaths.stream().anyMatch(uri::startsWith);
+    }
+
     private String getOrGenerateCorrelationId(HttpServletRequest request) {
         String correlationId = request.getHeader(CORRELATION_ID_HEADER);
         if (correlationId == null || correlationId.isEmpty()) {
@@ -69,34 +138,41 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         return correlationId;
     }
 
-    private void logRequest(ContentCachingRequestWrapper request, String correlationId) {
-        if (log.isDebugEnabled()) {
-            log.debug("Incoming request [{}] {} {} from {} - Correlation ID: {}", 
-                request.getMethod(),
-                request.getRequestURI(),
-                request.getQueryString() != null ? "?" + request.getQueryString() : "",
-                request.getRemoteAddr(),
-                correlationId
-            );
-        } else {
-            log.info("Incoming request [{}] {} - Correlation ID: {}", 
-                request.getMethod(),
-                request.getRequestURI(),
-                correlationId
-            );
+    /**
+     * Route template keeps the log cardinality low; falls back to the URI when no handler matched.
+     */
+    private String getRoute(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private String getUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
         }
+        return authentication.getName();
     }
 
-    private void logResponse(ContentCachingResponseWrapper response, String correlationId, long duration) {
-        int status = response.getStatus();
-        
-        if (log.isDebugEnabled()) {
-            log.debug("Outgoing response [{}] - Duration: {}ms - Correlation ID: {}", 
-                status, duration, correlationId);
-        } else {
-            log.info("Outgoing response [{}] - Duration: {}ms - Correlation ID: {}", 
-                status, duration, correlationId);
+    @SuppressWarnings("unchecked")
+    private String getNurseryId(HttpServletRequest request) {
+        String nurseryId = request.getParameter("nurseryId");
+        if (nurseryId != null) {
+            return nurseryId;
         }
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map) {
+            return ((Map<String, String>) variables).get("nurseryId");
+        }
+        return null;
     }
-}
 
+    private String bodyText(byte[] content) {
+        if (content.length == 0) {
+            return null;
+        }
+        int length = Math.min(content.length, MAX_LOGGED_BODY_BYTES);
+        String text = new String(content, 0, length, StandardCharsets.UTF_8);
+        return content.length > length ? text + "...(truncated)" : text;
+    }
+}
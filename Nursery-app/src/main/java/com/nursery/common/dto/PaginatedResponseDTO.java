@@ -32,5 +32,7 @@ public class PaginatedResponseDTO<T> {
     private boolean isFirst;
     
     private boolean isLast;
+    
+    private String nextCursor; // Pass back as "cursor" to continue after this page
 }
 
@@ -0,0 +1,141 @@
+package com.nursery.common.dto;
+
+import com.nursery.common.exception.ValidationException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Response DTO fields picked with a {@code fields=id,breedName,quantity} query parameter.
+ *
+ * List endpoints render each item with only the picked fields, plus {@code id}, and read
+ * only the matching document fields from Firestore. Without the parameter every field is
+ * rendered and whole documents are read.
+ */
+public final class SparseFieldset {
+
+    private static final String ID = "id";
+    private static final SparseFieldset ALL = new SparseFieldset(List.of());
+
+    /** Picked DTO fields in declaration order; empty when all fields are rendered. */
+    private final List<Field> fields;
+
+    private SparseFieldset(List<Field> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parses a comma-separated list of field names of the response DTO.
+     *
+     * @throws ValidationException if a name is not a field of the DTO
+     */
+    public static SparseFieldset parse(String fields, Class<?> dtoClass) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) {
+                requested.add(name.trim());
+            }
+        }
+        if (requested.isEmpty()) {
+            return ALL;
+        }
+        requested.add(ID);
+
+        List<Field> picked = new ArrayList<>();
+        Set<String> known = new LinkedHashSet<>();
+        for (Field field : dtoClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            known.add(field.getName());
+            if (requested.contains(field.getName())) {
+                field.setAccessible(true);
+                picked.add(field);
+            }
+        }
+        requested.removeAll(known);
+        if (!requested.isEmpty()) {
+            throw new ValidationException("Unknown fields " + requested + "; allowed fields are " + known);
+        }
+        return new SparseFieldset(picked);
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Document fields to read for the picked DTO fields, each stored under the same name.
+     *
+     * @return the document field names, or null to read whole documents
+     */
+    public Set<String> documentFields() {
+        return documentFields(Map.of());
+    }
+
+    /**
+     * Document fields to read for the picked DTO fields.
+     *
+     * @param storedAs document field names of DTO fields stored under another name
+     * @return the document field names, or null to read whole documents
+     */
+    public Set<String> documentFields(Map<String, String> storedAs) {
+        if (isAll()) {
+            return null;
+        }
+        return fields.stream()
+            .map(Field::getName)
+            .filter(name -> !ID.equals(name))
+            .map(name -> storedAs.getOrDefault(name, name))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * The item with only the picked fields, or the item itself when all fields are rendered.
+     */
+    public Object render(Object item) {
+        if (isAll() || item == null) {
+            return item;
+        }
+        Map<String, Object> rendered = new LinkedHashMap<>();
+        try {
+            for (Field field : fields) {
+                rendered.put(field.getName(), field.get(item));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read field of " + item.getClass().getSimpleName(), e);
+        }
+        return rendered;
+    }
+
+    public List<Object> render(List<?> items) {
+        return items.stream()
+            .map(this::render)
+            .collect(Collectors.toList());
+    }
+
+    public PaginatedResponseDTO<Object> render(PaginatedResponseDTO<?> page) {
+        return PaginatedResponseDTO.builder()
+            .content(render(page.getContent()))
+            .totalElements(page.getTotalElements())
+            .totalPages(page.getTotalPages())
+            .size(page.getSize())
+            .number(page.getNumber())
+            .hasNext(page.isHasNext())
+            .hasPrevious(page.isHasPrevious())
+            .isFirst(page.isFirst())
+            .isLast(page.isLast())
+            .nextCursor(page.getNextCursor())
+            .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.nursery.common.dto.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -65,8 +66,21 @@ public class GlobalExceptionHandler {
             .body(ApiResponse.error(ex.getMessage()));
     }
     
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<?>> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        String correlationId = getCorrelationId(request);
+        log.warn("Service unavailable: {} | Correlation ID: {}", ex.getMessage(), correlationId);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(CORRELATION_ID_HEADER, correlationId)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(ApiResponse.error(ex.getMessage()));
+    }
+    
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiResponse<?>> handleBusinessException(BusinessException ex, HttpServletRequest request) {
+        if (ex instanceof ServiceUnavailableException) {
+            return handleServiceUnavailable((ServiceUnavailableException) ex, request);
+        }
         String correlationId = getCorrelationId(request);
         log.error("Business error: {} | Correlation ID: {}", ex.getMessage(), correlationId);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
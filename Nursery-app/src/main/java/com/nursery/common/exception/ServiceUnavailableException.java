@@ -0,0 +1,17 @@
+package com.nursery.common.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource is saturated; mapped to 503 with a Retry-After header.
+ */
+@Getter
+public class ServiceUnavailableException extends BusinessException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -2,13 +2,17 @@ package com.nursery.common.firestore;
 
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
+import com.nursery.common.exception.BusinessException;
 import com.nursery.common.firestore.batch.BatchWriteResult;
 import com.nursery.common.firestore.exception.*;
+import com.nursery.common.firestore.identity.RequestIdentityMap;
 import com.nursery.common.firestore.metrics.FirestoreMetrics;
+import com.nursery.common.firestore.pagination.PageCursor;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
 import com.nursery.common.firestore.query.QueryOptions;
 import com.nursery.common.firestore.retry.FirestoreRetryPolicy;
+import com.nursery.common.firestore.sync.SyncCursor;
 import com.nursery.common.firestore.transaction.FirestoreTransactionManager;
 import com.nursery.common.firestore.validation.FirestoreValidator;
 import lombok.extern.slf4j.Slf4j;
@@ -17,11 +21,19 @@ import org.slf4j.MDC;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 
 @Slf4j
 public abstract class BaseFirestoreRepository<T extends BaseDocument> {
@@ -29,6 +41,22 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
     // Shared executor service for async operations across all repository instances
     private static final ExecutorService SHARED_EXECUTOR = createSharedExecutor();
     private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    private static final String DELETED_FIELD = "isDeleted";
+    private static final String UPDATED_AT_FIELD = "updatedAt";
+    
+    /**
+     * Suffix of the collection that archived soft-deleted documents are moved to.
+     */
+    public static final String ARCHIVE_SUFFIX = "_archive";
+    
+    /** Most values a single Firestore in filter accepts. */
+    protected static final int WHERE_IN_LIMIT = 30;
+    
+    /**
+     * Fields read with every field mask: the sort keys of paged queries, whose snapshots
+     * serve as cursors, and the soft-delete flag.
+     */
+    private static final List<String> ALWAYS_SELECTED = List.of("createdAt", UPDATED_AT_FIELD, DELETED_FIELD);
     
     protected final Firestore firestore;
     private final FirestoreRetryPolicy retryPolicy;
@@ -120,6 +148,7 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 DocumentReference docRef = firestore.collection(getCollectionName()).document(documentId);
                 ApiFuture<WriteResult> result = docRef.set(data, SetOptions.merge());
                 getWithTimeout(result, "save");
+                RequestIdentityMap.evict(getCollectionName(), documentId);
                 
                 FirestoreMetrics.recordWriteOperation(getCollectionName(), "save", Duration.between(start, Instant.now()));
                 log.debug("Saved document {} with ID: {}", getCollectionName(), documentId);
@@ -176,6 +205,64 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
         }
     }
     
+    /**
+     * Queue a save of a new or existing document in a write batch.
+     * The batch is committed by the caller with {@link #commitBatch}.
+     */
+    public String save(T document, WriteBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null. Use save(document) for single writes.");
+        }
+        
+        try {
+            FirestoreValidator.validateCollectionName(getCollectionName());
+            
+            String documentId = document.getId();
+            if (documentId == null || documentId.isEmpty()) {
+                DocumentReference docRef = firestore.collection(getCollectionName()).document();
+                documentId = docRef.getId();
+                document.setId(documentId);
+                document.onCreate();
+            } else {
+                FirestoreValidator.validateDocumentId(documentId);
+                document.onUpdate();
+            }
+            
+            Map<String, Object> data = FirestoreConverter.toMap(document);
+            FirestoreValidator.validateDocumentSize(document, data);
+            
+            DocumentReference docRef = firestore.collection(getCollectionName()).document(documentId);
+            batch.set(docRef, data, SetOptions.merge());
+            return documentId;
+        } catch (Exception e) {
+            throw new com.nursery.common.firestore.exception.FirestoreException("Failed to save document in batch", e);
+        }
+    }
+    
+    public WriteBatch newBatch() {
+        return firestore.batch();
+    }
+    
+    /**
+     * Commit a write batch built with {@link #save(BaseDocument, WriteBatch)}.
+     * Not retried: a batch may hold creates, which fail when replayed after an ambiguous commit.
+     */
+    public void commitBatch(WriteBatch batch, String operation) {
+        Instant start = Instant.now();
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("firestore.operation", operation);
+             MDC.MDCCloseable ignored2 = MDC.putCloseable("firestore.collection", getCollectionName())) {
+            getWithTimeout(batch.commit(), operation);
+            FirestoreMetrics.recordWriteOperation(getCollectionName(), operation, Duration.between(start, Instant.now()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), operation, Duration.between(start, Instant.now()), e);
+            throw new com.nursery.common.firestore.exception.FirestoreConnectionException("Batch commit interrupted", e);
+        } catch (ExecutionException e) {
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), operation, Duration.between(start, Instant.now()), e);
+            throw mapException("Failed to commit batch", e);
+        }
+    }
+    
     /**
      * Find document by ID within a Firestore transaction (for atomic reads)
      * This method must be called from within a runInTransaction callback
@@ -203,6 +290,22 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
     }
     
     public Optional<T> findById(String id) {
+        DocumentSnapshot document = findSnapshot(id);
+        if (document.exists()) {
+            return Optional.of(FirestoreConverter.toDocument(document, getDocumentClass()));
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Full snapshot by ID, served from the request identity map when already read in this request.
+     */
+    private DocumentSnapshot findSnapshot(String id) {
+        DocumentSnapshot cached = RequestIdentityMap.get(getCollectionName(), id);
+        if (cached != null) {
+            return cached;
+        }
+        
         return executeWithRetry("findById", () -> {
             Instant start = Instant.now();
             try {
@@ -212,11 +315,8 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 DocumentSnapshot document = getWithTimeout(future, "findById");
                 
                 FirestoreMetrics.recordReadOperation(getCollectionName(), "findById", Duration.between(start, Instant.now()));
-                
-                if (document.exists()) {
-                    return Optional.of(FirestoreConverter.toDocument(document, getDocumentClass()));
-                }
-                return Optional.empty();
+                RequestIdentityMap.put(getCollectionName(), id, document);
+                return document;
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 FirestoreMetrics.recordFailedOperation(getCollectionName(), "findById", Duration.between(start, Instant.now()), e);
@@ -228,6 +328,129 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
         });
     }
     
+    /**
+     * Find many documents by ID with a single batched read, keyed by ID in the order given.
+     * Missing IDs are left out; documents already read in this request are not read again.
+     */
+    public Map<String, T> findAllByIds(Collection<String> ids) {
+        Map<String, T> found = new LinkedHashMap<>();
+        List<DocumentReference> toRead = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            FirestoreValidator.validateDocumentId(id);
+            DocumentSnapshot cached = RequestIdentityMap.get(getCollectionName(), id);
+            if (cached == null) {
+                toRead.add(firestore.collection(getCollectionName()).document(id));
+            }
+        }
+        
+        Map<String, DocumentSnapshot> snapshots = new HashMap<>();
+        if (!toRead.isEmpty()) {
+            List<DocumentSnapshot> read = executeWithRetry("findAllByIds", () -> {
+                Instant start = Instant.now();
+                try {
+                    List<DocumentSnapshot> result = getWithTimeout(
+                        firestore.getAll(toRead.toArray(new DocumentReference[0])), "findAllByIds");
+                    FirestoreMetrics.recordReadOperation(getCollectionName(), "findAllByIds", Duration.between(start, Instant.now()));
+                    return result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    FirestoreMetrics.recordFailedOperation(getCollectionName(), "findAllByIds", Duration.between(start, Instant.now()), e);
+                    throw new FirestoreConnectionException("Batched find interrupted", e);
+                } catch (ExecutionException e) {
+                    FirestoreMetrics.recordFailedOperation(getCollectionName(), "findAllByIds", Duration.between(start, Instant.now()), e);
+                    throw mapException("Failed to find documents", e);
+                }
+            });
+            for (DocumentSnapshot snapshot : read) {
+                RequestIdentityMap.put(getCollectionName(), snapshot.getId(), snapshot);
+                snapshots.put(snapshot.getId(), snapshot);
+            }
+        }
+        
+        for (String id : new LinkedHashSet<>(ids)) {
+            DocumentSnapshot snapshot = snapshots.containsKey(id) ? snapshots.get(id) : RequestIdentityMap.get(getCollectionName(), id);
+            if (snapshot != null && snapshot.exists()) {
+                found.put(id, FirestoreConverter.toDocument(snapshot, getDocumentClass()));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Find many documents by ID with a single batched read inside a transaction, keyed by ID
+     * in the order given. Missing IDs are left out.
+     */
+    public Map<String, T> findAllByIds(Collection<String> ids, Transaction transaction) {
+        List<DocumentReference> references = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            FirestoreValidator.validateDocumentId(id);
+            references.add(firestore.collection(getCollectionName()).document(id));
+        }
+        Map<String, T> found = new LinkedHashMap<>();
+        if (references.isEmpty()) {
+            return found;
+        }
+        try {
+            for (DocumentSnapshot snapshot : getWithTimeout(
+                    transaction.getAll(references.toArray(new DocumentReference[0])), "findAllByIds in transaction")) {
+                if (snapshot.exists()) {
+                    found.put(snapshot.getId(), FirestoreConverter.toDocument(snapshot, getDocumentClass()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Batched find interrupted in transaction", e);
+        } catch (ExecutionException e) {
+            throw mapException("Failed to find documents in transaction", e);
+        }
+        return found;
+    }
+    
+    /**
+     * Find a document by ID, falling back to its archive collection when it is no longer live.
+     * Soft-deleted documents are moved there by the archiver once their retention runs out,
+     * so audit references to them (e.g. reversedByTxnId) resolve through this lookup.
+     */
+    public Optional<T> findByIdIncludingArchived(String id) {
+        Optional<T> live = findById(id);
+        if (live.isPresent()) {
+            return live;
+        }
+        
+        String archiveCollection = getArchiveCollectionName();
+        DocumentSnapshot document = executeWithRetry("findArchivedById", () -> {
+            Instant start = Instant.now();
+            try {
+                DocumentSnapshot snapshot = getWithTimeout(firestore.collection(archiveCollection).document(id).get(),
+                    "findArchivedById");
+                FirestoreMetrics.recordReadOperation(archiveCollection, "findById", Duration.between(start, Instant.now()));
+                return snapshot;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(archiveCollection, "findById", Duration.between(start, Instant.now()), e);
+                throw new com.nursery.common.firestore.exception.FirestoreConnectionException("Find operation interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(archiveCollection, "findById", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to find archived document", e);
+            }
+        });
+        if (document.exists()) {
+            return Optional.of(FirestoreConverter.toDocument(document, getDocumentClass()));
+        }
+        return Optional.empty();
+    }
+    
+    protected String getArchiveCollectionName() {
+        return getCollectionName() + ARCHIVE_SUFFIX;
+    }
+    
+    /**
+     * Query over the archive collection; documents read from it convert like live ones.
+     */
+    protected Query buildArchiveQuery() {
+        return firestore.collection(getArchiveCollectionName());
+    }
+    
     public CompletableFuture<Optional<T>> findByIdAsync(String id) {
         return CompletableFuture.supplyAsync(() -> findById(id), executorService);
     }
@@ -269,23 +492,19 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
     }
     
     public PageResult<T> findAll(PageRequest pageRequest) {
+        PageCursor cursor = pageRequest.getCursor() != null
+            ? PageCursor.decode(pageRequest.getCursor(), getCollectionName(), null)
+            : null;
         return executeWithRetry("findAllPaginated", () -> {
             Instant start = Instant.now();
             try {
-                Query query = buildQuery();
+                Set<String> fields = selection(pageRequest.getFields());
+                Query query = select(buildQuery().orderBy(FieldPath.documentId()), fields);
                 query = query.limit(pageRequest.getEffectiveSize());
                 
-                if (pageRequest.getCursor() != null) {
+                if (cursor != null) {
                     // Cursor-based pagination
-                    DocumentSnapshot cursorDoc = getWithTimeout(
-                        firestore.collection(getCollectionName())
-                            .document(pageRequest.getCursor())
-                            .get(),
-                        "findAllPaginated cursor"
-                    );
-                    if (cursorDoc.exists()) {
-                        query = query.startAfter(cursorDoc);
-                    }
+                    query = cursor.applyTo(query);
                 } else if (pageRequest.getOffset() > 0) {
                     // Offset-based pagination (less efficient)
                     query = query.offset(pageRequest.getOffset());
@@ -297,12 +516,12 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 List<T> documents = new ArrayList<>();
                 String nextCursor = null;
                 for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                    documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
+                    documents.add(FirestoreConverter.toDocument(document, getDocumentClass(), fields));
                 }
                 
                 if (documents.size() == pageRequest.getEffectiveSize()) {
                     QueryDocumentSnapshot lastDoc = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
-                    nextCursor = lastDoc.getId();
+                    nextCursor = PageCursor.after(lastDoc, null).encode(getCollectionName());
                 }
                 
                 FirestoreMetrics.recordReadOperation(getCollectionName(), "findAllPaginated", Duration.between(start, Instant.now()));
@@ -330,6 +549,7 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 DocumentReference docRef = firestore.collection(getCollectionName()).document(id);
                 ApiFuture<WriteResult> result = docRef.delete();
                 getWithTimeout(result, "deleteById");
+                RequestIdentityMap.evict(getCollectionName(), id);
                 
                 FirestoreMetrics.recordWriteOperation(getCollectionName(), "deleteById", Duration.between(start, Instant.now()));
                 log.debug("Deleted document {} with ID: {}", getCollectionName(), id);
@@ -349,8 +569,20 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
         return CompletableFuture.runAsync(() -> deleteById(id), executorService);
     }
     
+    /**
+     * Check that a document exists with a direct get that transfers no fields.
+     */
     public boolean existsById(String id) {
-        return findById(id).isPresent();
+        return existenceSnapshot(id, "existsById").exists();
+    }
+    
+    /**
+     * Check that a document exists and is not soft-deleted, reading only the isDeleted field.
+     * A document without the field counts as not deleted.
+     */
+    public boolean existsByIdAndNotDeleted(String id) {
+        DocumentSnapshot snapshot = existenceSnapshot(id, "existsByIdAndNotDeleted");
+        return snapshot.exists() && !Boolean.TRUE.equals(snapshot.getBoolean(DELETED_FIELD));
     }
     
     public BatchWriteResult saveBatch(List<T> documents) {
@@ -406,6 +638,7 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 
                 ApiFuture<List<WriteResult>> result = batch.commit();
                 getWithTimeout(result, "saveBatch");
+                successfulIds.forEach(successfulId -> RequestIdentityMap.evict(getCollectionName(), successfulId));
                 
                 FirestoreMetrics.recordWriteOperation(getCollectionName(), "saveBatch", Duration.between(start, Instant.now()));
                 
@@ -464,6 +697,7 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 
                 ApiFuture<List<WriteResult>> result = batch.commit();
                 getWithTimeout(result, "saveBatch");
+                successfulIds.forEach(successfulId -> RequestIdentityMap.evict(getCollectionName(), successfulId));
                 
                 FirestoreMetrics.recordWriteOperation(getCollectionName(), "deleteBatch", Duration.between(start, Instant.now()));
                 
@@ -485,13 +719,56 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
     }
     
     public <R> R runInTransaction(Function<Transaction, R> transactionFunction) {
-        return transactionManager.runInTransaction(transactionFunction);
+        try {
+            return transactionManager.runInTransaction(transactionFunction);
+        } finally {
+            // Transactional writes are not tracked by the identity map, so drop everything it holds
+            RequestIdentityMap.clear();
+        }
+    }
+    
+    /**
+     * Run read-only work against one consistent snapshot.
+     * Read-only transactions take no locks, so they never hold up concurrent writers.
+     */
+    public <R> R runInReadOnlyTransaction(Function<Transaction, R> transactionFunction) {
+        TransactionOptions options = TransactionOptions.createReadOnlyOptionsBuilder().build();
+        try {
+            return getWithTimeout(firestore.runTransaction(transactionFunction::apply, options), "readOnlyTransaction");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Read-only transaction interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw mapException("Read-only transaction failed", e);
+        }
     }
     
     protected Query buildQuery() {
         return firestore.collection(getCollectionName());
     }
     
+    /**
+     * Requested fields plus those every masked read needs, or null to read whole documents.
+     */
+    private static Set<String> selection(Set<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>(fields);
+        selected.addAll(ALWAYS_SELECTED);
+        return selected;
+    }
+    
+    /**
+     * Restrict a query to a field mask, so only those fields are sent over the wire.
+     */
+    private static Query select(Query query, Set<String> fields) {
+        return fields == null ? query : query.select(fields.toArray(new String[0]));
+    }
+    
     protected List<T> executeQuery(Query query) {
         return executeQuery(query, QueryOptions.defaultOptions());
     }
@@ -501,7 +778,8 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
         return executeWithRetry("executeQuery", () -> {
             Instant start = Instant.now();
             try {
-                Query finalQuery = query;
+                Set<String> fields = selection(finalOptions.getFields());
+                Query finalQuery = select(query, fields);
                 if (finalOptions.getOrderByField() != null) {
                     finalQuery = finalQuery.orderBy(finalOptions.getOrderByField(),
                         finalOptions.isAscending() ? Query.Direction.ASCENDING : Query.Direction.DESCENDING);
@@ -513,7 +791,7 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
                 
                 List<T> documents = new ArrayList<>();
                 for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                    documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
+                    documents.add(FirestoreConverter.toDocument(document, getDocumentClass(), fields));
                 }
                 
                 FirestoreMetrics.recordReadOperation(getCollectionName(), "executeQuery", Duration.between(start, Instant.now()));
@@ -529,6 +807,412 @@ public abstract class BaseFirestoreRepository<T extends BaseDocument> {
         });
     }
     
+    /**
+     * Execute a query as a single page ordered by (orderField, documentId) in one direction.
+     * Continues after the request's {@link PageCursor} (keyset) when it carries one,
+     * otherwise applies a server-side offset. Only the page plus one look-ahead document
+     * is read, and the total comes from a count aggregation on the scope.
+     *
+     * @param orderField a timestamp field, such as updatedAt
+     * @throws com.nursery.common.exception.ValidationException if the cursor is invalid
+     */
+    protected PageResult<T> executePagedQuery(Query scope, String orderField, Query.Direction direction,
+                                              PageRequest pageRequest) {
+        return executePagedQuery(scope, orderField, direction, pageRequest, null, () -> count(scope));
+    }
+    
+    /**
+     * Execute a query as a single page, skipping documents rejected by filter.
+     * When a filter is given the query is scanned forward in chunks until the page is full,
+     * so the page size holds even if some documents are filtered out.
+     */
+    protected PageResult<T> executePagedQuery(Query scope, String orderField, Query.Direction direction,
+                                              PageRequest pageRequest, Predicate<? super T> filter,
+                                              LongSupplier totalElements) {
+        PageCursor cursor = pageRequest.getCursor() != null
+            ? PageCursor.decode(pageRequest.getCursor(), getCollectionName(), orderField)
+            : null;
+        return executeWithRetry("executePagedQuery", () -> {
+            Instant start = Instant.now();
+            try {
+                int size = pageRequest.getEffectiveSize();
+                int skip = pageRequest.getOffset();
+                Set<String> fields = selection(pageRequest.getFields());
+                Query query = select(scope.orderBy(orderField, direction).orderBy(FieldPath.documentId(), direction), fields);
+                
+                if (cursor != null) {
+                    query = cursor.applyTo(query);
+                    skip = 0;
+                }
+                if (filter == null && skip > 0) {
+                    query = query.offset(skip);
+                    skip = 0;
+                }
+                
+                int chunkSize = filter == null ? size + 1 : Math.max(size + 1, 100);
+                List<T> content = new ArrayList<>(size);
+                QueryDocumentSnapshot lastIncluded = null;
+                boolean hasNext = false;
+                Query chunk = query;
+                
+                while (true) {
+                    QuerySnapshot querySnapshot = getWithTimeout(chunk.limit(chunkSize).get(), "executePagedQuery");
+                    List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
+                    
+                    for (QueryDocumentSnapshot document : documents) {
+                        T value = FirestoreConverter.toDocument(document, getDocumentClass(), fields);
+                        if (filter != null && !filter.test(value)) {
+                            continue;
+                        }
+                        if (skip > 0) {
+                            skip--;
+                            continue;
+                        }
+                        if (content.size() == size) {
+                            hasNext = true;
+                            break;
+                        }
+                        content.add(value);
+                        lastIncluded = document;
+                    }
+                    
+                    if (hasNext || documents.size() < chunkSize) {
+                        break;
+                    }
+                    chunk = query.startAfter(documents.get(documents.size() - 1));
+                }
+                
+                FirestoreMetrics.recordReadOperation(getCollectionName(), "executePagedQuery", Duration.between(start, Instant.now()));
+                
+                return PageResult.<T>builder()
+                    .content(content)
+                    .page(pageRequest.getPage())
+                    .size(size)
+                    .totalElements(totalElements.getAsLong())
+                    .hasNext(hasNext)
+                    .nextCursor(hasNext ? PageCursor.after(lastIncluded, orderField).encode(getCollectionName()) : null)
+                    .build();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "executePagedQuery", Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("Paged query interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "executePagedQuery", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to execute paged query", e);
+            }
+        });
+    }
+    
+    /**
+     * Check whether any document matches, reading at most one document ID.
+     */
+    protected boolean exists(Query query) {
+        return !findIds(query, 1).isEmpty();
+    }
+    
+    /**
+     * IDs of matching documents, using an ID-only projection so no fields are transferred.
+     */
+    protected List<String> findIds(Query query, int limit) {
+        return executeWithRetry("findIds", () -> {
+            Instant start = Instant.now();
+            try {
+                Query projected = query.select(FieldPath.documentId()).limit(limit);
+                QuerySnapshot querySnapshot = getWithTimeout(projected.get(), "findIds");
+                
+                List<String> ids = new ArrayList<>(querySnapshot.size());
+                for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+                    ids.add(document.getId());
+                }
+                
+                FirestoreMetrics.recordReadOperation(getCollectionName(), "findIds", Duration.between(start, Instant.now()));
+                return ids;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "findIds", Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("ID query interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "findIds", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to query document IDs", e);
+            }
+        });
+    }
+    
+    /**
+     * First matching document, reading at most one.
+     */
+    protected Optional<T> findFirst(Query query) {
+        List<T> results = executeQuery(query, QueryOptions.withLimit(1));
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    /**
+     * Documents in scope changed after the cursor, in (updatedAt, documentId) order.
+     * Reads at most limit + 1 documents so the caller can tell whether more remain.
+     */
+    protected List<T> findChangedAfter(Query scope, SyncCursor after, int limit) {
+        return executeWithRetry("findChangedAfter", () -> {
+            Instant start = Instant.now();
+            try {
+                Query query = scope.orderBy(UPDATED_AT_FIELD).orderBy(FieldPath.documentId());
+                com.google.cloud.Timestamp updatedAt = com.google.cloud.Timestamp.ofTimeMicroseconds(
+                    after.getUpdatedAtMillis() * 1000);
+                query = after.getDocumentId().isEmpty()
+                    ? query.startAt(updatedAt)
+                    : query.startAfter(updatedAt, after.getDocumentId());
+                QuerySnapshot querySnapshot = getWithTimeout(query.limit(limit + 1).get(), "findChangedAfter");
+                
+                List<T> documents = new ArrayList<>(querySnapshot.size());
+                for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+                    documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
+                }
+                
+                FirestoreMetrics.recordReadOperation(getCollectionName(), "findChangedAfter", Duration.between(start, Instant.now()));
+                return documents;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "findChangedAfter", Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("Change scan interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "findChangedAfter", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to scan changed documents", e);
+            }
+        });
+    }
+    
+    /**
+     * Visit every document of a query at a fixed read time, in (orderField, documentId) order.
+     * Pages are read one at a time in read-only transactions pinned to readTime, so the
+     * result is one consistent snapshot and only a single page is held in memory.
+     * The read time must stay within Firestore's version retention (one hour by default).
+     */
+    protected void forEachAtReadTime(Query query, String orderField, com.google.cloud.Timestamp readTime,
+                                     int pageSize, Consumer<T> action) {
+        Query ordered = query.orderBy(orderField).orderBy(FieldPath.documentId());
+        TransactionOptions options = TransactionOptions.createReadOnlyOptionsBuilder()
+            .setReadTime(readTime.toProto())
+            .build();
+        
+        Object lastValue = null;
+        String lastId = null;
+        while (true) {
+            Query page = (lastId == null ? ordered : ordered.startAfter(lastValue, lastId)).limit(pageSize);
+            QuerySnapshot snapshot = executeWithRetry("forEachAtReadTime", () -> {
+                Instant start = Instant.now();
+                try {
+                    QuerySnapshot result = getWithTimeout(
+                        firestore.runTransaction(transaction -> transaction.get(page).get(), options),
+                        "forEachAtReadTime");
+                    FirestoreMetrics.recordReadOperation(getCollectionName(), "forEachAtReadTime", Duration.between(start, Instant.now()));
+                    return result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    FirestoreMetrics.recordFailedOperation(getCollectionName(), "forEachAtReadTime", Duration.between(start, Instant.now()), e);
+                    throw new FirestoreConnectionException("Snapshot scan interrupted", e);
+                } catch (ExecutionException e) {
+                    FirestoreMetrics.recordFailedOperation(getCollectionName(), "forEachAtReadTime", Duration.between(start, Instant.now()), e);
+                    throw mapException("Failed to scan documents at read time", e);
+                }
+            });
+            
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                action.accept(FirestoreConverter.toDocument(document, getDocumentClass()));
+            }
+            if (documents.size() < pageSize) {
+                return;
+            }
+            QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+            lastValue = last.get(orderField);
+            lastId = last.getId();
+        }
+    }
+    
+    /**
+     * Visit every document of a query inside a transaction, in (orderField, documentId) order.
+     * Pages are read one at a time, all from the transaction's snapshot.
+     */
+    protected void forEachInTransaction(Query query, String orderField, Transaction transaction,
+                                        int pageSize, Consumer<T> action) {
+        Query ordered = query.orderBy(orderField).orderBy(FieldPath.documentId());
+        Object lastValue = null;
+        String lastId = null;
+        while (true) {
+            Query page = (lastId == null ? ordered : ordered.startAfter(lastValue, lastId)).limit(pageSize);
+            List<QueryDocumentSnapshot> documents = getInTransaction(page, transaction).getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                action.accept(FirestoreConverter.toDocument(document, getDocumentClass()));
+            }
+            if (documents.size() < pageSize) {
+                return;
+            }
+            QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+            lastValue = last.get(orderField);
+            lastId = last.getId();
+        }
+    }
+    
+    protected List<T> executeQuery(Query query, Transaction transaction) {
+        List<T> documents = new ArrayList<>();
+        for (QueryDocumentSnapshot document : getInTransaction(query, transaction).getDocuments()) {
+            documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
+        }
+        return documents;
+    }
+    
+    private QuerySnapshot getInTransaction(Query query, Transaction transaction) {
+        Instant start = Instant.now();
+        try {
+            QuerySnapshot snapshot = getWithTimeout(transaction.get(query), "queryInTransaction");
+            FirestoreMetrics.recordReadOperation(getCollectionName(), "queryInTransaction", Duration.between(start, Instant.now()));
+            return snapshot;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), "queryInTransaction", Duration.between(start, Instant.now()), e);
+            throw new FirestoreConnectionException("Query interrupted in transaction", e);
+        } catch (ExecutionException e) {
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), "queryInTransaction", Duration.between(start, Instant.now()), e);
+            throw mapException("Failed to query in transaction", e);
+        }
+    }
+    
+    /**
+     * Documents of a scope whose field is any of the given values. Values are split into
+     * chunks of {@value #WHERE_IN_LIMIT}, Firestore's limit for an in filter, and the chunk
+     * queries run in parallel.
+     */
+    protected List<T> findWhereIn(Query scope, String field, Collection<?> values) {
+        return findWhereIn(scope, field, values, QueryOptions.defaultOptions());
+    }
+    
+    protected List<T> findWhereIn(Query scope, String field, Collection<?> values, QueryOptions options) {
+        List<?> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        if (distinct.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (distinct.size() <= WHERE_IN_LIMIT) {
+            return executeQuery(scope.whereIn(field, distinct), options);
+        }
+        List<CompletableFuture<List<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += WHERE_IN_LIMIT) {
+            Query chunk = scope.whereIn(field, distinct.subList(from, Math.min(from + WHERE_IN_LIMIT, distinct.size())));
+            chunks.add(CompletableFuture.supplyAsync(() -> executeQuery(chunk, options), executorService));
+        }
+        List<T> documents = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> chunk : chunks) {
+                documents.addAll(chunk.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return documents;
+    }
+    
+    /**
+     * Count matching documents with a server-side aggregation, without reading them.
+     */
+    protected long count(Query query) {
+        return executeWithRetry("count", () -> {
+            Instant start = Instant.now();
+            try {
+                AggregateQuerySnapshot snapshot = getWithTimeout(query.count().get(), "count");
+                FirestoreMetrics.recordReadOperation(getCollectionName(), "count", Duration.between(start, Instant.now()));
+                return snapshot.getCount();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "count", Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("Count query interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "count", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to count documents", e);
+            }
+        });
+    }
+    
+    /**
+     * Run server-side aggregations (sum, count, average) over matching documents, without
+     * reading them.
+     */
+    protected AggregateQuerySnapshot aggregate(Query query, AggregateField aggregation, AggregateField... more) {
+        return executeWithRetry("aggregate", () -> {
+            Instant start = Instant.now();
+            try {
+                AggregateQuerySnapshot snapshot = getWithTimeout(query.aggregate(aggregation, more).get(), "aggregate");
+                FirestoreMetrics.recordReadOperation(getCollectionName(), "aggregate", Duration.between(start, Instant.now()));
+                return snapshot;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "aggregate", Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("Aggregation query interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), "aggregate", Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to aggregate documents", e);
+            }
+        });
+    }
+    
+    /**
+     * Server-side aggregations read inside a transaction.
+     */
+    protected AggregateQuerySnapshot aggregate(Transaction transaction, Query query, AggregateField aggregation,
+                                               AggregateField... more) {
+        Instant start = Instant.now();
+        try {
+            AggregateQuerySnapshot snapshot = getWithTimeout(transaction.get(query.aggregate(aggregation, more)),
+                "aggregateInTransaction");
+            FirestoreMetrics.recordReadOperation(getCollectionName(), "aggregateInTransaction", Duration.between(start, Instant.now()));
+            return snapshot;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), "aggregateInTransaction", Duration.between(start, Instant.now()), e);
+            throw new FirestoreConnectionException("Aggregation query interrupted in transaction", e);
+        } catch (ExecutionException e) {
+            FirestoreMetrics.recordFailedOperation(getCollectionName(), "aggregateInTransaction", Duration.between(start, Instant.now()), e);
+            throw mapException("Failed to aggregate documents in transaction", e);
+        }
+    }
+    
+    /**
+     * Snapshot for an existence check: the document already read in this request if there is
+     * one, otherwise a get that transfers only the isDeleted field. The masked snapshot is
+     * not kept in the identity map, since it cannot serve a later load of the document.
+     */
+    private DocumentSnapshot existenceSnapshot(String id, String operation) {
+        DocumentSnapshot cached = RequestIdentityMap.get(getCollectionName(), id);
+        if (cached != null) {
+            return cached;
+        }
+        return getProjected(id, operation, DELETED_FIELD);
+    }
+    
+    /**
+     * Direct get of a single document restricted to the given fields.
+     */
+    private DocumentSnapshot getProjected(String id, String operation, String... fields) {
+        return executeWithRetry(operation, () -> {
+            Instant start = Instant.now();
+            try {
+                FirestoreValidator.validateDocumentId(id);
+                DocumentReference docRef = firestore.collection(getCollectionName()).document(id);
+                DocumentSnapshot document = getWithTimeout(docRef.get(FieldMask.of(fields)), operation);
+                
+                FirestoreMetrics.recordReadOperation(getCollectionName(), operation, Duration.between(start, Instant.now()));
+                return document;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), operation, Duration.between(start, Instant.now()), e);
+                throw new FirestoreConnectionException("Exists check interrupted", e);
+            } catch (ExecutionException e) {
+                FirestoreMetrics.recordFailedOperation(getCollectionName(), operation, Duration.between(start, Instant.now()), e);
+                throw mapException("Failed to check document existence", e);
+            }
+        });
+    }
+    
     /**
      * Get result from ApiFuture with timeout handling
      * Throws FirestoreConnectionException on timeout
@@ -3,14 +3,24 @@ package com.nursery.common.firestore;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 public class FirestoreConverter {
     
+    private static final ClassValue<Map<String, java.lang.reflect.Field>> FIELDS = new ClassValue<>() {
+        @Override
+        protected Map<String, java.lang.reflect.Field> computeValue(Class<?> type) {
+            return fieldsOf(type);
+        }
+    };
+    
     public static Date toDate(LocalDateTime dateTime) {
         if (dateTime == null) {
             return null;
@@ -37,30 +47,13 @@ public class FirestoreConverter {
     
     /**
      * Converts a value from Firestore to BigDecimal.
-     * Firestore stores numbers as Double, so we need to convert them back to BigDecimal.
+     * Amounts are stored with {@link MoneyCodec}; legacy doubles and strings are still accepted.
      * 
-     * @param value the value from Firestore (can be Double, Number, String, or BigDecimal)
+     * @param value the value from Firestore (encoded amount map, Double, Number, String, or BigDecimal)
      * @return BigDecimal representation of the value, or null if value is null or cannot be converted
      */
     public static BigDecimal toBigDecimal(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof BigDecimal) {
-            return (BigDecimal) value;
-        }
-        if (value instanceof Number) {
-            // Firestore stores numbers as Double, convert to BigDecimal
-            return BigDecimal.valueOf(((Number) value).doubleValue());
-        }
-        if (value instanceof String) {
-            try {
-                return new BigDecimal((String) value);
-            } catch (NumberFormatException e) {
-                return null;
-            }
-        }
-        return null;
+        return MoneyCodec.decode(value);
     }
     
     public static <T extends BaseDocument> T toDocument(QueryDocumentSnapshot snapshot, Class<T> documentClass) {
@@ -68,51 +61,75 @@ public class FirestoreConverter {
     }
     
     public static <T extends BaseDocument> T toDocument(DocumentSnapshot snapshot, Class<T> documentClass) {
+        return toDocument(snapshot, documentClass, null);
+    }
+    
+    /**
+     * Converts only the given fields of a snapshot, typically one read with a field mask.
+     * Other fields keep the document class defaults.
+     * 
+     * @param fields the document fields to convert, or null for all of them
+     */
+    public static <T extends BaseDocument> T toDocument(DocumentSnapshot snapshot, Class<T> documentClass,
+                                                        Collection<String> fields) {
         try {
             T document = documentClass.getDeclaredConstructor().newInstance();
-            Map<String, Object> data = snapshot.getData();
             
-            if (data == null) {
+            if (fields == null) {
+                Map<String, Object> data = snapshot.getData();
+                if (data == null) {
+                    return document;
+                }
+                document.setId(snapshot.getId());
+                
+                // Convert all fields from Firestore data
+                data.forEach((key, value) -> setField(document, key, value));
                 return document;
             }
             
+            if (!snapshot.exists()) {
+                return document;
+            }
             document.setId(snapshot.getId());
-            
-            // Convert all fields from Firestore data
-            data.forEach((key, value) -> {
-                try {
-                    java.lang.reflect.Field field = findField(documentClass, key);
-                    if (field != null) {
-                        field.setAccessible(true);
-                        
-                        // Handle special types
-                        if (field.getType() == LocalDateTime.class) {
-                            field.set(document, toLocalDateTime(value));
-                        } else if (field.getType() == BigDecimal.class) {
-                            field.set(document, toBigDecimal(value));
-                        } else if (field.getType() == Long.class && value instanceof Number) {
-                            field.set(document, ((Number) value).longValue());
-                        } else if (field.getType() == Integer.class && value instanceof Number) {
-                            field.set(document, ((Number) value).intValue());
-                        } else if (field.getType() == Boolean.class && value instanceof Boolean) {
-                            field.set(document, value);
-                        } else if (field.getType().isEnum() && value instanceof String) {
-                            field.set(document, Enum.valueOf((Class<Enum>) field.getType(), (String) value));
-                        } else {
-                            field.set(document, value);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Skip fields that can't be set
+            for (String key : fields) {
+                Object value = snapshot.get(key);
+                if (value != null) {
+                    setField(document, key, value);
                 }
-            });
-            
+            }
             return document;
         } catch (Exception e) {
             throw new RuntimeException("Failed to convert Firestore document to " + documentClass.getSimpleName(), e);
         }
     }
     
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void setField(BaseDocument document, String key, Object value) {
+        try {
+            java.lang.reflect.Field field = FIELDS.get(document.getClass()).get(key);
+            if (field != null) {
+                // Handle special types
+                if (field.getType() == LocalDateTime.class) {
+                    field.set(document, toLocalDateTime(value));
+                } else if (field.getType() == BigDecimal.class) {
+                    field.set(document, toBigDecimal(value));
+                } else if (field.getType() == Long.class && value instanceof Number) {
+                    field.set(document, ((Number) value).longValue());
+                } else if (field.getType() == Integer.class && value instanceof Number) {
+                    field.set(document, ((Number) value).intValue());
+                } else if (field.getType() == Boolean.class && value instanceof Boolean) {
+                    field.set(document, value);
+                } else if (field.getType().isEnum() && value instanceof String) {
+                    field.set(document, Enum.valueOf((Class<Enum>) field.getType(), (String) value));
+                } else {
+                    field.set(document, value);
+                }
+            }
+        } catch (Exception e) {
+            // Skip fields that can't be set
+        }
+    }
+    
     public static Map<String, Object> toMap(BaseDocument document) {
         Map<String, Object> map = new java.util.HashMap<>();
         Class<?> clazz = document.getClass();
@@ -129,8 +146,8 @@ public class FirestoreConverter {
                         if (value instanceof LocalDateTime) {
                             map.put(key, com.google.cloud.Timestamp.of(toDate((LocalDateTime) value)));
                         } else if (value instanceof BigDecimal) {
-                            // Firestore doesn't support BigDecimal natively, convert to Double
-                            map.put(key, ((BigDecimal) value).doubleValue());
+                            // Firestore has no decimal type; a double would not round-trip exactly
+                            map.put(key, MoneyCodec.encode((BigDecimal) value));
                         } else if (value instanceof Enum) {
                             map.put(key, ((Enum<?>) value).name());
                         } else {
@@ -147,15 +164,21 @@ public class FirestoreConverter {
         return map;
     }
     
-    private static java.lang.reflect.Field findField(Class<?> clazz, String fieldName) {
+    /**
+     * Instance fields of a document class by name, a subclass field shadowing a superclass one,
+     * resolved once per class instead of once per converted field.
+     */
+    private static Map<String, java.lang.reflect.Field> fieldsOf(Class<?> clazz) {
+        Map<String, java.lang.reflect.Field> fields = new HashMap<>();
         while (clazz != null && clazz != Object.class) {
-            try {
-                return clazz.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                clazz = clazz.getSuperclass();
+            for (java.lang.reflect.Field field : clazz.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !fields.containsKey(field.getName())) {
+                    field.setAccessible(true);
+                    fields.put(field.getName(), field);
+                }
             }
+            clazz = clazz.getSuperclass();
         }
-        return null;
+        return fields;
     }
 }
-
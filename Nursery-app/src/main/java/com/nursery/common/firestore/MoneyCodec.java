@@ -0,0 +1,132 @@
+package com.nursery.common.firestore;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exact Firestore encoding of monetary amounts: a map of the unscaled value in minor units
+ * and its scale, {@code {minor: 1050, scale: 2}} for 10.50.
+ *
+ * Amounts are always written at exactly {@value #DEFAULT_SCALE} decimal places, so every
+ * stored amount shares a scale and {@code <field>.minor} can be summed server-side. Legacy
+ * amounts stored as doubles are still read.
+ */
+public final class MoneyCodec {
+
+    public static final String MINOR = "minor";
+    public static final String SCALE = "scale";
+    public static final int DEFAULT_SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private MoneyCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has a non-zero digit below the minor unit
+     *         or does not fit in 64-bit minor units
+     */
+    public static Map<String, Object> encode(BigDecimal amount) {
+        BigDecimal scaled = normalize(amount);
+        Map<String, Object> encoded = new HashMap<>();
+        try {
+            encoded.put(MINOR, scaled.unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount + " does not fit in 64-bit minor units", e);
+        }
+        encoded.put(SCALE, (long) scaled.scale());
+        return encoded;
+    }
+
+    /**
+     * The amount at exactly {@value #DEFAULT_SCALE} decimal places: 10.5, 10.50 and 10.500 all
+     * become 10.50.
+     *
+     * @throws IllegalArgumentException if that would round, as for 10.005
+     */
+    public static BigDecimal normalize(BigDecimal amount) {
+        try {
+            return amount.stripTrailingZeros().setScale(DEFAULT_SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount + " has more than " + DEFAULT_SCALE
+                + " decimal places", e);
+        }
+    }
+
+    public static BigDecimal decode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> encoded = (Map<?, ?>) value;
+            if (encoded.get(MINOR) instanceof Number && encoded.get(SCALE) instanceof Number) {
+                return BigDecimal.valueOf(((Number) encoded.get(MINOR)).longValue(),
+                    ((Number) encoded.get(SCALE)).intValue());
+            }
+            return null;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            // Legacy doubles were written from BigDecimal.doubleValue(), whose shortest decimal form this recovers
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            try {
+                return new BigDecimal((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Minor units of a stored amount at the given scale, without allocating a BigDecimal.
+     * Encoded amounts with more decimal places than the scale are truncated; legacy doubles
+     * are rounded half up.
+     */
+    public static long minorUnits(Object value, int scale) {
+        if (value instanceof Map) {
+            Map<?, ?> encoded = (Map<?, ?>) value;
+            if (!(encoded.get(MINOR) instanceof Number) || !(encoded.get(SCALE) instanceof Number)) {
+                return 0;
+            }
+            long minor = ((Number) encoded.get(MINOR)).longValue();
+            int storedScale = ((Number) encoded.get(SCALE)).intValue();
+            if (Math.abs(storedScale - scale) >= POWERS_OF_TEN.length) {
+                throw new IllegalArgumentException("Cannot rescale an amount from scale " + storedScale + " to " + scale);
+            }
+            return storedScale <= scale
+                ? Math.multiplyExact(minor, POWERS_OF_TEN[scale - storedScale])
+                : minor / POWERS_OF_TEN[storedScale - scale];
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return Math.round(((Number) value).doubleValue() * POWERS_OF_TEN[scale]);
+        }
+        if (value instanceof Number) {
+            return Math.multiplyExact(((Number) value).longValue(), POWERS_OF_TEN[scale]);
+        }
+        return 0;
+    }
+
+    /**
+     * Field path of the minor units of an encoded amount, for server-side sums.
+     */
+    public static String minorField(String field) {
+        return field + "." + MINOR;
+    }
+}
@@ -0,0 +1,59 @@
+package com.nursery.common.firestore.archive;
+
+import com.nursery.common.firestore.BaseDocument;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Merges archived rows back into a history scan of the live collection, in (createdAt, id) order.
+ *
+ * {@link SoftDeleteArchiver} moves deleted documents to {@code <collection>_archive}, so a scan
+ * of the live collection alone loses them once archive.retention-days have passed. Callers
+ * collect the archived rows of the range first, then pass every live row through
+ * {@link #accept(Object)} and call {@link #finish()}. A row that also comes from another
+ * copy, such as a local segment sealed before the row was archived, is served once, from
+ * the archive. Only the archived rows are held in memory, so callers read them only for
+ * the part of the range older than the retention.
+ */
+public final class ArchivedRowMerger<T extends BaseDocument> implements Consumer<T> {
+
+    private static final Comparator<BaseDocument> CREATED_ORDER = Comparator
+        .comparing(BaseDocument::getCreatedAt)
+        .thenComparing(BaseDocument::getId);
+
+    private final List<T> archived;
+    private final Set<String> archivedIds = new HashSet<>();
+    private final Consumer<T> action;
+    private int next;
+
+    public ArchivedRowMerger(List<T> archived, Consumer<T> action) {
+        this.archived = new ArrayList<>(archived);
+        this.archived.sort(CREATED_ORDER);
+        this.archived.forEach(row -> archivedIds.add(row.getId()));
+        this.action = action;
+    }
+
+    @Override
+    public void accept(T row) {
+        while (next < archived.size() && CREATED_ORDER.compare(archived.get(next), row) <= 0) {
+            action.accept(archived.get(next++));
+        }
+        if (!archivedIds.contains(row.getId())) {
+            action.accept(row);
+        }
+    }
+
+    /**
+     * Serve the archived rows after the last live one.
+     */
+    public void finish() {
+        while (next < archived.size()) {
+            action.accept(archived.get(next++));
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.nursery.common.firestore.archive;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.firestore.BaseFirestoreRepository;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves soft-deleted documents out of their hot collections.
+ *
+ * Every archive.interval-minutes, documents deleted more than archive.retention-days ago
+ * (isDeleted, last updated before the horizon) are copied to {@code <collection>_archive}
+ * under the same ID and removed from the live collection, one batch per page. The delete
+ * carries an update-time precondition, so a document touched after it was read fails the
+ * page and is left for the next run. Archived documents still resolve through
+ * {@link BaseFirestoreRepository#findByIdIncludingArchived(String)}.
+ *
+ * Moves are paced to archive.docs-per-second and capped per run, so a large first run
+ * spreads over several intervals instead of competing with production traffic.
+ * Needs a composite index on (isDeleted, updatedAt) in every archived collection, and on
+ * (nurseryId, createdAt) in transactions_archive and payments_archive for history exports.
+ */
+@Slf4j
+@Component
+public class SoftDeleteArchiver {
+
+    private static final String DELETED_FIELD = "isDeleted";
+    private static final String UPDATED_AT_FIELD = "updatedAt";
+    private static final String ARCHIVED_AT_FIELD = "archivedAt";
+    private static final long FIRESTORE_TIMEOUT_SECONDS = 30;
+
+    private final Firestore firestore;
+    private final boolean enabled;
+    private final List<String> collections;
+    private final Duration retention;
+    private final int pageSize;
+    private final double docsPerSecond;
+    private final long maxDocumentsPerRun;
+
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Counter> archived = new LinkedHashMap<>();
+    private final Map<String, Counter> conflicts = new LinkedHashMap<>();
+    private final Counter failedRuns;
+    private final Timer runTimer;
+    private final AtomicLong lastRunArchived = new AtomicLong();
+    private final AtomicLong lastRunCompletedAt = new AtomicLong();
+
+    public SoftDeleteArchiver(Firestore firestore,
+                              MeterRegistry meterRegistry,
+                              @Value("${archive.enabled:true}") boolean enabled,
+                              @Value("${archive.collections:transactions,payments,breeds,saplings}") String collections,
+                              @Value("${archive.retention-days:180}") long retentionDays,
+                              @Value("${archive.interval-minutes:60}") long intervalMinutes,
+                              @Value("${archive.page-size:200}") int pageSize,
+                              @Value("${archive.docs-per-second:50}") double docsPerSecond,
+                              @Value("${archive.max-documents-per-run:50000}") long maxDocumentsPerRun) {
+        this.firestore = firestore;
+        this.enabled = enabled;
+        this.collections = Arrays.stream(collections.split(","))
+            .map(String::trim)
+            .filter(collection -> !collection.isEmpty())
+            .toList();
+        this.retention = Duration.ofDays(retentionDays);
+        // Two writes per document, within Firestore's 500-write batch limit
+        this.pageSize = Math.min(pageSize, 250);
+        this.docsPerSecond = docsPerSecond;
+        this.maxDocumentsPerRun = maxDocumentsPerRun;
+
+        for (String collection : this.collections) {
+            archived.put(collection, Counter.builder("archive.documents.archived")
+                .description("Soft-deleted documents moved to their archive collection")
+                .tag("collection", collection)
+                .register(meterRegistry));
+            conflicts.put(collection, Counter.builder("archive.pages.conflicted")
+                .description("Archive pages skipped because a document changed after it was read")
+                .tag("collection", collection)
+                .register(meterRegistry));
+        }
+        this.failedRuns = Counter.builder("archive.runs.failed")
+            .description("Archive runs that stopped on an error")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("archive.run")
+            .description("Duration of one archive run over all collections")
+            .register(meterRegistry);
+        Gauge.builder("archive.last-run.archived", lastRunArchived, AtomicLong::get)
+            .description("Documents archived by the last completed run")
+            .register(meterRegistry);
+        Gauge.builder("archive.last-run.completed", lastRunCompletedAt, AtomicLong::get)
+            .description("Epoch seconds at which the last archive run completed")
+            .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "soft-delete-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        if (enabled && !this.collections.isEmpty()) {
+            scheduler.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            runTimer.record(this::run);
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            log.error("Archive run failed", e);
+        }
+    }
+
+    /**
+     * One pass over all archived collections, ending early at the per-run cap.
+     */
+    void run() {
+        Timestamp horizon = Timestamp.ofTimeSecondsAndNanos(Instant.now().minus(retention).getEpochSecond(), 0);
+        Pacer pacer = new Pacer(docsPerSecond);
+        long total = 0;
+        for (String collection : collections) {
+            if (!enabled || Thread.currentThread().isInterrupted() || total >= maxDocumentsPerRun) {
+                break;
+            }
+            long moved = archiveCollection(collection, horizon, pacer, maxDocumentsPerRun - total);
+            if (moved > 0) {
+                log.info("Archived {} soft-deleted documents from {}", moved, collection);
+            }
+            total += moved;
+        }
+        lastRunArchived.set(total);
+        lastRunCompletedAt.set(Instant.now().getEpochSecond());
+    }
+
+    private long archiveCollection(String collection, Timestamp horizon, Pacer pacer, long budget) {
+        long moved = 0;
+        while (moved < budget) {
+            List<QueryDocumentSnapshot> page = await(firestore.collection(collection)
+                .whereEqualTo(DELETED_FIELD, true)
+                .whereLessThan(UPDATED_AT_FIELD, horizon)
+                .orderBy(UPDATED_AT_FIELD)
+                .limit((int) Math.min(pageSize, budget - moved))
+                .get(), "read archivable " + collection).getDocuments();
+            if (page.isEmpty()) {
+                break;
+            }
+            if (!pacer.acquire(page.size())) {
+                break;
+            }
+            if (!move(collection, page)) {
+                // The page would be read again unchanged; leave it for the next run
+                conflicts.get(collection).increment();
+                log.info("Archive page of {} changed while being archived; retrying next run", collection);
+                break;
+            }
+            moved += page.size();
+            archived.get(collection).increment(page.size());
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Copy a page to the archive collection and delete the originals in one batch.
+     *
+     * @return false when a document changed or vanished since it was read and nothing was written
+     */
+    private boolean move(String collection, List<QueryDocumentSnapshot> page) {
+        String archiveCollection = collection + BaseFirestoreRepository.ARCHIVE_SUFFIX;
+        WriteBatch batch = firestore.batch();
+        for (QueryDocumentSnapshot document : page) {
+            Map<String, Object> data = new HashMap<>(document.getData());
+            data.put(ARCHIVED_AT_FIELD, FieldValue.serverTimestamp());
+            batch.set(firestore.collection(archiveCollection).document(document.getId()), data);
+            batch.delete(document.getReference(), Precondition.updatedAt(document.getUpdateTime()));
+        }
+        try {
+            await(batch.commit(), "archive " + collection + " page");
+            return true;
+        } catch (FirestoreException e) {
+            if (hasStatus(e, StatusCode.Code.FAILED_PRECONDITION) || hasStatus(e, StatusCode.Code.NOT_FOUND)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static <R> R await(Future<R> future, String operation) {
+        try {
+            return future.get(FIRESTORE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Interrupted while trying to " + operation, e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new FirestoreConnectionException("Timed out while trying to " + operation, e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to " + operation, e);
+        }
+    }
+
+    private static boolean hasStatus(Throwable e, StatusCode.Code code) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException && ((ApiException) cause).getStatusCode().getCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Spaces documents evenly at a fixed rate across a whole run.
+     */
+    private static final class Pacer {
+
+        private final long intervalNanos;
+        private long nextPermitNanos = System.nanoTime();
+
+        Pacer(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        /**
+         * @return false when interrupted while waiting
+         */
+        boolean acquire(int permits) {
+            long now = System.nanoTime();
+            try {
+                if (nextPermitNanos > now) {
+                    TimeUnit.NANOSECONDS.sleep(nextPermitNanos - now);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            nextPermitNanos = Math.max(nextPermitNanos, now) + intervalNanos * permits;
+            return true;
+        }
+    }
+}
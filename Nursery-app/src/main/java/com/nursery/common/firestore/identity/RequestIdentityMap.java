@@ -0,0 +1,73 @@
+package com.nursery.common.firestore.identity;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request-scoped identity map of document snapshots, keyed by collection and ID.
+ *
+ * Non-transactional reads by ID consult it before issuing an RPC, so reading the same
+ * document several times while serving one request costs a single Firestore read.
+ * Snapshots are stored rather than converted documents, so each caller still gets its
+ * own mutable copy.
+ *
+ * The map is bound to the request thread by {@link UnitOfWorkFilter}. Transaction
+ * functions run on Firestore's threads, where no map is bound, so transactional reads
+ * always go to Firestore. Writes evict the affected entries, and a committed transaction
+ * clears the whole map because its writes are not visible here.
+ */
+public final class RequestIdentityMap {
+
+    private static final ThreadLocal<Map<String, DocumentSnapshot>> CURRENT = new ThreadLocal<>();
+
+    private RequestIdentityMap() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new HashMap<>());
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Cached snapshot, or null when not cached or no map is bound to this thread.
+     * A cached snapshot may be of a document that does not exist.
+     */
+    public static DocumentSnapshot get(String collection, String id) {
+        Map<String, DocumentSnapshot> map = CURRENT.get();
+        return map != null ? map.get(key(collection, id)) : null;
+    }
+
+    public static void put(String collection, String id, DocumentSnapshot snapshot) {
+        Map<String, DocumentSnapshot> map = CURRENT.get();
+        if (map != null) {
+            map.put(key(collection, id), snapshot);
+        }
+    }
+
+    public static void evict(String collection, String id) {
+        Map<String, DocumentSnapshot> map = CURRENT.get();
+        if (map != null && id != null) {
+            map.remove(key(collection, id));
+        }
+    }
+
+    public static void clear() {
+        Map<String, DocumentSnapshot> map = CURRENT.get();
+        if (map != null) {
+            map.clear();
+        }
+    }
+
+    private static String key(String collection, String id) {
+        return collection + "/" + id;
+    }
+}
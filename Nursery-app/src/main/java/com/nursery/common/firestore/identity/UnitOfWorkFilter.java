@@ -0,0 +1,30 @@
+package com.nursery.common.firestore.identity;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link RequestIdentityMap} to the request thread for the duration of each request.
+ */
+@Component
+@Order(10)
+public class UnitOfWorkFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestIdentityMap.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestIdentityMap.end();
+        }
+    }
+}
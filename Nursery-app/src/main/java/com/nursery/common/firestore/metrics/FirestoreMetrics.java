@@ -14,13 +14,19 @@ public class FirestoreMetrics {
     private static final AtomicLong writeOperations = new AtomicLong(0);
     private static final AtomicLong failedOperations = new AtomicLong(0);
     
+    // Repository calls of the request being served on this thread, for the access log. Calls
+    // are counted, not documents, and calls made on other threads are not attributed to it.
+    private static final ThreadLocal<int[]> requestCounts = new ThreadLocal<>();
+    
     public static void recordReadOperation(String collection, String operation, Duration duration) {
         readOperations.incrementAndGet();
+        countForRequest(0);
         logOperation("READ", collection, operation, duration, null);
     }
     
     public static void recordWriteOperation(String collection, String operation, Duration duration) {
         writeOperations.incrementAndGet();
+        countForRequest(1);
         logOperation("WRITE", collection, operation, duration, null);
     }
     
@@ -29,6 +35,29 @@ public class FirestoreMetrics {
         logOperation("FAILED", collection, operation, duration, error);
     }
     
+    /**
+     * Start counting repository calls issued by this thread for the current request.
+     */
+    public static void beginRequest() {
+        requestCounts.set(new int[2]);
+    }
+    
+    /**
+     * Stop counting and return the {read, write} calls issued by this thread since beginRequest.
+     */
+    public static int[] endRequest() {
+        int[] counts = requestCounts.get();
+        requestCounts.remove();
+        return counts != null ? counts : new int[2];
+    }
+    
+    private static void countForRequest(int index) {
+        int[] counts = requestCounts.get();
+        if (counts != null) {
+            counts[index]++;
+        }
+    }
+    
     private static void logOperation(String type, String collection, String operation, Duration duration, Throwable error) {
         try (MDC.MDCCloseable ignored = MDC.putCloseable("firestore.collection", collection);
              MDC.MDCCloseable ignored2 = MDC.putCloseable("firestore.operation", operation);
@@ -0,0 +1,72 @@
+package com.nursery.common.firestore.migration;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.version.VersionedCollection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A computed or denormalized field to fill in on every document of a collection.
+ * Implementations are Spring beans and are run by {@link BackfillExecutor}.
+ *
+ * The returned fields are merged as is: updatedAt is not touched unless the transform
+ * returns it, so delta sync only resends documents whose backfill clients must see. A
+ * backfill that does return it also declares {@link #getVersionedCollections()}, because
+ * sync and conditional GETs skip a collection whose version has not moved.
+ */
+public interface Backfill {
+    
+    /**
+     * Stable ID; progress is stored under it, so renaming a backfill restarts it.
+     */
+    String getId();
+    
+    String getCollection();
+    
+    /**
+     * Fields to set on the document, keyed by field path. Fields that already hold the
+     * returned value are not written; return an empty map when nothing applies.
+     * Must be deterministic, because a page is transformed again when it is retried.
+     */
+    Map<String, Object> transform(DocumentSnapshot document);
+    
+    /**
+     * Writes to documents other than the scanned ones, such as key documents derived from
+     * them, added to the batch that commits the page. Each write must fail the batch if what
+     * it was derived from changed since the page was read (a create, or an update-time
+     * precondition), so the page is read and derived again. Dry runs never commit the batch.
+     *
+     * @return number of scanned documents the writes were derived from
+     */
+    default int writeDerived(List<QueryDocumentSnapshot> page, WriteBatch batch) {
+        return 0;
+    }
+    
+    /**
+     * Collections whose version is bumped, in the page's batch, for every nursery with a
+     * changed document in the page. Writes derived into other collections are not counted.
+     */
+    default Set<VersionedCollection> getVersionedCollections() {
+        return Set.of();
+    }
+    
+    /**
+     * Nursery a scanned document belongs to, for {@link #getVersionedCollections()}; null
+     * when it belongs to none.
+     */
+    default String getNurseryId(DocumentSnapshot document) {
+        return document.getString("nurseryId");
+    }
+    
+    /**
+     * Largest page this backfill supports; lower it when a document can take more than one
+     * write, to keep a page within Firestore's 500 writes per batch.
+     */
+    default int getMaxPageSize() {
+        return 500;
+    }
+}
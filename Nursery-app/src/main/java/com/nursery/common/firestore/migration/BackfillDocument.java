@@ -0,0 +1,44 @@
+package com.nursery.common.firestore.migration;
+
+import com.nursery.common.firestore.BaseDocument;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a backfill, checkpointed after every page
+ */
+@Getter
+@Setter
+public class BackfillDocument extends BaseDocument {
+    
+    private String backfillId;
+    private String collection;
+    private Boolean dryRun;
+    private BackfillStatus status;
+    
+    /**
+     * Keyset cursor: the last document ID scanned. A resumed run starts after it.
+     */
+    private String lastDocumentId;
+    
+    private Long scannedDocuments;
+    
+    /**
+     * Documents written, or in a dry run, documents that would have been written
+     */
+    private Long changedDocuments;
+    
+    private Double docsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+    
+    public enum BackfillStatus {
+        RUNNING,
+        STOPPED,
+        COMPLETED,
+        FAILED
+    }
+}
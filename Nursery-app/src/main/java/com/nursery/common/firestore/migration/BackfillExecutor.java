@@ -0,0 +1,416 @@
+package com.nursery.common.firestore.migration;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.exception.EntityNotFoundException;
+import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@link Backfill}s over whole collections in the background.
+ *
+ * A run scans its collection in document ID order with keyset pagination, transforms each
+ * document and writes only the documents whose fields actually change, one batch per page.
+ * Each write carries an update-time precondition, so a document modified after it was read
+ * fails the batch instead of being overwritten from stale data; the page is then read again.
+ * Writes a backfill derives into other collections go in the same batch, under the same rule,
+ * and so do the version bumps of the nurseries whose documents changed, so clients see the
+ * change on their next sync or conditional GET.
+ *
+ * Scanning is paced to a documents-per-second rate so production traffic keeps its share
+ * of Firestore throughput. Progress is checkpointed in {@value #COLLECTION} after every
+ * page, so a stopped, failed or interrupted run resumes after its last page. Dry runs keep
+ * separate progress and only count the documents that would change.
+ */
+@Slf4j
+@Component
+public class BackfillExecutor {
+    
+    static final String COLLECTION = "backfills";
+    
+    private static final String DRY_RUN_SUFFIX = "__dry-run";
+    private static final long FIRESTORE_TIMEOUT_SECONDS = 30;
+    
+    private final Firestore firestore;
+    private final CollectionVersionRegistry versionRegistry;
+    private final Map<String, Backfill> backfills;
+    private final int pageSize;
+    private final double defaultDocsPerSecond;
+    private final int maxPageAttempts;
+    private final Duration staleAfter;
+    
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    
+    public BackfillExecutor(Firestore firestore,
+                            CollectionVersionRegistry versionRegistry,
+                            ObjectProvider<Backfill> backfills,
+                            @Value("${backfill.page-size:300}") int pageSize,
+                            @Value("${backfill.docs-per-second:100}") double defaultDocsPerSecond,
+                            @Value("${backfill.max-page-attempts:5}") int maxPageAttempts,
+                            @Value("${backfill.stale-after-seconds:120}") long staleAfterSeconds) {
+        this.firestore = firestore;
+        this.versionRegistry = versionRegistry;
+        this.backfills = backfills.orderedStream().collect(Collectors.toMap(Backfill::getId, Function.identity()));
+        // One batch per page, within Firestore's 500-write limit
+        this.pageSize = Math.min(pageSize, 500);
+        this.defaultDocsPerSecond = defaultDocsPerSecond;
+        this.maxPageAttempts = maxPageAttempts;
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "backfill-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    public List<Backfill> getBackfills() {
+        return new ArrayList<>(backfills.values());
+    }
+    
+    /**
+     * Start or resume a backfill in the background.
+     *
+     * @param docsPerSecond scan rate, or null for backfill.docs-per-second
+     * @param restart       discard saved progress and scan from the first document
+     */
+    public BackfillDocument start(String backfillId, boolean dryRun, Double docsPerSecond, boolean restart) {
+        Backfill backfill = findBackfill(backfillId);
+        if (docsPerSecond != null && docsPerSecond <= 0) {
+            throw new ValidationException("docsPerSecond must be positive");
+        }
+        String progressId = progressId(backfillId, dryRun);
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        if (running.putIfAbsent(progressId, stopRequested) != null) {
+            throw new ValidationException("Backfill " + backfillId + " is already running");
+        }
+        
+        try {
+            BackfillDocument progress = loadProgress(progressId);
+            if (progress != null && progress.getStatus() == BackfillDocument.BackfillStatus.RUNNING
+                    && progress.getUpdatedAt() != null
+                    && progress.getUpdatedAt().isAfter(LocalDateTime.now().minus(staleAfter))) {
+                throw new ValidationException("Backfill " + backfillId + " is running on another instance");
+            }
+            if (progress == null || restart || progress.getStatus() == BackfillDocument.BackfillStatus.COMPLETED) {
+                progress = newProgress(progressId, backfill, dryRun);
+            }
+            progress.setStatus(BackfillDocument.BackfillStatus.RUNNING);
+            progress.setDocsPerSecond(docsPerSecond != null ? docsPerSecond : defaultDocsPerSecond);
+            progress.setErrorMessage(null);
+            progress.setFinishedAt(null);
+            saveProgress(progress);
+            
+            BackfillDocument started = progress;
+            executor.execute(() -> run(backfill, started, stopRequested));
+            return started;
+        } catch (RuntimeException e) {
+            running.remove(progressId, stopRequested);
+            throw e;
+        }
+    }
+    
+    /**
+     * Ask a running backfill to stop after its current page.
+     */
+    public void stop(String backfillId, boolean dryRun) {
+        findBackfill(backfillId);
+        AtomicBoolean stopRequested = running.get(progressId(backfillId, dryRun));
+        if (stopRequested == null) {
+            throw new ValidationException("Backfill " + backfillId + " is not running on this instance");
+        }
+        stopRequested.set(true);
+    }
+    
+    /**
+     * Whether a run of the backfill, not a dry run, has completed on any instance.
+     * A completion is remembered, so only an incomplete backfill costs a read.
+     */
+    public boolean isCompleted(String backfillId) {
+        if (completed.contains(backfillId)) {
+            return true;
+        }
+        findBackfill(backfillId);
+        BackfillDocument progress = loadProgress(progressId(backfillId, false));
+        if (progress == null || progress.getStatus() != BackfillDocument.BackfillStatus.COMPLETED) {
+            return false;
+        }
+        completed.add(backfillId);
+        return true;
+    }
+    
+    public BackfillDocument getProgress(String backfillId, boolean dryRun) {
+        findBackfill(backfillId);
+        BackfillDocument progress = loadProgress(progressId(backfillId, dryRun));
+        if (progress == null) {
+            throw new EntityNotFoundException("Backfill progress", backfillId);
+        }
+        return progress;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Runs stop after their current page and can be resumed later
+        running.values().forEach(stopRequested -> stopRequested.set(true));
+        executor.shutdown();
+    }
+    
+    private void run(Backfill backfill, BackfillDocument progress, AtomicBoolean stopRequested) {
+        boolean dryRun = Boolean.TRUE.equals(progress.getDryRun());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / progress.getDocsPerSecond());
+        long nextPermitNanos = System.nanoTime();
+        int attempt = 0;
+        int maxPageSize = Math.min(pageSize, backfill.getMaxPageSize());
+        if (!backfill.getVersionedCollections().isEmpty()) {
+            // Up to one version bump per changed document, within the same batch
+            maxPageSize = Math.min(maxPageSize, 250);
+        }
+        log.info("Backfill {} started on {} (dryRun={}, {} docs/s, after {})", backfill.getId(),
+            backfill.getCollection(), dryRun, progress.getDocsPerSecond(), progress.getLastDocumentId());
+        
+        try {
+            while (!stopRequested.get()) {
+                List<QueryDocumentSnapshot> page = readPage(backfill.getCollection(), progress.getLastDocumentId(), maxPageSize);
+                if (page.isEmpty()) {
+                    progress.setStatus(BackfillDocument.BackfillStatus.COMPLETED);
+                    break;
+                }
+                
+                // Pace by documents scanned, which also bounds the write rate
+                long now = System.nanoTime();
+                if (nextPermitNanos > now) {
+                    TimeUnit.NANOSECONDS.sleep(nextPermitNanos - now);
+                }
+                nextPermitNanos = Math.max(nextPermitNanos, now) + intervalNanos * page.size();
+                
+                Map<DocumentSnapshot, Map<String, Object>> changes = new LinkedHashMap<>();
+                for (QueryDocumentSnapshot document : page) {
+                    Map<String, Object> changed = changedFields(document, backfill.transform(document));
+                    if (!changed.isEmpty()) {
+                        changes.put(document, changed);
+                    }
+                }
+                
+                WriteBatch batch = firestore.batch();
+                changes.forEach((document, fields) ->
+                    batch.update(document.getReference(), fields, Precondition.updatedAt(document.getUpdateTime())));
+                int derived = backfill.writeDerived(page, batch);
+                if (!dryRun) {
+                    bumpVersions(backfill, changes.keySet(), batch);
+                }
+                
+                if (!dryRun && changes.size() + derived > 0 && !write(batch)) {
+                    // A document changed after it was read; transform the page again from fresh data
+                    if (++attempt >= maxPageAttempts) {
+                        throw new FirestoreException("Backfill page after " + progress.getLastDocumentId()
+                            + " kept changing during " + maxPageAttempts + " attempts");
+                    }
+                    continue;
+                }
+                attempt = 0;
+                
+                progress.setLastDocumentId(page.get(page.size() - 1).getId());
+                progress.setScannedDocuments(progress.getScannedDocuments() + page.size());
+                progress.setChangedDocuments(progress.getChangedDocuments() + changes.size() + derived);
+                saveProgress(progress);
+            }
+            if (progress.getStatus() != BackfillDocument.BackfillStatus.COMPLETED) {
+                progress.setStatus(BackfillDocument.BackfillStatus.STOPPED);
+            } else if (!dryRun) {
+                completed.add(backfill.getId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.setStatus(BackfillDocument.BackfillStatus.STOPPED);
+        } catch (RuntimeException e) {
+            log.error("Backfill {} failed after document {}", backfill.getId(), progress.getLastDocumentId(), e);
+            progress.setStatus(BackfillDocument.BackfillStatus.FAILED);
+            progress.setErrorMessage(e.getMessage());
+        } finally {
+            progress.setFinishedAt(LocalDateTime.now());
+            try {
+                saveProgress(progress);
+            } catch (RuntimeException e) {
+                log.warn("Could not record final state of backfill {}", backfill.getId(), e);
+            }
+            running.remove(progress.getId());
+            log.info("Backfill {} {}: {} scanned, {} {}", backfill.getId(), progress.getStatus(),
+                progress.getScannedDocuments(), progress.getChangedDocuments(), dryRun ? "would change" : "changed");
+        }
+    }
+    
+    private List<QueryDocumentSnapshot> readPage(String collection, String afterId, int pageSize) {
+        Query query = firestore.collection(collection).orderBy(FieldPath.documentId()).limit(pageSize);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        return await(query.get(), "read backfill page").getDocuments();
+    }
+    
+    private void bumpVersions(Backfill backfill, Set<DocumentSnapshot> changed, WriteBatch batch) {
+        Set<VersionedCollection> collections = backfill.getVersionedCollections();
+        if (collections.isEmpty()) {
+            return;
+        }
+        Set<String> nurseryIds = new LinkedHashSet<>();
+        for (DocumentSnapshot document : changed) {
+            String nurseryId = backfill.getNurseryId(document);
+            if (nurseryId != null) {
+                nurseryIds.add(nurseryId);
+            }
+        }
+        VersionedCollection[] bumped = collections.toArray(new VersionedCollection[0]);
+        nurseryIds.forEach(nurseryId -> versionRegistry.bump(batch, nurseryId, bumped));
+    }
+    
+    /**
+     * Write one page of changes.
+     *
+     * @return false when a document changed since it was read and nothing was written
+     */
+    private boolean write(WriteBatch batch) {
+        try {
+            await(batch.commit(), "commit backfill page");
+            return true;
+        } catch (FirestoreException e) {
+            if (hasStatus(e, StatusCode.Code.FAILED_PRECONDITION) || hasStatus(e, StatusCode.Code.NOT_FOUND)
+                    || hasStatus(e, StatusCode.Code.ALREADY_EXISTS)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * The subset of fields whose value differs from the document's current value.
+     */
+    private static Map<String, Object> changedFields(DocumentSnapshot document, Map<String, Object> fields) {
+        Map<String, Object> changed = new HashMap<>();
+        if (fields == null) {
+            return changed;
+        }
+        fields.forEach((path, value) -> {
+            if (!sameValue(document.get(FieldPath.of(path.split("\\."))), value)) {
+                changed.put(path, value);
+            }
+        });
+        return changed;
+    }
+    
+    private static boolean sameValue(Object current, Object value) {
+        // Firestore reads integers back as Long and decimals as Double
+        if (current instanceof Number && value instanceof Number) {
+            if (current instanceof Double || value instanceof Double || value instanceof Float) {
+                return ((Number) current).doubleValue() == ((Number) value).doubleValue();
+            }
+            return ((Number) current).longValue() == ((Number) value).longValue();
+        }
+        if (value instanceof Enum) {
+            return Objects.equals(current, ((Enum<?>) value).name());
+        }
+        return Objects.equals(current, value);
+    }
+    
+    private Backfill findBackfill(String backfillId) {
+        Backfill backfill = backfills.get(backfillId);
+        if (backfill == null) {
+            throw new EntityNotFoundException("Backfill", backfillId);
+        }
+        return backfill;
+    }
+    
+    private BackfillDocument newProgress(String progressId, Backfill backfill, boolean dryRun) {
+        BackfillDocument progress = new BackfillDocument();
+        progress.setId(progressId);
+        progress.setBackfillId(backfill.getId());
+        progress.setCollection(backfill.getCollection());
+        progress.setDryRun(dryRun);
+        progress.setScannedDocuments(0L);
+        progress.setChangedDocuments(0L);
+        progress.setStartedAt(LocalDateTime.now());
+        progress.setCreatedAt(LocalDateTime.now());
+        return progress;
+    }
+    
+    private BackfillDocument loadProgress(String progressId) {
+        DocumentSnapshot snapshot = await(firestore.collection(COLLECTION).document(progressId).get(),
+            "read backfill progress");
+        return snapshot.exists() ? FirestoreConverter.toDocument(snapshot, BackfillDocument.class) : null;
+    }
+    
+    private void saveProgress(BackfillDocument progress) {
+        progress.setUpdatedAt(LocalDateTime.now());
+        DocumentReference ref = firestore.collection(COLLECTION).document(progress.getId());
+        await(ref.set(FirestoreConverter.toMap(progress), SetOptions.merge()), "save backfill progress");
+    }
+    
+    private static String progressId(String backfillId, boolean dryRun) {
+        return dryRun ? backfillId + DRY_RUN_SUFFIX : backfillId;
+    }
+    
+    private static <R> R await(Future<R> future, String operation) {
+        try {
+            return future.get(FIRESTORE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Interrupted while trying to " + operation, e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new FirestoreConnectionException("Timed out while trying to " + operation, e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to " + operation, e);
+        }
+    }
+    
+    private static boolean hasStatus(Throwable e, StatusCode.Code code) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException && ((ApiException) cause).getStatusCode().getCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
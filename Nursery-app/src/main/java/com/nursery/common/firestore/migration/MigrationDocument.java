@@ -3,15 +3,17 @@ package com.nursery.common.firestore.migration;
 import com.nursery.common.firestore.BaseDocument;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.Instant;
 
 /**
  * Document to track executed migrations in Firestore
  */
-
+@Getter
+@Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,6 +29,14 @@ public class MigrationDocument extends BaseDocument {
     private MigrationStatus status;
     private String errorMessage;
     
+    /**
+     * Checkpoint: operations from the start of the file known to be committed.
+     * A resumed run skips this many operations.
+     */
+    private Long committedOperations;
+    
+    private Long totalOperations;
+    
     public enum MigrationStatus {
         SUCCESS,
         FAILED,
@@ -1,106 +1,163 @@
 package com.nursery.common.firestore.migration;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
 import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.nursery.common.firestore.FirestoreConverter;
 import com.nursery.common.firestore.exception.FirestoreException;
+import com.nursery.common.util.SecurityUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 
 /**
  * Executes Firestore migration operations from JSON files
+ *
+ * Operations are read one at a time with the Jackson streaming API, so a large data-fix file
+ * is never held in memory. Batches of up to 499 operations are committed concurrently, with
+ * at most migration.max-in-flight-batches outstanding. A batch that writes a document still
+ * being written by an earlier batch waits for that batch first, so writes to the same
+ * document are applied in file order.
+ *
+ * Progress is checkpointed in the migration's {@link MigrationDocument} as the number of
+ * operations from the start of the file whose batches have all committed. Each batch also
+ * writes a marker into {@value #BATCHES} atomically with its operations, so a failed or
+ * interrupted run resumes after the checkpoint and skips the batches beyond it that did
+ * commit. No operation is applied twice; an update is never replayed after a later delete.
  */
 @Slf4j
 @Component
 public class MigrationExecutor {
     
+    static final String COLLECTION = "migrations";
+    
+    /** Subcollection of a migration record holding one marker per committed batch */
+    static final String BATCHES = "batches";
+    
+    /** Firestore batch limit, less the batch's marker */
+    private static final int BATCH_SIZE = 499;
+    
     private final Firestore firestore;
     private final ObjectMapper objectMapper;
+    private final int maxInFlightBatches;
     
-    public MigrationExecutor(Firestore firestore) {
+    public MigrationExecutor(Firestore firestore,
+                             @Value("${migration.max-in-flight-batches:4}") int maxInFlightBatches) {
         this.firestore = firestore;
         this.objectMapper = new ObjectMapper();
+        this.maxInFlightBatches = maxInFlightBatches;
     }
     
     /**
      * Execute migration operations from a migration file
      */
     public void execute(String migrationId, String description, String jsonContent) {
-        try {
-            List<MigrationOperation> operations = parseOperations(jsonContent);
-            
-            if (operations.isEmpty()) {
-                log.warn("No operations found in migration {}", migrationId);
-                return;
-            }
-            
-            executeOperations(operations);
-            log.info("Executed {} operation(s) for migration {}", operations.size(), migrationId);
-            
-        } catch (Exception e) {
-            log.error("Failed to execute migration {}", migrationId, e);
-            throw new FirestoreException("Migration execution failed: " + migrationId, e);
-        }
+        byte[] content = jsonContent.getBytes(StandardCharsets.UTF_8);
+        execute(MigrationInfo.builder()
+            .migrationId(migrationId)
+            .description(description)
+            .content(new ByteArrayInputStream(content))
+            .checksum(checksum(content))
+            .build());
     }
     
     /**
-     * Execute list of operations using Firestore batches
+     * Execute a migration from its content stream, resuming from its last checkpoint.
+     * A migration already recorded as successful is skipped.
      */
-    private void executeOperations(List<MigrationOperation> operations) throws ExecutionException, InterruptedException {
-        WriteBatch batch = firestore.batch();
-        int count = 0;
-        
-        for (MigrationOperation op : operations) {
-            switch (op.getType().toLowerCase()) {
-                case "set":
-                case "create":
-                    batch.set(
-                        firestore.collection(op.getCollection()).document(op.getDocumentId()),
-                        op.getData()
-                    );
-                    count++;
-                    break;
-                    
-                case "update":
-                    batch.update(
-                        firestore.collection(op.getCollection()).document(op.getDocumentId()),
-                        op.getData()
-                    );
-                    count++;
-                    break;
-                    
-                case "delete":
-                    batch.delete(
-                        firestore.collection(op.getCollection()).document(op.getDocumentId())
-                    );
-                    count++;
-                    break;
-                    
-                default:
-                    throw new IllegalArgumentException("Unknown operation type: " + op.getType());
-            }
-            
-            // Firestore batch limit is 500 operations
-            if (count >= 500) {
-                batch.commit().get();
-                batch = firestore.batch();
-                count = 0;
-            }
+    public void execute(MigrationInfo migration) {
+        String migrationId = migration.getMigrationId();
+        Instant start = Instant.now();
+        DocumentReference recordRef = firestore.collection(COLLECTION).document(migrationId);
+        MigrationDocument record = loadRecord(recordRef, migration);
+        
+        if (record.getStatus() == MigrationDocument.MigrationStatus.SUCCESS) {
+            log.info("Migration {} already executed, skipping", migrationId);
+            return;
+        }
+        long resumeFrom = record.getCommittedOperations() != null ? record.getCommittedOperations() : 0;
+        // A run can leave markers without a checkpoint if it stopped before its first save
+        NavigableMap<Long, Long> committedBatches = loadCommittedBatches(recordRef, resumeFrom);
+        if ((resumeFrom > 0 || !committedBatches.isEmpty())
+                && record.getChecksum() != null && migration.getChecksum() != null
+                && !record.getChecksum().equals(migration.getChecksum())) {
+            throw new FirestoreException("Migration " + migrationId
+                + " changed after it was partially applied; it cannot be resumed");
+        }
+        if (resumeFrom > 0 || !committedBatches.isEmpty()) {
+            log.info("Resuming migration {} after {} committed operation(s), skipping {} committed batch(es)",
+                migrationId, resumeFrom, committedBatches.size());
         }
         
-        if (count > 0) {
-            batch.commit().get();
+        record.setChecksum(migration.getChecksum());
+        record.setStatus(MigrationDocument.MigrationStatus.PENDING);
+        record.setErrorMessage(null);
+        saveRecord(recordRef, record);
+        
+        Checkpoint checkpoint = new Checkpoint(recordRef, record, resumeFrom, committedBatches);
+        try (InputStream content = migration.getContent();
+             JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            long total = executeOperations(parser, checkpoint);
+            
+            record.setTotalOperations(total);
+            record.setCommittedOperations(total);
+            record.setStatus(MigrationDocument.MigrationStatus.SUCCESS);
+            record.setExecutionTimeMs(Duration.between(start, Instant.now()).toMillis());
+            saveRecord(recordRef, record);
+            
+            if (total == 0) {
+                log.warn("No operations found in migration {}", migrationId);
+            } else {
+                log.info("Executed {} operation(s) for migration {}", total - resumeFrom, migrationId);
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed to execute migration {} (checkpoint at {} operation(s))",
+                migrationId, record.getCommittedOperations(), e);
+            record.setStatus(MigrationDocument.MigrationStatus.FAILED);
+            record.setErrorMessage(e.getMessage());
+            try {
+                saveRecord(recordRef, record);
+            } catch (RuntimeException recordError) {
+                log.warn("Could not record failure of migration {}", migrationId, recordError);
+            }
+            throw new FirestoreException("Migration execution failed: " + migrationId, e);
         }
     }
     
     /**
-     * Parse JSON content into migration operations
+     * Stream operations into batches and commit them concurrently, in file order per document.
      * Expected format:
      * {
      *   "operations": [
@@ -112,38 +169,303 @@ public class MigrationExecutor {
      *     }
      *   ]
      * }
+     *
+     * @return number of operations in the file
      */
-    private List<MigrationOperation> parseOperations(String jsonContent) {
-        List<MigrationOperation> operations = new ArrayList<>();
+    private long executeOperations(JsonParser parser, Checkpoint checkpoint)
+            throws IOException, ExecutionException, InterruptedException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new FirestoreException("Failed to parse migration JSON: expected an object");
+        }
         
-        try {
-            JsonNode root = objectMapper.readTree(jsonContent);
-            JsonNode operationsNode = root.get("operations");
-            
-            if (operationsNode == null || !operationsNode.isArray()) {
-                return operations;
+        long index = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"operations".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
             }
             
-            for (JsonNode opNode : operationsNode) {
-                MigrationOperation op = new MigrationOperation();
-                op.setType(opNode.get("type").asText());
-                op.setCollection(opNode.get("collection").asText());
-                op.setDocumentId(opNode.get("documentId").asText());
-                
-                JsonNode dataNode = opNode.get("data");
-                if (dataNode != null && dataNode.isObject()) {
-                    Map<String, Object> data = objectMapper.convertValue(dataNode, Map.class);
-                    op.setData(data);
+            PendingBatch batch = null;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode opNode = objectMapper.readTree(parser);
+                index++;
+                if (checkpoint.isCommitted(index)) {
+                    continue;
+                }
+                MigrationOperation op = parseOperation(opNode, index);
+                DocumentReference docRef = firestore.collection(op.getCollection()).document(op.getDocumentId());
+                // A second write to a document starts a new batch, which then waits for this one
+                if (batch != null && batch.paths.contains(docRef.getPath())) {
+                    checkpoint.submit(batch, index - 1, maxInFlightBatches);
+                    batch = null;
                 }
+                if (batch == null) {
+                    batch = checkpoint.newBatch(index);
+                }
+                batch.add(docRef, op);
                 
-                operations.add(op);
+                if (batch.count >= BATCH_SIZE) {
+                    checkpoint.submit(batch, index, maxInFlightBatches);
+                    batch = null;
+                }
+            }
+            if (batch != null) {
+                checkpoint.submit(batch, index, maxInFlightBatches);
             }
+        }
+        
+        checkpoint.awaitAll();
+        return index;
+    }
+    
+    private void addToBatch(WriteBatch batch, DocumentReference docRef, MigrationOperation op) {
+        switch (op.getType().toLowerCase()) {
+            case "set":
+            case "create":
+                batch.set(docRef, op.getData());
+                break;
+                
+            case "update":
+                batch.update(docRef, op.getData());
+                break;
+                
+            case "delete":
+                batch.delete(docRef);
+                break;
+                
+            default:
+                throw new IllegalArgumentException("Unknown operation type: " + op.getType());
+        }
+    }
+    
+    private MigrationOperation parseOperation(JsonNode opNode, long index) {
+        try {
+            MigrationOperation op = new MigrationOperation();
+            op.setType(opNode.get("type").asText());
+            op.setCollection(opNode.get("collection").asText());
+            op.setDocumentId(opNode.get("documentId").asText());
             
+            JsonNode dataNode = opNode.get("data");
+            if (dataNode != null && dataNode.isObject()) {
+                Map<String, Object> data = objectMapper.convertValue(dataNode, Map.class);
+                op.setData(data);
+            }
+            return op;
         } catch (Exception e) {
-            throw new FirestoreException("Failed to parse migration JSON", e);
+            throw new FirestoreException("Failed to parse migration operation " + index, e);
+        }
+    }
+    
+    private MigrationDocument loadRecord(DocumentReference recordRef, MigrationInfo migration) {
+        try {
+            DocumentSnapshot snapshot = recordRef.get().get();
+            if (snapshot.exists()) {
+                return FirestoreConverter.toDocument(snapshot, MigrationDocument.class);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreException("Interrupted reading migration record " + migration.getMigrationId(), e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to read migration record " + migration.getMigrationId(), e);
+        }
+        
+        MigrationDocument record = new MigrationDocument();
+        record.setId(migration.getMigrationId());
+        record.setMigrationId(migration.getMigrationId());
+        record.setFilename(migration.getFilename());
+        record.setDescription(migration.getDescription());
+        record.setExecutedBy(SecurityUtil.getCurrentUserIdAsString());
+        record.setCreatedAt(LocalDateTime.now());
+        record.setCommittedOperations(0L);
+        return record;
+    }
+    
+    /**
+     * Operation ranges of the batches beyond the checkpoint that committed before a run stopped,
+     * keyed by first operation index.
+     */
+    private NavigableMap<Long, Long> loadCommittedBatches(DocumentReference recordRef, long resumeFrom) {
+        NavigableMap<Long, Long> committed = new TreeMap<>();
+        try {
+            for (QueryDocumentSnapshot marker : recordRef.collection(BATCHES)
+                    .whereGreaterThan("endIndex", resumeFrom)
+                    .get().get().getDocuments()) {
+                committed.put(marker.getLong("startIndex"), marker.getLong("endIndex"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreException("Interrupted reading batches of migration " + recordRef.getId(), e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to read batches of migration " + recordRef.getId(), e);
+        }
+        return committed;
+    }
+    
+    private void saveRecord(DocumentReference recordRef, MigrationDocument record) {
+        record.setUpdatedAt(LocalDateTime.now());
+        try {
+            recordRef.set(FirestoreConverter.toMap(record), SetOptions.merge()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreException("Interrupted saving migration record " + record.getMigrationId(), e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to save migration record " + record.getMigrationId(), e);
+        }
+    }
+    
+    private static String checksum(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Batches in flight, oldest first. The checkpoint only advances past a batch once it and
+     * every batch before it have committed, so it never skips an uncommitted operation.
+     */
+    private class Checkpoint {
+        
+        private final DocumentReference recordRef;
+        private final MigrationDocument record;
+        private final NavigableMap<Long, Long> committedBatches;
+        private final Deque<InFlightBatch> inFlight = new ArrayDeque<>();
+        private long committed;
+        
+        Checkpoint(DocumentReference recordRef, MigrationDocument record, long committed,
+                   NavigableMap<Long, Long> committedBatches) {
+            this.recordRef = recordRef;
+            this.record = record;
+            this.committedBatches = committedBatches;
+            advanceTo(committed);
+        }
+        
+        PendingBatch newBatch(long startIndex) {
+            return new PendingBatch(recordRef, startIndex);
+        }
+        
+        /**
+         * Whether the operation at this index committed in an earlier run.
+         */
+        boolean isCommitted(long index) {
+            if (index <= committed) {
+                return true;
+            }
+            Map.Entry<Long, Long> batch = committedBatches.floorEntry(index);
+            return batch != null && index <= batch.getValue();
+        }
+        
+        void submit(PendingBatch batch, long endIndex, int maxInFlight)
+                throws ExecutionException, InterruptedException {
+            boolean advanced = false;
+            // Writes to a document still in flight wait for it, keeping file order per document
+            while (!inFlight.isEmpty() && inFlight.stream().anyMatch(other -> other.overlaps(batch.paths))) {
+                completeOldest();
+                advanced = true;
+            }
+            inFlight.addLast(new InFlightBatch(batch.commit(endIndex), batch.paths, endIndex));
+            // Wait for the oldest batch when the window is full, then take any others already done
+            while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peekFirst().commit.isDone())) {
+                completeOldest();
+                advanced = true;
+            }
+            if (advanced) {
+                save();
+            }
+        }
+        
+        void awaitAll() throws ExecutionException, InterruptedException {
+            try {
+                while (!inFlight.isEmpty()) {
+                    completeOldest();
+                }
+            } finally {
+                save();
+            }
+        }
+        
+        private void completeOldest() throws ExecutionException, InterruptedException {
+            InFlightBatch oldest = inFlight.peekFirst();
+            try {
+                oldest.commit.get();
+            } catch (ExecutionException | InterruptedException e) {
+                // Later batches may still commit; their markers make resume skip them
+                inFlight.forEach(batch -> batch.commit.cancel(false));
+                inFlight.clear();
+                record.setCommittedOperations(committed);
+                throw e;
+            }
+            inFlight.removeFirst();
+            advanceTo(oldest.endIndex);
+        }
+        
+        /**
+         * Moves the checkpoint to this index and past any batches right after it that
+         * committed in an earlier run.
+         */
+        private void advanceTo(long index) {
+            committed = index;
+            Long end;
+            while ((end = committedBatches.get(committed + 1)) != null) {
+                committed = end;
+            }
+        }
+        
+        private void save() {
+            record.setCommittedOperations(committed);
+            saveRecord(recordRef, record);
+        }
+    }
+    
+    /**
+     * Operations collected for one batch, and the paths of the documents they write.
+     */
+    private class PendingBatch {
+        private final WriteBatch batch = firestore.batch();
+        private final Set<String> paths = new HashSet<>();
+        private final DocumentReference recordRef;
+        private final long startIndex;
+        private int count;
+        
+        PendingBatch(DocumentReference recordRef, long startIndex) {
+            this.recordRef = recordRef;
+            this.startIndex = startIndex;
+        }
+        
+        void add(DocumentReference docRef, MigrationOperation op) {
+            addToBatch(batch, docRef, op);
+            paths.add(docRef.getPath());
+            count++;
         }
         
-        return operations;
+        /**
+         * Commits the operations together with the batch's marker.
+         */
+        ApiFuture<List<WriteResult>> commit(long endIndex) {
+            return batch
+                .set(recordRef.collection(BATCHES).document(String.valueOf(startIndex)),
+                    Map.of("startIndex", startIndex, "endIndex", endIndex))
+                .commit();
+        }
+    }
+    
+    private static class InFlightBatch {
+        private final ApiFuture<List<WriteResult>> commit;
+        private final Set<String> paths;
+        private final long endIndex;
+        
+        InFlightBatch(ApiFuture<List<WriteResult>> commit, Set<String> paths, long endIndex) {
+            this.commit = commit;
+            this.paths = paths;
+            this.endIndex = endIndex;
+        }
+        
+        boolean overlaps(Set<String> others) {
+            return others.stream().anyMatch(paths::contains);
+        }
     }
     
     /**
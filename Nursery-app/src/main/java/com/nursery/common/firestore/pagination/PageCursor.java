@@ -0,0 +1,90 @@
+package com.nursery.common.firestore.pagination;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Query;
+import com.nursery.common.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque keyset position in a paged query ordered by (orderField, documentId).
+ *
+ * The cursor carries the sort key of the last row served, so the next page starts right
+ * after it even if that row was updated or deleted since, and continuing costs no read.
+ * It is bound to its collection and order field; any other cursor is rejected.
+ */
+public final class PageCursor {
+
+    private static final String FORMAT = "c1";
+
+    private final String orderField;
+    private final Timestamp orderValue;
+    private final String documentId;
+
+    private PageCursor(String orderField, Timestamp orderValue, String documentId) {
+        this.orderField = orderField;
+        this.orderValue = orderValue;
+        this.documentId = documentId;
+    }
+
+    /**
+     * Position after the given row of a query ordered by orderField, or by document ID
+     * alone when orderField is null.
+     */
+    public static PageCursor after(DocumentSnapshot row, String orderField) {
+        Timestamp value = null;
+        if (orderField != null) {
+            value = row.getTimestamp(orderField);
+            if (value == null) {
+                throw new IllegalStateException("Paged row " + row.getId() + " has no " + orderField);
+            }
+        }
+        return new PageCursor(orderField, value, row.getId());
+    }
+
+    /**
+     * Continue an ordered query after this position.
+     */
+    public Query applyTo(Query ordered) {
+        return orderField == null ? ordered.startAfter(documentId) : ordered.startAfter(orderValue, documentId);
+    }
+
+    public String encode(String collection) {
+        String text = String.join(",",
+            FORMAT,
+            collection,
+            orderField != null ? orderField : "",
+            orderValue != null ? Long.toString(orderValue.getSeconds()) : "",
+            orderValue != null ? Integer.toString(orderValue.getNanos()) : "",
+            Base64.getUrlEncoder().withoutPadding().encodeToString(documentId.getBytes(StandardCharsets.UTF_8)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws ValidationException if the cursor is malformed or was issued for another query
+     */
+    public static PageCursor decode(String cursor, String collection, String orderField) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = text.split(",", -1);
+            String field = parts.length == 6 && !parts[2].isEmpty() ? parts[2] : null;
+            if (parts.length != 6 || !FORMAT.equals(parts[0]) || !collection.equals(parts[1])
+                    || !Objects.equals(orderField, field)) {
+                throw new ValidationException("Invalid page cursor; request the first page again");
+            }
+            Timestamp value = field != null
+                ? Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[3]), Integer.parseInt(parts[4]))
+                : null;
+            String id = new String(Base64.getUrlDecoder().decode(parts[5]), StandardCharsets.UTF_8);
+            if (id.isEmpty()) {
+                throw new ValidationException("Invalid page cursor; request the first page again");
+            }
+            return new PageCursor(field, value, id);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page cursor; request the first page again", e);
+        }
+    }
+}
@@ -5,6 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -22,6 +26,8 @@ public class PageRequest {
     @Builder.Default
     private int maxSize = 1000; // Firestore recommended limit
     
+    private Set<String> fields; // Document fields to read; null reads whole documents
+    
     public int getOffset() {
         return page * size;
     }
@@ -30,6 +36,19 @@ public class PageRequest {
         return Math.min(size, maxSize);
     }
     
+    /**
+     * Copy of this request that also reads the given fields, when it reads only some.
+     * For fields a repository needs itself, such as those an in-memory filter tests.
+     */
+    public PageRequest alsoSelecting(String... required) {
+        if (fields == null) {
+            return this;
+        }
+        Set<String> selected = new LinkedHashSet<>(fields);
+        selected.addAll(Arrays.asList(required));
+        return new PageRequest(page, size, cursor, maxSize, selected);
+    }
+    
     public static PageRequest of(int page, int size) {
         return PageRequest.builder()
             .page(page)
@@ -37,6 +56,14 @@ public class PageRequest {
             .build();
     }
     
+    public static PageRequest of(int page, int size, String cursor) {
+        return PageRequest.builder()
+            .page(page)
+            .size(size)
+            .cursor(cursor != null && !cursor.isEmpty() ? cursor : null)
+            .build();
+    }
+    
     public static PageRequest first(int size) {
         return PageRequest.builder()
             .page(0)
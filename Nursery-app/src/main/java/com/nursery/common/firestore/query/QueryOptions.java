@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Set;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,6 +25,9 @@ public class QueryOptions {
     @Builder.Default
     private Integer maxResults = 1000; // Firestore recommended limit
     
+    @Builder.Default
+    private Set<String> fields = null; // Document fields to read; null reads whole documents
+    
     public int getEffectiveLimit() {
         if (limit == null) {
             return maxResults;
@@ -40,6 +45,12 @@ public class QueryOptions {
             .build();
     }
     
+    public static QueryOptions selecting(Set<String> fields) {
+        return QueryOptions.builder()
+            .fields(fields)
+            .build();
+    }
+    
     public static QueryOptions withOrderBy(String field, boolean ascending) {
         return QueryOptions.builder()
             .orderByField(field)
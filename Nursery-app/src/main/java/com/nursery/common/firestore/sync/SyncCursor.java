@@ -0,0 +1,28 @@
+package com.nursery.common.firestore.sync;
+
+import lombok.Value;
+
+/**
+ * Keyset position in an (updatedAt, documentId) ordered change scan.
+ * An empty document ID means "from this instant, inclusive".
+ */
+@Value
+public class SyncCursor {
+    
+    public static final SyncCursor BEGINNING = new SyncCursor(0L, "");
+    
+    long updatedAtMillis;
+    
+    String documentId;
+    
+    public static SyncCursor at(long updatedAtMillis) {
+        return new SyncCursor(updatedAtMillis, "");
+    }
+    
+    public boolean isBefore(SyncCursor other) {
+        if (updatedAtMillis != other.updatedAtMillis) {
+            return updatedAtMillis < other.updatedAtMillis;
+        }
+        return documentId.compareTo(other.documentId) < 0;
+    }
+}
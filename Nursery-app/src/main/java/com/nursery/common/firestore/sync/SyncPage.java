@@ -0,0 +1,51 @@
+package com.nursery.common.firestore.sync;
+
+import com.nursery.common.firestore.BaseDocument;
+import com.nursery.common.firestore.FirestoreConverter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One page of a change scan: documents changed after a cursor, split into live items
+ * and IDs of soft-deleted documents (tombstones), plus the cursor to continue from.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SyncPage<R> {
+    
+    private final List<R> items;
+    
+    private final List<String> deletedIds;
+    
+    private final SyncCursor next;
+    
+    private final boolean hasMore;
+    
+    /**
+     * Build a page from a scan that read up to {@code limit + 1} documents; the extra
+     * document only signals that more changes remain.
+     */
+    public static <D extends BaseDocument, R> SyncPage<R> of(List<D> documents, int limit, SyncCursor after,
+                                                             Predicate<D> deleted, Function<D, R> mapper) {
+        boolean hasMore = documents.size() > limit;
+        List<D> page = hasMore ? documents.subList(0, limit) : documents;
+        
+        List<R> items = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        SyncCursor next = after;
+        for (D document : page) {
+            if (deleted.test(document)) {
+                deletedIds.add(document.getId());
+            } else {
+                items.add(mapper.apply(document));
+            }
+            next = new SyncCursor(FirestoreConverter.toDate(document.getUpdatedAt()).getTime(), document.getId());
+        }
+        return new SyncPage<>(items, deletedIds, next, hasMore);
+    }
+}
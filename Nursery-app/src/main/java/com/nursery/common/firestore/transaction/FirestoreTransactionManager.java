@@ -2,9 +2,12 @@ package com.nursery.common.firestore.transaction;
 
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Transaction;
+import com.nursery.common.exception.BusinessException;
 import com.nursery.common.firestore.exception.FirestoreConnectionException;
 import com.nursery.common.firestore.retry.FirestoreRetryPolicy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.Duration;
 import java.util.concurrent.*;
@@ -31,6 +34,13 @@ public class FirestoreTransactionManager {
      * Unwraps ExecutionException to get the original exception
      */
     private Throwable unwrapExecutionException(ExecutionException e) {
+        // Business errors thrown by the transaction function surface as-is, however deeply wrapped
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof BusinessException) {
+                return t;
+            }
+        }
+        
         Throwable cause = e.getCause();
         if (cause instanceof RuntimeException && cause.getCause() != null) {
             // ExecutionException -> RuntimeException -> OriginalException
@@ -43,12 +53,16 @@ public class FirestoreTransactionManager {
         int attempt = 0;
         ExecutionException lastException = null;
         
+        // The function runs on Firestore's threads; carry the caller's identity for audit fields
+        SecurityContext callerContext = SecurityContextHolder.getContext();
+        
         while (attempt < retryPolicy.getMaxAttempts()) {
             try {
                 // Use CompletableFuture with timeout for transaction execution
                 CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
                     try {
                         return firestore.runTransaction((Transaction.Function<T>) transaction -> {
+                            SecurityContextHolder.setContext(callerContext);
                             try {
                                 return transactionFunction.apply(transaction);
                             } catch (RuntimeException e) {
@@ -57,6 +71,8 @@ public class FirestoreTransactionManager {
                             } catch (Exception e) {
                                 // Wrap checked exceptions in RuntimeException (required by Firestore API)
                                 throw new RuntimeException(e);
+                            } finally {
+                                SecurityContextHolder.clearContext();
                             }
                         }).get();
                     } catch (InterruptedException e) {
@@ -0,0 +1,142 @@
+package com.nursery.common.firestore.unique;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Unique constraints backed by one key document per (scope, normalized value).
+ *
+ * A key is read and written inside the same transaction as the document that owns it,
+ * so a duplicate check is a single document read and concurrent creates of the same
+ * value conflict in Firestore instead of both succeeding.
+ *
+ * Usage inside {@code runInTransaction}:
+ * <pre>
+ *   // phase 1 (reads)
+ *   UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction, scope, oldName, newName, id);
+ *   if (nameKey.isConflict()) throw new ValidationException(...);
+ *   // phase 2 (writes)
+ *   repository.save(document, transaction);
+ *   nameKey.apply(transaction, document.getId());
+ * </pre>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueConstraintManager {
+
+    public static final String COLLECTION = "unique_keys";
+
+    // Same bound as repository reads inside a transaction
+    private static final long FIRESTORE_TIMEOUT_SECONDS = 30;
+
+    private final Firestore firestore;
+
+    /**
+     * Read the keys involved in moving an owner from one value to another within a scope.
+     *
+     * @param previousValue value currently held by the owner, or null when creating
+     * @param newValue      value to reserve, or null to only release the previous one
+     * @param ownerId       ID of the owning document, or null when it is not created yet
+     */
+    public UniqueKeyChange prepare(Transaction transaction, String scope,
+                                   String previousValue, String newValue, String ownerId) {
+        DocumentReference previousKey = previousValue != null ? keyRef(scope, previousValue) : null;
+        DocumentReference newKey = newValue != null ? keyRef(scope, newValue) : null;
+
+        String newKeyOwner = newKey != null ? readOwner(transaction, newKey) : null;
+        String previousKeyOwner = null;
+        if (previousKey != null) {
+            previousKeyOwner = previousKey.equals(newKey) ? newKeyOwner : readOwner(transaction, previousKey);
+        }
+
+        boolean conflict = newKeyOwner != null && !newKeyOwner.equals(ownerId);
+        return new UniqueKeyChange(scope, newValue != null ? normalize(newValue) : null,
+            newKey, newKeyOwner, previousKey, previousKeyOwner, conflict);
+    }
+
+    /**
+     * Reserve a value for a new owner in a write batch, for bulk writes validated up front.
+     * The key is created, not set, so the whole batch fails if the value was taken meanwhile.
+     */
+    public void claim(WriteBatch batch, String scope, String value, String ownerId) {
+        batch.create(keyRef(scope, value), keyData(scope, normalize(value), ownerId));
+    }
+
+    /**
+     * Normalized form used for comparison: trimmed, single-spaced and lowercased.
+     */
+    public static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    DocumentReference keyRef(String scope, String value) {
+        return firestore.collection(COLLECTION).document(keyId(scope, normalize(value)));
+    }
+
+    static Map<String, Object> keyData(String scope, String normalizedValue, String ownerId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("scope", scope);
+        data.put("value", normalizedValue);
+        data.put("ownerId", ownerId);
+        data.put("claimedAt", Timestamp.now());
+        return data;
+    }
+
+    private String readOwner(Transaction transaction, DocumentReference key) {
+        try {
+            DocumentSnapshot snapshot = transaction.get(key).get(FIRESTORE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return snapshot.exists() ? snapshot.getString("ownerId") : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Unique key read interrupted", e);
+        } catch (TimeoutException e) {
+            throw new FirestoreConnectionException(
+                String.format("Unique key read timed out after %d seconds", FIRESTORE_TIMEOUT_SECONDS), e);
+        } catch (ExecutionException e) {
+            StatusCode.Code code = e.getCause() instanceof ApiException apiException
+                ? apiException.getStatusCode().getCode() : null;
+            if (code == StatusCode.Code.DEADLINE_EXCEEDED || code == StatusCode.Code.UNAVAILABLE
+                    || code == StatusCode.Code.RESOURCE_EXHAUSTED) {
+                throw new FirestoreConnectionException("Failed to read unique key", e);
+            }
+            throw new FirestoreException("Failed to read unique key", e);
+        }
+    }
+
+    /**
+     * Key document ID: hex SHA-256 of scope and normalized value, so arbitrary names
+     * (including '/') map to valid, fixed-length document IDs.
+     */
+    static String keyId(String scope, String normalizedValue) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((scope + "\n" + normalizedValue).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
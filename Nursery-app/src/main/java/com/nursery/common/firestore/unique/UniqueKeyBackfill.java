@@ -0,0 +1,125 @@
+package com.nursery.common.firestore.unique;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import com.nursery.common.firestore.migration.Backfill;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Claims the unique keys of documents written before their collection had keys, so a key
+ * read alone can replace the duplicate scan once the backfill has completed.
+ *
+ * A key is created together with a rewrite of the owner's current value under an update-time
+ * precondition, so a key claimed meanwhile or an owner renamed or deleted after the page was
+ * read fails the page and it is read again. A value whose key is held by another document is
+ * a duplicate from before keys existed; it is logged and left without a key.
+ */
+@Slf4j
+public abstract class UniqueKeyBackfill implements Backfill {
+
+    private static final long FIRESTORE_TIMEOUT_SECONDS = 30;
+
+    private final Firestore firestore;
+
+    protected UniqueKeyBackfill(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Field holding the unique value.
+     */
+    protected abstract String getValueField();
+
+    /**
+     * Scope of the document's key, or null when it has none.
+     */
+    protected abstract String scope(DocumentSnapshot document);
+
+    @Override
+    public Map<String, Object> transform(DocumentSnapshot document) {
+        return Map.of();
+    }
+
+    @Override
+    public int writeDerived(List<QueryDocumentSnapshot> page, WriteBatch batch) {
+        Map<DocumentReference, QueryDocumentSnapshot> owners = new LinkedHashMap<>();
+        for (QueryDocumentSnapshot document : page) {
+            String value = document.getString(getValueField());
+            String scope = scope(document);
+            if (Boolean.TRUE.equals(document.getBoolean("isDeleted")) || value == null || value.isBlank() || scope == null) {
+                continue;
+            }
+            QueryDocumentSnapshot owner = owners.putIfAbsent(keyRef(scope, value), document);
+            if (owner != null) {
+                log.warn("Backfill {}: {} and {} share the unique value '{}'; only the first gets the key",
+                    getId(), owner.getId(), document.getId(), value);
+            }
+        }
+        if (owners.isEmpty()) {
+            return 0;
+        }
+
+        List<DocumentReference> keyRefs = new ArrayList<>(owners.keySet());
+        List<DocumentSnapshot> keys = getAll(keyRefs);
+        int claimed = 0;
+        for (int i = 0; i < keyRefs.size(); i++) {
+            QueryDocumentSnapshot owner = owners.get(keyRefs.get(i));
+            DocumentSnapshot key = keys.get(i);
+            if (key.exists()) {
+                if (!owner.getId().equals(key.getString("ownerId"))) {
+                    log.warn("Backfill {}: '{}' of {} is already held by {}", getId(),
+                        owner.getString(getValueField()), owner.getId(), key.getString("ownerId"));
+                }
+                continue;
+            }
+            String value = owner.getString(getValueField());
+            batch.create(keyRefs.get(i), UniqueConstraintManager.keyData(scope(owner),
+                UniqueConstraintManager.normalize(value), owner.getId()));
+            batch.update(owner.getReference(), Map.of(getValueField(), value),
+                Precondition.updatedAt(owner.getUpdateTime()));
+            claimed++;
+        }
+        return claimed;
+    }
+
+    /**
+     * A key and its owner's precondition per document.
+     */
+    @Override
+    public int getMaxPageSize() {
+        return 250;
+    }
+
+    private DocumentReference keyRef(String scope, String value) {
+        return firestore.collection(UniqueConstraintManager.COLLECTION)
+            .document(UniqueConstraintManager.keyId(scope, UniqueConstraintManager.normalize(value)));
+    }
+
+    private List<DocumentSnapshot> getAll(List<DocumentReference> refs) {
+        try {
+            return firestore.getAll(refs.toArray(new DocumentReference[0]))
+                .get(FIRESTORE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Interrupted reading unique keys", e);
+        } catch (TimeoutException e) {
+            throw new FirestoreConnectionException("Timed out reading unique keys", e);
+        } catch (ExecutionException e) {
+            throw new FirestoreException("Failed to read unique keys", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.nursery.common.firestore.unique;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Transaction;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Result of {@link UniqueConstraintManager#prepare}: the keys read in the transaction's
+ * read phase and the writes that {@link #apply} queues in its write phase.
+ */
+@RequiredArgsConstructor
+public class UniqueKeyChange {
+
+    private final String scope;
+    private final String normalizedValue;
+    private final DocumentReference newKey;
+    private final String newKeyOwner;
+    private final DocumentReference previousKey;
+    private final String previousKeyOwner;
+
+    /**
+     * True when the new value is already reserved by a different owner.
+     */
+    @Getter
+    private final boolean conflict;
+
+    /**
+     * Reserve the new value for the owner and release the previous one if the owner held it.
+     * Must only be called when there is no conflict.
+     */
+    public void apply(Transaction transaction, String ownerId) {
+        if (conflict) {
+            throw new IllegalStateException("Cannot apply a conflicting unique key change in scope " + scope);
+        }
+
+        if (newKey != null && !ownerId.equals(newKeyOwner)) {
+            transaction.set(newKey, UniqueConstraintManager.keyData(scope, normalizedValue, ownerId));
+        }
+
+        // A legacy document may have no key yet; never release a key held by someone else
+        if (previousKey != null && !previousKey.equals(newKey) && ownerId.equals(previousKeyOwner)) {
+            transaction.delete(previousKey);
+        }
+    }
+}
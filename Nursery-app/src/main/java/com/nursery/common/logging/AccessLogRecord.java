@@ -0,0 +1,40 @@
+package com.nursery.common.logging;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * One access log entry, captured on the request thread and formatted by {@link AccessLogWriter}.
+ */
+@Getter
+@Builder
+public class AccessLogRecord {
+    
+    private final String method;
+    
+    /**
+     * Matched route template (e.g. /breeds/{id}), or the raw URI when no handler matched.
+     */
+    private final String route;
+    
+    private final int status;
+    private final long latencyMicros;
+    
+    /**
+     * Firestore repository calls made on the request thread, not documents read or written.
+     * Work the request hands to other threads (transaction callbacks, parallel whereIn chunks,
+     * bootstrap and import executors) is not counted.
+     */
+    private final int firestoreReadCalls;
+    private final int firestoreWriteCalls;
+    
+    private final String userId;
+    private final String nurseryId;
+    private final String correlationId;
+    
+    /**
+     * Request and response bodies; only set for routes with body logging enabled.
+     */
+    private final String requestBody;
+    private final String responseBody;
+}
@@ -0,0 +1,115 @@
+package com.nursery.common.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes access log records from a bounded queue on a single background thread.
+ *
+ * Request threads only enqueue; formatting and the logging backend run off the request
+ * path. When the queue is full records are dropped rather than blocking the request,
+ * and the number dropped is reported with the next record written.
+ * Records go to the "access" logger as one key=value line each.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+    
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access");
+    
+    private final BlockingQueue<AccessLogRecord> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final StringBuilder line = new StringBuilder(256); // only used by the writer thread
+    private Thread writer;
+    private volatile boolean running = true;
+    
+    public AccessLogWriter(@Value("${access-log.queue-capacity:8192}") int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+    
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::drain, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    /**
+     * Queue a record; never blocks.
+     */
+    public void submit(AccessLogRecord record) {
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                AccessLogRecord record = queue.poll(1, TimeUnit.SECONDS);
+                if (record != null) {
+                    write(record);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // Flush what is left before exiting
+                    AccessLogRecord record;
+                    while ((record = queue.poll()) != null) {
+                        write(record);
+                    }
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to write access log record: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void write(AccessLogRecord record) {
+        line.setLength(0);
+        line.append("method=").append(record.getMethod())
+            .append(" route=").append(record.getRoute())
+            .append(" status=").append(record.getStatus())
+            .append(" latencyMs=").append(record.getLatencyMicros() / 1000).append('.')
+            .append(record.getLatencyMicros() % 1000 / 100)
+            .append(" readCalls=").append(record.getFirestoreReadCalls())
+            .append(" writeCalls=").append(record.getFirestoreWriteCalls());
+        appendIfPresent("user", record.getUserId());
+        appendIfPresent("nursery", record.getNurseryId());
+        appendIfPresent("cid", record.getCorrelationId());
+        
+        long droppedSinceLast = dropped.getAndSet(0);
+        if (droppedSinceLast > 0) {
+            line.append(" droppedBefore=").append(droppedSinceLast);
+        }
+        ACCESS_LOG.info(line.toString());
+        
+        if (record.getRequestBody() != null || record.getResponseBody() != null) {
+            ACCESS_LOG.debug("cid={} requestBody={} responseBody={}",
+                record.getCorrelationId(), record.getRequestBody(), record.getResponseBody());
+        }
+    }
+    
+    private void appendIfPresent(String key, String value) {
+        if (value != null) {
+            line.append(' ').append(key).append('=').append(value);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nursery.common.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate limiter using the generic cell rate algorithm (GCRA).
+ *
+ * Each key holds a single "theoretical arrival time" (TAT): the time at which its
+ * bucket would be empty again. A request pushes the TAT forward by one emission
+ * interval and is allowed while the TAT stays within the policy's tolerance of now.
+ * The state is one {@link AtomicLong} per key updated with compare-and-set, so
+ * concurrent requests never block each other, and there is no window edge at which
+ * a client can burst twice the limit.
+ */
+public class GcraRateLimiter {
+
+    private final Cache<String, AtomicLong> arrivals;
+
+    public GcraRateLimiter(long maxKeys, Duration idleExpiry) {
+        // A key idle for longer than the longest policy period has a full bucket, so dropping it is lossless
+        this.arrivals = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(idleExpiry)
+            .build();
+    }
+
+    /**
+     * Take one request from the bucket of {@code key} under {@code policy}.
+     * Rejected requests do not consume capacity.
+     */
+    public RateLimitDecision tryAcquire(RateLimitPolicy policy, String key) {
+        long interval = policy.getEmissionIntervalNanos();
+        long tolerance = policy.getToleranceNanos();
+        AtomicLong tat = arrivals.get(policy.getName() + ":" + key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = base + interval;
+            long ahead = next - now;
+
+            if (ahead > tolerance) {
+                long untilFree = current - now;
+                return new RateLimitDecision(policy, false, 0, untilFree, ahead - tolerance);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return new RateLimitDecision(policy, true, (tolerance - ahead) / interval, ahead, 0);
+            }
+            // Lost the race to another request for the same key; re-read and retry
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.nursery.common.ratelimit;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a rate limit check, with the values reported in X-RateLimit-* headers.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RateLimitDecision {
+    
+    private final RateLimitPolicy policy;
+    private final boolean allowed;
+    
+    /**
+     * Requests that could still be made immediately after this one.
+     */
+    private final long remaining;
+    
+    /**
+     * Time until the full burst is available again.
+     */
+    private final long resetNanos;
+    
+    /**
+     * Time until a rejected request would be allowed; zero when allowed.
+     */
+    private final long retryAfterNanos;
+    
+    public long getResetSeconds() {
+        return toSecondsCeil(resetNanos);
+    }
+    
+    public long getRetryAfterSeconds() {
+        return Math.max(1, toSecondsCeil(retryAfterNanos));
+    }
+    
+    private static long toSecondsCeil(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
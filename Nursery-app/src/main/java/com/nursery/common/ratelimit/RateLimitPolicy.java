@@ -0,0 +1,44 @@
+package com.nursery.common.ratelimit;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A rate of {@code limit} requests per {@code period}, allowing up to {@code burst}
+ * requests back to back after a quiet spell.
+ */
+@Getter
+public class RateLimitPolicy {
+    
+    private final String name;
+    private final int limit;
+    private final Duration period;
+    private final int burst;
+    
+    /**
+     * Time one request "costs": the spacing between requests at the sustained rate.
+     */
+    private final long emissionIntervalNanos;
+    
+    /**
+     * How far ahead of now the theoretical arrival time may run before requests are rejected.
+     */
+    private final long toleranceNanos;
+    
+    public RateLimitPolicy(String name, int limit, Duration period, int burst) {
+        if (limit <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit policy " + name + " needs a positive limit and burst");
+        }
+        this.name = name;
+        this.limit = limit;
+        this.period = period;
+        this.burst = burst;
+        this.emissionIntervalNanos = period.toNanos() / limit;
+        this.toleranceNanos = emissionIntervalNanos * burst;
+    }
+    
+    public static RateLimitPolicy perMinute(String name, int limit, int burst) {
+        return new RateLimitPolicy(name, limit, Duration.ofMinutes(1), burst);
+    }
+}
@@ -0,0 +1,35 @@
+package com.nursery.common.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Classes of routes that get separate rate limits.
+ */
+public enum RouteClass {
+    
+    /** Credential checks: login and token generation. */
+    LOGIN,
+    
+    /** Requests that modify data. */
+    WRITE,
+    
+    /** Everything else. */
+    READ;
+    
+    public static RouteClass of(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/auth/login") || uri.startsWith("/auth/generate-token")) {
+            return LOGIN;
+        }
+        
+        switch (request.getMethod()) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return WRITE;
+            default:
+                return READ;
+        }
+    }
+}
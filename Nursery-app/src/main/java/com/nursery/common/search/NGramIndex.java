@@ -0,0 +1,277 @@
+package com.nursery.common.search;
+
+import com.nursery.common.util.TopN;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory n-gram index over one or more text fields of a value.
+ *
+ * Every 1-, 2- and 3-character gram of each normalized field is posted to the
+ * entry id. A query of up to three characters is answered by a single posting
+ * lookup; longer queries intersect the postings of their trigrams and verify the
+ * surviving candidates with a substring check. Matches are ranked by field
+ * (earlier fields win) and match kind: exact, prefix, word prefix, substring.
+ *
+ * Thread-safe: reads share a read lock, writes take the write lock.
+ */
+public class NGramIndex<T> {
+
+    private static final int MAX_GRAM = 3;
+
+    private static final int SCORE_EXACT = 40;
+    private static final int SCORE_PREFIX = 30;
+    private static final int SCORE_WORD_PREFIX = 20;
+    private static final int SCORE_SUBSTRING = 10;
+    private static final int FIELD_WEIGHT = 100;
+
+    private final List<Function<? super T, String>> fields;
+    private final Comparator<? super T> tieBreaker;
+
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param fields     field extractors in priority order (index 0 ranks highest)
+     * @param tieBreaker ordering among matches with the same score
+     */
+    public NGramIndex(List<Function<? super T, String>> fields, Comparator<? super T> tieBreaker) {
+        this.fields = List.copyOf(fields);
+        this.tieBreaker = tieBreaker;
+    }
+
+    public void put(String id, T value) {
+        String[] texts = new String[fields.size()];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = normalize(fields.get(i).apply(value));
+        }
+        Entry<T> entry = new Entry<>(value, texts);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            entries.put(id, entry);
+            for (String gram : grams(texts)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> get(String id) {
+        lock.readLock().lock();
+        try {
+            Entry<T> entry = entries.get(id);
+            return entry == null ? Optional.empty() : Optional.of(entry.value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> values() {
+        lock.readLock().lock();
+        try {
+            List<T> values = new ArrayList<>(entries.size());
+            for (Entry<T> entry : entries.values()) {
+                values.add(entry.value);
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search the index.
+     *
+     * @param query  raw search text; matched case-insensitively as a substring
+     * @param filter additional predicate on the value, or null
+     * @param limit  maximum number of ranked hits to return
+     * @param fieldIndexes fields to match against; all fields when empty
+     */
+    public Hits<T> search(String query, Predicate<? super T> filter, int limit, int... fieldIndexes) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new Hits<>(Collections.emptyList(), 0);
+        }
+
+        List<Hit<T>> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String id : candidates(q)) {
+                Entry<T> entry = entries.get(id);
+                if (entry == null || (filter != null && !filter.test(entry.value))) {
+                    continue;
+                }
+                int score = score(entry, q, fieldIndexes);
+                if (score > 0) {
+                    matches.add(new Hit<>(entry.value, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<Hit<T>> order = Comparator.<Hit<T>>comparingInt(h -> h.score).reversed()
+            .thenComparing(h -> h.value, tieBreaker);
+        List<Hit<T>> top = TopN.select(matches, order, limit);
+
+        List<T> items = new ArrayList<>(top.size());
+        for (Hit<T> hit : top) {
+            items.add(hit.value);
+        }
+        return new Hits<>(items, matches.size());
+    }
+
+    /**
+     * Lowercases, trims and collapses whitespace so that index and query agree.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Caller must hold at least the read lock
+    private Collection<String> candidates(String q) {
+        if (q.length() <= MAX_GRAM) {
+            Set<String> posting = postings.get(q);
+            return posting == null ? Collections.emptySet() : posting;
+        }
+
+        // Intersect trigram postings, smallest first
+        List<Set<String>> sets = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= q.length(); i++) {
+            Set<String> posting = postings.get(q.substring(i, i + MAX_GRAM));
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        return result;
+    }
+
+    private int score(Entry<T> entry, String q, int[] fieldIndexes) {
+        int best = 0;
+        if (fieldIndexes.length == 0) {
+            for (int i = 0; i < entry.texts.length; i++) {
+                best = Math.max(best, fieldScore(entry.texts[i], q, i));
+            }
+        } else {
+            for (int i : fieldIndexes) {
+                best = Math.max(best, fieldScore(entry.texts[i], q, i));
+            }
+        }
+        return best;
+    }
+
+    private int fieldScore(String text, String q, int fieldIndex) {
+        int pos = text.indexOf(q);
+        if (pos < 0) {
+            return 0;
+        }
+        int kind;
+        if (pos == 0) {
+            kind = text.length() == q.length() ? SCORE_EXACT : SCORE_PREFIX;
+        } else if (text.charAt(pos - 1) == ' ' || text.contains(" " + q)) {
+            kind = SCORE_WORD_PREFIX;
+        } else {
+            kind = SCORE_SUBSTRING;
+        }
+        return (fields.size() - fieldIndex) * FIELD_WEIGHT + kind;
+    }
+
+    // Caller must hold the write lock
+    private void removeInternal(String id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous.texts)) {
+            Set<String> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String[] texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            for (int n = 1; n <= MAX_GRAM; n++) {
+                for (int i = 0; i + n <= text.length(); i++) {
+                    grams.add(text.substring(i, i + n));
+                }
+            }
+        }
+        return grams;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry<T> {
+        private final T value;
+        private final String[] texts;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Hit<T> {
+        private final T value;
+        private final int score;
+    }
+
+    /**
+     * Ranked search result: the requested top hits plus the total number of matches.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Hits<T> {
+        private final List<T> items;
+        private final int totalMatches;
+    }
+}
@@ -0,0 +1,134 @@
+package com.nursery.common.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nursery.common.firestore.BaseSoftDeletableDocument;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Per-nursery {@link NGramIndex} over a soft-deletable catalog collection.
+ *
+ * An index is built from Firestore the first time a nursery is searched and is
+ * then kept current by the owning service calling {@link #put} and {@link #remove}
+ * after each write. Entries expire after a fixed time so that writes made by other
+ * instances are picked up without any coordination.
+ *
+ * Each write moves a per-nursery generation. An index remembers the generation it was
+ * loaded at and follows the writes applied to it; a write that lands while the index is
+ * being built has no index to go to, leaves it behind, and the next search rebuilds it.
+ *
+ * Indexed documents are shared between callers and must be treated as read-only.
+ */
+@Slf4j
+public abstract class NurseryCatalogIndex<T extends BaseSoftDeletableDocument> {
+
+    private final Cache<String, Loaded<T>> indexes;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    protected NurseryCatalogIndex(long maxNurseries, Duration ttl) {
+        this.indexes = Caffeine.newBuilder()
+            .maximumSize(maxNurseries)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    /**
+     * Load all non-deleted documents of the nursery.
+     */
+    protected abstract List<T> loadCatalog(String nurseryId);
+
+    /**
+     * Create an empty index with this catalog's fields and ordering.
+     */
+    protected abstract NGramIndex<T> newIndex();
+
+    protected abstract String nurseryIdOf(T document);
+
+    /**
+     * Index of the nursery, building it from Firestore on first use.
+     */
+    public NGramIndex<T> forNursery(String nurseryId) {
+        Loaded<T> loaded = indexes.get(nurseryId, this::build);
+        if (loaded.generation.get() != generation(nurseryId).get()) {
+            // A write missed the index while it was being built
+            indexes.asMap().remove(nurseryId, loaded);
+            loaded = indexes.get(nurseryId, this::build);
+        }
+        return loaded.index;
+    }
+
+    /**
+     * Add or replace a document in its nursery's index, if that index is loaded.
+     * Soft-deleted documents are removed instead.
+     */
+    public void put(T document) {
+        update(nurseryIdOf(document), index -> {
+            if (Boolean.TRUE.equals(document.getIsDeleted())) {
+                index.remove(document.getId());
+            } else {
+                index.put(document.getId(), document);
+            }
+        });
+    }
+
+    public void remove(T document) {
+        update(nurseryIdOf(document), index -> index.remove(document.getId()));
+    }
+
+    /**
+     * Drop the nursery's index; the next search rebuilds it.
+     */
+    public void invalidate(String nurseryId) {
+        indexes.invalidate(nurseryId);
+    }
+
+    /**
+     * Apply a write to the nursery's index if it is loaded, never touching Firestore.
+     * Must be called after the write is committed.
+     */
+    protected void update(String nurseryId, Consumer<NGramIndex<T>> change) {
+        long generation = generation(nurseryId).incrementAndGet();
+        Loaded<T> loaded = indexes.getIfPresent(nurseryId);
+        if (loaded != null) {
+            change.accept(loaded.index);
+            // Only a gapless sequence of writes keeps the index current; otherwise it is rebuilt
+            loaded.generation.compareAndSet(generation - 1, generation);
+        }
+    }
+
+    private AtomicLong generation(String nurseryId) {
+        return generations.computeIfAbsent(nurseryId, id -> new AtomicLong());
+    }
+
+    private Loaded<T> build(String nurseryId) {
+        long start = System.nanoTime();
+        // Read before loading, so writes committed after this point are seen as missed
+        long generation = generation(nurseryId).get();
+        List<T> documents = loadCatalog(nurseryId);
+        NGramIndex<T> index = newIndex();
+        for (T document : documents) {
+            index.put(document.getId(), document);
+        }
+        log.debug("Built {} index for nursery {}: {} entries in {} ms",
+            getClass().getSimpleName(), nurseryId, documents.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Loaded<>(index, generation);
+    }
+
+    private static final class Loaded<T> {
+
+        private final NGramIndex<T> index;
+        private final AtomicLong generation;
+
+        Loaded(NGramIndex<T> index, long generation) {
+            this.index = index;
+            this.generation = new AtomicLong(generation);
+        }
+    }
+}
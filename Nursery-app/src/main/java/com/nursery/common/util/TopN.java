@@ -0,0 +1,60 @@
+package com.nursery.common.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded top-N selection.
+ * Keeps at most n elements in a heap instead of sorting the whole input,
+ * so selecting one page out of a large candidate set costs O(size * log n).
+ */
+public final class TopN {
+
+    private TopN() {
+    }
+
+    /**
+     * Returns the first {@code n} elements of {@code items} in {@code order}, sorted.
+     */
+    public static <T> List<T> select(Collection<? extends T> items, Comparator<? super T> order, int n) {
+        if (n <= 0 || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (n >= items.size()) {
+            List<T> all = new ArrayList<>(items);
+            all.sort(order);
+            return all;
+        }
+
+        // Max-heap on the requested order: the head is the worst element kept so far
+        PriorityQueue<T> heap = new PriorityQueue<>(n + 1, order.reversed());
+        for (T item : items) {
+            if (heap.size() < n) {
+                heap.offer(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Returns the slice {@code [offset, offset + size)} of {@code items} in {@code order}
+     * without fully sorting the input.
+     */
+    public static <T> List<T> page(Collection<? extends T> items, Comparator<? super T> order, int offset, int size) {
+        long bound = (long) offset + size;
+        List<T> top = select(items, order, (int) Math.min(bound, Integer.MAX_VALUE));
+        if (offset >= top.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(top.subList(offset, top.size()));
+    }
+}
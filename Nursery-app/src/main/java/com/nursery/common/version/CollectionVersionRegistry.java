@@ -0,0 +1,245 @@
+package com.nursery.common.version;
+
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+import com.nursery.common.firestore.exception.FirestoreConnectionException;
+import com.nursery.common.firestore.exception.FirestoreException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version counters per nursery and collection, bumped on every write.
+ *
+ * Counters live in one document per nursery in {@value #COLLECTION} and are mirrored in
+ * memory by a snapshot listener, so reading a version never costs a Firestore read.
+ * Writers bump inside their own transaction when they have one, so the data and its
+ * version commit together.
+ *
+ * A nursery is "unsettled" from the moment a bump is queued until the listener delivers
+ * counters at least as high as the bump; while unsettled (or before the listener's first
+ * snapshot) no version is reported, so callers fall back to a full response.
+ *
+ * That only covers writes made through this instance. A write made through another
+ * instance reaches this listener some time after it commits, so a mirrored version can be
+ * behind. Before declaring content unchanged, callers confirm the match with
+ * {@link #readVersions}, which reads the version document itself; a client therefore
+ * always sees its own writes, whichever instance served them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CollectionVersionRegistry {
+
+    public static final String COLLECTION = "collection_versions";
+
+    private static final int COLLECTION_COUNT = VersionedCollection.values().length;
+    private static final long READ_TIMEOUT_SECONDS = 5;
+
+    private final Firestore firestore;
+
+    private final Map<String, long[]> versions = new ConcurrentHashMap<>();
+    private final Map<String, long[]> awaiting = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every change to the state above, so a caller can detect that versions
+     * moved while it was loading data.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean initialized;
+    private ListenerRegistration registration;
+
+    @PostConstruct
+    public void start() {
+        registration = firestore.collection(COLLECTION).addSnapshotListener((snapshots, error) -> {
+            if (error != null) {
+                // The listener has stopped; stop answering from stale counters
+                log.error("Collection version listener failed; conditional requests disabled", error);
+                initialized = false;
+                generation.incrementAndGet();
+                return;
+            }
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                apply(change.getDocument());
+            }
+            initialized = true;
+            generation.incrementAndGet();
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    /**
+     * Queue a version bump in the caller's transaction. Safe to call again when the
+     * transaction function is retried.
+     */
+    public void bump(Transaction transaction, String nurseryId, VersionedCollection... collections) {
+        markAwaiting(nurseryId, collections);
+        transaction.set(versionRef(nurseryId), increments(collections), SetOptions.merge());
+    }
+
+    /**
+     * Queue a version bump in the caller's write batch.
+     */
+    public void bump(WriteBatch batch, String nurseryId, VersionedCollection... collections) {
+        markAwaiting(nurseryId, collections);
+        batch.set(versionRef(nurseryId), increments(collections), SetOptions.merge());
+    }
+
+    /**
+     * Bump versions after a non-transactional write.
+     */
+    public void bump(String nurseryId, VersionedCollection... collections) {
+        markAwaiting(nurseryId, collections);
+        try {
+            versionRef(nurseryId).set(increments(collections), SetOptions.merge()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirestoreConnectionException("Version bump interrupted", e);
+        } catch (ExecutionException e) {
+            // The nursery stays unsettled, so no stale version is ever served for it
+            throw new FirestoreException("Failed to bump collection versions for nursery " + nurseryId, e);
+        }
+    }
+
+    /**
+     * Current version of a collection, or empty when it is not reliably known.
+     */
+    public OptionalLong version(String nurseryId, VersionedCollection collection) {
+        if (!initialized || awaiting.containsKey(nurseryId)) {
+            return OptionalLong.empty();
+        }
+        long[] current = versions.get(nurseryId);
+        return OptionalLong.of(current != null ? current[collection.ordinal()] : 0);
+    }
+
+    /**
+     * Versions of a nursery read from its version document rather than the listener's
+     * mirror, to confirm a match before content is declared unchanged. Costs one read.
+     *
+     * @return versions by collection, or empty if the read failed
+     */
+    public Optional<Map<VersionedCollection, Long>> readVersions(String nurseryId) {
+        try {
+            DocumentSnapshot document = versionRef(nurseryId).get().get(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Map<VersionedCollection, Long> read = new EnumMap<>(VersionedCollection.class);
+            for (VersionedCollection collection : VersionedCollection.values()) {
+                Long value = document.exists() ? document.getLong(collection.getField()) : null;
+                read.put(collection, value != null ? value : 0);
+            }
+            return Optional.of(read);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not read collection versions for nursery {}", nurseryId, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@link #readVersions} for callers confirming several collections: the version
+     * document is read on first use, at most once.
+     */
+    public Supplier<Optional<Map<VersionedCollection, Long>>> versionsReader(String nurseryId) {
+        return new Supplier<>() {
+            private Optional<Map<VersionedCollection, Long>> read;
+
+            @Override
+            public synchronized Optional<Map<VersionedCollection, Long>> get() {
+                if (read == null) {
+                    read = readVersions(nurseryId);
+                }
+                return read;
+            }
+        };
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    private void apply(DocumentSnapshot document) {
+        String nurseryId = document.getId();
+        long[] current = new long[COLLECTION_COUNT];
+        if (document.exists()) {
+            for (VersionedCollection collection : VersionedCollection.values()) {
+                Long value = document.getLong(collection.getField());
+                current[collection.ordinal()] = value != null ? value : 0;
+            }
+        }
+        versions.put(nurseryId, current);
+
+        long[] expected = awaiting.get(nurseryId);
+        if (expected != null && covers(current, expected)) {
+            awaiting.remove(nurseryId, expected);
+        }
+    }
+
+    private void markAwaiting(String nurseryId, VersionedCollection... collections) {
+        long[] known = versions.getOrDefault(nurseryId, new long[COLLECTION_COUNT]);
+        long[] expected = new long[COLLECTION_COUNT];
+        for (VersionedCollection collection : collections) {
+            expected[collection.ordinal()] = known[collection.ordinal()] + 1;
+        }
+        awaiting.merge(nurseryId, expected, CollectionVersionRegistry::max);
+        generation.incrementAndGet();
+    }
+
+    private DocumentReference versionRef(String nurseryId) {
+        return firestore.collection(COLLECTION).document(nurseryId);
+    }
+
+    private static Map<String, Object> increments(VersionedCollection... collections) {
+        Map<String, Object> data = new HashMap<>();
+        for (VersionedCollection collection : collections) {
+            data.put(collection.getField(), FieldValue.increment(1));
+        }
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    private static boolean covers(long[] current, long[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (current[i] < expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] max(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = Math.max(a[i], b[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package com.nursery.common.version;
+
+import com.nursery.common.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds conditional GET responses from {@link CollectionVersionRegistry} versions.
+ *
+ * The ETag is {@code "<nurseryId>.<version>..."} over the collections a response depends on.
+ * An If-None-Match that matches the in-memory versions is confirmed against the version
+ * document, since the mirror can lag behind writes made through other instances, and then
+ * answered with 304: one small read instead of loading the content.
+ * When versions are not reliably known the response is sent in full and untagged.
+ */
+@Component
+public class ConditionalResponses {
+
+    private final CollectionVersionRegistry versionRegistry;
+    private final CacheControl cacheControl;
+
+    public ConditionalResponses(CollectionVersionRegistry versionRegistry,
+                                @Value("${http.cache.stale-while-revalidate-seconds:30}") long staleWhileRevalidateSeconds) {
+        this.versionRegistry = versionRegistry;
+        this.cacheControl = CacheControl.maxAge(Duration.ZERO)
+            .cachePrivate()
+            .staleWhileRevalidate(Duration.ofSeconds(staleWhileRevalidateSeconds));
+    }
+
+    /**
+     * Conditional response for a nursery-scoped list. The ETag is taken before loading,
+     * so a write racing with the load can only make the tag older than the body, never newer.
+     */
+    public <T> ResponseEntity<ApiResponse<T>> forNursery(WebRequest webRequest, String nurseryId,
+                                                         Supplier<T> loader, VersionedCollection... collections) {
+        Optional<String> etag = etag(nurseryId, collections);
+        if (etag.isPresent() && matches(webRequest, etag.get())) {
+            etag = confirmedEtag(nurseryId, collections);
+            if (etag.isPresent() && matches(webRequest, etag.get())) {
+                return notModified(etag.get());
+            }
+        }
+        return ok(etag, loader.get());
+    }
+
+    /**
+     * Conditional response for a single entity whose nursery is only known after loading.
+     * A revalidation carries the nursery in its ETag, which is enough to answer 304 up front;
+     * otherwise the entity is loaded and tagged unless versions moved during the load.
+     */
+    public <T> ResponseEntity<ApiResponse<T>> forEntity(WebRequest webRequest, Supplier<T> loader,
+                                                        Function<T, String> nurseryIdOf,
+                                                        VersionedCollection... collections) {
+        Optional<String> hintedNurseryId = nurseryIdFromIfNoneMatch(webRequest);
+        if (hintedNurseryId.isPresent()) {
+            Optional<String> etag = etag(hintedNurseryId.get(), collections);
+            if (etag.isPresent() && matches(webRequest, etag.get())) {
+                etag = confirmedEtag(hintedNurseryId.get(), collections);
+                if (etag.isPresent() && matches(webRequest, etag.get())) {
+                    return notModified(etag.get());
+                }
+            }
+        }
+
+        long generation = versionRegistry.generation();
+        T body = loader.get();
+        Optional<String> etag = etag(nurseryIdOf.apply(body), collections);
+        if (versionRegistry.generation() != generation) {
+            etag = Optional.empty();
+        }
+        return ok(etag, body);
+    }
+
+    private Optional<String> etag(String nurseryId, VersionedCollection... collections) {
+        return etag(nurseryId, collection -> versionRegistry.version(nurseryId, collection), collections);
+    }
+    
+    /**
+     * ETag from the version document itself, read in case this instance's mirror is behind.
+     */
+    private Optional<String> confirmedEtag(String nurseryId, VersionedCollection... collections) {
+        Optional<Map<VersionedCollection, Long>> versions = versionRegistry.readVersions(nurseryId);
+        if (versions.isEmpty()) {
+            return Optional.empty();
+        }
+        return etag(nurseryId, collection -> OptionalLong.of(versions.get().get(collection)), collections);
+    }
+    
+    private Optional<String> etag(String nurseryId, Function<VersionedCollection, OptionalLong> versions,
+                                  VersionedCollection... collections) {
+        if (nurseryId == null || nurseryId.indexOf('"') >= 0 || nurseryId.indexOf('.') >= 0) {
+            return Optional.empty();
+        }
+        StringBuilder etag = new StringBuilder("\"").append(nurseryId);
+        for (VersionedCollection collection : collections) {
+            OptionalLong version = versions.apply(collection);
+            if (version.isEmpty()) {
+                return Optional.empty();
+            }
+            etag.append('.').append(version.getAsLong());
+        }
+        return Optional.of(etag.append('"').toString());
+    }
+
+    private boolean matches(WebRequest webRequest, String etag) {
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Optional<String> nurseryIdFromIfNoneMatch(WebRequest webRequest) {
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null || ifNoneMatch.contains(",")) {
+            return Optional.empty();
+        }
+        String tag = ifNoneMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        int dot = tag.indexOf('.');
+        if (!tag.startsWith("\"") || dot <= 1) {
+            return Optional.empty();
+        }
+        return Optional.of(tag.substring(1, dot));
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .build();
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> ok(Optional<String> etag, T body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(cacheControl);
+        etag.ifPresent(builder::eTag);
+        return builder.body(ApiResponse.success(body));
+    }
+}
@@ -0,0 +1,24 @@
+package com.nursery.common.version;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-nursery collections whose changes are tracked by {@link CollectionVersionRegistry}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum VersionedCollection {
+    
+    BREEDS("breeds"),
+    SAPLINGS("saplings"),
+    INVENTORY("inventory"),
+    TRANSACTIONS("transactions"),
+    THEME("theme"),
+    PAYMENTS("payments");
+    
+    /**
+     * Counter field in the nursery's version document.
+     */
+    private final String field;
+}
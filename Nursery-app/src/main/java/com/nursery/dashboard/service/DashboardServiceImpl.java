@@ -1,11 +1,13 @@
 package com.nursery.dashboard.service;
 
+import com.google.cloud.Timestamp;
 import com.nursery.transaction.enumeration.TransactionType;
 import com.nursery.common.util.DateTimeUtil;
 import com.nursery.dashboard.dto.response.DashboardSummaryDTO;
 import com.nursery.transaction.dto.response.RecentTransactionDTO;
 import com.nursery.transaction.firestore.TransactionDocument;
 import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import com.nursery.transaction.tiering.TransactionHistoryReader;
 import com.nursery.sapling.firestore.SaplingDocument;
 import com.nursery.sapling.firestore.SaplingFirestoreRepository;
 import com.nursery.breed.firestore.BreedDocument;
@@ -27,6 +29,7 @@ import java.util.stream.Collectors;
 public class DashboardServiceImpl implements DashboardService {
     
     private final TransactionFirestoreRepository transactionRepository;
+    private final TransactionHistoryReader transactionHistory;
     private final SaplingFirestoreRepository saplingRepository;
     private final BreedFirestoreRepository breedRepository;
     private final InventoryFirestoreRepository inventoryRepository;
@@ -40,14 +43,17 @@ public class DashboardServiceImpl implements DashboardService {
     public DashboardSummaryDTO getSummary(String nurseryId, String period) {
         LocalDateTime endTime = DateTimeUtil.now();
         
-        // Get all transactions for nursery (for all-time calculation)
-        List<TransactionDocument> allTransactions = transactionRepository.findByNurseryIdAndNotDeleted(nurseryId);
-        
-        // Calculate sales for different time periods
-        Long salesLast48Hours = calculateSalesInPeriod(allTransactions, endTime.minusHours(48), endTime);
-        Long salesLastMonth = calculateSalesInPeriod(allTransactions, endTime.minusDays(30), endTime);
-        Long salesLastYear = calculateSalesInPeriod(allTransactions, endTime.minusDays(365), endTime);
-        Long salesAllTime = calculateSalesInPeriod(allTransactions, LocalDateTime.of(1970, 1, 1, 0, 0), endTime);
+        // Sales windows in one pass over the full history; aged months come from local segments
+        LocalDateTime[] windowStarts = {
+            endTime.minusHours(48), endTime.minusDays(30), endTime.minusDays(365), LocalDateTime.of(1970, 1, 1, 0, 0)
+        };
+        long[] sales = new long[windowStarts.length];
+        transactionHistory.forEachCreatedBetween(nurseryId, windowStarts[3], endTime.plusSeconds(1), Timestamp.now(),
+            transaction -> addSale(transaction, windowStarts, endTime, sales));
+        Long salesLast48Hours = sales[0];
+        Long salesLastMonth = sales[1];
+        Long salesLastYear = sales[2];
+        Long salesAllTime = sales[3];
         
         // Total sapling count (active saplings in nursery)
         List<SaplingDocument> saplings = saplingRepository.findByNurseryIdAndNotDeleted(nurseryId);
@@ -69,17 +75,18 @@ public class DashboardServiceImpl implements DashboardService {
             .build();
     }
     
-    private Long calculateSalesInPeriod(List<TransactionDocument> allTransactions, LocalDateTime startTime, LocalDateTime endTime) {
-        return allTransactions.stream()
-            .filter(t -> {
-                LocalDateTime createdAt = t.getCreatedAt();
-                return createdAt != null && 
-                       !createdAt.isBefore(startTime) && 
-                       !createdAt.isAfter(endTime) &&
-                       t.getType() == TransactionType.SELL;
-            })
-            .mapToLong(t -> Math.abs(t.getDelta() != null ? t.getDelta() : 0))
-            .sum();
+    private void addSale(TransactionDocument transaction, LocalDateTime[] windowStarts, LocalDateTime endTime, long[] sales) {
+        LocalDateTime createdAt = transaction.getCreatedAt();
+        if (Boolean.TRUE.equals(transaction.getIsDeleted()) || transaction.getType() != TransactionType.SELL
+                || createdAt == null || createdAt.isAfter(endTime)) {
+            return;
+        }
+        long quantity = Math.abs(transaction.getDelta() != null ? transaction.getDelta() : 0);
+        for (int i = 0; i < windowStarts.length; i++) {
+            if (!createdAt.isBefore(windowStarts[i])) {
+                sales[i] += quantity;
+            }
+        }
     }
     
     @Override
@@ -95,7 +102,8 @@ public class DashboardServiceImpl implements DashboardService {
             .distinct()
             .collect(Collectors.toMap(
                 breedId -> breedId,
-                breedId -> breedRepository.findById(breedId)
+                // Breeds deleted long ago may already be archived
+                breedId -> breedRepository.findByIdIncludingArchived(breedId)
                     .map(BreedDocument::getBreedName)
                     .orElse("Unknown")
             ));
@@ -0,0 +1,88 @@
+package com.nursery.export.controller;
+
+import com.nursery.common.exception.ValidationException;
+import com.nursery.export.service.ExportFormat;
+import com.nursery.export.service.ExportService;
+import com.nursery.nursery.service.NurseryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/nursery")
+@RequiredArgsConstructor
+public class ExportController {
+    
+    private final ExportService exportService;
+    private final NurseryService nurseryService;
+    
+    /**
+     * Transactions created between from and to (inclusive), as CSV or NDJSON.
+     * The body is streamed, gzip-compressed when the client accepts it.
+     */
+    @GetMapping("/{id}/export/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable("id") String id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export transactions for nurseryId={} from {} to {} as {}", id, from, to, format);
+        validate(id, from, to);
+        return stream("transactions", id, from, to, format, acceptEncoding,
+            out -> exportService.exportTransactions(id, from, to, format, out));
+    }
+    
+    /**
+     * Payments created between from and to (inclusive), as CSV or NDJSON.
+     * The body is streamed, gzip-compressed when the client accepts it.
+     */
+    @GetMapping("/{id}/export/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @PathVariable("id") String id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export payments for nurseryId={} from {} to {} as {}", id, from, to, format);
+        validate(id, from, to);
+        return stream("payments", id, from, to, format, acceptEncoding,
+            out -> exportService.exportPayments(id, from, to, format, out));
+    }
+    
+    private void validate(String nurseryId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+        nurseryService.validateExists(nurseryId);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> stream(String name, String nurseryId, LocalDate from, LocalDate to,
+                                                         ExportFormat format, String acceptEncoding,
+                                                         StreamingResponseBody body) {
+        String filename = String.format("%s-%s-%s-%s.%s", name, nurseryId, from, to, format.getFileExtension());
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(format.getMediaType())
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            return builder.body(body);
+        }
+        return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .body(out -> {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+                body.writeTo(gzip);
+                gzip.finish();
+            });
+    }
+}
@@ -0,0 +1,17 @@
+package com.nursery.export.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv"),
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson");
+    
+    private final MediaType mediaType;
+    
+    private final String fileExtension;
+}
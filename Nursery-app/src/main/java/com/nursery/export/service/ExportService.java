@@ -0,0 +1,10 @@
+package com.nursery.export.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportService {
+    void exportTransactions(String nurseryId, LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException;
+    void exportPayments(String nurseryId, LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException;
+}
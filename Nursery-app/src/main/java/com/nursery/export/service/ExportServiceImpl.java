@@ -0,0 +1,206 @@
+package com.nursery.export.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.cloud.Timestamp;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.common.firestore.archive.ArchivedRowMerger;
+import com.nursery.payment.dto.response.PaymentResponseDTO;
+import com.nursery.payment.firestore.PaymentDocument;
+import com.nursery.payment.firestore.PaymentFirestoreRepository;
+import com.nursery.payment.service.PaymentService;
+import com.nursery.transaction.dto.response.TransactionResponseDTO;
+import com.nursery.transaction.service.TransactionService;
+import com.nursery.transaction.tiering.TransactionHistoryReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams transaction and payment history as CSV or NDJSON.
+ *
+ * Rows are read page by page at one read time and written straight to the output,
+ * so memory stays flat regardless of how many rows a range holds. Transaction history
+ * older than the tiering horizon comes from local segments instead of Firestore. Deleted records
+ * are included with their flag set, so exported totals reconcile with compensations; those
+ * already moved to their archive collection are read from there and merged in.
+ */
+@Slf4j
+@Service
+public class ExportServiceImpl implements ExportService {
+    
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+    
+    private static final Map<String, Function<TransactionResponseDTO, Object>> TRANSACTION_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, Function<PaymentResponseDTO, Object>> PAYMENT_COLUMNS = new LinkedHashMap<>();
+    
+    static {
+        TRANSACTION_COLUMNS.put("id", TransactionResponseDTO::getId);
+        TRANSACTION_COLUMNS.put("createdAt", TransactionResponseDTO::getCreatedAt);
+        TRANSACTION_COLUMNS.put("breedId", TransactionResponseDTO::getBreedId);
+        TRANSACTION_COLUMNS.put("type", TransactionResponseDTO::getType);
+        TRANSACTION_COLUMNS.put("delta", TransactionResponseDTO::getDelta);
+        TRANSACTION_COLUMNS.put("reason", TransactionResponseDTO::getReason);
+        TRANSACTION_COLUMNS.put("userPhone", TransactionResponseDTO::getUserPhone);
+        TRANSACTION_COLUMNS.put("isUndo", TransactionResponseDTO::getIsUndo);
+        TRANSACTION_COLUMNS.put("reversedByTxnId", TransactionResponseDTO::getReversedByTxnId);
+        TRANSACTION_COLUMNS.put("isDeleted", TransactionResponseDTO::getIsDeleted);
+        
+        PAYMENT_COLUMNS.put("id", PaymentResponseDTO::getId);
+        PAYMENT_COLUMNS.put("createdAt", PaymentResponseDTO::getCreatedAt);
+        PAYMENT_COLUMNS.put("transactionId", PaymentResponseDTO::getTransactionId);
+        PAYMENT_COLUMNS.put("breedId", PaymentResponseDTO::getBreedId);
+        PAYMENT_COLUMNS.put("type", PaymentResponseDTO::getType);
+        PAYMENT_COLUMNS.put("amount", PaymentResponseDTO::getAmount);
+        PAYMENT_COLUMNS.put("description", PaymentResponseDTO::getDescription);
+        PAYMENT_COLUMNS.put("userPhone", PaymentResponseDTO::getUserPhone);
+        PAYMENT_COLUMNS.put("isDeleted", PaymentResponseDTO::getIsDeleted);
+    }
+    
+    private final TransactionHistoryReader transactionHistory;
+    private final PaymentFirestoreRepository paymentRepository;
+    private final TransactionService transactionService;
+    private final PaymentService paymentService;
+    private final ObjectWriter jsonWriter;
+    private final int pageSize;
+    private final long archiveRetentionDays;
+    
+    public ExportServiceImpl(TransactionHistoryReader transactionHistory,
+                             PaymentFirestoreRepository paymentRepository,
+                             TransactionService transactionService,
+                             PaymentService paymentService,
+                             ObjectMapper objectMapper,
+                             @Value("${export.page-size:500}") int pageSize,
+                             @Value("${archive.retention-days:180}") long archiveRetentionDays) {
+        this.transactionHistory = transactionHistory;
+        this.paymentRepository = paymentRepository;
+        this.transactionService = transactionService;
+        this.paymentService = paymentService;
+        this.jsonWriter = objectMapper.writer();
+        this.pageSize = pageSize;
+        this.archiveRetentionDays = archiveRetentionDays;
+    }
+    
+    @Override
+    public void exportTransactions(String nurseryId, LocalDate from, LocalDate to, ExportFormat format,
+                                   OutputStream out) throws IOException {
+        Timestamp readTime = Timestamp.now();
+        log.info("Exporting transactions for nurseryId={} from {} to {} as {} at {}", nurseryId, from, to, format, readTime);
+        export(format, out, TRANSACTION_COLUMNS, rows -> transactionHistory.forEachCreatedBetween(
+            nurseryId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), readTime,
+            transaction -> rows.accept(transactionService.toResponseDTO(transaction))));
+    }
+    
+    @Override
+    public void exportPayments(String nurseryId, LocalDate from, LocalDate to, ExportFormat format,
+                               OutputStream out) throws IOException {
+        Timestamp readTime = Timestamp.now();
+        log.info("Exporting payments for nurseryId={} from {} to {} as {} at {}", nurseryId, from, to, format, readTime);
+        export(format, out, PAYMENT_COLUMNS, rows -> forEachPayment(nurseryId, from.atStartOfDay(),
+            to.plusDays(1).atStartOfDay(), readTime, payment -> rows.accept(paymentService.toResponseDTO(payment))));
+    }
+    
+    /**
+     * Payments created in [from, to) in (createdAt, id) order, with those archived merged in.
+     * Only payments deleted, and so created, before the retention horizon can be archived.
+     */
+    private void forEachPayment(String nurseryId, LocalDateTime from, LocalDateTime to, Timestamp readTime,
+                                Consumer<PaymentDocument> action) {
+        LocalDateTime archivedTo = LocalDateTime.now().minusDays(archiveRetentionDays);
+        if (archivedTo.isAfter(to)) {
+            archivedTo = to;
+        }
+        List<PaymentDocument> archived = new ArrayList<>();
+        if (from.isBefore(archivedTo)) {
+            paymentRepository.forEachArchivedByNurseryIdCreatedBetween(nurseryId, timestamp(from), timestamp(archivedTo),
+                readTime, pageSize, archived::add);
+        }
+        ArchivedRowMerger<PaymentDocument> merged = new ArchivedRowMerger<>(archived, action);
+        paymentRepository.forEachByNurseryIdCreatedBetween(nurseryId, timestamp(from), timestamp(to), readTime, pageSize, merged);
+        merged.finish();
+    }
+    
+    private <R> void export(ExportFormat format, OutputStream out, Map<String, Function<R, Object>> columns,
+                            Consumer<Consumer<R>> scan) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        long[] rowCount = {0};
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(String.join(",", columns.keySet()));
+                writer.write("\r\n");
+            }
+            scan.accept(row -> {
+                try {
+                    if (format == ExportFormat.CSV) {
+                        writeCsvRow(writer, columns, row);
+                    } else {
+                        writer.write(jsonWriter.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    rowCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client disconnected mid-download
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Export finished: {} rows", rowCount[0]);
+    }
+    
+    private <R> void writeCsvRow(Writer writer, Map<String, Function<R, Object>> columns, R row) throws IOException {
+        boolean first = true;
+        for (Function<R, Object> column : columns.values()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write(csvValue(column.apply(row)));
+        }
+        writer.write("\r\n");
+    }
+    
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        // Keep spreadsheet apps from evaluating free-text cells as formulas
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+    
+    private Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.of(FirestoreConverter.toDate(dateTime));
+    }
+}
@@ -2,12 +2,11 @@ package com.nursery.firebase.service;
 
 import com.nursery.auth.firestore.UserDocument;
 import com.nursery.auth.firestore.UserFirestoreRepository;
+import com.nursery.auth.security.PasswordHasher;
 import com.nursery.nursery.firestore.NurseryDocument;
 import com.nursery.nursery.firestore.NurseryFirestoreRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -31,7 +30,7 @@ public class DefaultDataService {
 
     private final UserFirestoreRepository userRepository;
     private final NurseryFirestoreRepository nurseryRepository;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
 
     /**
      * Create default admin user if it doesn't exist
@@ -49,7 +48,7 @@ public class DefaultDataService {
                 // Create default admin user
                 adminUser = new UserDocument();
                 adminUser.setPhone(DEFAULT_ADMIN_PHONE);
-                adminUser.setPasswordHash(passwordEncoder.encode(DEFAULT_ADMIN_PASSWORD));
+                adminUser.setPasswordHash(passwordHasher.encode(DEFAULT_ADMIN_PASSWORD));
                 
                 String userId = userRepository.save(adminUser);
                 adminUser.setId(userId);
@@ -161,6 +160,16 @@ public class DefaultDataService {
             List.of("saplingId", "isDeleted")));
         indexes.add(new IndexRequirement("breeds", 
             List.of("nurseryId", "isDeleted")));
+        indexes.add(new IndexRequirement("breeds", 
+            List.of("nurseryId", "isDeleted", "updatedAt")));
+        indexes.add(new IndexRequirement("breeds", 
+            List.of("saplingId", "isDeleted", "updatedAt")));
+        
+        // Sapling and inventory indexes (paginated listing, newest first)
+        indexes.add(new IndexRequirement("saplings", 
+            List.of("nurseryId", "isDeleted", "updatedAt")));
+        indexes.add(new IndexRequirement("inventory", 
+            List.of("nurseryId", "updatedAt")));
         
         return indexes;
     }
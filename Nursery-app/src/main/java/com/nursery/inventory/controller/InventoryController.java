@@ -2,8 +2,13 @@ package com.nursery.inventory.controller;
 
 import com.nursery.common.dto.ApiResponse;
 import com.nursery.common.dto.PaginatedResponseDTO;
+import com.nursery.common.dto.SparseFieldset;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.version.ConditionalResponses;
+import com.nursery.common.version.VersionedCollection;
+import com.nursery.inventory.dto.response.InventoryAsOfResponseDTO;
 import com.nursery.inventory.dto.response.InventoryResponseDTO;
+import com.nursery.inventory.service.InventoryCheckpointService;
 import com.nursery.inventory.service.InventoryService;
 import com.nursery.transaction.dto.request.TransactionRequestDTO;
 import com.nursery.transaction.dto.response.TransactionResponseDTO;
@@ -11,10 +16,13 @@ import com.nursery.transaction.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -25,40 +33,64 @@ public class InventoryController {
     
     private final InventoryService inventoryService;
     private final TransactionService transactionService;
+    private final InventoryCheckpointService checkpointService;
+    private final ConditionalResponses conditionalResponses;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<?>> findAll(
+    public ResponseEntity<ApiResponse<Object>> findAll(
             @RequestParam(required = true, name = "nurseryId") String nurseryId,
             @RequestParam(required = false, name = "saplingId") String saplingId,
             @RequestParam(required = false, name = "search") String search,
             @RequestParam(required = false, name = "page") Integer page,
-            @RequestParam(required = false, name = "size") Integer size) {
+            @RequestParam(required = false, name = "size") Integer size,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(required = false, name = "fields") String fields,
+            WebRequest webRequest) {
         
-        log.debug("REST request to get inventory: nurseryId={}, saplingId={}, search='{}', page={}, size={}",
-                nurseryId, saplingId, search, page, size);
+        log.debug("REST request to get inventory: nurseryId={}, saplingId={}, search='{}', page={}, size={}, fields={}",
+                nurseryId, saplingId, search, page, size, fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, InventoryResponseDTO.class);
         
-        // If pagination parameters are provided, use paginated endpoint
-        if (page != null || size != null) {
-            int pageNumber = (page != null && page >= 0) ? page : 0;
-            int pageSize = (size != null && size > 0) ? size : 20;
-            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
-            PaginatedResponseDTO<InventoryResponseDTO> paginatedResult = inventoryService.findAllPaginated(nurseryId, saplingId, search, pageRequest);
-            log.debug("Returning paginated inventory result: totalElements={}, totalPages={}",
-                    paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
-            return ResponseEntity.ok(ApiResponse.success(paginatedResult));
-        }
-        
-        // Otherwise, return all results (backward compatibility)
-        List<InventoryResponseDTO> inventories = inventoryService.findAll(nurseryId, saplingId, search);
-        log.debug("Returning {} inventory records (non-paginated)", inventories.size());
-        return ResponseEntity.ok(ApiResponse.success(inventories));
+        // Sapling and search filters resolve through breeds, so breed edits can change the list too
+        return conditionalResponses.forNursery(webRequest, nurseryId, () -> {
+            // If pagination parameters are provided, use paginated endpoint
+            if (page != null || size != null) {
+                int pageNumber = (page != null && page >= 0) ? page : 0;
+                int pageSize = (size != null && size > 0) ? size : 20;
+                PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, cursor);
+                pageRequest.setFields(fieldset.documentFields());
+                PaginatedResponseDTO<InventoryResponseDTO> paginatedResult = inventoryService.findAllPaginated(nurseryId, saplingId, search, pageRequest);
+                log.debug("Returning paginated inventory result: totalElements={}, totalPages={}",
+                        paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
+                return fieldset.render(paginatedResult);
+            }
+            
+            // Otherwise, return all results (backward compatibility)
+            List<InventoryResponseDTO> inventories = inventoryService.findAll(nurseryId, saplingId, search);
+            log.debug("Returning {} inventory records (non-paginated)", inventories.size());
+            return fieldset.render(inventories);
+        }, VersionedCollection.INVENTORY, VersionedCollection.BREEDS, VersionedCollection.SAPLINGS);
     }
     
     @GetMapping("/breed/{breedId}")
-    public ResponseEntity<ApiResponse<InventoryResponseDTO>> findByBreedId(@PathVariable("breedId") String breedId) {
+    public ResponseEntity<ApiResponse<InventoryResponseDTO>> findByBreedId(@PathVariable("breedId") String breedId,
+                                                                           WebRequest webRequest) {
         log.debug("REST request to get inventory by breedId={}", breedId);
-        InventoryResponseDTO inventory = inventoryService.findByBreedId(breedId);
-        return ResponseEntity.ok(ApiResponse.success(inventory));
+        return conditionalResponses.forEntity(webRequest, () -> inventoryService.findByBreedId(breedId),
+            InventoryResponseDTO::getNurseryId, VersionedCollection.INVENTORY, VersionedCollection.BREEDS,
+            VersionedCollection.SAPLINGS);
+    }
+    
+    /**
+     * Stock of a breed just before the given instant, with later edits and deletions of
+     * earlier transactions applied.
+     */
+    @GetMapping("/breed/{breedId}/as-of")
+    public ResponseEntity<ApiResponse<InventoryAsOfResponseDTO>> findQuantityAsOf(
+            @PathVariable("breedId") String breedId,
+            @RequestParam(name = "at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        log.debug("REST request to get inventory of breedId={} as of {}", breedId, at);
+        return ResponseEntity.ok(ApiResponse.success(checkpointService.findQuantityAsOf(breedId, at)));
     }
     
     @PostMapping("/{breedId}/transaction")
@@ -0,0 +1,17 @@
+package com.nursery.inventory.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class InventoryAsOfResponseDTO {
+    private String nurseryId;
+    private String breedId;
+    private LocalDateTime asOf;
+    private Long quantity;
+    
+    // End of the checkpoint the quantity started from; null when summed from the first transaction
+    private LocalDateTime checkpointPeriodEnd;
+    private Integer transactionsApplied;
+}
@@ -0,0 +1,21 @@
+package com.nursery.inventory.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class InventoryDriftDTO {
+    private String breedId;
+    private String inventoryId;
+    private Long inventoryQuantity;
+    private Long expectedQuantity;
+    
+    // Checkpoint end the expected quantity was summed from; null for a full-history check
+    private LocalDateTime verifiedFrom;
+    
+    // Set by full checks when the latest checkpoint itself disagrees with the history
+    private LocalDateTime checkpointPeriodEnd;
+    private Long checkpointQuantity;
+    private Long checkpointExpectedQuantity;
+}
@@ -0,0 +1,16 @@
+package com.nursery.inventory.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class InventoryReconciliationReportDTO {
+    private String nurseryId;
+    private Boolean full;
+    private Integer checkedBreeds;
+    private Long transactionsRead;
+    private List<InventoryDriftDTO> drift;
+    private List<String> failedBreedIds;
+    private Long durationMillis;
+}
@@ -0,0 +1,25 @@
+package com.nursery.inventory.firestore;
+
+import com.nursery.common.firestore.BaseDocument;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a breed at the end of a month: the sum of the deltas of its non-deleted,
+ * non-compensation transactions created before periodEnd. One per breed and month with
+ * transactions, ID {@code <breedId>_<yyyy-MM>}.
+ */
+@Getter
+@Setter
+public class InventoryCheckpointDocument extends BaseDocument {
+    
+    private String nurseryId;
+    
+    private String breedId;
+    
+    private LocalDateTime periodEnd;
+    
+    private Long quantity;
+}
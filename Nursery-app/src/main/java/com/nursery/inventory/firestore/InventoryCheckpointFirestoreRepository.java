@@ -0,0 +1,95 @@
+package com.nursery.inventory.firestore;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.Transaction;
+import com.nursery.common.firestore.BaseFirestoreRepository;
+import com.nursery.common.firestore.FirestoreConverter;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class InventoryCheckpointFirestoreRepository extends BaseFirestoreRepository<InventoryCheckpointDocument> {
+    
+    private static final String PERIOD_END_FIELD = "periodEnd";
+    
+    public InventoryCheckpointFirestoreRepository(Firestore firestore) {
+        super(firestore);
+    }
+    
+    @Override
+    protected String getCollectionName() {
+        return "inventory_checkpoints";
+    }
+    
+    @Override
+    protected Class<InventoryCheckpointDocument> getDocumentClass() {
+        return InventoryCheckpointDocument.class;
+    }
+    
+    public static String checkpointId(String breedId, YearMonth month) {
+        return breedId + "_" + month;
+    }
+    
+    public Optional<InventoryCheckpointDocument> findLatestByBreedId(String breedId) {
+        return findFirst(buildQuery()
+            .whereEqualTo("breedId", breedId)
+            .orderBy(PERIOD_END_FIELD, Query.Direction.DESCENDING));
+    }
+    
+    public Optional<InventoryCheckpointDocument> findLatestByBreedId(String breedId, Transaction transaction) {
+        List<InventoryCheckpointDocument> latest = executeQuery(buildQuery()
+            .whereEqualTo("breedId", breedId)
+            .orderBy(PERIOD_END_FIELD, Query.Direction.DESCENDING)
+            .limit(1), transaction);
+        return latest.isEmpty() ? Optional.empty() : Optional.of(latest.get(0));
+    }
+    
+    /**
+     * Latest checkpoint ending at or before the given instant.
+     */
+    public Optional<InventoryCheckpointDocument> findLatestByBreedIdEndingBy(String breedId, LocalDateTime at,
+                                                                           Transaction transaction) {
+        List<InventoryCheckpointDocument> latest = executeQuery(buildQuery()
+            .whereEqualTo("breedId", breedId)
+            .whereLessThanOrEqualTo(PERIOD_END_FIELD, timestamp(at))
+            .orderBy(PERIOD_END_FIELD, Query.Direction.DESCENDING)
+            .limit(1), transaction);
+        return latest.isEmpty() ? Optional.empty() : Optional.of(latest.get(0));
+    }
+    
+    /**
+     * Checkpoints whose quantity includes a transaction created at createdAt.
+     */
+    public List<InventoryCheckpointDocument> findCoveringByBreedId(String breedId, LocalDateTime createdAt,
+                                                                   Transaction transaction) {
+        return executeQuery(buildQuery()
+            .whereEqualTo("breedId", breedId)
+            .whereGreaterThan(PERIOD_END_FIELD, timestamp(createdAt)), transaction);
+    }
+    
+    /**
+     * Shift checkpoint quantities in the caller's transaction, after a covered transaction
+     * changed its contribution to the ledger.
+     */
+    public void adjustQuantity(Transaction transaction, List<InventoryCheckpointDocument> checkpoints, long change) {
+        if (change == 0) {
+            return;
+        }
+        for (InventoryCheckpointDocument checkpoint : checkpoints) {
+            transaction.update(firestore.collection(getCollectionName()).document(checkpoint.getId()),
+                "quantity", FieldValue.increment(change),
+                "updatedAt", Timestamp.now());
+        }
+    }
+    
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.of(FirestoreConverter.toDate(dateTime));
+    }
+}
@@ -1,20 +1,18 @@
 package com.nursery.inventory.firestore;
 
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.cloud.firestore.QuerySnapshot;
 import com.nursery.common.firestore.BaseFirestoreRepository;
-import com.nursery.common.firestore.FirestoreConverter;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 
 @Repository
 public class InventoryFirestoreRepository extends BaseFirestoreRepository<InventoryDocument> {
@@ -40,14 +38,12 @@ public class InventoryFirestoreRepository extends BaseFirestoreRepository<Invent
     
     public Optional<InventoryDocument> findByBreedId(String breedId) {
         Query query = buildQuery().whereEqualTo("breedId", breedId);
-        List<InventoryDocument> results = executeQuery(query);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        return findFirst(query);
     }
     
     public boolean existsByBreedId(String breedId) {
         Query query = buildQuery().whereEqualTo("breedId", breedId);
-        List<InventoryDocument> results = executeQuery(query);
-        return !results.isEmpty();
+        return exists(query);
     }
     
     public List<InventoryDocument> findByBreedIds(String nurseryId, List<String> breedIds) {
@@ -74,36 +70,24 @@ public class InventoryFirestoreRepository extends BaseFirestoreRepository<Invent
     }
     
     public PageResult<InventoryDocument> findByNurseryIdPaginated(String nurseryId, PageRequest pageRequest) {
-        Query query = buildQuery()
-            .whereEqualTo("nurseryId", nurseryId)
-            .orderBy("updatedAt", Query.Direction.DESCENDING)
-            .limit(pageRequest.getEffectiveSize());
-        
-        if (pageRequest.getOffset() > 0) {
-            query = query.offset(pageRequest.getOffset());
-        }
-        
-        try {
-            ApiFuture<QuerySnapshot> future = query.get();
-            QuerySnapshot querySnapshot = future.get();
-            
-            List<InventoryDocument> documents = new ArrayList<>();
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
-            }
-            
-            // Get total count
-            Query countQuery = buildQuery().whereEqualTo("nurseryId", nurseryId);
-            List<InventoryDocument> allResults = executeQuery(countQuery);
-            long totalElements = allResults.size();
-            
-            return PageResult.of(documents, pageRequest, totalElements);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Query interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Failed to execute query", e);
-        }
+        Query query = buildQuery().whereEqualTo("nurseryId", nurseryId);
+        return executePagedQuery(query, "updatedAt", Query.Direction.DESCENDING, pageRequest);
+    }
+    
+    /**
+     * Page of the nursery's inventory, newest first, keeping only rows accepted by filter.
+     * The total is supplied by the caller since a count aggregation cannot apply the filter.
+     */
+    public PageResult<InventoryDocument> findByNurseryIdPaginated(String nurseryId, PageRequest pageRequest,
+                                                                  Predicate<InventoryDocument> filter,
+                                                                  LongSupplier totalElements) {
+        Query query = buildQuery().whereEqualTo("nurseryId", nurseryId);
+        // The filter is applied to every row read, so it may test fields the caller did not select
+        return executePagedQuery(query, "updatedAt", Query.Direction.DESCENDING,
+            pageRequest.alsoSelecting("nurseryId", "breedId"), filter, totalElements);
+    }
+    
+    public List<InventoryDocument> findByNurseryIdChangedAfter(String nurseryId, SyncCursor after, int limit) {
+        return findChangedAfter(buildQuery().whereEqualTo("nurseryId", nurseryId), after, limit);
     }
 }
-
@@ -0,0 +1,12 @@
+package com.nursery.inventory.service;
+
+import com.nursery.inventory.dto.response.InventoryAsOfResponseDTO;
+import com.nursery.inventory.dto.response.InventoryReconciliationReportDTO;
+
+import java.time.LocalDateTime;
+
+public interface InventoryCheckpointService {
+    InventoryAsOfResponseDTO findQuantityAsOf(String breedId, LocalDateTime at);
+    int checkpointNursery(String nurseryId);
+    InventoryReconciliationReportDTO reconcile(String nurseryId, boolean full);
+}
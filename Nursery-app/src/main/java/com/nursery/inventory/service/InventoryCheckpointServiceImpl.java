@@ -0,0 +1,379 @@
+package com.nursery.inventory.service;
+
+import com.google.cloud.firestore.Transaction;
+import com.nursery.breed.firestore.BreedDocument;
+import com.nursery.breed.firestore.BreedFirestoreRepository;
+import com.nursery.common.exception.EntityNotFoundException;
+import com.nursery.common.exception.ValidationException;
+import com.nursery.inventory.dto.response.InventoryAsOfResponseDTO;
+import com.nursery.inventory.dto.response.InventoryDriftDTO;
+import com.nursery.inventory.dto.response.InventoryReconciliationReportDTO;
+import com.nursery.inventory.firestore.InventoryCheckpointDocument;
+import com.nursery.inventory.firestore.InventoryCheckpointFirestoreRepository;
+import com.nursery.inventory.firestore.InventoryDocument;
+import com.nursery.inventory.firestore.InventoryFirestoreRepository;
+import com.nursery.nursery.firestore.NurseryDocument;
+import com.nursery.nursery.firestore.NurseryFirestoreRepository;
+import com.nursery.transaction.enumeration.TransactionType;
+import com.nursery.transaction.firestore.TransactionDocument;
+import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly inventory checkpoints, as-of stock queries and drift reconciliation.
+ *
+ * A breed's ledger is the sum of the deltas of its non-deleted, non-compensation
+ * transactions; edits and deletions correct it retroactively. A checkpoint holds that sum
+ * for every transaction created before its periodEnd, the high-water mark, and is kept
+ * in step by edits and deletions of the transactions it covers. Checkpoints exist only
+ * for months with transactions and are taken once a month is checkpoint.settle-seconds
+ * behind, so answering "what was the stock at T" reads one checkpoint and at most the
+ * transactions since it. Reconciliation compares each breed's inventory quantity with its
+ * latest checkpoint plus the later transactions, on a fork-join pool across breeds.
+ */
+@Slf4j
+@Service
+public class InventoryCheckpointServiceImpl implements InventoryCheckpointService {
+
+    private final InventoryCheckpointFirestoreRepository checkpointRepository;
+    private final InventoryFirestoreRepository inventoryRepository;
+    private final TransactionFirestoreRepository transactionRepository;
+    private final BreedFirestoreRepository breedRepository;
+    private final NurseryFirestoreRepository nurseryRepository;
+    private final Duration settle;
+    private final int maxMonthsPerBreed;
+    private final int pageSize;
+
+    private final ForkJoinPool reconcilePool;
+    private final ScheduledExecutorService scheduler;
+    private final Counter createdCheckpoints;
+    private final Counter checkedBreeds;
+    private final Counter driftedBreeds;
+    private final Counter failedBreeds;
+    private final Timer runTimer;
+
+    public InventoryCheckpointServiceImpl(InventoryCheckpointFirestoreRepository checkpointRepository,
+                                          InventoryFirestoreRepository inventoryRepository,
+                                          TransactionFirestoreRepository transactionRepository,
+                                          BreedFirestoreRepository breedRepository,
+                                          NurseryFirestoreRepository nurseryRepository,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${checkpoint.enabled:true}") boolean enabled,
+                                          @Value("${checkpoint.interval-minutes:360}") long intervalMinutes,
+                                          @Value("${checkpoint.settle-seconds:300}") long settleSeconds,
+                                          @Value("${checkpoint.max-months-per-breed:24}") int maxMonthsPerBreed,
+                                          @Value("${checkpoint.page-size:500}") int pageSize,
+                                          @Value("${checkpoint.reconcile-parallelism:8}") int reconcileParallelism) {
+        this.checkpointRepository = checkpointRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionRepository = transactionRepository;
+        this.breedRepository = breedRepository;
+        this.nurseryRepository = nurseryRepository;
+        this.settle = Duration.ofSeconds(settleSeconds);
+        this.maxMonthsPerBreed = maxMonthsPerBreed;
+        this.pageSize = pageSize;
+
+        this.createdCheckpoints = Counter.builder("inventory.checkpoints.created")
+            .description("Inventory checkpoints written")
+            .register(meterRegistry);
+        this.checkedBreeds = Counter.builder("inventory.reconciliation.breeds.checked")
+            .description("Breeds whose inventory quantity was verified against the ledger")
+            .register(meterRegistry);
+        this.driftedBreeds = Counter.builder("inventory.reconciliation.breeds.drifted")
+            .description("Breeds whose inventory quantity disagreed with the ledger")
+            .register(meterRegistry);
+        this.failedBreeds = Counter.builder("inventory.reconciliation.breeds.failed")
+            .description("Breeds that could not be verified")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("inventory.checkpoint.run")
+            .description("Duration of one checkpoint and reconciliation run over all nurseries")
+            .register(meterRegistry);
+
+        // Breed checks block on Firestore, so the pool is sized for I/O rather than cores
+        this.reconcilePool = new ForkJoinPool(reconcileParallelism, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("inventory-reconcile-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(() -> runTimer.record(this::run), 5, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        reconcilePool.shutdownNow();
+    }
+
+    @Override
+    public InventoryAsOfResponseDTO findQuantityAsOf(String breedId, LocalDateTime at) {
+        if (at == null) {
+            throw new ValidationException("at is required");
+        }
+        BreedDocument breed = breedRepository.findById(breedId)
+            .orElseThrow(() -> new EntityNotFoundException("Breed", breedId));
+
+        return checkpointRepository.runInReadOnlyTransaction(txn -> {
+            Optional<InventoryCheckpointDocument> checkpoint =
+                checkpointRepository.findLatestByBreedIdEndingBy(breedId, at, txn);
+            LocalDateTime from = checkpoint.map(InventoryCheckpointDocument::getPeriodEnd).orElse(null);
+            long[] quantity = {checkpoint.map(InventoryCheckpointDocument::getQuantity).orElse(0L)};
+            int[] applied = {0};
+            transactionRepository.forEachByBreedIdCreatedBetween(breedId, from, at, txn, pageSize, transaction -> {
+                if (counts(transaction)) {
+                    quantity[0] += transaction.getDelta();
+                    applied[0]++;
+                }
+            });
+
+            InventoryAsOfResponseDTO dto = new InventoryAsOfResponseDTO();
+            dto.setNurseryId(breed.getNurseryId());
+            dto.setBreedId(breedId);
+            dto.setAsOf(at);
+            dto.setQuantity(quantity[0]);
+            dto.setCheckpointPeriodEnd(from);
+            dto.setTransactionsApplied(applied[0]);
+            return dto;
+        });
+    }
+
+    @Override
+    public int checkpointNursery(String nurseryId) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(settle);
+        int created = 0;
+        for (InventoryDocument inventory : inventoryRepository.findByNurseryId(nurseryId)) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            created += checkpointBreed(nurseryId, inventory.getBreedId(), cutoff);
+        }
+        return created;
+    }
+
+    /**
+     * Checkpoint a breed's months that ended before the cutoff, oldest first. Months without
+     * transactions are skipped by jumping straight to the next transaction.
+     */
+    private int checkpointBreed(String nurseryId, String breedId, LocalDateTime cutoff) {
+        LocalDateTime from = checkpointRepository.findLatestByBreedId(breedId)
+            .map(InventoryCheckpointDocument::getPeriodEnd)
+            .orElse(null);
+        int created = 0;
+        while (created < maxMonthsPerBreed) {
+            Optional<TransactionDocument> next = transactionRepository.findFirstByBreedIdCreatedFrom(breedId, from);
+            if (next.isEmpty() || next.get().getCreatedAt() == null) {
+                break;
+            }
+            YearMonth month = YearMonth.from(next.get().getCreatedAt());
+            LocalDateTime periodEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (periodEnd.isAfter(cutoff)) {
+                break;
+            }
+            // Read-write, so an edit of a covered transaction either lands first or adjusts this checkpoint
+            boolean written = checkpointRepository.runInTransaction(txn ->
+                writeCheckpoint(txn, nurseryId, breedId, month, periodEnd));
+            if (!written) {
+                break;
+            }
+            created++;
+            createdCheckpoints.increment();
+            from = periodEnd;
+        }
+        return created;
+    }
+
+    private boolean writeCheckpoint(Transaction txn, String nurseryId, String breedId, YearMonth month,
+                                    LocalDateTime periodEnd) {
+        Optional<InventoryCheckpointDocument> previous = checkpointRepository.findLatestByBreedId(breedId, txn);
+        if (previous.isPresent() && !previous.get().getPeriodEnd().isBefore(periodEnd)) {
+            // Another instance got there first
+            return false;
+        }
+        long[] quantity = {previous.map(InventoryCheckpointDocument::getQuantity).orElse(0L)};
+        transactionRepository.forEachByBreedIdCreatedBetween(breedId,
+            previous.map(InventoryCheckpointDocument::getPeriodEnd).orElse(null), periodEnd, txn, pageSize,
+            transaction -> {
+                if (counts(transaction)) {
+                    quantity[0] += transaction.getDelta();
+                }
+            });
+
+        InventoryCheckpointDocument checkpoint = new InventoryCheckpointDocument();
+        checkpoint.setId(InventoryCheckpointFirestoreRepository.checkpointId(breedId, month));
+        checkpoint.setNurseryId(nurseryId);
+        checkpoint.setBreedId(breedId);
+        checkpoint.setPeriodEnd(periodEnd);
+        checkpoint.setQuantity(quantity[0]);
+        checkpoint.setCreatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint, txn);
+        return true;
+    }
+
+    @Override
+    public InventoryReconciliationReportDTO reconcile(String nurseryId, boolean full) {
+        long start = System.currentTimeMillis();
+        List<InventoryDocument> inventories = inventoryRepository.findByNurseryId(nurseryId);
+
+        // A parallel stream started from inside the pool runs on the pool's workers
+        List<BreedCheck> checks = reconcilePool.submit(() -> inventories.parallelStream()
+            .map(inventory -> check(inventory, full))
+            .collect(Collectors.toList())).join();
+
+        List<InventoryDriftDTO> drift = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        long transactionsRead = 0;
+        for (BreedCheck check : checks) {
+            if (check.drift != null) {
+                drift.add(check.drift);
+            }
+            if (check.failed) {
+                failed.add(check.breedId);
+            }
+            transactionsRead += check.transactionsRead;
+        }
+
+        InventoryReconciliationReportDTO report = new InventoryReconciliationReportDTO();
+        report.setNurseryId(nurseryId);
+        report.setFull(full);
+        report.setCheckedBreeds(checks.size() - failed.size());
+        report.setTransactionsRead(transactionsRead);
+        report.setDrift(drift);
+        report.setFailedBreedIds(failed);
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        if (!drift.isEmpty()) {
+            log.warn("Inventory drift in nurseryId={}: {} of {} breeds disagree with their ledger",
+                nurseryId, drift.size(), checks.size());
+        }
+        return report;
+    }
+
+    /**
+     * Verify one breed against its ledger, from its latest checkpoint or, when full, from its
+     * first transaction, which also verifies the checkpoint. All reads share one snapshot.
+     */
+    private BreedCheck check(InventoryDocument inventory, boolean full) {
+        String breedId = inventory.getBreedId();
+        try {
+            BreedCheck result = inventoryRepository.runInReadOnlyTransaction(txn -> {
+                BreedCheck check = new BreedCheck(breedId);
+                InventoryDocument current = inventoryRepository.findById(inventory.getId(), txn)
+                    .orElseThrow(() -> new EntityNotFoundException("Inventory", inventory.getId()));
+                Optional<InventoryCheckpointDocument> checkpoint = checkpointRepository.findLatestByBreedId(breedId, txn);
+                LocalDateTime checkpointEnd = checkpoint.map(InventoryCheckpointDocument::getPeriodEnd).orElse(null);
+
+                LocalDateTime from = full ? null : checkpointEnd;
+                long[] expected = {full ? 0L : checkpoint.map(InventoryCheckpointDocument::getQuantity).orElse(0L)};
+                long[] atCheckpoint = {0L};
+                transactionRepository.forEachByBreedIdCreatedBetween(breedId, from, null, txn, pageSize, transaction -> {
+                    check.transactionsRead++;
+                    if (counts(transaction)) {
+                        expected[0] += transaction.getDelta();
+                        if (checkpointEnd != null && transaction.getCreatedAt().isBefore(checkpointEnd)) {
+                            atCheckpoint[0] += transaction.getDelta();
+                        }
+                    }
+                });
+
+                long inventoryQuantity = current.getQuantity() != null ? current.getQuantity() : 0;
+                boolean checkpointDrift = full && checkpoint.isPresent()
+                    && atCheckpoint[0] != checkpoint.get().getQuantity();
+                if (inventoryQuantity != expected[0] || checkpointDrift) {
+                    InventoryDriftDTO drift = new InventoryDriftDTO();
+                    drift.setBreedId(breedId);
+                    drift.setInventoryId(current.getId());
+                    drift.setInventoryQuantity(inventoryQuantity);
+                    drift.setExpectedQuantity(expected[0]);
+                    drift.setVerifiedFrom(from);
+                    if (checkpointDrift) {
+                        drift.setCheckpointPeriodEnd(checkpointEnd);
+                        drift.setCheckpointQuantity(checkpoint.get().getQuantity());
+                        drift.setCheckpointExpectedQuantity(atCheckpoint[0]);
+                    }
+                    check.drift = drift;
+                }
+                return check;
+            });
+            checkedBreeds.increment();
+            if (result.drift != null) {
+                driftedBreeds.increment();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            failedBreeds.increment();
+            log.warn("Could not reconcile inventory of breedId={}", breedId, e);
+            BreedCheck check = new BreedCheck(breedId);
+            check.failed = true;
+            return check;
+        }
+    }
+
+    void run() {
+        List<NurseryDocument> nurseries;
+        try {
+            nurseries = nurseryRepository.findNonDeleted();
+        } catch (RuntimeException e) {
+            log.error("Inventory checkpoint run could not list nurseries", e);
+            return;
+        }
+        for (NurseryDocument nursery : nurseries) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                int created = checkpointNursery(nursery.getId());
+                InventoryReconciliationReportDTO report = reconcile(nursery.getId(), false);
+                log.info("Inventory checkpoint run for nurseryId={}: {} checkpoints written, {} breeds checked, "
+                        + "{} drifted, {} failed", nursery.getId(), created, report.getCheckedBreeds(),
+                    report.getDrift().size(), report.getFailedBreedIds().size());
+            } catch (RuntimeException e) {
+                log.error("Inventory checkpoint run failed for nurseryId={}", nursery.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Whether a transaction contributes to the ledger. Compensations only offset deleted
+     * transactions, which are already left out.
+     */
+    private static boolean counts(TransactionDocument transaction) {
+        return !Boolean.TRUE.equals(transaction.getIsDeleted())
+            && transaction.getType() != TransactionType.COMPENSATION
+            && transaction.getDelta() != null;
+    }
+
+    private static final class BreedCheck {
+        private final String breedId;
+        private long transactionsRead;
+        private InventoryDriftDTO drift;
+        private boolean failed;
+
+        private BreedCheck(String breedId) {
+            this.breedId = breedId;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.nursery.inventory.service;
 
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.inventory.dto.response.InventoryResponseDTO;
 import com.nursery.inventory.firestore.InventoryDocument;
 
@@ -13,11 +15,13 @@ public interface InventoryService {
     List<InventoryResponseDTO> findAll(String nurseryId, String saplingId, String search);
     PaginatedResponseDTO<InventoryResponseDTO> findAllPaginated(String nurseryId, String saplingId, String search, PageRequest pageRequest);
     InventoryResponseDTO findByBreedId(String breedId);
+    SyncPage<InventoryResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit);
     InventoryDocument getOrCreate(String breedId);
     InventoryDocument getOrCreate(String breedId, Transaction transaction);
     InventoryDocument findByBreedIdEntity(String breedId);
     InventoryDocument findByBreedIdEntity(String breedId, Transaction transaction);
     void save(InventoryDocument inventory);
     void save(InventoryDocument inventory, Transaction transaction);
+    InventoryResponseDTO toResponseDTO(InventoryDocument inventory);
 }
 
@@ -5,8 +5,15 @@ import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.exception.EntityNotFoundException;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.common.search.NGramIndex;
+import com.nursery.common.util.TopN;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.stock.service.StockService;
 import com.nursery.breed.firestore.BreedFirestoreRepository;
+import com.nursery.breed.search.BreedSearchIndex;
 import com.nursery.inventory.dto.response.InventoryResponseDTO;
 import com.nursery.inventory.firestore.InventoryDocument;
 import com.nursery.inventory.firestore.InventoryFirestoreRepository;
@@ -14,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,28 +31,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InventoryServiceImpl implements InventoryService {
     
+    private static final Comparator<InventoryDocument> BY_UPDATED_AT_DESC =
+        Comparator.comparing(InventoryDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+    
     private final InventoryFirestoreRepository repository;
     private final StockService stockService;
     private final BreedFirestoreRepository breedRepository;
+    private final BreedSearchIndex breedSearchIndex;
+    private final CollectionVersionRegistry versionRegistry;
     
     @Override
     public List<InventoryResponseDTO> findAll(String nurseryId, String saplingId, String search) {
         // Get breeds first (optimized approach - similar to BreedService)
-        List<com.nursery.breed.firestore.BreedDocument> breeds;
-        
-        if (saplingId != null && !saplingId.isEmpty()) {
-            breeds = breedRepository.findBySaplingIdAndNotDeleted(saplingId);
-        } else {
-            breeds = breedRepository.findByNurseryIdAndNotDeleted(nurseryId);
-        }
-        
-        // Filter by search term if provided (search by breed name)
-        if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            breeds = breeds.stream()
-                .filter(b -> b.getBreedName().toLowerCase().contains(searchLower))
-                .collect(Collectors.toList());
-        }
+        List<com.nursery.breed.firestore.BreedDocument> breeds = findBreeds(nurseryId, saplingId, search);
         
         // Get breed IDs from filtered breeds
         List<String> breedIds = breeds.stream()
@@ -77,72 +76,31 @@ public class InventoryServiceImpl implements InventoryService {
     
     @Override
     public PaginatedResponseDTO<InventoryResponseDTO> findAllPaginated(String nurseryId, String saplingId, String search, PageRequest pageRequest) {
-        // Get breeds first (optimized approach - similar to BreedService)
-        List<com.nursery.breed.firestore.BreedDocument> breeds;
-        
-        if (saplingId != null && !saplingId.isEmpty()) {
-            breeds = breedRepository.findBySaplingIdAndNotDeleted(saplingId);
-        } else {
-            breeds = breedRepository.findByNurseryIdAndNotDeleted(nurseryId);
+        boolean bySapling = saplingId != null && !saplingId.isEmpty();
+        boolean bySearch = search != null && !search.trim().isEmpty();
+        
+        if (!bySapling && !bySearch) {
+            // Unfiltered: sort and page in Firestore, dropping rows of deleted breeds.
+            // Every live breed has exactly one inventory row, so the breed count is the total.
+            NGramIndex<com.nursery.breed.firestore.BreedDocument> liveBreeds = breedSearchIndex.forNursery(nurseryId);
+            return toPaginatedResponse(repository.findByNurseryIdPaginated(nurseryId, pageRequest,
+                inventory -> liveBreeds.get(inventory.getBreedId()).isPresent(),
+                liveBreeds::size));
         }
         
-        // Filter by search term if provided (search by breed name)
-        if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            breeds = breeds.stream()
-                .filter(b -> b.getBreedName().toLowerCase().contains(searchLower))
-                .collect(Collectors.toList());
-        }
-        
-        // Get breed IDs from filtered breeds
-        List<String> breedIds = breeds.stream()
+        List<String> breedIds = findBreeds(nurseryId, saplingId, search).stream()
             .map(com.nursery.breed.firestore.BreedDocument::getId)
             .collect(Collectors.toList());
         
-        // Get inventory by breed IDs (or by nurseryId if no breeds)
-        List<InventoryDocument> allInventories;
-        if (!breedIds.isEmpty()) {
-            allInventories = repository.findByBreedIds(nurseryId, breedIds);
-        } else {
-            // No breeds match, return empty list
-            allInventories = new java.util.ArrayList<>();
-        }
-        
-        // Sort by updatedAt descending (similar to BreedService)
-        allInventories = allInventories.stream()
-            .sorted((a, b) -> {
-                if (a.getUpdatedAt() == null && b.getUpdatedAt() == null) return 0;
-                if (a.getUpdatedAt() == null) return 1;
-                if (b.getUpdatedAt() == null) return -1;
-                return b.getUpdatedAt().compareTo(a.getUpdatedAt());
-            })
-            .collect(Collectors.toList());
-        
-        // Apply pagination
-        long totalElements = allInventories.size();
-        int start = pageRequest.getOffset();
-        int end = Math.min(start + pageRequest.getEffectiveSize(), allInventories.size());
-        List<InventoryDocument> paginatedInventories = start < allInventories.size() 
-            ? allInventories.subList(start, end)
-            : new java.util.ArrayList<>();
+        List<InventoryDocument> matched = breedIds.isEmpty()
+            ? new java.util.ArrayList<>()
+            : repository.findByBreedIds(nurseryId, breedIds);
         
-        List<InventoryResponseDTO> content = paginatedInventories.stream()
-            .map(this::toResponseDTO)
-            .collect(Collectors.toList());
+        // Keep only the rows up to the end of the requested page instead of sorting them all
+        List<InventoryDocument> paginatedInventories = TopN.page(matched, BY_UPDATED_AT_DESC,
+            pageRequest.getOffset(), pageRequest.getEffectiveSize());
         
-        PageResult<InventoryDocument> pageResult = PageResult.of(paginatedInventories, pageRequest, totalElements);
-        
-        return PaginatedResponseDTO.<InventoryResponseDTO>builder()
-            .content(content)
-            .totalElements(pageResult.getTotalElements())
-            .totalPages(pageResult.getTotalPages())
-            .size(pageResult.getSize())
-            .number(pageResult.getPage())
-            .hasNext(pageResult.isHasNext())
-            .hasPrevious(pageResult.hasPrevious())
-            .isFirst(pageResult.isFirst())
-            .isLast(pageResult.isLast())
-            .build();
+        return toPaginatedResponse(PageResult.of(paginatedInventories, pageRequest, matched.size()));
     }
     
     @Override
@@ -151,6 +109,13 @@ public class InventoryServiceImpl implements InventoryService {
         return toResponseDTO(inventory);
     }
     
+    @Override
+    public SyncPage<InventoryResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit) {
+        // Inventory is never deleted, so there are no tombstones
+        return SyncPage.of(repository.findByNurseryIdChangedAfter(nurseryId, after, limit), limit, after,
+            inventory -> false, this::toResponseDTO);
+    }
+    
     @Override
     public InventoryDocument getOrCreate(String breedId) {
         return repository.findByBreedId(breedId)
@@ -198,6 +163,7 @@ public class InventoryServiceImpl implements InventoryService {
             
             // Save within transaction (write phase)
             repository.save(inventory, transaction);
+            versionRegistry.bump(transaction, inventory.getNurseryId(), VersionedCollection.INVENTORY);
             return inventory;
         }
     }
@@ -236,9 +202,47 @@ public class InventoryServiceImpl implements InventoryService {
             return;
         }
         repository.save(inventory, transaction);
+        versionRegistry.bump(transaction, inventory.getNurseryId(), VersionedCollection.INVENTORY);
+    }
+    
+    private List<com.nursery.breed.firestore.BreedDocument> findBreeds(String nurseryId, String saplingId, String search) {
+        boolean bySapling = saplingId != null && !saplingId.isEmpty();
+        
+        // Search by breed name is answered from the in-memory index
+        if (search != null && !search.trim().isEmpty()) {
+            return breedSearchIndex.forNursery(nurseryId)
+                .search(search, bySapling ? b -> saplingId.equals(b.getSaplingId()) : null,
+                    Integer.MAX_VALUE, BreedSearchIndex.FIELD_BREED_NAME)
+                .getItems();
+        }
+        
+        if (bySapling) {
+            return breedRepository.findBySaplingIdAndNotDeleted(saplingId);
+        }
+        return breedRepository.findByNurseryIdAndNotDeleted(nurseryId);
     }
     
-    private InventoryResponseDTO toResponseDTO(InventoryDocument doc) {
+    private PaginatedResponseDTO<InventoryResponseDTO> toPaginatedResponse(PageResult<InventoryDocument> pageResult) {
+        List<InventoryResponseDTO> content = pageResult.getContent().stream()
+            .map(this::toResponseDTO)
+            .collect(Collectors.toList());
+        
+        return PaginatedResponseDTO.<InventoryResponseDTO>builder()
+            .content(content)
+            .totalElements(pageResult.getTotalElements())
+            .totalPages(pageResult.getTotalPages())
+            .size(pageResult.getSize())
+            .number(pageResult.getPage())
+            .hasNext(pageResult.isHasNext())
+            .hasPrevious(pageResult.hasPrevious())
+            .isFirst(pageResult.isFirst())
+            .isLast(pageResult.isLast())
+            .nextCursor(pageResult.getNextCursor())
+            .build();
+    }
+    
+    @Override
+    public InventoryResponseDTO toResponseDTO(InventoryDocument doc) {
         InventoryResponseDTO dto = new InventoryResponseDTO();
         dto.setId(doc.getId());
         dto.setNurseryId(doc.getNurseryId());
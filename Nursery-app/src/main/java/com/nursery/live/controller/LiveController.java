@@ -0,0 +1,31 @@
+package com.nursery.live.controller;
+
+import com.nursery.live.hub.LiveEventHub;
+import com.nursery.nursery.service.NurseryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Slf4j
+@RestController
+@RequestMapping("/nursery")
+@RequiredArgsConstructor
+public class LiveController {
+    
+    private final LiveEventHub liveEventHub;
+    private final NurseryService nurseryService;
+    
+    /**
+     * Server-sent events with inventory and transaction changes of a nursery.
+     * Events: "ready" once connected, then "inventory" and "transaction" with the changed record;
+     * "resync" means changes were lost and the client should reload before reconnecting.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") String id) {
+        log.debug("REST request to stream live events for nurseryId={}", id);
+        nurseryService.validateExists(id);
+        return liveEventHub.subscribe(id);
+    }
+}
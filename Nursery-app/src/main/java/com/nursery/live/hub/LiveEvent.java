@@ -0,0 +1,38 @@
+package com.nursery.live.hub;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One server-sent event. Events with the same key replace each other while queued,
+ * so a slow client receives the latest state of a record rather than every step.
+ */
+@Value
+class LiveEvent {
+    
+    static final String TYPE_READY = "ready";
+    static final String TYPE_RESYNC = "resync";
+    static final String TYPE_HEARTBEAT = "heartbeat";
+    
+    String type;
+    
+    String key;
+    
+    String id;
+    
+    Object data;
+    
+    /**
+     * Commit time of the change in Firestore, used to measure fan-out lag; null for control events.
+     */
+    Instant committedAt;
+    
+    static LiveEvent control(String type) {
+        return new LiveEvent(type, type, null, null, null);
+    }
+    
+    boolean isHeartbeat() {
+        return TYPE_HEARTBEAT.equals(type);
+    }
+}
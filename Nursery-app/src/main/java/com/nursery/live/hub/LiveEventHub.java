@@ -0,0 +1,250 @@
+package com.nursery.live.hub;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.nursery.common.exception.ServiceUnavailableException;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.inventory.firestore.InventoryDocument;
+import com.nursery.inventory.service.InventoryService;
+import com.nursery.transaction.firestore.TransactionDocument;
+import com.nursery.transaction.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes inventory and transaction changes of a nursery to connected clients over SSE.
+ *
+ * All clients of a nursery share one pair of Firestore snapshot listeners, opened with the
+ * first client and removed with the last. The listeners only match documents updated since
+ * they were opened, so the initial snapshot is empty and Firestore reads grow with the
+ * number of changes, not with the number of viewers. Each change is mapped once and queued
+ * to every client's bounded buffer (see {@link LiveSubscriber}).
+ */
+@Slf4j
+@Component
+public class LiveEventHub {
+
+    private static final String INVENTORY_COLLECTION = "inventory";
+    private static final String TRANSACTIONS_COLLECTION = "transactions";
+    private static final String INVENTORY_EVENT = "inventory";
+    private static final String TRANSACTION_EVENT = "transaction";
+
+    private final Firestore firestore;
+    private final InventoryService inventoryService;
+    private final TransactionService transactionService;
+    private final int bufferCapacity;
+    private final int maxConnections;
+    private final long timeoutMillis;
+
+    private final Map<String, NurseryChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeats;
+
+    private final Timer fanOutLag;
+    private final Counter coalesced;
+    private final Counter droppedClients;
+    private final Counter listenerErrors;
+
+    public LiveEventHub(Firestore firestore,
+                        InventoryService inventoryService,
+                        TransactionService transactionService,
+                        MeterRegistry meterRegistry,
+                        @Value("${live.buffer-capacity:256}") int bufferCapacity,
+                        @Value("${live.max-connections:1000}") int maxConnections,
+                        @Value("${live.timeout-minutes:30}") long timeoutMinutes,
+                        @Value("${live.heartbeat-seconds:20}") long heartbeatSeconds,
+                        @Value("${live.dispatch-threads:4}") int dispatchThreads) {
+        this.firestore = firestore;
+        this.inventoryService = inventoryService;
+        this.transactionService = transactionService;
+        this.bufferCapacity = bufferCapacity;
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = Duration.ofMinutes(timeoutMinutes).toMillis();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxConnections),
+            r -> {
+                Thread t = new Thread(r, "live-dispatch-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        this.heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("live.connections", connections, AtomicInteger::get)
+            .description("Connected live event clients")
+            .register(meterRegistry);
+        Gauge.builder("live.channels", channels, Map::size)
+            .description("Nurseries with open snapshot listeners")
+            .register(meterRegistry);
+        this.fanOutLag = Timer.builder("live.fanout.lag")
+            .description("Time from Firestore commit to delivery to a live client")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("live.events.coalesced")
+            .description("Queued live events replaced by a newer change of the same record")
+            .register(meterRegistry);
+        this.droppedClients = Counter.builder("live.clients.dropped")
+            .description("Live clients disconnected because their buffer overflowed")
+            .register(meterRegistry);
+        this.listenerErrors = Counter.builder("live.listener.errors")
+            .description("Snapshot listeners that failed and were closed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Connect a client to a nursery's live feed.
+     * The first event is "ready"; clients should load current state after receiving it.
+     */
+    public SseEmitter subscribe(String nurseryId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ServiceUnavailableException("Too many live connections. Please try again shortly.", 5);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, bufferCapacity, dispatcher, fanOutLag, coalesced);
+        NurseryChannel channel;
+        try {
+            synchronized (channels) {
+                channel = channels.computeIfAbsent(nurseryId, this::openChannel);
+                channel.add(subscriber);
+            }
+        } catch (RuntimeException e) {
+            connections.decrementAndGet();
+            throw e;
+        }
+
+        Runnable unsubscribe = () -> unsubscribe(channel, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        subscriber.offer(LiveEvent.control(LiveEvent.TYPE_READY));
+        log.debug("Live client connected to nurseryId={} ({} connections)", nurseryId, connections.get());
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        synchronized (channels) {
+            channels.values().forEach(NurseryChannel::close);
+            channels.clear();
+        }
+        dispatcher.shutdown();
+    }
+
+    private void unsubscribe(NurseryChannel channel, LiveSubscriber subscriber) {
+        subscriber.close();
+        synchronized (channels) {
+            // Completion, timeout and error callbacks may all fire for one client
+            if (!channel.remove(subscriber)) {
+                return;
+            }
+            connections.decrementAndGet();
+            if (channel.isEmpty()) {
+                channels.remove(channel.getNurseryId(), channel);
+                channel.close();
+                log.debug("Closed live listeners for nurseryId={}", channel.getNurseryId());
+            }
+        }
+    }
+
+    private NurseryChannel openChannel(String nurseryId) {
+        NurseryChannel channel = new NurseryChannel(nurseryId);
+        Timestamp openedAt = Timestamp.now();
+        channel.addRegistration(listen(channel, INVENTORY_COLLECTION, INVENTORY_EVENT, openedAt,
+            document -> inventoryService.toResponseDTO(FirestoreConverter.toDocument(document, InventoryDocument.class))));
+        channel.addRegistration(listen(channel, TRANSACTIONS_COLLECTION, TRANSACTION_EVENT, openedAt,
+            document -> transactionService.toResponseDTO(FirestoreConverter.toDocument(document, TransactionDocument.class))));
+        log.debug("Opened live listeners for nurseryId={}", nurseryId);
+        return channel;
+    }
+
+    private ListenerRegistration listen(NurseryChannel channel, String collection, String eventType,
+                                        Timestamp since, Function<QueryDocumentSnapshot, Object> mapper) {
+        return firestore.collection(collection)
+            .whereEqualTo("nurseryId", channel.getNurseryId())
+            .whereGreaterThanOrEqualTo("updatedAt", since)
+            .addSnapshotListener((snapshots, error) -> {
+                if (error != null) {
+                    log.warn("Live {} listener failed for nurseryId={}", collection, channel.getNurseryId(), error);
+                    listenerErrors.increment();
+                    failChannel(channel);
+                    return;
+                }
+                for (DocumentChange change : snapshots.getDocumentChanges()) {
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        continue;
+                    }
+                    QueryDocumentSnapshot document = change.getDocument();
+                    Instant committedAt = document.getUpdateTime() != null
+                        ? document.getUpdateTime().toDate().toInstant()
+                        : null;
+                    broadcast(channel, new LiveEvent(eventType, eventType + ":" + document.getId(),
+                        document.getId(), mapper.apply(document), committedAt));
+                }
+            });
+    }
+
+    private void broadcast(NurseryChannel channel, LiveEvent event) {
+        for (LiveSubscriber subscriber : channel.getSubscribers()) {
+            if (subscriber.offer(event)) {
+                droppedClients.increment();
+                log.info("Dropping slow live client of nurseryId={}: buffer of {} events overflowed",
+                    channel.getNurseryId(), bufferCapacity);
+            }
+        }
+    }
+
+    /**
+     * A failed listener is not restarted in place; clients are told to resync and reconnect,
+     * which opens a fresh channel.
+     */
+    private void failChannel(NurseryChannel channel) {
+        synchronized (channels) {
+            channels.remove(channel.getNurseryId(), channel);
+        }
+        channel.close();
+        channel.getSubscribers().forEach(LiveSubscriber::terminate);
+    }
+
+    private void sendHeartbeats() {
+        List<NurseryChannel> open = new ArrayList<>(channels.values());
+        LiveEvent heartbeat = LiveEvent.control(LiveEvent.TYPE_HEARTBEAT);
+        for (NurseryChannel channel : open) {
+            channel.getSubscribers().forEach(subscriber -> subscriber.offer(heartbeat));
+        }
+    }
+}
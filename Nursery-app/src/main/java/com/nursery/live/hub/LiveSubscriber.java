@@ -0,0 +1,167 @@
+package com.nursery.live.hub;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connected client with a bounded, coalescing buffer.
+ *
+ * Listener threads only enqueue; sending happens on the dispatch executor with at most one
+ * drain per client at a time, so a slow connection never holds up the snapshot listener
+ * or other clients. A client whose buffer overflows is sent a resync event and disconnected.
+ */
+@Slf4j
+class LiveSubscriber {
+    
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Executor dispatcher;
+    private final Timer fanOutLag;
+    private final Counter coalesced;
+    
+    private final LinkedHashMap<String, LiveEvent> pending = new LinkedHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile boolean terminating;
+    
+    LiveSubscriber(SseEmitter emitter, int capacity, Executor dispatcher, Timer fanOutLag, Counter coalesced) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.dispatcher = dispatcher;
+        this.fanOutLag = fanOutLag;
+        this.coalesced = coalesced;
+    }
+    
+    /**
+     * Queue an event for this client.
+     *
+     * @return true if this event overflowed the buffer, so the client is now being dropped
+     */
+    boolean offer(LiveEvent event) {
+        boolean overflowed = false;
+        synchronized (pending) {
+            if (closed || terminating) {
+                return false;
+            }
+            // Re-inserting moves the key to the end, keeping delivery in change order
+            if (pending.remove(event.getKey()) != null) {
+                coalesced.increment();
+            }
+            pending.put(event.getKey(), event);
+            if (pending.size() > capacity) {
+                terminateLocked();
+                overflowed = true;
+            }
+        }
+        scheduleDrain();
+        return overflowed;
+    }
+    
+    /**
+     * Drop anything queued, tell the client to resynchronize, and disconnect it.
+     */
+    void terminate() {
+        synchronized (pending) {
+            if (closed || terminating) {
+                return;
+            }
+            terminateLocked();
+        }
+        scheduleDrain();
+    }
+    
+    void close() {
+        closed = true;
+    }
+    
+    private void terminateLocked() {
+        terminating = true;
+        pending.clear();
+        pending.put(LiveEvent.TYPE_RESYNC, LiveEvent.control(LiveEvent.TYPE_RESYNC));
+    }
+    
+    private void scheduleDrain() {
+        if (closed || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.warn("Live dispatch rejected; disconnecting client");
+            emitter.complete();
+        }
+    }
+    
+    private void drain() {
+        try {
+            List<LiveEvent> batch;
+            while (!closed && !(batch = takePending()).isEmpty()) {
+                for (LiveEvent event : batch) {
+                    send(event);
+                }
+            }
+            if (terminating && !closed) {
+                closed = true;
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter's completion callback unsubscribes it
+            log.debug("Live client disconnected: {}", e.getMessage());
+            closed = true;
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        
+        // An event may have been queued after the last take but before the flag was cleared
+        boolean more;
+        synchronized (pending) {
+            more = !pending.isEmpty();
+        }
+        if (more) {
+            scheduleDrain();
+        }
+    }
+    
+    private List<LiveEvent> takePending() {
+        synchronized (pending) {
+            List<LiveEvent> batch = new ArrayList<>(pending.values());
+            pending.clear();
+            return batch;
+        }
+    }
+    
+    private void send(LiveEvent event) throws IOException {
+        if (event.isHeartbeat()) {
+            emitter.send(SseEmitter.event().comment("keepalive"));
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.getType());
+        if (event.getId() != null) {
+            builder.id(event.getId());
+        }
+        builder.data(event.getData() != null ? event.getData() : "{}", MediaType.APPLICATION_JSON);
+        emitter.send(builder);
+        
+        if (event.getCommittedAt() != null) {
+            Duration lag = Duration.between(event.getCommittedAt(), Instant.now());
+            if (!lag.isNegative()) {
+                fanOutLag.record(lag);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.nursery.live.hub;
+
+import com.google.cloud.firestore.ListenerRegistration;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Snapshot listeners of one nursery and the clients they fan out to.
+ */
+class NurseryChannel {
+    
+    private final String nurseryId;
+    private final Set<LiveSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final List<ListenerRegistration> registrations = new CopyOnWriteArrayList<>();
+    
+    NurseryChannel(String nurseryId) {
+        this.nurseryId = nurseryId;
+    }
+    
+    String getNurseryId() {
+        return nurseryId;
+    }
+    
+    void addRegistration(ListenerRegistration registration) {
+        registrations.add(registration);
+    }
+    
+    void add(LiveSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+    
+    boolean remove(LiveSubscriber subscriber) {
+        return subscribers.remove(subscriber);
+    }
+    
+    boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+    
+    Set<LiveSubscriber> getSubscribers() {
+        return subscribers;
+    }
+    
+    void close() {
+        registrations.forEach(ListenerRegistration::remove);
+        registrations.clear();
+    }
+}
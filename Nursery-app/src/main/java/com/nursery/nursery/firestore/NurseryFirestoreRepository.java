@@ -28,11 +28,5 @@ public class NurseryFirestoreRepository extends BaseFirestoreRepository<NurseryD
         Query query = buildQuery().whereEqualTo("isDeleted", false);
         return executeQuery(query);
     }
-    
-    public boolean existsByIdAndNotDeleted(String id) {
-        Query query = buildQuery().whereEqualTo("id", id).whereEqualTo("isDeleted", false);
-        List<NurseryDocument> results = executeQuery(query);
-        return !results.isEmpty();
-    }
 }
 
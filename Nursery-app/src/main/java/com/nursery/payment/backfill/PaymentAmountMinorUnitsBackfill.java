@@ -0,0 +1,46 @@
+package com.nursery.payment.backfill;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.nursery.common.firestore.MoneyCodec;
+import com.nursery.common.firestore.migration.Backfill;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Rewrites payment amounts stored as doubles in the {@link MoneyCodec} encoding, rounded to
+ * minor units, so server-side sums of amount.minor cover every payment. Encoded amounts
+ * written at another scale before the encoding was fixed to minor units are rescaled too,
+ * since their minor would be summed as cents.
+ */
+@Component
+public class PaymentAmountMinorUnitsBackfill implements Backfill {
+    
+    @Override
+    public String getId() {
+        // v2 also rescales encoded amounts, so it runs again where the first version completed
+        return "payment-amount-minor-units-v2";
+    }
+    
+    @Override
+    public String getCollection() {
+        return "payments";
+    }
+    
+    @Override
+    public Map<String, Object> transform(DocumentSnapshot document) {
+        Object amount = document.get("amount");
+        if (amount instanceof Map) {
+            Object scale = ((Map<?, ?>) amount).get(MoneyCodec.SCALE);
+            if (!(scale instanceof Number) || ((Number) scale).intValue() == MoneyCodec.DEFAULT_SCALE) {
+                return Map.of();
+            }
+        } else if (!(amount instanceof Number)) {
+            return Map.of();
+        }
+        BigDecimal exact = MoneyCodec.decode(amount).setScale(MoneyCodec.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        return Map.of("amount", MoneyCodec.encode(exact));
+    }
+}
@@ -0,0 +1,60 @@
+package com.nursery.payment.backfill;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.nursery.common.firestore.migration.Backfill;
+import com.nursery.common.version.VersionedCollection;
+import com.nursery.payment.firestore.PaymentFirestoreRepository;
+import com.nursery.payment.firestore.PaymentTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sets paidAmountMinor and paymentCount on every transaction from its non-deleted payments,
+ * with one sum/count aggregation per transaction. Run once after the totals started being
+ * maintained on payment writes; a payment written mid-run changes the transaction, so the
+ * executor's update-time precondition makes it recompute that page. Transactions whose
+ * totals change also get a new updatedAt, and their nursery's transactions version is bumped
+ * in the same batch, so delta sync, conditional GETs and tiering pick them up; the timestamp
+ * is the only part of the transform that differs when a page is retried.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionPaymentTotalsBackfill implements Backfill {
+    
+    private final PaymentFirestoreRepository paymentRepository;
+    
+    @Override
+    public String getId() {
+        return "transaction-payment-totals";
+    }
+    
+    @Override
+    public String getCollection() {
+        return "transactions";
+    }
+    
+    @Override
+    public Set<VersionedCollection> getVersionedCollections() {
+        return Set.of(VersionedCollection.TRANSACTIONS);
+    }
+    
+    @Override
+    public Map<String, Object> transform(DocumentSnapshot document) {
+        PaymentTotals totals = paymentRepository.sumByTransactionIdAndNotDeleted(document.getId());
+        Long paidAmountMinor = document.getLong("paidAmountMinor");
+        Long paymentCount = document.getLong("paymentCount");
+        if (paidAmountMinor != null && paidAmountMinor == totals.getAmountMinor()
+                && paymentCount != null && paymentCount == totals.getCount()) {
+            return Map.of();
+        }
+        // Delta-sync clients hold these transactions without totals; moving updatedAt resends them
+        return Map.of(
+            "paidAmountMinor", totals.getAmountMinor(),
+            "paymentCount", totals.getCount(),
+            "updatedAt", Timestamp.now());
+    }
+}
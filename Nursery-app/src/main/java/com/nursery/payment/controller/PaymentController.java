@@ -1,17 +1,25 @@
 package com.nursery.payment.controller;
 
 import com.nursery.common.dto.ApiResponse;
+import com.nursery.common.dto.SparseFieldset;
+import com.nursery.payment.dto.request.PaymentBatchRequestDTO;
 import com.nursery.payment.dto.request.PaymentRequestDTO;
+import com.nursery.payment.dto.response.PaymentCollectionSummaryDTO;
 import com.nursery.payment.dto.response.PaymentResponseDTO;
+import com.nursery.payment.dto.response.PaymentTransactionSummaryDTO;
 import com.nursery.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for managing payments.
@@ -44,6 +52,22 @@ public class PaymentController {
             .body(ApiResponse.success("Payment created successfully", payment));
     }
     
+    /**
+     * Records several payments, possibly for different transactions, atomically.
+     * 
+     * @param request the payments to record
+     * @return the created payment response DTOs, in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<PaymentResponseDTO>>> createPayments(
+            @Valid @RequestBody PaymentBatchRequestDTO request) {
+        log.debug("REST request to create {} payments", request.getPayments().size());
+        List<PaymentResponseDTO> payments = paymentService.createPayments(request.getPayments());
+        log.info("Created {} payments", payments.size());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Payments created successfully", payments));
+    }
+    
     /**
      * Updates an existing payment.
      * 
@@ -65,17 +89,71 @@ public class PaymentController {
      * Retrieves all payments associated with a specific transaction.
      * 
      * @param transactionId the ID of the transaction
+     * @param fields the response fields to return, comma separated; all when omitted
      * @return list of payment response DTOs
      */
     @GetMapping("/transaction/{transactionId}")
-    public ResponseEntity<ApiResponse<List<PaymentResponseDTO>>> getPaymentsByTransaction(
-            @PathVariable("transactionId") String transactionId) {
-        log.debug("REST request to get payments for transactionId={}", transactionId);
-        List<PaymentResponseDTO> payments = paymentService.findByTransactionId(transactionId);
+    public ResponseEntity<ApiResponse<List<Object>>> getPaymentsByTransaction(
+            @PathVariable("transactionId") String transactionId,
+            @RequestParam(required = false, name = "fields") String fields) {
+        log.debug("REST request to get payments for transactionId={}, fields={}", transactionId, fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, PaymentResponseDTO.class);
+        List<PaymentResponseDTO> payments = paymentService.findByTransactionId(transactionId, fieldset.documentFields());
         log.debug("Found {} payments for transactionId={}", payments.size(), transactionId);
+        return ResponseEntity.ok(ApiResponse.success(fieldset.render(payments)));
+    }
+    
+    /**
+     * Retrieves the payments of several transactions at once, grouped by transaction.
+     * Transactions that do not exist or are deleted are left out.
+     * 
+     * @param transactionIds the IDs of the transactions, comma separated
+     * @param fields the response fields to return, comma separated; all when omitted
+     * @return payment response DTOs keyed by transaction ID
+     */
+    @GetMapping("/by-transactions")
+    public ResponseEntity<ApiResponse<Map<String, List<Object>>>> getPaymentsByTransactions(
+            @RequestParam(name = "transactionIds") List<String> transactionIds,
+            @RequestParam(required = false, name = "fields") String fields) {
+        log.debug("REST request to get payments for {} transactions, fields={}", transactionIds.size(), fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, PaymentResponseDTO.class);
+        Map<String, List<Object>> payments = new LinkedHashMap<>();
+        paymentService.findByTransactionIds(transactionIds, fieldset.documentFields())
+            .forEach((transactionId, forTransaction) -> payments.put(transactionId, fieldset.render(forTransaction)));
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
     
+    /**
+     * Retrieves the paid amount and payment count of a transaction.
+     * 
+     * @param transactionId the ID of the transaction
+     * @return the transaction's payment totals
+     */
+    @GetMapping("/transaction/{transactionId}/summary")
+    public ResponseEntity<ApiResponse<PaymentTransactionSummaryDTO>> getTransactionSummary(
+            @PathVariable("transactionId") String transactionId) {
+        log.debug("REST request to get payment totals for transactionId={}", transactionId);
+        return ResponseEntity.ok(ApiResponse.success(paymentService.getTransactionSummary(transactionId)));
+    }
+    
+    /**
+     * Retrieves what a nursery collected and spent per payment type over a date range,
+     * with a breakdown by day. Defaults to the current month up to today.
+     * 
+     * @param nurseryId the ID of the nursery
+     * @param from first day of the range, inclusive
+     * @param to last day of the range, inclusive
+     * @return totals for the range and for each day with payments
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<PaymentCollectionSummaryDTO>> getCollectionSummary(
+            @RequestParam(name = "nurseryId") String nurseryId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get payment totals for nurseryId={} from {} to {}", nurseryId, from, to);
+        return ResponseEntity.ok(ApiResponse.success(paymentService.getCollectionSummary(nurseryId, from, to)));
+    }
+    
     /**
      * Retrieves a payment by its ID.
      * 
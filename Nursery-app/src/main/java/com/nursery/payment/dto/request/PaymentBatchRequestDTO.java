@@ -0,0 +1,16 @@
+package com.nursery.payment.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PaymentBatchRequestDTO {
+    
+    @NotEmpty(message = "At least one payment is required")
+    @Size(max = 100, message = "Cannot record more than 100 payments at once")
+    private List<@Valid PaymentRequestDTO> payments;
+}
@@ -0,0 +1,21 @@
+package com.nursery.payment.dto.response;
+
+import com.nursery.payment.enumeration.PaymentType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class PaymentCollectionSummaryDTO {
+    private String nurseryId;
+    private LocalDate from;
+    private LocalDate to;
+    private Map<PaymentType, BigDecimal> amounts;
+    private Map<PaymentType, Long> counts;
+    
+    // Only days with payments
+    private List<PaymentDailyTotalDTO> days;
+}
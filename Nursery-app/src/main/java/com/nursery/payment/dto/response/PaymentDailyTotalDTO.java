@@ -0,0 +1,15 @@
+package com.nursery.payment.dto.response;
+
+import com.nursery.payment.enumeration.PaymentType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+public class PaymentDailyTotalDTO {
+    private LocalDate date;
+    private Map<PaymentType, BigDecimal> amounts;
+    private Map<PaymentType, Long> counts;
+}
@@ -0,0 +1,13 @@
+package com.nursery.payment.dto.response;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class PaymentTransactionSummaryDTO {
+    private String transactionId;
+    private String nurseryId;
+    private BigDecimal paidAmount;
+    private Long paymentCount;
+}
@@ -0,0 +1,26 @@
+package com.nursery.payment.firestore;
+
+import com.nursery.common.firestore.BaseDocument;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Non-deleted payments of a nursery created on one day, by payment type.
+ * ID {@code <nurseryId>_<yyyy-MM-dd>}; amounts are in minor units.
+ */
+@Getter
+@Setter
+public class PaymentDailyTotalDocument extends BaseDocument {
+    
+    private String nurseryId;
+    
+    // Start of the day
+    private LocalDateTime date;
+    
+    private Map<String, Long> amounts;
+    
+    private Map<String, Long> counts;
+}
@@ -0,0 +1,107 @@
+package com.nursery.payment.firestore;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+import com.nursery.common.firestore.BaseFirestoreRepository;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.payment.enumeration.PaymentType;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily per-nursery payment totals, maintained by {@code PaymentServiceImpl} in the same
+ * Firestore transaction as the payments themselves.
+ */
+@Repository
+public class PaymentDailyTotalFirestoreRepository extends BaseFirestoreRepository<PaymentDailyTotalDocument> {
+    
+    public PaymentDailyTotalFirestoreRepository(Firestore firestore) {
+        super(firestore);
+    }
+    
+    @Override
+    protected String getCollectionName() {
+        return "payment_daily_totals";
+    }
+    
+    @Override
+    protected Class<PaymentDailyTotalDocument> getDocumentClass() {
+        return PaymentDailyTotalDocument.class;
+    }
+    
+    public static String dailyTotalId(String nurseryId, LocalDate day) {
+        return nurseryId + "_" + day;
+    }
+    
+    /**
+     * Days of a nursery in [from, to), in date order. Days without payments have no document.
+     */
+    public List<PaymentDailyTotalDocument> findByNurseryIdBetween(String nurseryId, LocalDate from, LocalDate to) {
+        return executeQuery(buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereGreaterThanOrEqualTo("date", timestamp(from))
+            .whereLessThan("date", timestamp(to))
+            .orderBy("date", Query.Direction.ASCENDING));
+    }
+    
+    /**
+     * Add to a day's totals in the caller's transaction, creating the day if needed.
+     */
+    public void increment(Transaction transaction, String nurseryId, LocalDate day,
+                          Map<PaymentType, PaymentTotals> changes) {
+        Map<String, Object> amounts = new HashMap<>();
+        Map<String, Object> counts = new HashMap<>();
+        changes.forEach((type, change) -> {
+            amounts.put(type.name(), FieldValue.increment(change.getAmountMinor()));
+            counts.put(type.name(), FieldValue.increment(change.getCount()));
+        });
+        transaction.set(reference(nurseryId, day), dayFields(nurseryId, day, amounts, counts), SetOptions.merge());
+    }
+    
+    /**
+     * Overwrite a day's totals in the caller's transaction.
+     */
+    public void replace(Transaction transaction, String nurseryId, LocalDate day, Map<PaymentType, PaymentTotals> totals) {
+        Map<String, Object> amounts = new HashMap<>();
+        Map<String, Object> counts = new HashMap<>();
+        totals.forEach((type, total) -> {
+            amounts.put(type.name(), total.getAmountMinor());
+            counts.put(type.name(), total.getCount());
+        });
+        Map<String, Object> fields = dayFields(nurseryId, day, amounts, counts);
+        fields.put("createdAt", Timestamp.now());
+        transaction.set(reference(nurseryId, day), fields);
+    }
+    
+    public void delete(Transaction transaction, String nurseryId, LocalDate day) {
+        transaction.delete(reference(nurseryId, day));
+    }
+    
+    private DocumentReference reference(String nurseryId, LocalDate day) {
+        return firestore.collection(getCollectionName()).document(dailyTotalId(nurseryId, day));
+    }
+    
+    private static Map<String, Object> dayFields(String nurseryId, LocalDate day,
+                                                 Map<String, Object> amounts, Map<String, Object> counts) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("nurseryId", nurseryId);
+        fields.put("date", timestamp(day));
+        fields.put("amounts", amounts);
+        fields.put("counts", counts);
+        fields.put("updatedAt", Timestamp.now());
+        return fields;
+    }
+    
+    private static Timestamp timestamp(LocalDate day) {
+        return Timestamp.of(FirestoreConverter.toDate(day.atStartOfDay()));
+    }
+}
@@ -1,19 +1,32 @@
 package com.nursery.payment.firestore;
 
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.AggregateField;
+import com.google.cloud.firestore.AggregateQuerySnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Transaction;
 import com.nursery.common.firestore.BaseFirestoreRepository;
 import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.common.firestore.MoneyCodec;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.query.QueryOptions;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.payment.enumeration.PaymentType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -24,6 +37,11 @@ import java.util.concurrent.ExecutionException;
 @Repository
 public class PaymentFirestoreRepository extends BaseFirestoreRepository<PaymentDocument> {
     
+    private static final AggregateField AMOUNT_SUM = AggregateField.sum(MoneyCodec.minorField("amount"));
+    
+    // Payments written before amounts were stored in minor units, until payment-amount-minor-units-v2 has run
+    private static final AggregateField LEGACY_AMOUNT_SUM = AggregateField.sum("amount");
+    
     public PaymentFirestoreRepository(Firestore firestore) {
         super(firestore);
     }
@@ -59,15 +77,48 @@ public class PaymentFirestoreRepository extends BaseFirestoreRepository<PaymentD
      * @return list of non-deleted payment documents
      */
     public List<PaymentDocument> findByTransactionIdAndNotDeleted(String transactionId) {
+        return findByTransactionIdAndNotDeleted(transactionId, null);
+    }
+    
+    /**
+     * Finds all non-deleted payments for a given transaction ID, reading only some fields.
+     * 
+     * @param transactionId the transaction ID
+     * @param fields the document fields to read, or null for whole documents
+     * @return list of non-deleted payment documents
+     */
+    public List<PaymentDocument> findByTransactionIdAndNotDeleted(String transactionId, Set<String> fields) {
         log.debug("Finding non-deleted payments by transactionId={}", transactionId);
         Query query = buildQuery()
             .whereEqualTo("transactionId", transactionId)
             .whereEqualTo("isDeleted", false);
-        List<PaymentDocument> results = executeQuery(query);
+        List<PaymentDocument> results = executeQuery(query, QueryOptions.selecting(fields));
         log.debug("Found {} non-deleted payments for transactionId={}", results.size(), transactionId);
         return results;
     }
     
+    /**
+     * Finds all non-deleted payments of several transactions, with the in filter chunked
+     * and the chunks queried in parallel.
+     * 
+     * @param transactionIds the transaction IDs
+     * @param fields the document fields to read besides transactionId, or null for whole documents
+     * @return non-deleted payment documents of those transactions, in no particular order
+     */
+    public List<PaymentDocument> findByTransactionIdsAndNotDeleted(Collection<String> transactionIds, Set<String> fields) {
+        log.debug("Finding non-deleted payments for {} transactions", transactionIds.size());
+        Set<String> selected = null;
+        if (fields != null) {
+            // Callers group the payments by transaction
+            selected = new LinkedHashSet<>(fields);
+            selected.add("transactionId");
+        }
+        List<PaymentDocument> results = findWhereIn(buildQuery().whereEqualTo("isDeleted", false),
+            "transactionId", transactionIds, QueryOptions.selecting(selected));
+        log.debug("Found {} non-deleted payments for {} transactions", results.size(), transactionIds.size());
+        return results;
+    }
+    
     /**
      * Finds paginated non-deleted payments for a given nursery ID, ordered by creation date descending.
      * 
@@ -173,5 +224,115 @@ public class PaymentFirestoreRepository extends BaseFirestoreRepository<PaymentD
             throw new RuntimeException("Failed to execute query for payments", e);
         }
     }
+    
+    /**
+     * Finds payments of a nursery changed after the cursor, including soft-deleted ones, for delta sync.
+     * 
+     * @param nurseryId the nursery ID
+     * @param after the position the client has already synced up to
+     * @param limit the maximum number of changes to return
+     * @return up to limit + 1 payment documents in (updatedAt, id) order
+     */
+    public List<PaymentDocument> findByNurseryIdChangedAfter(String nurseryId, SyncCursor after, int limit) {
+        return findChangedAfter(buildQuery().whereEqualTo("nurseryId", nurseryId), after, limit);
+    }
+    
+    /**
+     * Visits every payment of a nursery created in [from, to), including deleted ones,
+     * as of a fixed read time, without loading them all into memory.
+     * 
+     * @param nurseryId the nursery ID
+     * @param from start of the creation range, inclusive
+     * @param to end of the creation range, exclusive
+     * @param readTime the snapshot time every page is read at
+     * @param pageSize documents read per page
+     * @param action called for each payment in creation order
+     */
+    public void forEachByNurseryIdCreatedBetween(String nurseryId, Timestamp from, Timestamp to,
+                                                 Timestamp readTime, int pageSize, Consumer<PaymentDocument> action) {
+        Query query = buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereGreaterThanOrEqualTo("createdAt", from)
+            .whereLessThan("createdAt", to);
+        forEachAtReadTime(query, "createdAt", readTime, pageSize, action);
+    }
+    
+    /**
+     * Visits every archived payment of a nursery created in [from, to) as of a fixed read time.
+     * 
+     * @param nurseryId the nursery ID
+     * @param from start of the creation range, inclusive
+     * @param to end of the creation range, exclusive
+     * @param readTime the snapshot time every page is read at
+     * @param pageSize documents read per page
+     * @param action called for each payment in creation order
+     */
+    public void forEachArchivedByNurseryIdCreatedBetween(String nurseryId, Timestamp from, Timestamp to,
+                                                         Timestamp readTime, int pageSize, Consumer<PaymentDocument> action) {
+        Query query = buildArchiveQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereGreaterThanOrEqualTo("createdAt", from)
+            .whereLessThan("createdAt", to);
+        forEachAtReadTime(query, "createdAt", readTime, pageSize, action);
+    }
+    
+    /**
+     * Sums and counts the non-deleted payments of a transaction with a server-side aggregation.
+     * 
+     * @param transactionId the transaction ID
+     * @return paid amount and payment count
+     */
+    public PaymentTotals sumByTransactionIdAndNotDeleted(String transactionId) {
+        Query query = buildQuery()
+            .whereEqualTo("transactionId", transactionId)
+            .whereEqualTo("isDeleted", false);
+        return toTotals(aggregate(query, AMOUNT_SUM, LEGACY_AMOUNT_SUM, AggregateField.count()));
+    }
+    
+    /**
+     * Sums and counts the non-deleted payments of a transaction with a server-side aggregation
+     * read in the caller's transaction.
+     * 
+     * @param transaction the transaction to read in
+     * @param transactionId the transaction ID
+     * @return paid amount and payment count
+     */
+    public PaymentTotals sumByTransactionIdAndNotDeleted(Transaction transaction, String transactionId) {
+        Query query = buildQuery()
+            .whereEqualTo("transactionId", transactionId)
+            .whereEqualTo("isDeleted", false);
+        return toTotals(aggregate(transaction, query, AMOUNT_SUM, LEGACY_AMOUNT_SUM, AggregateField.count()));
+    }
+    
+    /**
+     * Sums and counts the non-deleted payments of a nursery of one type created in [from, to),
+     * with a server-side aggregation read in the caller's transaction.
+     * 
+     * @param transaction the transaction to read in
+     * @param nurseryId the nursery ID
+     * @param type the payment type
+     * @param from start of the creation range, inclusive
+     * @param to end of the creation range, exclusive
+     * @return paid amount and payment count
+     */
+    public PaymentTotals sumByNurseryIdAndTypeCreatedBetween(Transaction transaction, String nurseryId,
+                                                             PaymentType type, LocalDateTime from, LocalDateTime to) {
+        Query query = buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereEqualTo("type", type.name())
+            .whereEqualTo("isDeleted", false)
+            .whereGreaterThanOrEqualTo("createdAt", Timestamp.of(FirestoreConverter.toDate(from)))
+            .whereLessThan("createdAt", Timestamp.of(FirestoreConverter.toDate(to)));
+        return toTotals(aggregate(transaction, query, AMOUNT_SUM, LEGACY_AMOUNT_SUM, AggregateField.count()));
+    }
+    
+    /**
+     * Encoded amounts share the default scale, so their minor units add up exactly; the sum
+     * of any legacy doubles is rounded to minor units.
+     */
+    private static PaymentTotals toTotals(AggregateQuerySnapshot snapshot) {
+        long amountMinor = MoneyCodec.minorUnits(snapshot.get(AMOUNT_SUM), 0)
+            + MoneyCodec.minorUnits(snapshot.get(LEGACY_AMOUNT_SUM), PaymentTotals.SCALE);
+        return new PaymentTotals(amountMinor, snapshot.getCount());
+    }
 }
-
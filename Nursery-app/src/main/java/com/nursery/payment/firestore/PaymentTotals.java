@@ -0,0 +1,67 @@
+package com.nursery.payment.firestore;
+
+import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.MoneyCodec;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Paid amount and payment count. Amounts are kept in minor units (hundredths), so totals
+ * maintained with server-side increments never accumulate floating-point error.
+ */
+@Value
+public class PaymentTotals {
+    
+    public static final int SCALE = MoneyCodec.DEFAULT_SCALE;
+    public static final PaymentTotals ZERO = new PaymentTotals(0, 0);
+    
+    long amountMinor;
+    long count;
+    
+    /**
+     * One payment. Stored amounts are read back from doubles, so they are rounded to minor units.
+     */
+    public static PaymentTotals of(BigDecimal amount) {
+        return new PaymentTotals(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact(), 1);
+    }
+    
+    public PaymentTotals plus(PaymentTotals other) {
+        return new PaymentTotals(amountMinor + other.amountMinor, count + other.count);
+    }
+    
+    public PaymentTotals negate() {
+        return new PaymentTotals(-amountMinor, -count);
+    }
+    
+    public boolean isZero() {
+        return amountMinor == 0 && count == 0;
+    }
+    
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountMinor, SCALE);
+    }
+    
+    /**
+     * Exact minor units of a requested amount.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        try {
+            return normalize(amount).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ValidationException("Payment amount is too large");
+        }
+    }
+    
+    /**
+     * A requested amount at exactly the stored scale, as it is kept and summed.
+     */
+    public static BigDecimal normalize(BigDecimal amount) {
+        try {
+            return MoneyCodec.normalize(amount);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Payment amount must have at most " + SCALE + " decimal places");
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.nursery.payment.service;
 
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.payment.dto.request.PaymentRequestDTO;
+import com.nursery.payment.dto.response.PaymentCollectionSummaryDTO;
 import com.nursery.payment.dto.response.PaymentResponseDTO;
+import com.nursery.payment.dto.response.PaymentTransactionSummaryDTO;
+import com.nursery.payment.firestore.PaymentDocument;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface PaymentService {
     PaymentResponseDTO createPayment(String transactionId, PaymentRequestDTO request);
+    List<PaymentResponseDTO> createPayments(List<PaymentRequestDTO> requests);
     PaymentResponseDTO updatePayment(String paymentId, PaymentRequestDTO request);
-    List<PaymentResponseDTO> findByTransactionId(String transactionId);
+    List<PaymentResponseDTO> findByTransactionId(String transactionId, Set<String> fields);
+    Map<String, List<PaymentResponseDTO>> findByTransactionIds(List<String> transactionIds, Set<String> fields);
     PaymentResponseDTO findById(String id);
+    SyncPage<PaymentResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit);
     void softDeletePayment(String id);
+    PaymentTransactionSummaryDTO getTransactionSummary(String transactionId);
+    PaymentCollectionSummaryDTO getCollectionSummary(String nurseryId, LocalDate from, LocalDate to);
+    int rebuildDailyTotals(String nurseryId, LocalDate from, LocalDate to);
+    PaymentResponseDTO toResponseDTO(PaymentDocument payment);
 }
 
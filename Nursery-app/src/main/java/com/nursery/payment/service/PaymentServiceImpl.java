@@ -2,11 +2,23 @@ package com.nursery.payment.service;
 
 import com.nursery.common.exception.EntityNotFoundException;
 import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.common.util.SecurityUtil;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
+import com.google.cloud.firestore.Transaction;
 import com.nursery.payment.dto.request.PaymentRequestDTO;
+import com.nursery.payment.dto.response.PaymentCollectionSummaryDTO;
+import com.nursery.payment.dto.response.PaymentDailyTotalDTO;
 import com.nursery.payment.dto.response.PaymentResponseDTO;
+import com.nursery.payment.dto.response.PaymentTransactionSummaryDTO;
+import com.nursery.payment.enumeration.PaymentType;
+import com.nursery.payment.firestore.PaymentDailyTotalDocument;
+import com.nursery.payment.firestore.PaymentDailyTotalFirestoreRepository;
 import com.nursery.payment.firestore.PaymentDocument;
 import com.nursery.payment.firestore.PaymentFirestoreRepository;
+import com.nursery.payment.firestore.PaymentTotals;
 import com.nursery.transaction.firestore.TransactionDocument;
 import com.nursery.transaction.firestore.TransactionFirestoreRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,7 +26,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,8 +42,22 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
     
+    /** Longest date range a collection summary or daily-total rebuild may cover. */
+    private static final int MAX_SUMMARY_DAYS = 366;
+    
+    /** Most transactions a batch lookup may ask for. */
+    private static final int MAX_BATCH_TRANSACTIONS = 100;
+    
+    /**
+     * Most payments a batch may record. Each payment adds up to three writes (itself, its
+     * transaction's totals, its day's totals), well inside Firestore's 500 writes per commit.
+     */
+    private static final int MAX_BATCH_PAYMENTS = 100;
+    
     private final PaymentFirestoreRepository paymentRepository;
+    private final PaymentDailyTotalFirestoreRepository dailyTotalRepository;
     private final TransactionFirestoreRepository transactionRepository;
+    private final CollectionVersionRegistry versionRegistry;
     
     @Override
     public PaymentResponseDTO createPayment(String transactionId, PaymentRequestDTO request) {
@@ -41,19 +75,81 @@ public class PaymentServiceImpl implements PaymentService {
             throw new ValidationException("Transaction ID in path must match request body");
         }
         
-        // Create payment document
-        PaymentDocument paymentDoc = buildPaymentDocument(transaction, request);
-        paymentDoc.setUserPhone(SecurityUtil.getCurrentUserPhone());
-        
-        // Save payment
-        String paymentId = paymentRepository.save(paymentDoc);
-        paymentDoc.setId(paymentId);
+        String userPhone = SecurityUtil.getCurrentUserPhone();
+        PaymentDocument paymentDoc = paymentRepository.runInTransaction(txn -> {
+            // Re-read within the transaction so a concurrent delete of the transaction is seen
+            TransactionDocument transactionInTxn = transactionRepository.findById(transaction.getId(), txn)
+                .filter(t -> !Boolean.TRUE.equals(t.getIsDeleted()))
+                .orElseThrow(() -> new EntityNotFoundException("Transaction", transactionId));
+            PaymentTotalsChange totals = new PaymentTotalsChange();
+            readTotals(txn, totals, transactionInTxn);
+            
+            PaymentDocument created = buildPaymentDocument(transactionInTxn, request);
+            created.setUserPhone(userPhone);
+            created.setId(paymentRepository.save(created, txn));
+            totals.add(created);
+            applyTotals(txn, totals);
+            return created;
+        });
         
         log.info("Created payment: id={}, transactionId={}, amount={}, type={}", 
-            paymentId, transactionId, request.getAmount(), request.getType());
+            paymentDoc.getId(), transactionId, request.getAmount(), request.getType());
         return toResponseDTO(paymentDoc);
     }
     
+    /**
+     * Records several payments, possibly across transactions, in one Firestore transaction:
+     * either all of them are saved with their totals, or none is.
+     */
+    @Override
+    public List<PaymentResponseDTO> createPayments(List<PaymentRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("At least one payment is required");
+        }
+        if (requests.size() > MAX_BATCH_PAYMENTS) {
+            throw new ValidationException("Cannot record more than " + MAX_BATCH_PAYMENTS + " payments at once");
+        }
+        log.debug("Creating {} payments", requests.size());
+        for (PaymentRequestDTO request : requests) {
+            validateAmount(request.getAmount());
+        }
+        Set<String> transactionIds = requests.stream()
+            .map(PaymentRequestDTO::getTransactionId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        
+        String userPhone = SecurityUtil.getCurrentUserPhone();
+        List<PaymentDocument> created = paymentRepository.runInTransaction(txn -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            Map<String, TransactionDocument> transactions = transactionRepository.findAllByIds(transactionIds, txn);
+            PaymentTotalsChange totals = new PaymentTotalsChange();
+            for (String transactionId : transactionIds) {
+                TransactionDocument transaction = transactions.get(transactionId);
+                if (transaction == null || Boolean.TRUE.equals(transaction.getIsDeleted())) {
+                    log.warn("Transaction not found or deleted: transactionId={}", transactionId);
+                    throw new EntityNotFoundException("Transaction", transactionId);
+                }
+                readTotals(txn, totals, transaction);
+            }
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            List<PaymentDocument> payments = new ArrayList<>();
+            for (PaymentRequestDTO request : requests) {
+                PaymentDocument payment = buildPaymentDocument(transactions.get(request.getTransactionId()), request);
+                payment.setUserPhone(userPhone);
+                payment.setId(paymentRepository.save(payment, txn));
+                totals.add(payment);
+                payments.add(payment);
+            }
+            applyTotals(txn, totals);
+            return payments;
+        });
+        
+        log.info("Created {} payments for {} transactions", created.size(), transactionIds.size());
+        return created.stream()
+            .map(this::toResponseDTO)
+            .collect(Collectors.toList());
+    }
+    
     @Override
     public PaymentResponseDTO updatePayment(String paymentId, PaymentRequestDTO request) {
         log.debug("Updating payment: id={}, amount={}", paymentId, request.getAmount());
@@ -62,38 +158,65 @@ public class PaymentServiceImpl implements PaymentService {
         validateAmount(request.getAmount());
         
         // Find existing payment
-        PaymentDocument payment = validateAndGetPayment(paymentId);
-        
-        // Validate and update transaction reference if changed
-        if (!payment.getTransactionId().equals(request.getTransactionId())) {
-            String oldTransactionId = payment.getTransactionId();
-            TransactionDocument newTransaction = validateAndGetTransaction(request.getTransactionId());
-            payment.setTransactionId(request.getTransactionId());
-            payment.setNurseryId(newTransaction.getNurseryId());
-            payment.setBreedId(newTransaction.getBreedId());
-            log.debug("Updated payment transaction reference: oldTransactionId={}, newTransactionId={}", 
-                oldTransactionId, request.getTransactionId());
+        PaymentDocument existing = validateAndGetPayment(paymentId);
+        if (!existing.getTransactionId().equals(request.getTransactionId())) {
+            validateAndGetTransaction(request.getTransactionId());
         }
         
-        // Update payment fields
-        updatePaymentFields(payment, request);
-        
-        // Save updated payment
-        paymentRepository.save(payment);
+        PaymentDocument payment = paymentRepository.runInTransaction(txn -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            PaymentDocument paymentInTxn = paymentRepository.findById(paymentId, txn)
+                .filter(p -> !Boolean.TRUE.equals(p.getIsDeleted()))
+                .orElseThrow(() -> new EntityNotFoundException("Payment", paymentId));
+            TransactionDocument newTransaction = null;
+            if (!paymentInTxn.getTransactionId().equals(request.getTransactionId())) {
+                newTransaction = transactionRepository.findById(request.getTransactionId(), txn)
+                    .filter(t -> !Boolean.TRUE.equals(t.getIsDeleted()))
+                    .orElseThrow(() -> new EntityNotFoundException("Transaction", request.getTransactionId()));
+            }
+            PaymentTotalsChange totals = new PaymentTotalsChange();
+            readTotals(txn, totals, paymentInTxn.getTransactionId());
+            if (newTransaction != null) {
+                readTotals(txn, totals, newTransaction);
+            }
+            totals.remove(paymentInTxn);
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            // Validate and update transaction reference if changed
+            if (newTransaction != null) {
+                log.debug("Updated payment transaction reference: oldTransactionId={}, newTransactionId={}", 
+                    paymentInTxn.getTransactionId(), request.getTransactionId());
+                paymentInTxn.setTransactionId(newTransaction.getId());
+                paymentInTxn.setNurseryId(newTransaction.getNurseryId());
+                paymentInTxn.setBreedId(newTransaction.getBreedId());
+            }
+            
+            // Update payment fields
+            updatePaymentFields(paymentInTxn, request);
+            paymentRepository.save(paymentInTxn, txn);
+            totals.add(paymentInTxn);
+            applyTotals(txn, totals);
+            return paymentInTxn;
+        });
         
         log.info("Updated payment: id={}, transactionId={}, amount={}, type={}", 
             paymentId, payment.getTransactionId(), request.getAmount(), request.getType());
         return toResponseDTO(payment);
     }
     
+    /**
+     * Non-deleted payments of a transaction.
+     * 
+     * @param fields the document fields to read, or null for whole documents
+     */
     @Override
-    public List<PaymentResponseDTO> findByTransactionId(String transactionId) {
+    public List<PaymentResponseDTO> findByTransactionId(String transactionId, Set<String> fields) {
         log.debug("Finding payments for transactionId={}", transactionId);
         
         // Validate transaction exists
         validateAndGetTransaction(transactionId);
         
-        List<PaymentResponseDTO> payments = paymentRepository.findByTransactionIdAndNotDeleted(transactionId).stream()
+        List<PaymentResponseDTO> payments = paymentRepository.findByTransactionIdAndNotDeleted(transactionId, fields).stream()
             .map(this::toResponseDTO)
             .collect(Collectors.toList());
         
@@ -101,6 +224,40 @@ public class PaymentServiceImpl implements PaymentService {
         return payments;
     }
     
+    /**
+     * Non-deleted payments of several transactions, keyed by transaction ID in the order
+     * asked. Transactions that do not exist or are deleted are left out; transactions
+     * without payments map to an empty list.
+     * 
+     * @param fields the payment document fields to read, or null for whole documents
+     */
+    @Override
+    public Map<String, List<PaymentResponseDTO>> findByTransactionIds(List<String> transactionIds, Set<String> fields) {
+        if (transactionIds == null || transactionIds.isEmpty()) {
+            throw new ValidationException("At least one transaction ID is required");
+        }
+        if (transactionIds.size() > MAX_BATCH_TRANSACTIONS) {
+            throw new ValidationException("Cannot look up more than " + MAX_BATCH_TRANSACTIONS + " transactions at once");
+        }
+        log.debug("Finding payments for {} transactions", transactionIds.size());
+        
+        Map<String, List<PaymentResponseDTO>> payments = new LinkedHashMap<>();
+        transactionRepository.findAllByIds(transactionIds).forEach((transactionId, transaction) -> {
+            if (!Boolean.TRUE.equals(transaction.getIsDeleted())) {
+                payments.put(transactionId, new ArrayList<>());
+            }
+        });
+        if (payments.isEmpty()) {
+            return payments;
+        }
+        
+        for (PaymentDocument payment : paymentRepository.findByTransactionIdsAndNotDeleted(payments.keySet(), fields)) {
+            payments.get(payment.getTransactionId()).add(toResponseDTO(payment));
+        }
+        log.debug("Found payments for {} of {} transactions", payments.size(), transactionIds.size());
+        return payments;
+    }
+    
     @Override
     public PaymentResponseDTO findById(String id) {
         log.debug("Finding payment by id={}", id);
@@ -108,17 +265,127 @@ public class PaymentServiceImpl implements PaymentService {
         return toResponseDTO(payment);
     }
     
+    @Override
+    public SyncPage<PaymentResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit) {
+        log.debug("Finding payments changed for nurseryId={} after {}", nurseryId, after);
+        return SyncPage.of(paymentRepository.findByNurseryIdChangedAfter(nurseryId, after, limit), limit, after,
+            payment -> Boolean.TRUE.equals(payment.getIsDeleted()), this::toResponseDTO);
+    }
+    
     @Override
     public void softDeletePayment(String id) {
         log.debug("Soft deleting payment: id={}", id);
         
-        PaymentDocument payment = validateAndGetPayment(id);
-        payment.softDelete();
-        paymentRepository.save(payment);
+        validateAndGetPayment(id);
+        PaymentDocument payment = paymentRepository.runInTransaction(txn -> {
+            PaymentDocument paymentInTxn = paymentRepository.findById(id, txn)
+                .filter(p -> !Boolean.TRUE.equals(p.getIsDeleted()))
+                .orElseThrow(() -> new EntityNotFoundException("Payment", id));
+            PaymentTotalsChange totals = new PaymentTotalsChange();
+            readTotals(txn, totals, paymentInTxn.getTransactionId());
+            totals.remove(paymentInTxn);
+            
+            paymentInTxn.softDelete();
+            paymentRepository.save(paymentInTxn, txn);
+            applyTotals(txn, totals);
+            return paymentInTxn;
+        });
         
         log.info("Soft deleted payment: id={}, transactionId={}", id, payment.getTransactionId());
     }
     
+    @Override
+    public PaymentTransactionSummaryDTO getTransactionSummary(String transactionId) {
+        log.debug("Finding payment totals for transactionId={}", transactionId);
+        TransactionDocument transaction = validateAndGetTransaction(transactionId);
+        
+        // Transactions not yet reached by the transaction-payment-totals backfill are aggregated on the fly
+        PaymentTotals totals = transaction.getPaidAmountMinor() != null && transaction.getPaymentCount() != null
+            ? new PaymentTotals(transaction.getPaidAmountMinor(), transaction.getPaymentCount())
+            : paymentRepository.sumByTransactionIdAndNotDeleted(transactionId);
+        
+        PaymentTransactionSummaryDTO dto = new PaymentTransactionSummaryDTO();
+        dto.setTransactionId(transactionId);
+        dto.setNurseryId(transaction.getNurseryId());
+        dto.setPaidAmount(totals.getAmount());
+        dto.setPaymentCount(totals.getCount());
+        return dto;
+    }
+    
+    @Override
+    public PaymentCollectionSummaryDTO getCollectionSummary(String nurseryId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.withDayOfMonth(1);
+        LocalDate end = to != null ? to : today;
+        validateRange(start, end);
+        log.debug("Finding payment totals for nurseryId={} from {} to {}", nurseryId, start, end);
+        
+        Map<PaymentType, PaymentTotals> overall = new EnumMap<>(PaymentType.class);
+        List<PaymentDailyTotalDTO> days = new ArrayList<>();
+        for (PaymentDailyTotalDocument day : dailyTotalRepository.findByNurseryIdBetween(nurseryId, start, end.plusDays(1))) {
+            Map<PaymentType, PaymentTotals> dayTotals = new EnumMap<>(PaymentType.class);
+            for (PaymentType type : PaymentType.values()) {
+                PaymentTotals total = new PaymentTotals(
+                    valueOf(day.getAmounts(), type), valueOf(day.getCounts(), type));
+                dayTotals.put(type, total);
+                overall.merge(type, total, PaymentTotals::plus);
+            }
+            PaymentDailyTotalDTO dto = new PaymentDailyTotalDTO();
+            dto.setDate(day.getDate().toLocalDate());
+            dto.setAmounts(amounts(dayTotals));
+            dto.setCounts(counts(dayTotals));
+            days.add(dto);
+        }
+        
+        PaymentCollectionSummaryDTO summary = new PaymentCollectionSummaryDTO();
+        summary.setNurseryId(nurseryId);
+        summary.setFrom(start);
+        summary.setTo(end);
+        summary.setAmounts(amounts(overall));
+        summary.setCounts(counts(overall));
+        summary.setDays(days);
+        return summary;
+    }
+    
+    /**
+     * Recomputes a nursery's daily totals from its payments with sum and count aggregations,
+     * one transaction per day, for days before the totals were maintained or after drift.
+     */
+    @Override
+    public int rebuildDailyTotals(String nurseryId, LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new ValidationException("from and to are required");
+        }
+        validateRange(from, to);
+        log.info("Rebuilding payment daily totals for nurseryId={} from {} to {}", nurseryId, from, to);
+        
+        int daysWithPayments = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate current = day;
+            boolean hasPayments = dailyTotalRepository.runInTransaction(txn -> {
+                Map<PaymentType, PaymentTotals> totals = new EnumMap<>(PaymentType.class);
+                for (PaymentType type : PaymentType.values()) {
+                    PaymentTotals total = paymentRepository.sumByNurseryIdAndTypeCreatedBetween(txn, nurseryId, type,
+                        current.atStartOfDay(), current.plusDays(1).atStartOfDay());
+                    if (!total.isZero()) {
+                        totals.put(type, total);
+                    }
+                }
+                if (totals.isEmpty()) {
+                    dailyTotalRepository.delete(txn, nurseryId, current);
+                    return false;
+                }
+                dailyTotalRepository.replace(txn, nurseryId, current, totals);
+                return true;
+            });
+            if (hasPayments) {
+                daysWithPayments++;
+            }
+        }
+        log.info("Rebuilt payment daily totals for nurseryId={}: {} days with payments", nurseryId, daysWithPayments);
+        return daysWithPayments;
+    }
+    
     /**
      * Validates that the payment amount is greater than zero.
      * 
@@ -132,6 +399,8 @@ public class PaymentServiceImpl implements PaymentService {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new ValidationException("Payment amount must be greater than zero");
         }
+        // Totals are kept in minor units
+        PaymentTotals.toMinorUnits(amount);
     }
     
     /**
@@ -166,6 +435,92 @@ public class PaymentServiceImpl implements PaymentService {
             });
     }
     
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SUMMARY_DAYS) {
+            throw new ValidationException("Date range cannot exceed " + MAX_SUMMARY_DAYS + " days");
+        }
+    }
+    
+    /**
+     * Queues the totals changes of one payment write in its Firestore transaction, and the
+     * version bumps of every nursery involved.
+     * 
+     * @param txn the Firestore transaction
+     * @param totals the accumulated changes
+     */
+    private void applyTotals(Transaction txn, PaymentTotalsChange totals) {
+        totals.byTransaction.forEach((transactionId, change) -> {
+            PaymentTotals counted = totals.counted.get(transactionId);
+            if (totals.archived.contains(transactionId)) {
+                log.debug("Transaction {} is archived; its totals are not kept", transactionId);
+            } else if (counted != null) {
+                PaymentTotals total = counted.plus(change);
+                transactionRepository.setPaymentTotals(txn, transactionId, total.getAmountMinor(), total.getCount());
+            } else if (!change.isZero()) {
+                transactionRepository.incrementPaymentTotals(txn, transactionId, change.getAmountMinor(), change.getCount());
+            }
+        });
+        totals.byDay.values().forEach(day -> {
+            day.changes.values().removeIf(PaymentTotals::isZero);
+            if (!day.changes.isEmpty()) {
+                dailyTotalRepository.increment(txn, day.nurseryId, day.date, day.changes);
+            }
+        });
+        for (String nurseryId : totals.nurseryIds) {
+            versionRegistry.bump(txn, nurseryId, VersionedCollection.PAYMENTS, VersionedCollection.TRANSACTIONS);
+        }
+    }
+    
+    /**
+     * Reads what the totals of a transaction will be applied to. Must run in the read phase.
+     * Archived transactions have no document left to keep totals on.
+     */
+    private void readTotals(Transaction txn, PaymentTotalsChange totals, String transactionId) {
+        transactionRepository.findById(transactionId, txn).ifPresentOrElse(
+            transaction -> readTotals(txn, totals, transaction),
+            () -> totals.archived.add(transactionId));
+    }
+    
+    /**
+     * Transactions not yet reached by the transaction-payment-totals backfill have no totals
+     * to increment; their payments are counted in the Firestore transaction instead, and the
+     * totals set as absolute values. Must run in the read phase.
+     */
+    private void readTotals(Transaction txn, PaymentTotalsChange totals, TransactionDocument transaction) {
+        if ((transaction.getPaidAmountMinor() == null || transaction.getPaymentCount() == null)
+                && !totals.counted.containsKey(transaction.getId())) {
+            totals.counted.put(transaction.getId(),
+                paymentRepository.sumByTransactionIdAndNotDeleted(txn, transaction.getId()));
+        }
+    }
+    
+    private static long valueOf(Map<String, Long> values, PaymentType type) {
+        if (values == null) {
+            return 0;
+        }
+        Number value = values.get(type.name());
+        return value != null ? value.longValue() : 0;
+    }
+    
+    private static Map<PaymentType, BigDecimal> amounts(Map<PaymentType, PaymentTotals> totals) {
+        Map<PaymentType, BigDecimal> amounts = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            amounts.put(type, totals.getOrDefault(type, PaymentTotals.ZERO).getAmount());
+        }
+        return amounts;
+    }
+    
+    private static Map<PaymentType, Long> counts(Map<PaymentType, PaymentTotals> totals) {
+        Map<PaymentType, Long> counts = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            counts.put(type, totals.getOrDefault(type, PaymentTotals.ZERO).getCount());
+        }
+        return counts;
+    }
+    
     /**
      * Builds a new payment document from transaction and request data.
      * 
@@ -179,7 +534,7 @@ public class PaymentServiceImpl implements PaymentService {
         paymentDoc.setNurseryId(transaction.getNurseryId());
         paymentDoc.setBreedId(transaction.getBreedId());
         paymentDoc.setType(request.getType());
-        paymentDoc.setAmount(request.getAmount());
+        paymentDoc.setAmount(PaymentTotals.normalize(request.getAmount()));
         paymentDoc.setDescription(request.getDescription());
         return paymentDoc;
     }
@@ -192,7 +547,7 @@ public class PaymentServiceImpl implements PaymentService {
      */
     private void updatePaymentFields(PaymentDocument payment, PaymentRequestDTO request) {
         payment.setType(request.getType());
-        payment.setAmount(request.getAmount());
+        payment.setAmount(PaymentTotals.normalize(request.getAmount()));
         payment.setDescription(request.getDescription());
     }
     
@@ -202,7 +557,8 @@ public class PaymentServiceImpl implements PaymentService {
      * @param doc the payment document
      * @return the payment response DTO
      */
-    private PaymentResponseDTO toResponseDTO(PaymentDocument doc) {
+    @Override
+    public PaymentResponseDTO toResponseDTO(PaymentDocument doc) {
         PaymentResponseDTO dto = new PaymentResponseDTO();
         dto.setId(doc.getId());
         dto.setTransactionId(doc.getTransactionId());
@@ -217,5 +573,50 @@ public class PaymentServiceImpl implements PaymentService {
         dto.setUpdatedAt(doc.getUpdatedAt());
         return dto;
     }
+    
+    /**
+     * Net change of one payment write to the totals it feeds: per transaction, and per
+     * nursery, day and payment type. Changes to the same document are merged, since each
+     * document is written once per Firestore transaction.
+     */
+    private static final class PaymentTotalsChange {
+        
+        private final Map<String, PaymentTotals> byTransaction = new LinkedHashMap<>();
+        /** Totals of legacy transactions counted before any write, to which the changes are added */
+        private final Map<String, PaymentTotals> counted = new LinkedHashMap<>();
+        private final Set<String> archived = new LinkedHashSet<>();
+        private final Map<String, DayChange> byDay = new LinkedHashMap<>();
+        private final Set<String> nurseryIds = new LinkedHashSet<>();
+        
+        void add(PaymentDocument payment) {
+            apply(payment, PaymentTotals.of(payment.getAmount()));
+        }
+        
+        void remove(PaymentDocument payment) {
+            apply(payment, PaymentTotals.of(payment.getAmount()).negate());
+        }
+        
+        private void apply(PaymentDocument payment, PaymentTotals change) {
+            nurseryIds.add(payment.getNurseryId());
+            byTransaction.merge(payment.getTransactionId(), change, PaymentTotals::plus);
+            if (payment.getCreatedAt() != null && payment.getType() != null) {
+                LocalDate date = payment.getCreatedAt().toLocalDate();
+                byDay.computeIfAbsent(PaymentDailyTotalFirestoreRepository.dailyTotalId(payment.getNurseryId(), date),
+                        id -> new DayChange(payment.getNurseryId(), date))
+                    .changes.merge(payment.getType(), change, PaymentTotals::plus);
+            }
+        }
+    }
+    
+    private static final class DayChange {
+        
+        private final String nurseryId;
+        private final LocalDate date;
+        private final Map<PaymentType, PaymentTotals> changes = new EnumMap<>(PaymentType.class);
+        
+        DayChange(String nurseryId, LocalDate date) {
+            this.nurseryId = nurseryId;
+            this.date = date;
+        }
+    }
 }
-
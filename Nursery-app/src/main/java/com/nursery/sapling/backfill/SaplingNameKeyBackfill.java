@@ -0,0 +1,42 @@
+package com.nursery.sapling.backfill;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.nursery.common.firestore.unique.UniqueKeyBackfill;
+import com.nursery.sapling.service.SaplingServiceImpl;
+import org.springframework.stereotype.Component;
+
+/**
+ * Claims name keys for saplings created before sapling names were reserved with key documents.
+ * Until it completes, sapling writes also check names with a scan of the nursery's saplings.
+ */
+@Component
+public class SaplingNameKeyBackfill extends UniqueKeyBackfill {
+    
+    public static final String ID = "sapling-name-keys";
+    
+    public SaplingNameKeyBackfill(Firestore firestore) {
+        super(firestore);
+    }
+    
+    @Override
+    public String getId() {
+        return ID;
+    }
+    
+    @Override
+    public String getCollection() {
+        return "saplings";
+    }
+    
+    @Override
+    protected String getValueField() {
+        return "name";
+    }
+    
+    @Override
+    protected String scope(DocumentSnapshot document) {
+        String nurseryId = document.getString("nurseryId");
+        return nurseryId != null ? SaplingServiceImpl.nameScope(nurseryId) : null;
+    }
+}
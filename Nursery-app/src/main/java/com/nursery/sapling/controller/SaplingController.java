@@ -2,7 +2,10 @@ package com.nursery.sapling.controller;
 
 import com.nursery.common.dto.ApiResponse;
 import com.nursery.common.dto.PaginatedResponseDTO;
+import com.nursery.common.dto.SparseFieldset;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.version.ConditionalResponses;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.sapling.dto.request.SaplingRequestDTO;
 import com.nursery.sapling.dto.response.SaplingResponseDTO;
 import com.nursery.sapling.service.SaplingService;
@@ -12,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,39 +26,47 @@ import java.util.List;
 public class SaplingController {
     
     private final SaplingService saplingService;
+    private final ConditionalResponses conditionalResponses;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<?>> findAll(
+    public ResponseEntity<ApiResponse<Object>> findAll(
             @RequestParam(required = true, name = "nurseryId") String nurseryId,
             @RequestParam(required = false, name = "search") String search,
             @RequestParam(required = false, name = "page") Integer page,
-            @RequestParam(required = false, name = "size") Integer size) {
+            @RequestParam(required = false, name = "size") Integer size,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(required = false, name = "fields") String fields,
+            WebRequest webRequest) {
         
-        log.debug("REST request to get saplings: nurseryId={}, search='{}', page={}, size={}",
-                nurseryId, search, page, size);
+        log.debug("REST request to get saplings: nurseryId={}, search='{}', page={}, size={}, fields={}",
+                nurseryId, search, page, size, fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, SaplingResponseDTO.class);
         
-        // If pagination parameters are provided, use paginated endpoint
-        if (page != null || size != null) {
-            int pageNumber = (page != null && page >= 0) ? page : 0;
-            int pageSize = (size != null && size > 0) ? size : 20;
-            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
-            PaginatedResponseDTO<SaplingResponseDTO> paginatedResult = saplingService.findAllPaginated(nurseryId, search, pageRequest);
-            log.debug("Returning paginated saplings result: totalElements={}, totalPages={}",
-                    paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
-            return ResponseEntity.ok(ApiResponse.success(paginatedResult));
-        }
-        
-        // Otherwise, return all results (backward compatibility)
-        List<SaplingResponseDTO> saplings = saplingService.findAll(nurseryId, search);
-        log.debug("Returning {} saplings (non-paginated)", saplings.size());
-        return ResponseEntity.ok(ApiResponse.success(saplings));
+        return conditionalResponses.forNursery(webRequest, nurseryId, () -> {
+            // If pagination parameters are provided, use paginated endpoint
+            if (page != null || size != null) {
+                int pageNumber = (page != null && page >= 0) ? page : 0;
+                int pageSize = (size != null && size > 0) ? size : 20;
+                PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, cursor);
+                pageRequest.setFields(fieldset.documentFields());
+                PaginatedResponseDTO<SaplingResponseDTO> paginatedResult = saplingService.findAllPaginated(nurseryId, search, pageRequest);
+                log.debug("Returning paginated saplings result: totalElements={}, totalPages={}",
+                        paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
+                return fieldset.render(paginatedResult);
+            }
+            
+            // Otherwise, return all results (backward compatibility)
+            List<SaplingResponseDTO> saplings = saplingService.findAll(nurseryId, search);
+            log.debug("Returning {} saplings (non-paginated)", saplings.size());
+            return fieldset.render(saplings);
+        }, VersionedCollection.SAPLINGS);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<SaplingResponseDTO>> findById(@PathVariable("id") String id) {
+    public ResponseEntity<ApiResponse<SaplingResponseDTO>> findById(@PathVariable("id") String id, WebRequest webRequest) {
         log.debug("REST request to get sapling id={}", id);
-        SaplingResponseDTO sapling = saplingService.findById(id);
-        return ResponseEntity.ok(ApiResponse.success(sapling));
+        return conditionalResponses.forEntity(webRequest, () -> saplingService.findById(id),
+            SaplingResponseDTO::getNurseryId, VersionedCollection.SAPLINGS);
     }
     
     @PostMapping
@@ -1,19 +1,15 @@
 package com.nursery.sapling.firestore;
 
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Transaction;
 import com.nursery.common.firestore.BaseFirestoreRepository;
-import com.nursery.common.firestore.FirestoreConverter;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
 @Repository
 public class SaplingFirestoreRepository extends BaseFirestoreRepository<SaplingDocument> {
@@ -39,51 +35,26 @@ public class SaplingFirestoreRepository extends BaseFirestoreRepository<SaplingD
         return executeQuery(query);
     }
     
+    public List<SaplingDocument> findByNurseryIdAndNotDeleted(String nurseryId, Transaction transaction) {
+        Query query = buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereEqualTo("isDeleted", false);
+        return executeQuery(query, transaction);
+    }
+    
     public List<SaplingDocument> findNonDeleted() {
         Query query = buildQuery().whereEqualTo("isDeleted", false);
         return executeQuery(query);
     }
     
-    public boolean existsByIdAndNotDeleted(String id) {
-        Query query = buildQuery().whereEqualTo("id", id).whereEqualTo("isDeleted", false);
-        List<SaplingDocument> results = executeQuery(query);
-        return !results.isEmpty();
-    }
-    
     public PageResult<SaplingDocument> findByNurseryIdAndNotDeletedPaginated(String nurseryId, PageRequest pageRequest) {
         Query query = buildQuery()
             .whereEqualTo("nurseryId", nurseryId)
-            .whereEqualTo("isDeleted", false)
-            .orderBy("updatedAt", Query.Direction.DESCENDING)
-            .limit(pageRequest.getEffectiveSize());
-        
-        if (pageRequest.getOffset() > 0) {
-            query = query.offset(pageRequest.getOffset());
-        }
-        
-        try {
-            ApiFuture<QuerySnapshot> future = query.get();
-            QuerySnapshot querySnapshot = future.get();
-            
-            List<SaplingDocument> documents = new ArrayList<>();
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
-            }
-            
-            // Get total count
-            Query countQuery = buildQuery()
-                .whereEqualTo("nurseryId", nurseryId)
-                .whereEqualTo("isDeleted", false);
-            List<SaplingDocument> allResults = executeQuery(countQuery);
-            long totalElements = allResults.size();
-            
-            return PageResult.of(documents, pageRequest, totalElements);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Query interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Failed to execute query", e);
-        }
+            .whereEqualTo("isDeleted", false);
+        return executePagedQuery(query, "updatedAt", Query.Direction.DESCENDING, pageRequest);
+    }
+    
+    public List<SaplingDocument> findByNurseryIdChangedAfter(String nurseryId, SyncCursor after, int limit) {
+        return findChangedAfter(buildQuery().whereEqualTo("nurseryId", nurseryId), after, limit);
     }
 }
-
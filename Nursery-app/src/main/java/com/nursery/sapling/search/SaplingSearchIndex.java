@@ -0,0 +1,49 @@
+package com.nursery.sapling.search;
+
+import com.nursery.common.search.NGramIndex;
+import com.nursery.common.search.NurseryCatalogIndex;
+import com.nursery.sapling.firestore.SaplingDocument;
+import com.nursery.sapling.firestore.SaplingFirestoreRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Search index over sapling name and description, per nursery.
+ */
+@Component
+public class SaplingSearchIndex extends NurseryCatalogIndex<SaplingDocument> {
+
+    public static final int FIELD_NAME = 0;
+    public static final int FIELD_DESCRIPTION = 1;
+
+    private final SaplingFirestoreRepository repository;
+
+    public SaplingSearchIndex(SaplingFirestoreRepository repository,
+                              @Value("${search.index.max-nurseries:1000}") long maxNurseries,
+                              @Value("${search.index.ttl-minutes:15}") long ttlMinutes) {
+        super(maxNurseries, Duration.ofMinutes(ttlMinutes));
+        this.repository = repository;
+    }
+
+    @Override
+    protected List<SaplingDocument> loadCatalog(String nurseryId) {
+        return repository.findByNurseryIdAndNotDeleted(nurseryId);
+    }
+
+    @Override
+    protected NGramIndex<SaplingDocument> newIndex() {
+        return new NGramIndex<>(
+            List.<Function<? super SaplingDocument, String>>of(SaplingDocument::getName, SaplingDocument::getDescription),
+            Comparator.comparing(SaplingDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+    }
+
+    @Override
+    protected String nurseryIdOf(SaplingDocument document) {
+        return document.getNurseryId();
+    }
+}
@@ -2,6 +2,8 @@ package com.nursery.sapling.service;
 
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.sapling.dto.request.SaplingRequestDTO;
 import com.nursery.sapling.dto.response.SaplingResponseDTO;
 import com.nursery.sapling.firestore.SaplingDocument;
@@ -12,6 +14,7 @@ public interface SaplingService {
     List<SaplingResponseDTO> findAll(String nurseryId, String search);
     PaginatedResponseDTO<SaplingResponseDTO> findAllPaginated(String nurseryId, String search, PageRequest pageRequest);
     SaplingResponseDTO findById(String id);
+    SyncPage<SaplingResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit);
     SaplingResponseDTO create(SaplingRequestDTO request);
     SaplingResponseDTO update(String id, SaplingRequestDTO request);
     void softDelete(String id);
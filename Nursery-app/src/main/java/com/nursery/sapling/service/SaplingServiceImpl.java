@@ -3,14 +3,25 @@ package com.nursery.sapling.service;
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.exception.EntityNotFoundException;
 import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.migration.BackfillExecutor;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.common.firestore.unique.UniqueConstraintManager;
+import com.nursery.common.firestore.unique.UniqueKeyChange;
+import com.nursery.common.search.NGramIndex;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.nursery.service.NurseryService;
+import com.nursery.breed.search.BreedSearchIndex;
 import com.nursery.breed.service.BreedQueryService;
+import com.nursery.sapling.backfill.SaplingNameKeyBackfill;
 import com.nursery.sapling.dto.request.SaplingRequestDTO;
 import com.nursery.sapling.dto.response.SaplingResponseDTO;
 import com.nursery.sapling.firestore.SaplingDocument;
 import com.nursery.sapling.firestore.SaplingFirestoreRepository;
+import com.nursery.sapling.search.SaplingSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,20 +38,23 @@ public class SaplingServiceImpl implements SaplingService {
     private final SaplingFirestoreRepository repository;
     private final NurseryService nurseryService;
     private final BreedQueryService breedQueryService;
+    private final SaplingSearchIndex saplingSearchIndex;
+    private final BreedSearchIndex breedSearchIndex;
+    private final UniqueConstraintManager uniqueConstraints;
+    private final CollectionVersionRegistry versionRegistry;
+    private final BackfillExecutor backfills;
     
     @Override
     public List<SaplingResponseDTO> findAll(String nurseryId, String search) {
-        List<SaplingDocument> saplings = repository.findByNurseryIdAndNotDeleted(nurseryId);
-        
-        // Filter by search term if provided
+        // Search is answered from the in-memory index, ranked by relevance
         if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            saplings = saplings.stream()
-                .filter(s -> s.getName().toLowerCase().contains(searchLower) ||
-                           (s.getDescription() != null && s.getDescription().toLowerCase().contains(searchLower)))
+            return saplingSearchIndex.forNursery(nurseryId).search(search, null, Integer.MAX_VALUE).getItems().stream()
+                .map(this::toResponseDTO)
                 .collect(Collectors.toList());
         }
         
+        List<SaplingDocument> saplings = repository.findByNurseryIdAndNotDeleted(nurseryId);
+        
         return saplings.stream()
             .map(this::toResponseDTO)
             .collect(Collectors.toList());
@@ -48,51 +62,20 @@ public class SaplingServiceImpl implements SaplingService {
     
     @Override
     public PaginatedResponseDTO<SaplingResponseDTO> findAllPaginated(String nurseryId, String search, PageRequest pageRequest) {
-        // Get all saplings first (for search filtering)
-        List<SaplingDocument> allSaplings = repository.findByNurseryIdAndNotDeleted(nurseryId);
-        
-        // Filter by search term if provided
         if (search != null && !search.trim().isEmpty()) {
-            String searchLower = search.toLowerCase().trim();
-            allSaplings = allSaplings.stream()
-                .filter(s -> s.getName().toLowerCase().contains(searchLower) ||
-                           (s.getDescription() != null && s.getDescription().toLowerCase().contains(searchLower)))
-                .collect(Collectors.toList());
+            // Only the hits up to the end of the requested page are ranked and kept
+            int offset = pageRequest.getOffset();
+            NGramIndex.Hits<SaplingDocument> hits = saplingSearchIndex.forNursery(nurseryId)
+                .search(search, null, offset + pageRequest.getEffectiveSize());
+            List<SaplingDocument> ranked = hits.getItems();
+            List<SaplingDocument> paginatedSaplings = offset < ranked.size()
+                ? ranked.subList(offset, ranked.size())
+                : new ArrayList<>();
+            return toPaginatedResponse(PageResult.of(paginatedSaplings, pageRequest, hits.getTotalMatches()));
         }
         
-        // Sort by updatedAt descending
-        allSaplings = allSaplings.stream()
-            .sorted((a, b) -> {
-                if (a.getUpdatedAt() == null || b.getUpdatedAt() == null) return 0;
-                return b.getUpdatedAt().compareTo(a.getUpdatedAt());
-            })
-            .collect(Collectors.toList());
-        
-        // Apply pagination
-        long totalElements = allSaplings.size();
-        int start = pageRequest.getOffset();
-        int end = Math.min(start + pageRequest.getEffectiveSize(), allSaplings.size());
-        List<SaplingDocument> paginatedSaplings = start < allSaplings.size() 
-            ? allSaplings.subList(start, end)
-            : new ArrayList<>();
-        
-        List<SaplingResponseDTO> content = paginatedSaplings.stream()
-            .map(this::toResponseDTO)
-            .collect(Collectors.toList());
-        
-        PageResult<SaplingDocument> pageResult = PageResult.of(paginatedSaplings, pageRequest, totalElements);
-        
-        return PaginatedResponseDTO.<SaplingResponseDTO>builder()
-            .content(content)
-            .totalElements(pageResult.getTotalElements())
-            .totalPages(pageResult.getTotalPages())
-            .size(pageResult.getSize())
-            .number(pageResult.getPage())
-            .hasNext(pageResult.isHasNext())
-            .hasPrevious(pageResult.hasPrevious())
-            .isFirst(pageResult.isFirst())
-            .isLast(pageResult.isLast())
-            .build();
+        // Without a search term, sorting and paging run in Firestore
+        return toPaginatedResponse(repository.findByNurseryIdAndNotDeletedPaginated(nurseryId, pageRequest));
     }
     
     @Override
@@ -101,62 +84,103 @@ public class SaplingServiceImpl implements SaplingService {
         return toResponseDTO(sapling);
     }
     
+    @Override
+    public SyncPage<SaplingResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit) {
+        return SyncPage.of(repository.findByNurseryIdChangedAfter(nurseryId, after, limit), limit, after,
+            sapling -> Boolean.TRUE.equals(sapling.getIsDeleted()), this::toResponseDTO);
+    }
+    
     @Override
     public SaplingResponseDTO create(SaplingRequestDTO request) {
         // Validate nursery exists
         nurseryService.validateExists(request.getNurseryId());
+        boolean nameKeysBackfilled = backfills.isCompleted(SaplingNameKeyBackfill.ID);
         
-        // Check duplicate name
-        List<SaplingDocument> existing = repository.findByNurseryIdAndNotDeleted(request.getNurseryId());
-        boolean duplicateExists = existing.stream()
-            .anyMatch(p -> p.getName().equals(request.getName()));
-        if (duplicateExists) {
-            throw new ValidationException("Sapling name already exists in this nursery");
-        }
+        SaplingDocument created = repository.runInTransaction(transaction -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            // Reserving the name key in the same transaction makes the duplicate check race-free
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(request.getNurseryId()), null, request.getName(), null);
+            if (nameKey.isConflict() || (!nameKeysBackfilled
+                    && legacyNameExists(transaction, request.getNurseryId(), request.getName(), null))) {
+                throw new ValidationException("Sapling name already exists in this nursery");
+            }
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            SaplingDocument sapling = toDocument(request);
+            String id = repository.save(sapling, transaction);
+            sapling.setId(id);
+            nameKey.apply(transaction, id);
+            versionRegistry.bump(transaction, sapling.getNurseryId(), VersionedCollection.SAPLINGS);
+            return sapling;
+        });
         
-        SaplingDocument sapling = toDocument(request);
-        String id = repository.save(sapling);
-        log.info("Created sapling: {}", id);
-        return toResponseDTO(sapling);
+        saplingSearchIndex.put(created);
+        log.info("Created sapling: {}", created.getId());
+        return toResponseDTO(created);
     }
     
     @Override
     public SaplingResponseDTO update(String id, SaplingRequestDTO request) {
-        SaplingDocument sapling = findByIdEntity(id);
-        
         // NOTE: nurseryId from request is validated but NOT updated
         // Key ID fields (nurseryId, saplingId, breedId, inventoryId, transactionId) are immutable in update operations
         // Validate nursery exists (used for validation only, not for updating)
         nurseryService.validateExists(request.getNurseryId());
+        boolean nameKeysBackfilled = backfills.isCompleted(SaplingNameKeyBackfill.ID);
         
-        // Check duplicate name (excluding current sapling)
-        List<SaplingDocument> existing = repository.findByNurseryIdAndNotDeleted(request.getNurseryId());
-        boolean duplicateExists = existing.stream()
-            .anyMatch(p -> p.getName().equals(request.getName()) && !p.getId().equals(id));
-        if (duplicateExists) {
-            throw new ValidationException("Sapling name already exists in this nursery");
-        }
+        SaplingDocument updated = repository.runInTransaction(transaction -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            SaplingDocument sapling = findByIdEntity(id, transaction);
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(sapling.getNurseryId()), sapling.getName(), request.getName(), id);
+            boolean renamed = !sameName(sapling.getName(), request.getName());
+            if (nameKey.isConflict() || (!nameKeysBackfilled && renamed
+                    && legacyNameExists(transaction, sapling.getNurseryId(), request.getName(), id))) {
+                throw new ValidationException("Sapling name already exists in this nursery");
+            }
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            // Explicitly DO NOT update: sapling.setNurseryId() - ID fields are immutable
+            sapling.setName(request.getName());
+            sapling.setDescription(request.getDescription());
+            sapling.setImageUrl(request.getImageUrl());
+            repository.save(sapling, transaction);
+            nameKey.apply(transaction, id);
+            versionRegistry.bump(transaction, sapling.getNurseryId(), VersionedCollection.SAPLINGS);
+            return sapling;
+        });
         
-        // Explicitly DO NOT update: sapling.setNurseryId() - ID fields are immutable
-        sapling.setName(request.getName());
-        sapling.setDescription(request.getDescription());
-        sapling.setImageUrl(request.getImageUrl());
-        repository.save(sapling);
+        saplingSearchIndex.put(updated);
+        breedSearchIndex.reindexSapling(updated);
         log.info("Updated sapling: {}", id);
-        return toResponseDTO(sapling);
+        return toResponseDTO(updated);
     }
     
     @Override
     public void softDelete(String id) {
-        SaplingDocument sapling = findByIdEntity(id);
+        findByIdEntity(id);
         
         // Check if has active breeds
         if (breedQueryService.hasActiveBreeds(id)) {
             throw new ValidationException("Cannot delete sapling with active breeds");
         }
         
-        sapling.softDelete();
-        repository.save(sapling);
+        SaplingDocument deleted = repository.runInTransaction(transaction -> {
+            // ========== PHASE 1: ALL READS FIRST ==========
+            SaplingDocument sapling = findByIdEntity(id, transaction);
+            UniqueKeyChange nameKey = uniqueConstraints.prepare(transaction,
+                nameScope(sapling.getNurseryId()), sapling.getName(), null, id);
+            
+            // ========== PHASE 2: ALL WRITES AFTER READS ==========
+            // Release the name so a new sapling may reuse it
+            sapling.softDelete();
+            repository.save(sapling, transaction);
+            nameKey.apply(transaction, id);
+            versionRegistry.bump(transaction, sapling.getNurseryId(), VersionedCollection.SAPLINGS);
+            return sapling;
+        });
+        
+        saplingSearchIndex.remove(deleted);
         log.info("Soft deleted sapling: {}", id);
     }
     
@@ -174,6 +198,53 @@ public class SaplingServiceImpl implements SaplingService {
             .orElseThrow(() -> new EntityNotFoundException("Sapling", id));
     }
     
+    private SaplingDocument findByIdEntity(String id, com.google.cloud.firestore.Transaction transaction) {
+        return repository.findById(id, transaction)
+            .filter(p -> !Boolean.TRUE.equals(p.getIsDeleted()))
+            .orElseThrow(() -> new EntityNotFoundException("Sapling", id));
+    }
+    
+    /**
+     * Saplings created before name keys existed have no key until {@link SaplingNameKeyBackfill}
+     * completes, so until then a name is also checked against the nursery's saplings.
+     */
+    private boolean legacyNameExists(com.google.cloud.firestore.Transaction transaction,
+                                     String nurseryId, String name, String id) {
+        return repository.findByNurseryIdAndNotDeleted(nurseryId, transaction).stream()
+            .anyMatch(p -> !p.getId().equals(id) && sameName(p.getName(), name));
+    }
+    
+    private static boolean sameName(String a, String b) {
+        return a != null && b != null
+            && UniqueConstraintManager.normalize(a).equals(UniqueConstraintManager.normalize(b));
+    }
+    
+    /**
+     * Sapling names are unique per nursery.
+     */
+    public static String nameScope(String nurseryId) {
+        return "saplings:" + nurseryId;
+    }
+    
+    private PaginatedResponseDTO<SaplingResponseDTO> toPaginatedResponse(PageResult<SaplingDocument> pageResult) {
+        List<SaplingResponseDTO> content = pageResult.getContent().stream()
+            .map(this::toResponseDTO)
+            .collect(Collectors.toList());
+        
+        return PaginatedResponseDTO.<SaplingResponseDTO>builder()
+            .content(content)
+            .totalElements(pageResult.getTotalElements())
+            .totalPages(pageResult.getTotalPages())
+            .size(pageResult.getSize())
+            .number(pageResult.getPage())
+            .hasNext(pageResult.isHasNext())
+            .hasPrevious(pageResult.hasPrevious())
+            .isFirst(pageResult.isFirst())
+            .isLast(pageResult.isLast())
+            .nextCursor(pageResult.getNextCursor())
+            .build();
+    }
+    
     private SaplingDocument toDocument(SaplingRequestDTO dto) {
         SaplingDocument doc = new SaplingDocument();
         doc.setNurseryId(dto.getNurseryId());
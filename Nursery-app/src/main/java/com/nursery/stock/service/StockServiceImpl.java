@@ -1,5 +1,7 @@
 package com.nursery.stock.service;
 
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.inventory.firestore.InventoryDocument;
 import com.nursery.inventory.firestore.InventoryFirestoreRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 public class StockServiceImpl implements StockService {
     
     private final InventoryFirestoreRepository inventoryRepository;
+    private final CollectionVersionRegistry versionRegistry;
     
     @Override
     public InventoryDocument createInventoryForBreed(String breedId, String nurseryId) {
@@ -20,6 +23,7 @@ public class StockServiceImpl implements StockService {
         inventory.setBreedId(breedId);
         inventory.setQuantity(0);
         inventoryRepository.save(inventory);
+        versionRegistry.bump(nurseryId, VersionedCollection.INVENTORY);
         log.info("Created inventory for breed: {}", breedId);
         return inventory;
     }
@@ -27,6 +31,7 @@ public class StockServiceImpl implements StockService {
     @Override
     public void saveInventory(InventoryDocument inventory) {
         inventoryRepository.save(inventory);
+        versionRegistry.bump(inventory.getNurseryId(), VersionedCollection.INVENTORY);
     }
 }
 
@@ -0,0 +1,36 @@
+package com.nursery.sync.controller;
+
+import com.nursery.common.dto.ApiResponse;
+import com.nursery.sync.dto.response.SyncResponseDTO;
+import com.nursery.sync.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/nursery")
+@RequiredArgsConstructor
+public class SyncController {
+    
+    private static final int DEFAULT_LIMIT = 200;
+    private static final int MAX_LIMIT = 500;
+    
+    private final SyncService syncService;
+    
+    /**
+     * Changes since the given watermark; omit it for a full sync.
+     * Call again with the returned watermark while hasMore is true.
+     */
+    @GetMapping("/{id}/sync")
+    public ResponseEntity<ApiResponse<SyncResponseDTO>> sync(
+            @PathVariable("id") String id,
+            @RequestParam(required = false, name = "since") String since,
+            @RequestParam(required = false, name = "limit") Integer limit) {
+        int effectiveLimit = (limit != null && limit > 0) ? Math.min(limit, MAX_LIMIT) : DEFAULT_LIMIT;
+        log.debug("REST request to sync nurseryId={} since={} limit={}", id, since, effectiveLimit);
+        SyncResponseDTO changes = syncService.sync(id, since, effectiveLimit);
+        return ResponseEntity.ok(ApiResponse.success(changes));
+    }
+}
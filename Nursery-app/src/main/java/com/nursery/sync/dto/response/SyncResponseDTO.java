@@ -0,0 +1,31 @@
+package com.nursery.sync.dto.response;
+
+import com.nursery.breed.dto.response.BreedResponseDTO;
+import com.nursery.inventory.dto.response.InventoryResponseDTO;
+import com.nursery.payment.dto.response.PaymentResponseDTO;
+import com.nursery.sapling.dto.response.SaplingResponseDTO;
+import com.nursery.transaction.dto.response.TransactionResponseDTO;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes of one nursery since a client's watermark.
+ * Items are upserts by ID; tombstones name soft-deleted records to drop.
+ * A record may appear again in a later sync, so applying a response must be idempotent.
+ * When reset is set the client's watermark was too old to catch up from: it must discard its
+ * local data before applying this response, which starts a full sync.
+ */
+@Data
+public class SyncResponseDTO {
+    private String watermark;
+    private boolean hasMore;
+    private boolean reset;
+    private List<BreedResponseDTO> breeds = new ArrayList<>();
+    private List<SaplingResponseDTO> saplings = new ArrayList<>();
+    private List<InventoryResponseDTO> inventory = new ArrayList<>();
+    private List<TransactionResponseDTO> transactions = new ArrayList<>();
+    private List<PaymentResponseDTO> payments = new ArrayList<>();
+    private List<SyncTombstoneDTO> tombstones = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.nursery.sync.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstoneDTO {
+    private String collection;
+    private String id;
+}
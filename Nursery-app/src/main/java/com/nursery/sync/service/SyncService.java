@@ -0,0 +1,7 @@
+package com.nursery.sync.service;
+
+import com.nursery.sync.dto.response.SyncResponseDTO;
+
+public interface SyncService {
+    SyncResponseDTO sync(String nurseryId, String watermark, int limit);
+}
@@ -0,0 +1,148 @@
+package com.nursery.sync.service;
+
+import com.nursery.breed.service.BreedService;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
+import com.nursery.inventory.service.InventoryService;
+import com.nursery.nursery.service.NurseryService;
+import com.nursery.payment.service.PaymentService;
+import com.nursery.sapling.service.SaplingService;
+import com.nursery.sync.dto.response.SyncResponseDTO;
+import com.nursery.sync.dto.response.SyncTombstoneDTO;
+import com.nursery.transaction.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Delta sync over updatedAt keyset scans.
+ *
+ * Each collection is scanned from the client's cursor in (updatedAt, id) order, so reads
+ * scale with the number of changes. A collection whose version has not moved since the
+ * watermark was issued is skipped; confirming that costs one read of the nursery's version
+ * document per sync, since this instance's mirror can lag behind other instances' writes.
+ *
+ * updatedAt is stamped before a write commits, so a slow write can become visible with a
+ * timestamp behind a cursor already handed out. Completed scans therefore hold the cursor
+ * back by sync.settle-seconds; changes inside that window are sent again on the next sync.
+ *
+ * Soft-deleted records are archived after archive.retention-days and their tombstones go
+ * with them, so a watermark older than that can no longer be caught up with deltas; such a
+ * client gets a full sync flagged as a reset.
+ */
+@Slf4j
+@Service
+public class SyncServiceImpl implements SyncService {
+    
+    private final NurseryService nurseryService;
+    private final BreedService breedService;
+    private final SaplingService saplingService;
+    private final InventoryService inventoryService;
+    private final TransactionService transactionService;
+    private final PaymentService paymentService;
+    private final CollectionVersionRegistry versionRegistry;
+    private final long settleMillis;
+    private final long archiveRetentionMillis;
+    
+    public SyncServiceImpl(NurseryService nurseryService,
+                           BreedService breedService,
+                           SaplingService saplingService,
+                           InventoryService inventoryService,
+                           TransactionService transactionService,
+                           PaymentService paymentService,
+                           CollectionVersionRegistry versionRegistry,
+                           @Value("${sync.settle-seconds:30}") long settleSeconds,
+                           @Value("${archive.retention-days:180}") long archiveRetentionDays) {
+        this.nurseryService = nurseryService;
+        this.breedService = breedService;
+        this.saplingService = saplingService;
+        this.inventoryService = inventoryService;
+        this.transactionService = transactionService;
+        this.paymentService = paymentService;
+        this.versionRegistry = versionRegistry;
+        this.settleMillis = settleSeconds * 1000;
+        this.archiveRetentionMillis = TimeUnit.DAYS.toMillis(archiveRetentionDays);
+    }
+    
+    @Override
+    public SyncResponseDTO sync(String nurseryId, String watermark, int limit) {
+        nurseryService.validateExists(nurseryId);
+        
+        SyncWatermark since = SyncWatermark.decode(watermark);
+        SyncWatermark next = new SyncWatermark();
+        long settledMillis = System.currentTimeMillis() - settleMillis;
+        SyncResponseDTO response = new SyncResponseDTO();
+        
+        if (since.isOlderThan(System.currentTimeMillis() - archiveRetentionMillis)) {
+            // Deletions older than this may have been archived without a tombstone
+            log.info("Sync watermark for nurseryId={} predates the archive horizon; resetting to a full sync", nurseryId);
+            since = new SyncWatermark();
+            response.setReset(true);
+        }
+        
+        Supplier<Optional<Map<VersionedCollection, Long>>> storedVersions = versionRegistry.versionsReader(nurseryId);
+        
+        response.setBreeds(syncCollection(VersionedCollection.BREEDS, nurseryId, since, next, settledMillis, response,
+            storedVersions, after -> breedService.findChangedSince(nurseryId, after, limit)));
+        response.setSaplings(syncCollection(VersionedCollection.SAPLINGS, nurseryId, since, next, settledMillis, response,
+            storedVersions, after -> saplingService.findChangedSince(nurseryId, after, limit)));
+        response.setInventory(syncCollection(VersionedCollection.INVENTORY, nurseryId, since, next, settledMillis, response,
+            storedVersions, after -> inventoryService.findChangedSince(nurseryId, after, limit)));
+        response.setTransactions(syncCollection(VersionedCollection.TRANSACTIONS, nurseryId, since, next, settledMillis, response,
+            storedVersions, after -> transactionService.findChangedSince(nurseryId, after, limit)));
+        response.setPayments(syncCollection(VersionedCollection.PAYMENTS, nurseryId, since, next, settledMillis, response,
+            storedVersions, after -> paymentService.findChangedSince(nurseryId, after, limit)));
+        
+        response.setWatermark(next.encode());
+        log.debug("Sync for nurseryId={}: {} tombstones, hasMore={}", nurseryId,
+            response.getTombstones().size(), response.isHasMore());
+        return response;
+    }
+    
+    private <R> List<R> syncCollection(VersionedCollection collection, String nurseryId, SyncWatermark since,
+                                       SyncWatermark next, long settledMillis, SyncResponseDTO response,
+                                       Supplier<Optional<Map<VersionedCollection, Long>>> storedVersions,
+                                       Function<SyncCursor, SyncPage<R>> scan) {
+        SyncWatermark.Position position = since.get(collection);
+        
+        // Take the version before scanning, so it can only be older than what the scan saw
+        OptionalLong version = versionRegistry.version(nurseryId, collection);
+        if (version.isPresent() && version.getAsLong() == position.getVersion()) {
+            // This instance's mirror can lag behind writes made through other instances
+            version = storedVersions.get()
+                .map(versions -> OptionalLong.of(versions.get(collection)))
+                .orElse(OptionalLong.empty());
+            if (version.isPresent() && version.getAsLong() == position.getVersion()) {
+                next.put(collection, position);
+                return List.of();
+            }
+        }
+        
+        SyncPage<R> page = scan.apply(position.getCursor());
+        for (String id : page.getDeletedIds()) {
+            response.getTombstones().add(new SyncTombstoneDTO(collection.getField(), id));
+        }
+        
+        if (page.isHasMore()) {
+            response.setHasMore(true);
+            long rescanFrom = Math.min(position.getRescanFromMillis(), settledMillis);
+            next.put(collection, new SyncWatermark.Position(SyncWatermark.UNKNOWN_VERSION, page.getNext(), rescanFrom));
+        } else {
+            SyncCursor settled = SyncCursor.at(Math.min(position.getRescanFromMillis(), settledMillis));
+            SyncCursor cursor = page.getNext().isBefore(settled) ? page.getNext() : settled;
+            next.put(collection, new SyncWatermark.Position(
+                version.orElse(SyncWatermark.UNKNOWN_VERSION), cursor, SyncWatermark.NO_RESCAN));
+        }
+        return page.getItems();
+    }
+}
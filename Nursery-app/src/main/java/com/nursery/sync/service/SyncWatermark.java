@@ -0,0 +1,104 @@
+package com.nursery.sync.service;
+
+import com.nursery.common.exception.ValidationException;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.version.VersionedCollection;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Opaque sync watermark: per collection, the change-scan cursor the client has reached
+ * and the collection version it was taken at. Encoded as URL-safe Base64 text.
+ */
+class SyncWatermark {
+    
+    static final long UNKNOWN_VERSION = -1;
+    static final long NO_RESCAN = Long.MAX_VALUE;
+    
+    private static final String FORMAT = "1";
+    
+    private final Map<VersionedCollection, Position> positions = new EnumMap<>(VersionedCollection.class);
+    
+    /**
+     * Where a client is in one collection.
+     * rescanFromMillis is set while a multi-page scan is in progress: when it completes, the
+     * cursor falls back to this instant so writes that committed mid-scan are not skipped.
+     */
+    @Value
+    static class Position {
+        static final Position INITIAL = new Position(UNKNOWN_VERSION, SyncCursor.BEGINNING, NO_RESCAN);
+        
+        long version;
+        SyncCursor cursor;
+        long rescanFromMillis;
+    }
+    
+    Position get(VersionedCollection collection) {
+        return positions.getOrDefault(collection, Position.INITIAL);
+    }
+    
+    void put(VersionedCollection collection, Position position) {
+        positions.put(collection, position);
+    }
+    
+    /**
+     * Whether any collection was last synced before the given instant.
+     */
+    boolean isOlderThan(long horizonMillis) {
+        for (Position position : positions.values()) {
+            long syncedMillis = Math.min(position.getCursor().getUpdatedAtMillis(), position.getRescanFromMillis());
+            if (syncedMillis > SyncCursor.BEGINNING.getUpdatedAtMillis() && syncedMillis < horizonMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    String encode() {
+        StringJoiner text = new StringJoiner(";");
+        text.add(FORMAT);
+        positions.forEach((collection, position) -> text.add(String.join(",",
+            collection.name(),
+            Long.toString(position.getVersion()),
+            Long.toString(position.getCursor().getUpdatedAtMillis()),
+            Long.toString(position.getRescanFromMillis()),
+            encodeId(position.getCursor().getDocumentId()))));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static SyncWatermark decode(String watermark) {
+        SyncWatermark decoded = new SyncWatermark();
+        if (watermark == null || watermark.isBlank()) {
+            return decoded;
+        }
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            String[] entries = text.split(";");
+            if (!FORMAT.equals(entries[0])) {
+                throw new ValidationException("Unsupported sync watermark; perform a full sync");
+            }
+            for (int i = 1; i < entries.length; i++) {
+                String[] parts = entries[i].split(",", -1);
+                VersionedCollection collection = VersionedCollection.valueOf(parts[0]);
+                SyncCursor cursor = new SyncCursor(Long.parseLong(parts[2]), decodeId(parts[4]));
+                decoded.put(collection, new Position(Long.parseLong(parts[1]), cursor, Long.parseLong(parts[3])));
+            }
+            return decoded;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ValidationException("Invalid sync watermark", e);
+        }
+    }
+    
+    private static String encodeId(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decodeId(String encoded) {
+        return new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+}
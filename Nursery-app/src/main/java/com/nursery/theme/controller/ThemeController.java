@@ -1,6 +1,8 @@
 package com.nursery.theme.controller;
 
 import com.nursery.common.dto.ApiResponse;
+import com.nursery.common.version.ConditionalResponses;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.theme.dto.request.ThemeRequestDTO;
 import com.nursery.theme.dto.response.ThemeResponseDTO;
 import com.nursery.theme.service.ThemeService;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/theme")
@@ -16,11 +19,13 @@ import org.springframework.web.bind.annotation.*;
 public class ThemeController {
     
     private final ThemeService themeService;
+    private final ConditionalResponses conditionalResponses;
     
     @GetMapping("/nursery/{nurseryId}")
-    public ResponseEntity<ApiResponse<ThemeResponseDTO>> getByNurseryId(@PathVariable("nurseryId") String nurseryId) {
-        ThemeResponseDTO theme = themeService.getByNurseryId(nurseryId);
-        return ResponseEntity.ok(ApiResponse.success(theme));
+    public ResponseEntity<ApiResponse<ThemeResponseDTO>> getByNurseryId(@PathVariable("nurseryId") String nurseryId,
+                                                                        WebRequest webRequest) {
+        return conditionalResponses.forNursery(webRequest, nurseryId,
+            () -> themeService.getByNurseryId(nurseryId), VersionedCollection.THEME);
     }
     
     @PostMapping("/nursery/{nurseryId}")
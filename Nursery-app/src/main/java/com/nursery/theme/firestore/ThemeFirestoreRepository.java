@@ -5,7 +5,6 @@ import com.google.cloud.firestore.Query;
 import com.nursery.common.firestore.BaseFirestoreRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -27,14 +26,12 @@ public class ThemeFirestoreRepository extends BaseFirestoreRepository<ThemeDocum
     
     public Optional<ThemeDocument> findByNurseryId(String nurseryId) {
         Query query = buildQuery().whereEqualTo("nurseryId", nurseryId);
-        List<ThemeDocument> results = executeQuery(query);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        return findFirst(query);
     }
     
     public boolean existsByNurseryId(String nurseryId) {
         Query query = buildQuery().whereEqualTo("nurseryId", nurseryId);
-        List<ThemeDocument> results = executeQuery(query);
-        return !results.isEmpty();
+        return exists(query);
     }
 }
 
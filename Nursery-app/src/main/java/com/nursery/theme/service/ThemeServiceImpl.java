@@ -1,5 +1,7 @@
 package com.nursery.theme.service;
 
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.nursery.service.NurseryService;
 import com.nursery.theme.dto.request.ThemeRequestDTO;
 import com.nursery.theme.dto.response.ThemeResponseDTO;
@@ -16,6 +18,7 @@ public class ThemeServiceImpl implements ThemeService {
     
     private final ThemeFirestoreRepository repository;
     private final NurseryService nurseryService;
+    private final CollectionVersionRegistry versionRegistry;
     
     @Override
     public ThemeResponseDTO getByNurseryId(String nurseryId) {
@@ -48,6 +51,7 @@ public class ThemeServiceImpl implements ThemeService {
             repository.save(theme);
             log.info("Updated theme for nursery: {}", nurseryId);
         }
+        versionRegistry.bump(nurseryId, VersionedCollection.THEME);
         
         return toResponseDTO(theme);
     }
@@ -2,6 +2,7 @@ package com.nursery.transaction.controller;
 
 import com.nursery.common.dto.ApiResponse;
 import com.nursery.common.dto.PaginatedResponseDTO;
+import com.nursery.common.dto.SparseFieldset;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.transaction.dto.request.TransactionRequestDTO;
 import com.nursery.transaction.dto.response.TransactionResponseDTO;
@@ -14,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -21,6 +23,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TransactionController {
     
+    /** Response fields read from a differently named document field. */
+    private static final Map<String, String> STORED_AS = Map.of("paidAmount", "paidAmountMinor");
+    
     private final TransactionService transactionService;
     
     @PostMapping("/breed/{breedId}")
@@ -56,20 +61,24 @@ public class TransactionController {
             @RequestParam(required = false, name = "nurseryId") String nurseryId,
             @RequestParam(required = false, name = "saplingId") String saplingId,
             @RequestParam(required = false, name = "page") Integer page,
-            @RequestParam(required = false, name = "size") Integer size) {
-        log.debug("REST request to get transactions: breedId={}, nurseryId={}, saplingId={}, page={}, size={}",
-                breedId, nurseryId, saplingId, page, size);
+            @RequestParam(required = false, name = "size") Integer size,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(required = false, name = "fields") String fields) {
+        log.debug("REST request to get transactions: breedId={}, nurseryId={}, saplingId={}, page={}, size={}, fields={}",
+                breedId, nurseryId, saplingId, page, size, fields);
+        SparseFieldset fieldset = SparseFieldset.parse(fields, TransactionResponseDTO.class);
         
         // If pagination parameters are provided, use paginated endpoint
         if (page != null || size != null) {
             int pageNumber = (page != null && page >= 0) ? page : 0;
             int pageSize = (size != null && size > 0) ? size : 20;
-            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
+            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, cursor);
+            pageRequest.setFields(fieldset.documentFields(STORED_AS));
             PaginatedResponseDTO<TransactionResponseDTO> paginatedResult =
                 transactionService.findAllPaginated(breedId, nurseryId, saplingId, pageRequest);
             log.debug("Returning paginated transactions result: totalElements={}, totalPages={}",
                     paginatedResult.getTotalElements(), paginatedResult.getTotalPages());
-            return ResponseEntity.ok(ApiResponse.success(paginatedResult));
+            return ResponseEntity.ok(ApiResponse.success(fieldset.render(paginatedResult)));
         }
         
         // Otherwise, return all results (backward compatibility)
@@ -80,7 +89,7 @@ public class TransactionController {
             transactions = List.of(); // Return empty list if no breedId provided
         }
         log.debug("Returning {} transactions (non-paginated)", transactions.size());
-        return ResponseEntity.ok(ApiResponse.success(transactions));
+        return ResponseEntity.ok(ApiResponse.success(fieldset.render(transactions)));
     }
     
     @GetMapping("/breed/{breedId}")
@@ -91,9 +100,13 @@ public class TransactionController {
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<TransactionResponseDTO>> findById(@PathVariable("id") String id) {
-        log.debug("REST request to get transaction id={}", id);
-        TransactionResponseDTO transaction = transactionService.findById(id);
+    public ResponseEntity<ApiResponse<TransactionResponseDTO>> findById(
+            @PathVariable("id") String id,
+            @RequestParam(name = "includeDeleted", defaultValue = "false") boolean includeDeleted) {
+        log.debug("REST request to get transaction id={} includeDeleted={}", id, includeDeleted);
+        TransactionResponseDTO transaction = includeDeleted
+            ? transactionService.findByIdIncludingDeleted(id)
+            : transactionService.findById(id);
         return ResponseEntity.ok(ApiResponse.success(transaction));
     }
     
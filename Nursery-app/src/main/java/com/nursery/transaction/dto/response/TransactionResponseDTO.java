@@ -3,6 +3,7 @@ package com.nursery.transaction.dto.response;
 import com.nursery.transaction.enumeration.TransactionType;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -17,6 +18,8 @@ public class TransactionResponseDTO {
     private String reversedByTxnId;
     private Boolean isUndo;
     private Boolean isDeleted;
+    private BigDecimal paidAmount;
+    private Long paymentCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -24,5 +24,10 @@ public class TransactionDocument extends BaseSoftDeletableDocument {
     private String reversedByTxnId;
     
     private Boolean isUndo = false;
+    
+    // Non-deleted payments against this transaction, kept in step by PaymentServiceImpl
+    private Long paidAmountMinor;
+    
+    private Long paymentCount;
 }
 
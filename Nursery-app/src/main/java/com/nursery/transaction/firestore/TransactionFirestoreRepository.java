@@ -1,20 +1,21 @@
 package com.nursery.transaction.firestore;
 
-import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Transaction;
 import com.nursery.common.firestore.BaseFirestoreRepository;
 import com.nursery.common.firestore.FirestoreConverter;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class TransactionFirestoreRepository extends BaseFirestoreRepository<TransactionDocument> {
@@ -50,37 +51,8 @@ public class TransactionFirestoreRepository extends BaseFirestoreRepository<Tran
         // an excessive number of breeds.
         Query query = buildQuery()
             .whereIn("breedId", breedIds)
-            .whereEqualTo("isDeleted", false)
-            .orderBy("createdAt", Query.Direction.DESCENDING)
-            .limit(pageRequest.getEffectiveSize());
-        
-        if (pageRequest.getOffset() > 0) {
-            query = query.offset(pageRequest.getOffset());
-        }
-        
-        try {
-            ApiFuture<QuerySnapshot> future = query.get();
-            QuerySnapshot querySnapshot = future.get();
-            
-            List<TransactionDocument> documents = new ArrayList<>();
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
-            }
-            
-            // Get total count for these breedIds
-            Query countQuery = buildQuery()
-                .whereIn("breedId", breedIds)
-                .whereEqualTo("isDeleted", false);
-            List<TransactionDocument> allResults = executeQuery(countQuery);
-            long totalElements = allResults.size();
-            
-            return PageResult.of(documents, pageRequest, totalElements);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Query interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Failed to execute query", e);
-        }
+            .whereEqualTo("isDeleted", false);
+        return executePagedQuery(query, "createdAt", Query.Direction.DESCENDING, pageRequest);
     }
     
     public List<TransactionDocument> findByBreedIdAndNotDeleted(String breedId) {
@@ -136,82 +108,111 @@ public class TransactionFirestoreRepository extends BaseFirestoreRepository<Tran
         return executeQuery(query);
     }
     
-    public boolean existsByIdAndNotDeleted(String id) {
-        Query query = buildQuery().whereEqualTo("id", id).whereEqualTo("isDeleted", false);
-        List<TransactionDocument> results = executeQuery(query);
-        return !results.isEmpty();
+    public boolean existsByBreedIdAndNotDeleted(String breedId) {
+        Query query = buildQuery()
+            .whereEqualTo("breedId", breedId)
+            .whereEqualTo("isDeleted", false);
+        return exists(query);
     }
     
     public PageResult<TransactionDocument> findByBreedIdAndNotDeletedPaginated(String breedId, PageRequest pageRequest) {
         Query query = buildQuery()
             .whereEqualTo("breedId", breedId)
-            .whereEqualTo("isDeleted", false)
-            .orderBy("createdAt", Query.Direction.DESCENDING)
-            .limit(pageRequest.getEffectiveSize());
-        
-        if (pageRequest.getOffset() > 0) {
-            query = query.offset(pageRequest.getOffset());
-        }
-        
-        try {
-            ApiFuture<QuerySnapshot> future = query.get();
-            QuerySnapshot querySnapshot = future.get();
-            
-            List<TransactionDocument> documents = new ArrayList<>();
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
-            }
-            
-            // Get total count
-            Query countQuery = buildQuery()
-                .whereEqualTo("breedId", breedId)
-                .whereEqualTo("isDeleted", false);
-            List<TransactionDocument> allResults = executeQuery(countQuery);
-            long totalElements = allResults.size();
-            
-            return PageResult.of(documents, pageRequest, totalElements);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Query interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Failed to execute query", e);
-        }
+            .whereEqualTo("isDeleted", false);
+        return executePagedQuery(query, "createdAt", Query.Direction.DESCENDING, pageRequest);
     }
     
     public PageResult<TransactionDocument> findByNurseryIdAndNotDeletedPaginated(String nurseryId, PageRequest pageRequest) {
         Query query = buildQuery()
             .whereEqualTo("nurseryId", nurseryId)
-            .whereEqualTo("isDeleted", false)
-            .orderBy("createdAt", Query.Direction.DESCENDING)
-            .limit(pageRequest.getEffectiveSize());
-        
-        if (pageRequest.getOffset() > 0) {
-            query = query.offset(pageRequest.getOffset());
+            .whereEqualTo("isDeleted", false);
+        return executePagedQuery(query, "createdAt", Query.Direction.DESCENDING, pageRequest);
+    }
+    
+    public List<TransactionDocument> findByNurseryIdChangedAfter(String nurseryId, SyncCursor after, int limit) {
+        return findChangedAfter(buildQuery().whereEqualTo("nurseryId", nurseryId), after, limit);
+    }
+    
+    /**
+     * Oldest transaction of a nursery by creation time, including deleted ones.
+     */
+    public Optional<TransactionDocument> findOldestByNurseryId(String nurseryId) {
+        return findFirst(buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .orderBy("createdAt"));
+    }
+    
+    /**
+     * Visit every transaction of a nursery created in [from, to), including deleted ones, as of readTime.
+     */
+    public void forEachByNurseryIdCreatedBetween(String nurseryId, Timestamp from, Timestamp to,
+                                                 Timestamp readTime, int pageSize, Consumer<TransactionDocument> action) {
+        Query query = buildQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereGreaterThanOrEqualTo("createdAt", from)
+            .whereLessThan("createdAt", to);
+        forEachAtReadTime(query, "createdAt", readTime, pageSize, action);
+    }
+    
+    /**
+     * Visit every archived transaction of a nursery created in [from, to), as of readTime.
+     */
+    public void forEachArchivedByNurseryIdCreatedBetween(String nurseryId, Timestamp from, Timestamp to,
+                                                         Timestamp readTime, int pageSize, Consumer<TransactionDocument> action) {
+        Query query = buildArchiveQuery()
+            .whereEqualTo("nurseryId", nurseryId)
+            .whereGreaterThanOrEqualTo("createdAt", from)
+            .whereLessThan("createdAt", to);
+        forEachAtReadTime(query, "createdAt", readTime, pageSize, action);
+    }
+    
+    /**
+     * Visit every transaction of a breed created in [from, to), including deleted ones, inside
+     * a transaction. A null bound leaves that side open.
+     */
+    public void forEachByBreedIdCreatedBetween(String breedId, LocalDateTime from, LocalDateTime to,
+                                               Transaction transaction, int pageSize,
+                                               Consumer<TransactionDocument> action) {
+        Query query = buildQuery().whereEqualTo("breedId", breedId);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("createdAt", Timestamp.of(FirestoreConverter.toDate(from)));
         }
-        
-        try {
-            ApiFuture<QuerySnapshot> future = query.get();
-            QuerySnapshot querySnapshot = future.get();
-            
-            List<TransactionDocument> documents = new ArrayList<>();
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                documents.add(FirestoreConverter.toDocument(document, getDocumentClass()));
-            }
-            
-            // Get total count
-            Query countQuery = buildQuery()
-                .whereEqualTo("nurseryId", nurseryId)
-                .whereEqualTo("isDeleted", false);
-            List<TransactionDocument> allResults = executeQuery(countQuery);
-            long totalElements = allResults.size();
-            
-            return PageResult.of(documents, pageRequest, totalElements);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Query interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Failed to execute query", e);
+        if (to != null) {
+            query = query.whereLessThan("createdAt", Timestamp.of(FirestoreConverter.toDate(to)));
         }
+        forEachInTransaction(query, "createdAt", transaction, pageSize, action);
+    }
+    
+    /**
+     * First transaction of a breed created at or after from, including deleted ones.
+     */
+    public Optional<TransactionDocument> findFirstByBreedIdCreatedFrom(String breedId, LocalDateTime from) {
+        Query query = buildQuery().whereEqualTo("breedId", breedId);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("createdAt", Timestamp.of(FirestoreConverter.toDate(from)));
+        }
+        return findFirst(query.orderBy("createdAt"));
+    }
+    
+    /**
+     * Shift a transaction's paid amount and payment count in the caller's transaction.
+     * updatedAt moves too, so delta sync resends the transaction.
+     */
+    public void incrementPaymentTotals(Transaction transaction, String transactionId, long amountMinor, long count) {
+        transaction.update(firestore.collection(getCollectionName()).document(transactionId),
+            "paidAmountMinor", FieldValue.increment(amountMinor),
+            "paymentCount", FieldValue.increment(count),
+            "updatedAt", Timestamp.now());
+    }
+    
+    /**
+     * Set a transaction's paid amount and payment count in the caller's transaction, for
+     * transactions written before the totals were kept, which have nothing to increment.
+     */
+    public void setPaymentTotals(Transaction transaction, String transactionId, long amountMinor, long count) {
+        transaction.update(firestore.collection(getCollectionName()).document(transactionId),
+            "paidAmountMinor", amountMinor,
+            "paymentCount", count,
+            "updatedAt", Timestamp.now());
     }
 }
-
@@ -2,8 +2,11 @@ package com.nursery.transaction.service;
 
 import com.nursery.common.dto.PaginatedResponseDTO;
 import com.nursery.common.firestore.pagination.PageRequest;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.transaction.dto.request.TransactionRequestDTO;
 import com.nursery.transaction.dto.response.TransactionResponseDTO;
+import com.nursery.transaction.firestore.TransactionDocument;
 
 import java.util.List;
 
@@ -15,5 +18,8 @@ public interface TransactionService {
     List<TransactionResponseDTO> findAll(String breedId);
     PaginatedResponseDTO<TransactionResponseDTO> findAllPaginated(String breedId, String nurseryId, String saplingId, PageRequest pageRequest);
     TransactionResponseDTO findById(String id);
+    TransactionResponseDTO findByIdIncludingDeleted(String id);
+    SyncPage<TransactionResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit);
+    TransactionResponseDTO toResponseDTO(TransactionDocument transaction);
 }
 
@@ -7,9 +7,16 @@ import com.nursery.common.exception.EntityNotFoundException;
 import com.nursery.common.exception.ValidationException;
 import com.nursery.common.firestore.pagination.PageRequest;
 import com.nursery.common.firestore.pagination.PageResult;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
 import com.nursery.common.util.SecurityUtil;
+import com.nursery.common.version.CollectionVersionRegistry;
+import com.nursery.common.version.VersionedCollection;
 import com.nursery.breed.service.BreedService;
+import com.nursery.inventory.firestore.InventoryCheckpointDocument;
+import com.nursery.inventory.firestore.InventoryCheckpointFirestoreRepository;
 import com.nursery.inventory.service.InventoryService;
+import com.nursery.payment.firestore.PaymentTotals;
 import com.nursery.transaction.dto.request.TransactionRequestDTO;
 import com.nursery.transaction.dto.response.TransactionResponseDTO;
 import com.nursery.transaction.firestore.TransactionDocument;
@@ -18,6 +25,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -32,6 +40,8 @@ public class TransactionServiceImpl implements TransactionService {
     private final InventoryService inventoryService;
     private final com.nursery.inventory.firestore.InventoryFirestoreRepository inventoryRepository;
     private final com.nursery.breed.firestore.BreedFirestoreRepository breedRepository;
+    private final InventoryCheckpointFirestoreRepository checkpointRepository;
+    private final CollectionVersionRegistry versionRegistry;
     
     @Override
     public TransactionResponseDTO createTransaction(String breedId, TransactionRequestDTO request) {
@@ -92,6 +102,8 @@ public class TransactionServiceImpl implements TransactionService {
             // Update inventory within transaction
             inventory.setQuantity(newQuantity);
             inventoryRepository.save(inventory, transaction);
+            versionRegistry.bump(transaction, inventory.getNurseryId(),
+                VersionedCollection.INVENTORY, VersionedCollection.TRANSACTIONS);
             
             log.info("Created transaction: {} for breed: {} (delta: {})", 
                 transactionId, breedId, effectiveDelta);
@@ -137,6 +149,10 @@ public class TransactionServiceImpl implements TransactionService {
             com.nursery.inventory.firestore.InventoryDocument inventoryInTxn = inventoryRepository.findById(inventoryId, txn)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory", inventoryId));
             
+            // Checkpoints already counting this transaction move with it
+            List<InventoryCheckpointDocument> checkpoints = checkpointRepository.findCoveringByBreedId(
+                transactionInTxn.getBreedId(), transactionInTxn.getCreatedAt(), txn);
+            
             // Calculate delta change: reverse old delta and apply new delta
             int deltaChange = newEffectiveDelta - oldEffectiveDelta;
             int newQuantity = inventoryInTxn.getQuantity() + deltaChange;
@@ -157,6 +173,9 @@ public class TransactionServiceImpl implements TransactionService {
             // Update inventory
             inventoryInTxn.setQuantity(newQuantity);
             inventoryRepository.save(inventoryInTxn, txn);
+            checkpointRepository.adjustQuantity(txn, checkpoints, deltaChange);
+            versionRegistry.bump(txn, inventoryInTxn.getNurseryId(),
+                VersionedCollection.INVENTORY, VersionedCollection.TRANSACTIONS);
             
             log.info("Updated transaction: {} for breed: {} (delta change: {} -> {})", 
                 transactionId, existingTransaction.getBreedId(), oldEffectiveDelta, newEffectiveDelta);
@@ -221,6 +240,10 @@ public class TransactionServiceImpl implements TransactionService {
             com.nursery.inventory.firestore.InventoryDocument inventoryInTxn = inventoryRepository.findById(inventoryId, txn)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory", inventoryId));
             
+            // Checkpoints counting the deleted transaction drop it; the compensation itself never counts
+            List<InventoryCheckpointDocument> checkpoints = checkpointRepository.findCoveringByBreedId(
+                transactionInTxn.getBreedId(), transactionInTxn.getCreatedAt(), txn);
+            
             // ========== PHASE 2: ALL WRITES AFTER READS ==========
             // Mark transaction as deleted
             transactionInTxn.softDelete();
@@ -246,6 +269,9 @@ public class TransactionServiceImpl implements TransactionService {
             }
             inventoryInTxn.setQuantity(newQuantity);
             inventoryRepository.save(inventoryInTxn, txn);
+            checkpointRepository.adjustQuantity(txn, checkpoints, compensation.getDelta());
+            versionRegistry.bump(txn, inventoryInTxn.getNurseryId(),
+                VersionedCollection.INVENTORY, VersionedCollection.TRANSACTIONS);
             
             log.info("Soft deleted transaction: {} with compensation: {} (atomic)", transactionId, compensationId);
             return null;
@@ -324,6 +350,7 @@ public class TransactionServiceImpl implements TransactionService {
             .hasPrevious(pageResult.hasPrevious())
             .isFirst(pageResult.isFirst())
             .isLast(pageResult.isLast())
+            .nextCursor(pageResult.getNextCursor())
             .build();
     }
     
@@ -335,6 +362,23 @@ public class TransactionServiceImpl implements TransactionService {
         return toResponseDTO(transaction);
     }
     
+    /**
+     * Audit lookup: resolves deleted transactions too, including those already archived,
+     * so references such as reversedByTxnId always lead somewhere.
+     */
+    @Override
+    public TransactionResponseDTO findByIdIncludingDeleted(String id) {
+        TransactionDocument transaction = repository.findByIdIncludingArchived(id)
+            .orElseThrow(() -> new EntityNotFoundException("Transaction", id));
+        return toResponseDTO(transaction);
+    }
+    
+    @Override
+    public SyncPage<TransactionResponseDTO> findChangedSince(String nurseryId, SyncCursor after, int limit) {
+        return SyncPage.of(repository.findByNurseryIdChangedAfter(nurseryId, after, limit), limit, after,
+            transaction -> Boolean.TRUE.equals(transaction.getIsDeleted()), this::toResponseDTO);
+    }
+    
     
     
     private TransactionDocument toDocument(TransactionRequestDTO dto, com.nursery.breed.firestore.BreedDocument breed) {
@@ -346,7 +390,8 @@ public class TransactionServiceImpl implements TransactionService {
         return doc;
     }
     
-    private TransactionResponseDTO toResponseDTO(TransactionDocument doc) {
+    @Override
+    public TransactionResponseDTO toResponseDTO(TransactionDocument doc) {
         TransactionResponseDTO dto = new TransactionResponseDTO();
         dto.setId(doc.getId());
         dto.setNurseryId(doc.getNurseryId());
@@ -358,6 +403,9 @@ public class TransactionServiceImpl implements TransactionService {
         dto.setReversedByTxnId(doc.getReversedByTxnId());
         dto.setIsUndo(doc.getIsUndo());
         dto.setIsDeleted(doc.getIsDeleted());
+        dto.setPaidAmount(BigDecimal.valueOf(doc.getPaidAmountMinor() != null ? doc.getPaidAmountMinor() : 0,
+            PaymentTotals.SCALE));
+        dto.setPaymentCount(doc.getPaymentCount() != null ? doc.getPaymentCount() : 0);
         dto.setCreatedAt(doc.getCreatedAt());
         dto.setUpdatedAt(doc.getUpdatedAt());
         return dto;
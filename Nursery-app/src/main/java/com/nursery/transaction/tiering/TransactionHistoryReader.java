@@ -0,0 +1,221 @@
+package com.nursery.transaction.tiering;
+
+import com.google.cloud.Timestamp;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.common.firestore.archive.ArchivedRowMerger;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.transaction.firestore.TransactionDocument;
+import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Transaction history of a nursery over any time range, merged from both tiers.
+ *
+ * Months sealed into local segments are read from disk; all other months are scanned in
+ * Firestore, contiguous ones in a single query. Transactions changed in Firestore after the
+ * nursery's segment checkpoint replace their sealed copy, so the merged history matches
+ * Firestore even between tiering runs. Rows come out in (createdAt, id) order.
+ *
+ * Deleted transactions are moved to transactions_archive after archive.retention-days, so
+ * the part of a range older than that is also read from the archive and merged in.
+ */
+@Slf4j
+@Component
+public class TransactionHistoryReader {
+
+    static final Comparator<TransactionDocument> CREATED_ORDER = Comparator
+        .comparing(TransactionDocument::getCreatedAt)
+        .thenComparing(TransactionDocument::getId);
+
+    private final TransactionFirestoreRepository repository;
+    private final TransactionSegmentStore segmentStore;
+    private final boolean enabled;
+    private final int pageSize;
+    private final Duration archiveRetention;
+    private final Counter coldRows;
+    private final Counter hotRows;
+    private final Counter archivedRows;
+
+    public TransactionHistoryReader(TransactionFirestoreRepository repository,
+                                    TransactionSegmentStore segmentStore,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${tiering.enabled:true}") boolean enabled,
+                                    @Value("${tiering.page-size:500}") int pageSize,
+                                    @Value("${archive.retention-days:180}") long archiveRetentionDays) {
+        this.repository = repository;
+        this.segmentStore = segmentStore;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.archiveRetention = Duration.ofDays(archiveRetentionDays);
+        this.coldRows = Counter.builder("transaction.history.rows")
+            .description("Transaction history rows served, by storage tier")
+            .tag("tier", "cold")
+            .register(meterRegistry);
+        this.hotRows = Counter.builder("transaction.history.rows")
+            .description("Transaction history rows served, by storage tier")
+            .tag("tier", "hot")
+            .register(meterRegistry);
+        this.archivedRows = Counter.builder("transaction.history.rows")
+            .description("Transaction history rows served, by storage tier")
+            .tag("tier", "archive")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Visit every transaction of a nursery created in [from, to), including deleted ones.
+     * Firestore reads are pinned to readTime; sealed months reflect their last tiering run
+     * plus any later changes.
+     */
+    public void forEachCreatedBetween(String nurseryId, LocalDateTime from, LocalDateTime to, Timestamp readTime,
+                                      Consumer<TransactionDocument> action) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        // Only transactions deleted, and so created, before the retention horizon can be archived
+        LocalDateTime archivedTo = min(to, LocalDateTime.now().minus(archiveRetention));
+        if (!from.isBefore(archivedTo)) {
+            forEachLive(nurseryId, from, to, readTime, action);
+            return;
+        }
+        List<TransactionDocument> archived = new ArrayList<>();
+        repository.forEachArchivedByNurseryIdCreatedBetween(nurseryId, timestamp(from), timestamp(archivedTo), readTime,
+            pageSize, archived::add);
+        archivedRows.increment(archived.size());
+        ArchivedRowMerger<TransactionDocument> merged = new ArchivedRowMerger<>(archived, action);
+        forEachLive(nurseryId, from, to, readTime, merged);
+        merged.finish();
+    }
+
+    private void forEachLive(String nurseryId, LocalDateTime from, LocalDateTime to, Timestamp readTime,
+                             Consumer<TransactionDocument> action) {
+        OptionalLong checkpoint = enabled ? segmentStore.checkpoint(nurseryId) : OptionalLong.empty();
+        NavigableSet<YearMonth> sealed = checkpoint.isPresent()
+            ? new TreeSet<>(segmentStore.sealedMonths(nurseryId).subSet(YearMonth.from(from), true, YearMonth.from(to), true))
+            : new TreeSet<>();
+        if (sealed.isEmpty()) {
+            scanHot(nurseryId, from, to, readTime, action);
+            return;
+        }
+
+        Map<YearMonth, List<TransactionDocument>> changed = null;
+        LocalDateTime hotFrom = from;
+        for (YearMonth month : sealed) {
+            LocalDateTime monthStart = max(from, month.atDay(1).atStartOfDay());
+            LocalDateTime monthEnd = min(to, month.plusMonths(1).atDay(1).atStartOfDay());
+            Optional<TransactionSegment> segment = segmentStore.open(nurseryId, month);
+            if (segment.isEmpty()) {
+                continue;
+            }
+            scanHot(nurseryId, hotFrom, monthStart, readTime, action);
+            if (changed == null) {
+                changed = changedSince(nurseryId, checkpoint.getAsLong(), sealed);
+            }
+            scanCold(segment.get(), monthStart, monthEnd, changed.getOrDefault(month, List.of()), action);
+            hotFrom = monthEnd;
+        }
+        scanHot(nurseryId, hotFrom, to, readTime, action);
+    }
+
+    private void scanHot(String nurseryId, LocalDateTime from, LocalDateTime to, Timestamp readTime,
+                         Consumer<TransactionDocument> action) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        repository.forEachByNurseryIdCreatedBetween(nurseryId, timestamp(from), timestamp(to), readTime, pageSize,
+            transaction -> {
+                hotRows.increment();
+                action.accept(transaction);
+            });
+    }
+
+    /**
+     * Merge a segment's rows in [from, to) with the month's changed transactions, which
+     * take precedence over sealed rows with the same ID.
+     */
+    private void scanCold(TransactionSegment segment, LocalDateTime from, LocalDateTime to,
+                          List<TransactionDocument> changed, Consumer<TransactionDocument> action) {
+        List<TransactionDocument> replacements = new ArrayList<>();
+        Set<String> replacedIds = new HashSet<>();
+        for (TransactionDocument transaction : changed) {
+            replacedIds.add(transaction.getId());
+            if (!transaction.getCreatedAt().isBefore(from) && transaction.getCreatedAt().isBefore(to)) {
+                replacements.add(transaction);
+            }
+        }
+        Iterator<TransactionDocument> pending = replacements.iterator();
+        TransactionDocument[] next = {pending.hasNext() ? pending.next() : null};
+
+        segment.forEach(TransactionSegmentWriter.millis(from), TransactionSegmentWriter.millis(to), row -> {
+            while (next[0] != null && CREATED_ORDER.compare(next[0], row) <= 0) {
+                action.accept(next[0]);
+                next[0] = pending.hasNext() ? pending.next() : null;
+            }
+            if (!replacedIds.contains(row.getId())) {
+                coldRows.increment();
+                action.accept(row);
+            }
+        });
+        while (next[0] != null) {
+            action.accept(next[0]);
+            next[0] = pending.hasNext() ? pending.next() : null;
+        }
+    }
+
+    /**
+     * Transactions of sealed months changed after the checkpoint, per month in (createdAt, id) order.
+     */
+    private Map<YearMonth, List<TransactionDocument>> changedSince(String nurseryId, long checkpointMillis,
+                                                                   Set<YearMonth> months) {
+        Map<YearMonth, List<TransactionDocument>> changed = new HashMap<>();
+        SyncCursor cursor = SyncCursor.at(checkpointMillis);
+        SyncPage<TransactionDocument> page;
+        do {
+            page = SyncPage.of(repository.findByNurseryIdChangedAfter(nurseryId, cursor, pageSize), pageSize, cursor,
+                transaction -> false, Function.identity());
+            for (TransactionDocument transaction : page.getItems()) {
+                if (transaction.getCreatedAt() != null && months.contains(YearMonth.from(transaction.getCreatedAt()))) {
+                    changed.computeIfAbsent(YearMonth.from(transaction.getCreatedAt()), month -> new ArrayList<>())
+                        .add(transaction);
+                }
+            }
+            cursor = page.getNext();
+        } while (page.isHasMore());
+        changed.values().forEach(transactions -> transactions.sort(CREATED_ORDER));
+        return changed;
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.of(FirestoreConverter.toDate(dateTime));
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,254 @@
+package com.nursery.transaction.tiering;
+
+import com.nursery.transaction.enumeration.TransactionType;
+import com.nursery.transaction.firestore.TransactionDocument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of a segment file written by {@link TransactionSegmentWriter}.
+ *
+ * The file is memory-mapped once; the footer (dictionary and sparse block index) is decoded
+ * up front and blocks are inflated on demand, so a range scan touches only the blocks that
+ * overlap it. Instances are immutable and safe to share between threads.
+ */
+final class TransactionSegment {
+
+    private final String nurseryId;
+    private final MappedByteBuffer buffer;
+    private final long sealedAtMillis;
+    private final int rowCount;
+    private final String[] dictionary;
+
+    // Sparse index, one entry per block
+    private final long[] blockFirstCreatedAt;
+    private final long[] blockOffset;
+    private final int[] blockCompressedLength;
+    private final int[] blockRawLength;
+    private final int[] blockRows;
+
+    private TransactionSegment(String nurseryId, MappedByteBuffer buffer) {
+        this.nurseryId = nurseryId;
+        this.buffer = buffer;
+
+        ByteBuffer view = buffer.duplicate();
+        if (view.capacity() < 2 * Integer.BYTES + TransactionSegmentWriter.TRAILER_BYTES
+                || view.getInt(0) != TransactionSegmentWriter.MAGIC
+                || view.getInt(view.capacity() - Integer.BYTES) != TransactionSegmentWriter.MAGIC) {
+            throw new IllegalStateException("Not a transaction segment");
+        }
+        if (view.getInt(Integer.BYTES) != TransactionSegmentWriter.VERSION) {
+            throw new IllegalStateException("Unsupported segment version " + view.getInt(Integer.BYTES));
+        }
+
+        view.position((int) view.getLong(view.capacity() - TransactionSegmentWriter.TRAILER_BYTES));
+        this.sealedAtMillis = view.getLong();
+        this.rowCount = view.getInt();
+        this.dictionary = new String[view.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[view.getInt()];
+            view.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int blocks = view.getInt();
+        this.blockFirstCreatedAt = new long[blocks];
+        this.blockOffset = new long[blocks];
+        this.blockCompressedLength = new int[blocks];
+        this.blockRawLength = new int[blocks];
+        this.blockRows = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockFirstCreatedAt[i] = view.getLong();
+            blockOffset[i] = view.getLong();
+            blockCompressedLength[i] = view.getInt();
+            blockRawLength[i] = view.getInt();
+            blockRows[i] = view.getInt();
+        }
+    }
+
+    static TransactionSegment open(String nurseryId, Path file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TransactionSegment(nurseryId, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long getSealedAtMillis() {
+        return sealedAtMillis;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Visit rows created in [fromMillis, toMillis) in (createdAt, id) order.
+     */
+    void forEach(long fromMillis, long toMillis, Consumer<TransactionDocument> action) {
+        Inflater inflater = new Inflater();
+        try {
+            for (int block = firstBlock(fromMillis); block < blockRows.length; block++) {
+                if (blockFirstCreatedAt[block] >= toMillis) {
+                    return;
+                }
+                for (TransactionDocument row : decodeBlock(inflater, block)) {
+                    long createdAt = TransactionSegmentWriter.millis(row.getCreatedAt());
+                    if (createdAt >= toMillis) {
+                        return;
+                    }
+                    if (createdAt >= fromMillis) {
+                        action.accept(row);
+                    }
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Last block starting at or before fromMillis, since it may hold rows from fromMillis on.
+     */
+    private int firstBlock(long fromMillis) {
+        int low = 0;
+        int high = blockFirstCreatedAt.length - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blockFirstCreatedAt[mid] <= fromMillis) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private TransactionDocument[] decodeBlock(Inflater inflater, int block) {
+        ByteBuffer compressed = buffer.duplicate();
+        compressed.position((int) blockOffset[block]);
+        compressed.limit((int) blockOffset[block] + blockCompressedLength[block]);
+        byte[] raw = new byte[blockRawLength[block]];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int length = inflater.inflate(raw);
+            if (length != raw.length) {
+                throw new IllegalStateException("Truncated segment block " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt segment block " + block, e);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        int rows = blockRows[block];
+        TransactionDocument[] documents = new TransactionDocument[rows];
+        for (int i = 0; i < rows; i++) {
+            documents[i] = new TransactionDocument();
+            documents[i].setNurseryId(nurseryId);
+        }
+
+        // Columns in the order TransactionSegmentWriter encodes them
+        ByteBuffer ids = column(in);
+        ByteBuffer createdAt = column(in);
+        ByteBuffer updatedAt = column(in);
+        ByteBuffer deletedAt = column(in);
+        ByteBuffer flags = column(in);
+        ByteBuffer deltas = column(in);
+        ByteBuffer strings = column(in);
+        ByteBuffer reversedBy = column(in);
+        ByteBuffer payments = column(in);
+
+        long[] created = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous = i == 0 ? readVarLong(createdAt) : previous + readVarLong(createdAt);
+            created[i] = previous;
+            TransactionDocument document = documents[i];
+            document.setId(readString(ids, (int) readVarLong(ids)));
+            document.setCreatedAt(toLocalDateTime(created[i]));
+
+            int rowFlags = flags.get();
+            document.setIsDeleted((rowFlags & TransactionSegmentWriter.FLAG_DELETED) != 0);
+            document.setIsUndo((rowFlags & TransactionSegmentWriter.FLAG_UNDO) != 0);
+            if ((rowFlags & TransactionSegmentWriter.FLAG_HAS_DELTA) != 0) {
+                document.setDelta((int) unZigZag(readVarLong(deltas)));
+            }
+            if ((rowFlags & TransactionSegmentWriter.FLAG_HAS_UPDATED_AT) != 0) {
+                document.setUpdatedAt(toLocalDateTime(created[i] + unZigZag(readVarLong(updatedAt))));
+            }
+            if ((rowFlags & TransactionSegmentWriter.FLAG_HAS_DELETED_AT) != 0) {
+                document.setDeletedAt(toLocalDateTime(created[i] + unZigZag(readVarLong(deletedAt))));
+            }
+            if ((rowFlags & TransactionSegmentWriter.FLAG_HAS_PAID_AMOUNT) != 0) {
+                document.setPaidAmountMinor(unZigZag(readVarLong(payments)));
+            }
+            if ((rowFlags & TransactionSegmentWriter.FLAG_HAS_PAYMENT_COUNT) != 0) {
+                document.setPaymentCount(unZigZag(readVarLong(payments)));
+            }
+
+            document.setBreedId(lookup(readVarLong(strings)));
+            String type = lookup(readVarLong(strings));
+            document.setType(type != null ? TransactionType.valueOf(type) : null);
+            document.setReason(lookup(readVarLong(strings)));
+            document.setUserPhone(lookup(readVarLong(strings)));
+            document.setCreatedBy(lookup(readVarLong(strings)));
+            document.setUpdatedBy(lookup(readVarLong(strings)));
+            document.setDeletedBy(lookup(readVarLong(strings)));
+
+            long reversedByLength = readVarLong(reversedBy);
+            document.setReversedByTxnId(reversedByLength == 0 ? null : readString(reversedBy, (int) reversedByLength - 1));
+        }
+        return documents;
+    }
+
+    private static ByteBuffer column(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        ByteBuffer column = in.slice();
+        column.limit(length);
+        in.position(in.position() + length);
+        return column;
+    }
+
+    private String lookup(long reference) {
+        return reference == 0 ? null : dictionary[(int) reference - 1];
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
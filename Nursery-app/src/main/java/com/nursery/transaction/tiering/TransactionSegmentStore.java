@@ -0,0 +1,154 @@
+package com.nursery.transaction.tiering;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nursery.transaction.firestore.TransactionDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+/**
+ * Local directory of sealed transaction segments: {@code <directory>/<nurseryId>/<yyyy-MM>.seg}.
+ *
+ * Each nursery directory also holds a checkpoint: the instant up to which its segments are
+ * known to match Firestore. Transactions changed after it may differ from their sealed copy
+ * and are read from Firestore instead. Segments are per instance; an instance without them
+ * simply reads Firestore until its own tiering run has sealed them.
+ */
+@Slf4j
+@Component
+public class TransactionSegmentStore {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final Pattern SAFE_NURSERY_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+
+    private final Path directory;
+    private final Map<String, NavigableSet<YearMonth>> sealedMonths = new ConcurrentHashMap<>();
+    private final Map<String, OptionalLong> checkpoints = new ConcurrentHashMap<>();
+    private final Cache<Path, TransactionSegment> openSegments;
+
+    public TransactionSegmentStore(@Value("${tiering.directory:data/transaction-segments}") String directory,
+                                   @Value("${tiering.max-open-segments:256}") long maxOpenSegments) {
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.openSegments = Caffeine.newBuilder()
+            .maximumSize(maxOpenSegments)
+            .build();
+    }
+
+    /**
+     * Segments are only kept for nursery IDs that are safe as directory names.
+     */
+    boolean supports(String nurseryId) {
+        return nurseryId != null && SAFE_NURSERY_ID.matcher(nurseryId).matches();
+    }
+
+    NavigableSet<YearMonth> sealedMonths(String nurseryId) {
+        if (!supports(nurseryId)) {
+            return new ConcurrentSkipListSet<>();
+        }
+        return sealedMonths.computeIfAbsent(nurseryId, this::listSealedMonths);
+    }
+
+    OptionalLong checkpoint(String nurseryId) {
+        if (!supports(nurseryId)) {
+            return OptionalLong.empty();
+        }
+        return checkpoints.computeIfAbsent(nurseryId, this::readCheckpoint);
+    }
+
+    Optional<TransactionSegment> open(String nurseryId, YearMonth month) {
+        if (!sealedMonths(nurseryId).contains(month)) {
+            return Optional.empty();
+        }
+        Path file = segmentFile(nurseryId, month);
+        try {
+            return Optional.of(openSegments.get(file, path -> {
+                try {
+                    return TransactionSegment.open(nurseryId, path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // A missing or damaged segment is dropped and sealed again by the next tiering run
+            log.warn("Discarding unreadable transaction segment {}", file, e);
+            sealedMonths(nurseryId).remove(month);
+            checkpoints.put(nurseryId, OptionalLong.empty());
+            return Optional.empty();
+        }
+    }
+
+    void write(String nurseryId, YearMonth month, long sealedAtMillis, List<TransactionDocument> rows) throws IOException {
+        Path file = segmentFile(nurseryId, month);
+        TransactionSegmentWriter.write(file, sealedAtMillis, rows);
+        openSegments.invalidate(file);
+        sealedMonths(nurseryId).add(month);
+    }
+
+    void saveCheckpoint(String nurseryId, long checkpointMillis) throws IOException {
+        Path file = directory.resolve(nurseryId).resolve(CHECKPOINT_FILE);
+        Path temp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.createDirectories(file.getParent());
+        Files.writeString(temp, Long.toString(checkpointMillis), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoints.put(nurseryId, OptionalLong.of(checkpointMillis));
+    }
+
+    private Path segmentFile(String nurseryId, YearMonth month) {
+        return directory.resolve(nurseryId).resolve(month + SEGMENT_SUFFIX);
+    }
+
+    private NavigableSet<YearMonth> listSealedMonths(String nurseryId) {
+        NavigableSet<YearMonth> months = new ConcurrentSkipListSet<>();
+        Path nurseryDirectory = directory.resolve(nurseryId);
+        if (!Files.isDirectory(nurseryDirectory)) {
+            return months;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(nurseryDirectory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    months.add(YearMonth.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    log.warn("Ignoring unexpected file {} in transaction segment directory", file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list transaction segments of nurseryId={}", nurseryId, e);
+        }
+        return months;
+    }
+
+    private OptionalLong readCheckpoint(String nurseryId) {
+        Path file = directory.resolve(nurseryId).resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim()));
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Ignoring unreadable transaction segment checkpoint {}", file, e);
+            return OptionalLong.empty();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.nursery.transaction.tiering;
+
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.transaction.firestore.TransactionDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one immutable transaction segment file.
+ *
+ * Layout: header, compressed blocks, footer, trailer.
+ * <ul>
+ *   <li>header: magic, format version</li>
+ *   <li>block: up to {@value #ROWS_PER_BLOCK} rows in (createdAt, id) order, stored column by
+ *       column and deflated as a whole; times are deltas, low-cardinality strings are indexes
+ *       into the file's dictionary</li>
+ *   <li>footer: sealedAt, row count, string dictionary, and the sparse index - one entry per
+ *       block with its first createdAt, offset and lengths</li>
+ *   <li>trailer: footer offset, magic</li>
+ * </ul>
+ * The file is written to a temporary path and moved into place, so readers never see a
+ * partial segment.
+ */
+final class TransactionSegmentWriter {
+
+    static final int MAGIC = 0x4E545347; // "NTSG"
+    // Version 2 added the payment totals; older segments are dropped and sealed again
+    static final int VERSION = 2;
+    static final int ROWS_PER_BLOCK = 1024;
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    static final int FLAG_DELETED = 1;
+    static final int FLAG_UNDO = 1 << 1;
+    static final int FLAG_HAS_DELTA = 1 << 2;
+    static final int FLAG_HAS_UPDATED_AT = 1 << 3;
+    static final int FLAG_HAS_DELETED_AT = 1 << 4;
+    static final int FLAG_HAS_PAID_AMOUNT = 1 << 5;
+    static final int FLAG_HAS_PAYMENT_COUNT = 1 << 6;
+
+    private TransactionSegmentWriter() {
+    }
+
+    /**
+     * Write rows, already sorted by (createdAt, id), as the segment at file.
+     */
+    static void write(Path file, long sealedAtMillis, List<TransactionDocument> rows) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (TransactionDocument row : rows) {
+            intern(dictionary, row.getBreedId());
+            intern(dictionary, row.getType() != null ? row.getType().name() : null);
+            intern(dictionary, row.getReason());
+            intern(dictionary, row.getUserPhone());
+            intern(dictionary, row.getCreatedBy());
+            intern(dictionary, row.getUpdatedBy());
+            intern(dictionary, row.getDeletedBy());
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.getParent());
+        List<long[]> index = new ArrayList<>();
+        try (CountingOutputStream counting = new CountingOutputStream(Files.newOutputStream(temp));
+             DataOutputStream out = new DataOutputStream(counting)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (int start = 0; start < rows.size(); start += ROWS_PER_BLOCK) {
+                    List<TransactionDocument> block = rows.subList(start, Math.min(start + ROWS_PER_BLOCK, rows.size()));
+                    byte[] raw = encodeBlock(block, dictionary);
+                    byte[] compressed = deflate(deflater, raw);
+                    out.flush();
+                    index.add(new long[]{millis(block.get(0).getCreatedAt()), counting.count,
+                        compressed.length, raw.length, block.size()});
+                    out.write(compressed);
+                }
+            } finally {
+                deflater.end();
+            }
+
+            out.flush();
+            long footerOffset = counting.count;
+            out.writeLong(sealedAtMillis);
+            out.writeInt(rows.size());
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(index.size());
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeInt((int) entry[2]);
+                out.writeInt((int) entry[3]);
+                out.writeInt((int) entry[4]);
+            }
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] encodeBlock(List<TransactionDocument> block, Map<String, Integer> dictionary) {
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        ByteArrayOutputStream createdAt = new ByteArrayOutputStream();
+        ByteArrayOutputStream updatedAt = new ByteArrayOutputStream();
+        ByteArrayOutputStream deletedAt = new ByteArrayOutputStream();
+        ByteArrayOutputStream flags = new ByteArrayOutputStream();
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteArrayOutputStream reversedBy = new ByteArrayOutputStream();
+        ByteArrayOutputStream payments = new ByteArrayOutputStream();
+
+        long previousCreatedAt = millis(block.get(0).getCreatedAt());
+        writeVarLong(createdAt, previousCreatedAt);
+        for (TransactionDocument row : block) {
+            long created = millis(row.getCreatedAt());
+            writeString(ids, row.getId());
+            // Rows are sorted, so deltas after the first row are never negative
+            if (row != block.get(0)) {
+                writeVarLong(createdAt, created - previousCreatedAt);
+            }
+            previousCreatedAt = created;
+
+            int rowFlags = 0;
+            if (Boolean.TRUE.equals(row.getIsDeleted())) {
+                rowFlags |= FLAG_DELETED;
+            }
+            if (Boolean.TRUE.equals(row.getIsUndo())) {
+                rowFlags |= FLAG_UNDO;
+            }
+            if (row.getDelta() != null) {
+                rowFlags |= FLAG_HAS_DELTA;
+                writeVarLong(deltas, zigZag(row.getDelta()));
+            }
+            if (row.getUpdatedAt() != null) {
+                rowFlags |= FLAG_HAS_UPDATED_AT;
+                writeVarLong(updatedAt, zigZag(millis(row.getUpdatedAt()) - created));
+            }
+            if (row.getDeletedAt() != null) {
+                rowFlags |= FLAG_HAS_DELETED_AT;
+                writeVarLong(deletedAt, zigZag(millis(row.getDeletedAt()) - created));
+            }
+            if (row.getPaidAmountMinor() != null) {
+                rowFlags |= FLAG_HAS_PAID_AMOUNT;
+                writeVarLong(payments, zigZag(row.getPaidAmountMinor()));
+            }
+            if (row.getPaymentCount() != null) {
+                rowFlags |= FLAG_HAS_PAYMENT_COUNT;
+                writeVarLong(payments, zigZag(row.getPaymentCount()));
+            }
+            flags.write(rowFlags);
+
+            writeVarLong(strings, reference(dictionary, row.getBreedId()));
+            writeVarLong(strings, reference(dictionary, row.getType() != null ? row.getType().name() : null));
+            writeVarLong(strings, reference(dictionary, row.getReason()));
+            writeVarLong(strings, reference(dictionary, row.getUserPhone()));
+            writeVarLong(strings, reference(dictionary, row.getCreatedBy()));
+            writeVarLong(strings, reference(dictionary, row.getUpdatedBy()));
+            writeVarLong(strings, reference(dictionary, row.getDeletedBy()));
+            writeNullableString(reversedBy, row.getReversedByTxnId());
+        }
+
+        // Columns in the order TransactionSegment decodes them
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ByteArrayOutputStream column : List.of(ids, createdAt, updatedAt, deletedAt, flags, deltas, strings, reversedBy,
+                payments)) {
+            writeVarLong(out, column.size());
+            out.writeBytes(column.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    private static void intern(Map<String, Integer> dictionary, String value) {
+        if (value != null) {
+            dictionary.putIfAbsent(value, dictionary.size());
+        }
+    }
+
+    /**
+     * Dictionary reference: 0 for null, otherwise index + 1.
+     */
+    private static long reference(Map<String, Integer> dictionary, String value) {
+        return value == null ? 0 : dictionary.get(value) + 1;
+    }
+
+    static long millis(LocalDateTime dateTime) {
+        return FirestoreConverter.toDate(dateTime).getTime();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Length + 1, so 0 stands for null.
+     */
+    private static void writeNullableString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(new BufferedOutputStream(out, 64 * 1024));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
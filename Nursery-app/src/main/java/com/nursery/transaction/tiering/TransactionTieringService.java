@@ -0,0 +1,205 @@
+package com.nursery.transaction.tiering;
+
+import com.google.cloud.Timestamp;
+import com.nursery.common.firestore.FirestoreConverter;
+import com.nursery.common.firestore.sync.SyncCursor;
+import com.nursery.common.firestore.sync.SyncPage;
+import com.nursery.nursery.firestore.NurseryDocument;
+import com.nursery.nursery.firestore.NurseryFirestoreRepository;
+import com.nursery.transaction.firestore.TransactionDocument;
+import com.nursery.transaction.firestore.TransactionFirestoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Seals aged transaction history into local segment files.
+ *
+ * Every tiering.interval-minutes, each nursery's months that ended more than
+ * tiering.seal-after-days ago are read from Firestore once and written as a segment.
+ * Months whose transactions changed since the nursery's checkpoint (edits, deletions,
+ * compensations of old rows) are sealed again, then the checkpoint advances to the start
+ * of the run, less tiering.settle-seconds for writes still in flight.
+ * Firestore stays the source of truth; segments only spare reads of history.
+ */
+@Slf4j
+@Component
+public class TransactionTieringService {
+
+    private final NurseryFirestoreRepository nurseryRepository;
+    private final TransactionFirestoreRepository transactionRepository;
+    private final TransactionSegmentStore segmentStore;
+    private final Duration sealAfter;
+    private final long settleMillis;
+    private final int maxNewMonthsPerRun;
+    private final int pageSize;
+
+    private final ScheduledExecutorService scheduler;
+    private final Counter sealedSegments;
+    private final Counter sealedRows;
+    private final Counter failedNurseries;
+    private final Timer runTimer;
+
+    public TransactionTieringService(NurseryFirestoreRepository nurseryRepository,
+                                     TransactionFirestoreRepository transactionRepository,
+                                     TransactionSegmentStore segmentStore,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${tiering.enabled:true}") boolean enabled,
+                                     @Value("${tiering.seal-after-days:90}") long sealAfterDays,
+                                     @Value("${tiering.interval-minutes:360}") long intervalMinutes,
+                                     @Value("${tiering.settle-seconds:60}") long settleSeconds,
+                                     @Value("${tiering.max-new-months-per-run:24}") int maxNewMonthsPerRun,
+                                     @Value("${tiering.page-size:500}") int pageSize) {
+        this.nurseryRepository = nurseryRepository;
+        this.transactionRepository = transactionRepository;
+        this.segmentStore = segmentStore;
+        this.sealAfter = Duration.ofDays(sealAfterDays);
+        this.settleMillis = TimeUnit.SECONDS.toMillis(settleSeconds);
+        this.maxNewMonthsPerRun = maxNewMonthsPerRun;
+        this.pageSize = pageSize;
+
+        this.sealedSegments = Counter.builder("tiering.segments.sealed")
+            .description("Transaction segment files written")
+            .register(meterRegistry);
+        this.sealedRows = Counter.builder("tiering.rows.sealed")
+            .description("Transactions written to segment files")
+            .register(meterRegistry);
+        this.failedNurseries = Counter.builder("tiering.nurseries.failed")
+            .description("Nurseries whose tiering run failed")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("tiering.run")
+            .description("Duration of one tiering run over all nurseries")
+            .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "transaction-tiering");
+            t.setDaemon(true);
+            return t;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(() -> runTimer.record(this::run), 1, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void run() {
+        List<NurseryDocument> nurseries;
+        try {
+            nurseries = nurseryRepository.findNonDeleted();
+        } catch (RuntimeException e) {
+            log.error("Tiering run could not list nurseries", e);
+            return;
+        }
+        for (NurseryDocument nursery : nurseries) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (!segmentStore.supports(nursery.getId())) {
+                continue;
+            }
+            try {
+                tier(nursery.getId());
+            } catch (IOException | RuntimeException e) {
+                // The checkpoint did not advance, so the next run repeats the work
+                failedNurseries.increment();
+                log.error("Tiering failed for nurseryId={}", nursery.getId(), e);
+            }
+        }
+    }
+
+    private void tier(String nurseryId) throws IOException {
+        long runStartMillis = System.currentTimeMillis() - settleMillis;
+        NavigableSet<YearMonth> sealed = segmentStore.sealedMonths(nurseryId);
+        OptionalLong checkpoint = segmentStore.checkpoint(nurseryId);
+
+        // Without a checkpoint, existing segments cannot be trusted and are all sealed again
+        Set<YearMonth> stale = checkpoint.isPresent()
+            ? changedMonths(nurseryId, checkpoint.getAsLong(), sealed)
+            : new TreeSet<>(sealed);
+
+        Set<YearMonth> unsealed = new TreeSet<>();
+        YearMonth lastEligible = YearMonth.from(LocalDateTime.now().minus(sealAfter)).minusMonths(1);
+        Optional<TransactionDocument> oldest = transactionRepository.findOldestByNurseryId(nurseryId);
+        if (oldest.isPresent() && oldest.get().getCreatedAt() != null) {
+            for (YearMonth month = YearMonth.from(oldest.get().getCreatedAt());
+                 !month.isAfter(lastEligible) && unsealed.size() < maxNewMonthsPerRun;
+                 month = month.plusMonths(1)) {
+                if (!sealed.contains(month)) {
+                    unsealed.add(month);
+                }
+            }
+        }
+
+        for (YearMonth month : stale) {
+            seal(nurseryId, month);
+        }
+        for (YearMonth month : unsealed) {
+            seal(nurseryId, month);
+        }
+        if (!stale.isEmpty() || !unsealed.isEmpty() || checkpoint.isEmpty()) {
+            log.info("Tiered nurseryId={}: {} months resealed, {} months sealed", nurseryId, stale.size(), unsealed.size());
+        }
+        segmentStore.saveCheckpoint(nurseryId, runStartMillis);
+    }
+
+    /**
+     * Sealed months holding transactions that changed after the checkpoint.
+     */
+    private Set<YearMonth> changedMonths(String nurseryId, long checkpointMillis, Set<YearMonth> sealed) {
+        Set<YearMonth> changed = new TreeSet<>();
+        SyncCursor cursor = SyncCursor.at(checkpointMillis);
+        SyncPage<TransactionDocument> page;
+        do {
+            page = SyncPage.of(transactionRepository.findByNurseryIdChangedAfter(nurseryId, cursor, pageSize), pageSize,
+                cursor, transaction -> false, Function.identity());
+            for (TransactionDocument transaction : page.getItems()) {
+                if (transaction.getCreatedAt() != null && sealed.contains(YearMonth.from(transaction.getCreatedAt()))) {
+                    changed.add(YearMonth.from(transaction.getCreatedAt()));
+                }
+            }
+            cursor = page.getNext();
+        } while (page.isHasMore());
+        return changed;
+    }
+
+    private void seal(String nurseryId, YearMonth month) throws IOException {
+        long sealedAtMillis = System.currentTimeMillis();
+        List<TransactionDocument> rows = new ArrayList<>();
+        transactionRepository.forEachByNurseryIdCreatedBetween(nurseryId,
+            timestamp(month.atDay(1).atStartOfDay()), timestamp(month.plusMonths(1).atDay(1).atStartOfDay()),
+            Timestamp.now(), pageSize, rows::add);
+        // Firestore returns (createdAt, id) order; sort anyway so the segment invariant never depends on it
+        rows.sort(TransactionHistoryReader.CREATED_ORDER);
+        segmentStore.write(nurseryId, month, sealedAtMillis, rows);
+        sealedSegments.increment();
+        sealedRows.increment(rows.size());
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.of(FirestoreConverter.toDate(dateTime));
+    }
+}
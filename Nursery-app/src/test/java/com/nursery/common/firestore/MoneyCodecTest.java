@@ -0,0 +1,35 @@
+package com.nursery.common.firestore;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyCodecTest {
+
+    @Test
+    void encodesEveryScaleOfTheSameAmountAsCents() {
+        for (String amount : new String[]{"10.5", "10.50", "10.500"}) {
+            Map<String, Object> encoded = MoneyCodec.encode(new BigDecimal(amount));
+            assertEquals(1050L, encoded.get(MoneyCodec.MINOR), amount);
+            assertEquals(2L, encoded.get(MoneyCodec.SCALE), amount);
+            assertEquals(1050L, MoneyCodec.minorUnits(encoded, MoneyCodec.DEFAULT_SCALE), amount);
+            assertEquals(new BigDecimal("10.50"), MoneyCodec.decode(encoded), amount);
+        }
+    }
+
+    @Test
+    void rejectsSubCentAmounts() {
+        assertThrows(IllegalArgumentException.class, () -> MoneyCodec.encode(new BigDecimal("10.005")));
+    }
+
+    @Test
+    void encodesWholeAmountsAtTwoDecimalPlaces() {
+        Map<String, Object> encoded = MoneyCodec.encode(new BigDecimal("1E+1"));
+        assertEquals(1000L, encoded.get(MoneyCodec.MINOR));
+        assertEquals(2L, encoded.get(MoneyCodec.SCALE));
+    }
+}
@@ -15,5 +15,6 @@ export interface PaginatedResponse<T> {
   hasPrevious: boolean
   isFirst: boolean
   isLast: boolean
+  nextCursor?: string
 }
 